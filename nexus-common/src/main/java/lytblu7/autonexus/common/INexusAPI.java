@@ -1,12 +1,18 @@
 package lytblu7.autonexus.common;
 
 import lytblu7.autonexus.common.model.NexusPlayer;
+import lytblu7.autonexus.common.model.EconomyStats;
+import lytblu7.autonexus.common.model.HistoryFilter;
+import lytblu7.autonexus.common.model.HistoryPage;
 import lytblu7.autonexus.common.model.LeaderboardEntry;
+import lytblu7.autonexus.common.model.LeaderboardRank;
+import lytblu7.autonexus.common.model.LeaderboardWindow;
 import lytblu7.autonexus.common.model.ServerInfo;
 import lytblu7.autonexus.common.model.NexusProfile;
 import lytblu7.autonexus.common.event.NexusEventBus;
 import lytblu7.autonexus.common.meta.MetadataManager;
 import lytblu7.autonexus.common.api.NexusMessageListener;
+import lytblu7.autonexus.common.api.NameCompletionService;
 
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -106,6 +112,89 @@ public interface INexusAPI {
         return f;
     }
 
+    /**
+     * Pages through a leaderboard of one period. ALL_TIME ranks balances like {@link #getTop(String, int, int)};
+     * the other windows rank the amounts earned during the current day, week or month.
+     */
+    default CompletableFuture<java.util.List<LeaderboardEntry>> getTop(String group, LeaderboardWindow window, int offset, int limit) {
+        if (window == null || window == LeaderboardWindow.ALL_TIME) {
+            return getTop(group, offset, limit);
+        }
+        CompletableFuture<java.util.List<LeaderboardEntry>> f = new CompletableFuture<>();
+        f.completeExceptionally(new UnsupportedOperationException("windowed getTop is not supported on this platform"));
+        return f;
+    }
+
+    /**
+     * @return The player's 1-based position on the group's leaderboard; unranked if the player is not on it
+     */
+    default CompletableFuture<LeaderboardRank> getRank(UUID uuid, String group) {
+        CompletableFuture<LeaderboardRank> f = new CompletableFuture<>();
+        f.completeExceptionally(new UnsupportedOperationException("getRank is not supported on this platform"));
+        return f;
+    }
+
+    /**
+     * Like {@link #getRank(UUID, String)}, plus up to {@code radius} rows above and below the player.
+     */
+    default CompletableFuture<LeaderboardRank> getAround(UUID uuid, String group, int radius) {
+        CompletableFuture<LeaderboardRank> f = new CompletableFuture<>();
+        f.completeExceptionally(new UnsupportedOperationException("getAround is not supported on this platform"));
+        return f;
+    }
+
+    /**
+     * Pages through the leaderboard of a ranked metadata key (see leaderboard.ranked-keys in the proxy config).
+     * @param field The stored field name, e.g. "kills" or "kills_lobby" for a group-scoped key
+     */
+    default CompletableFuture<java.util.List<LeaderboardEntry>> getMetadataTop(String field, int offset, int limit) {
+        CompletableFuture<java.util.List<LeaderboardEntry>> f = new CompletableFuture<>();
+        f.completeExceptionally(new UnsupportedOperationException("getMetadataTop is not supported on this platform"));
+        return f;
+    }
+
+    default CompletableFuture<LeaderboardRank> getMetadataRank(UUID uuid, String field) {
+        return getMetadataAround(uuid, field, 0);
+    }
+
+    default CompletableFuture<LeaderboardRank> getMetadataAround(UUID uuid, String field, int radius) {
+        CompletableFuture<LeaderboardRank> f = new CompletableFuture<>();
+        f.completeExceptionally(new UnsupportedOperationException("getMetadataAround is not supported on this platform"));
+        return f;
+    }
+
+    /**
+     * Pages through a player's economy history, newest first. Pass {@link HistoryPage#getNextCursor()} as
+     * {@code fromCursor} to read the next page; null starts at the newest entry.
+     */
+    default CompletableFuture<HistoryPage> getHistory(UUID uuid, String fromCursor, int limit, HistoryFilter filter) {
+        CompletableFuture<HistoryPage> f = new CompletableFuture<>();
+        f.completeExceptionally(new UnsupportedOperationException("getHistory is not supported on this platform"));
+        return f;
+    }
+
+    /**
+     * Sums what a player earned and spent of a balance field over a range of UTC days, as counted by
+     * {@link LeaderboardWindow#today()}. Daily totals are kept for 35 days; older days count as zero.
+     * @param field The stored balance field, e.g. "balance" or "balance_survival"
+     */
+    default CompletableFuture<EconomyStats> getEconomyStats(UUID uuid, String field, long firstDay, long lastDay) {
+        CompletableFuture<EconomyStats> f = new CompletableFuture<>();
+        f.completeExceptionally(new UnsupportedOperationException("getEconomyStats is not supported on this platform"));
+        return f;
+    }
+
+    /**
+     * Like {@link #getEconomyStats(UUID, String, long, long)} for the current day, week or month; ALL_TIME covers
+     * every day still kept.
+     */
+    default CompletableFuture<EconomyStats> getEconomyStats(UUID uuid, String field, LeaderboardWindow window) {
+        long today = LeaderboardWindow.today();
+        LeaderboardWindow w = window != null ? window : LeaderboardWindow.DAILY;
+        long first = w == LeaderboardWindow.ALL_TIME ? Long.MIN_VALUE : w.firstDay(today);
+        return getEconomyStats(uuid, field, first, today);
+    }
+
     default CompletableFuture<java.util.List<String>> getGlobalHistory(UUID uuid, int limit) {
         return CompletableFuture.completedFuture(java.util.Collections.emptyList());
     }
@@ -122,6 +211,13 @@ public interface INexusAPI {
         throw new UnsupportedOperationException("unregisterMessageListener is not supported on this platform");
     }
     
+    /**
+     * Returns a prefix index over the names of players online on the network, e.g. for tab-completion.
+     */
+    default NameCompletionService getNameCompletion() {
+        throw new UnsupportedOperationException("getNameCompletion is not supported on this platform");
+    }
+
     default java.util.List<ServerInfo> getServers() {
         throw new UnsupportedOperationException("getServers is not supported on this platform");
     }
@@ -0,0 +1,35 @@
+package lytblu7.autonexus.common;
+
+/**
+ * Wall clock shared by every node: the local clock corrected by its last measured offset to the Redis server's
+ * clock. Day buckets are keyed by this clock, so nodes whose own clocks drift still write to the same day.
+ */
+public final class NetworkClock {
+    private static volatile long offsetMillis;
+
+    private NetworkClock() {
+    }
+
+    /**
+     * @return The Redis server's time in epoch milliseconds, as far as this node knows it
+     */
+    public static long currentTimeMillis() {
+        return System.currentTimeMillis() + offsetMillis;
+    }
+
+    /**
+     * Records a reading of the Redis clock.
+     * @param sentAt Local time the TIME command was sent
+     * @param receivedAt Local time its reply arrived
+     * @param seconds The reply's seconds
+     * @param micros The reply's microseconds
+     */
+    public static void sync(long sentAt, long receivedAt, long seconds, long micros) {
+        // The server read its clock about halfway through the round trip
+        offsetMillis = seconds * 1000L + micros / 1000L - (sentAt + (receivedAt - sentAt) / 2);
+    }
+
+    public static long getOffsetMillis() {
+        return offsetMillis;
+    }
+}
@@ -0,0 +1,166 @@
+package lytblu7.autonexus.common;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Coalesces binary packet frames bound for the same Pub/Sub channel into one batch frame.
+ * <p>
+ * The first frame queued for a channel opens a window; the queue is published when the window closes or as soon
+ * as it holds {@code maxPackets} frames or {@code maxBytes} bytes, whichever comes first. A queue holding a single
+ * frame is published as that frame. Frames of one channel are published in the order they were queued.
+ */
+public final class PacketBatcher {
+    private static final String[] BUCKETS = {"1", "2-3", "4-7", "8-15", "16-31", "32-63", "64+"};
+
+    /**
+     * Publishes one frame on a channel.
+     */
+    public interface Sink {
+        CompletableFuture<Long> publish(String channel, byte[] frame);
+    }
+
+    private static final class Pending {
+        private final List<byte[]> frames = new ArrayList<>();
+        private final List<CompletableFuture<Long>> futures = new ArrayList<>();
+        private int bytes;
+        private ScheduledFuture<?> timer;
+    }
+
+    private final Sink sink;
+    private final long windowMicros;
+    private final int maxPackets;
+    private final int maxBytes;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Pending> pending = new HashMap<>();
+    // Published frames by number of packets they carried, in the buckets above
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS.length);
+
+    /**
+     * @param windowMicros How long the first packet of a batch may wait for others
+     * @param maxPackets Packets after which a batch is published without waiting for the window
+     * @param maxBytes Encoded size after which a batch is published without waiting for the window
+     */
+    public PacketBatcher(Sink sink, long windowMicros, int maxPackets, int maxBytes) {
+        this.sink = sink;
+        this.windowMicros = Math.max(1L, windowMicros);
+        this.maxPackets = Math.max(1, maxPackets);
+        this.maxBytes = Math.max(1, maxBytes);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "AutoNexus-PacketBatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a frame for {@code channel}.
+     * @return The number of receivers of the publish that carried the frame
+     */
+    public CompletableFuture<Long> submit(String channel, byte[] frame) {
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        synchronized (pending) {
+            Pending batch = pending.computeIfAbsent(channel, c -> new Pending());
+            batch.frames.add(frame);
+            batch.futures.add(future);
+            batch.bytes += frame.length;
+            if (batch.frames.size() >= maxPackets || batch.bytes >= maxBytes) {
+                if (batch.timer != null) {
+                    batch.timer.cancel(false);
+                }
+                pending.remove(channel);
+                publish(channel, batch);
+            } else if (batch.timer == null) {
+                try {
+                    batch.timer = scheduler.schedule(() -> flush(channel, batch), windowMicros, TimeUnit.MICROSECONDS);
+                } catch (java.util.concurrent.RejectedExecutionException closed) {
+                    pending.remove(channel);
+                    publish(channel, batch);
+                }
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Publishes every queued batch now.
+     */
+    public void flushAll() {
+        synchronized (pending) {
+            for (Map.Entry<String, Pending> e : pending.entrySet()) {
+                if (e.getValue().timer != null) {
+                    e.getValue().timer.cancel(false);
+                }
+                publish(e.getKey(), e.getValue());
+            }
+            pending.clear();
+        }
+    }
+
+    /**
+     * Publishes what is queued and stops the window timer; frames submitted afterwards are published right away.
+     */
+    public void close() {
+        flushAll();
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * @return Published frames per batch size bucket, as "size=count" pairs
+     */
+    public String describeHistogram() {
+        StringBuilder out = new StringBuilder();
+        long publishes = 0L;
+        for (int i = 0; i < BUCKETS.length; i++) {
+            long count = histogram.get(i);
+            publishes += count;
+            if (out.length() > 0) {
+                out.append(' ');
+            }
+            out.append(BUCKETS[i]).append('=').append(count);
+        }
+        return out.append(" (").append(publishes).append(" publishes)").toString();
+    }
+
+    private void flush(String channel, Pending batch) {
+        synchronized (pending) {
+            // A batch that filled up was already published and replaced
+            if (pending.get(channel) != batch) {
+                return;
+            }
+            pending.remove(channel);
+            publish(channel, batch);
+        }
+    }
+
+    // Called with the lock held, so batches of one channel reach the connection in order
+    private void publish(String channel, Pending batch) {
+        int size = batch.frames.size();
+        histogram.incrementAndGet(Math.min(BUCKETS.length - 1, 31 - Integer.numberOfLeadingZeros(size)));
+        byte[] frame = size == 1 ? batch.frames.get(0) : PacketIO.encodeBatch(batch.frames);
+        CompletableFuture<Long> published;
+        try {
+            published = sink.publish(channel, frame);
+        } catch (Exception e) {
+            published = CompletableFuture.failedFuture(e);
+        }
+        List<CompletableFuture<Long>> futures = batch.futures;
+        published.whenComplete((receivers, ex) -> {
+            for (CompletableFuture<Long> f : futures) {
+                if (ex != null) {
+                    f.completeExceptionally(ex);
+                } else {
+                    f.complete(receivers);
+                }
+            }
+        });
+    }
+}
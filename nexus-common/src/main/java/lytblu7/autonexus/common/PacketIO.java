@@ -1,28 +1,356 @@
 package lytblu7.autonexus.common;
 
-import com.google.common.io.ByteArrayDataInput;
 import com.google.common.io.ByteArrayDataOutput;
 import com.google.common.io.ByteStreams;
+import lytblu7.autonexus.common.model.PlayerInvalidation;
+import lytblu7.autonexus.common.model.ServerInfo;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Binary framing of network packets.
+ * <p>
+ * A frame starts with a header: magic byte, protocol version, packet id from the {@link PacketRegistry}
+ * (0xFFFF followed by the type string for plugin-defined types), flags, target, optional target group,
+ * optional sender (two longs when it is a UUID) and the send time. The body is typed for the packet types
+ * that have a fixed payload shape and a plain string for everything else; decoding always restores the
+ * exact payload string, so handlers see the same packet as with the JSON envelope.
+ * <p>
+ * JSON messages never start with the magic byte (it is not a valid first byte of UTF-8), which is how
+ * receivers tell both formats apart on the same channel.
+ * <p>
+ * A batch frame (version 2) carries several frames published together: the magic byte, its version,
+ * the batch id 0xFFFE, the number of frames and each frame with its length.
+ */
 public class PacketIO {
-    
-    public static byte[] encode(NexusPacket packet) {
+    /**
+     * Highest frame version this build reads.
+     */
+    public static final int PROTOCOL_VERSION = 2;
+    /**
+     * Lowest negotiated version that may be sent batch frames.
+     */
+    public static final int BATCH_VERSION = 2;
+
+    // Single frames keep the layout of version 1, so they stay readable by version 1 nodes
+    private static final int FRAME_VERSION = 1;
+    private static final byte MAGIC = (byte) 0xA7;
+    private static final int CUSTOM_TYPE = 0xFFFF;
+    private static final int BATCH = 0xFFFE;
+
+    private static final int FLAG_GROUP = 1;
+    private static final int FLAG_SENDER_UUID = 1 << 1;
+    private static final int FLAG_SENDER_TEXT = 1 << 2;
+    private static final int FLAG_RAW_BODY = 1 << 3;
+
+    /**
+     * One decoded frame: the packet together with the envelope fields of its header.
+     */
+    public static final class Frame {
+        private final String target;
+        private final NexusPacket packet;
+        private final long timestamp;
+
+        public Frame(String target, NexusPacket packet, long timestamp) {
+            this.target = target;
+            this.packet = packet;
+            this.timestamp = timestamp;
+        }
+
+        public String getTarget() {
+            return target;
+        }
+
+        public NexusPacket getPacket() {
+            return packet;
+        }
+
+        /**
+         * @return When the sender encoded the frame, in epoch milliseconds
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 0 && data[0] == MAGIC;
+    }
+
+    public static byte[] encode(String target, NexusPacket packet) {
+        PacketType type = PacketRegistry.getByName(packet.getType());
+        byte[] body = type != null ? typedBody(type, packet.getPayload()) : null;
+        String sender = packet.getSenderUuid();
+        UUID senderUuid = sender != null ? parseUuid(sender) : null;
+        if (senderUuid != null && !senderUuid.toString().equals(sender)) {
+            senderUuid = null;
+        }
+
+        int flags = 0;
+        if (packet.getTargetGroup() != null) flags |= FLAG_GROUP;
+        if (senderUuid != null) {
+            flags |= FLAG_SENDER_UUID;
+        } else if (sender != null) {
+            flags |= FLAG_SENDER_TEXT;
+        }
+        if (body == null) flags |= FLAG_RAW_BODY;
+
         ByteArrayDataOutput out = ByteStreams.newDataOutput();
-        out.writeUTF(packet.getType());
-        out.writeUTF(packet.getPayload());
+        out.writeByte(MAGIC);
+        out.writeByte(FRAME_VERSION);
+        out.writeShort(type != null ? PacketRegistry.getId(type) : CUSTOM_TYPE);
+        out.writeByte(flags);
+        if (type == null) {
+            writeString(out, packet.getType());
+        }
+        writeString(out, target);
+        if ((flags & FLAG_GROUP) != 0) {
+            writeString(out, packet.getTargetGroup());
+        }
+        if (senderUuid != null) {
+            writeUuid(out, senderUuid);
+        } else if (sender != null) {
+            writeString(out, sender);
+        }
+        out.writeLong(System.currentTimeMillis());
+        if (body != null) {
+            out.write(body);
+        } else {
+            writeString(out, packet.getPayload());
+        }
         return out.toByteArray();
     }
 
-    public static NexusPacket decode(byte[] data) {
-        if (data == null) return null;
+    /**
+     * @return The frame, or null if the data is not a frame this build can read
+     */
+    public static Frame decodeFrame(byte[] data) {
+        if (!isBinary(data) || data.length < 2 || (data[1] & 0xFF) > PROTOCOL_VERSION) {
+            return null;
+        }
+        try {
+            ByteBuffer in = ByteBuffer.wrap(data, 2, data.length - 2);
+            int id = in.getShort() & 0xFFFF;
+            int flags = in.get() & 0xFF;
+            PacketType type = null;
+            String typeName;
+            if (id == CUSTOM_TYPE) {
+                typeName = readString(in);
+            } else {
+                type = PacketRegistry.getById(id);
+                if (type == null) {
+                    return null;
+                }
+                typeName = type.name();
+            }
+            String target = readString(in);
+            String group = (flags & FLAG_GROUP) != 0 ? readString(in) : null;
+            String sender = null;
+            if ((flags & FLAG_SENDER_UUID) != 0) {
+                sender = readUuid(in).toString();
+            } else if ((flags & FLAG_SENDER_TEXT) != 0) {
+                sender = readString(in);
+            }
+            long timestamp = in.getLong();
+            String payload = (flags & FLAG_RAW_BODY) != 0 || type == null ? readString(in) : readTypedBody(type, in);
+            return new Frame(target, new NexusPacket(typeName, payload, group, sender), timestamp);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    public static boolean isBatch(byte[] data) {
+        return isBinary(data) && data.length >= 4 && ((data[2] & 0xFF) << 8 | (data[3] & 0xFF)) == BATCH;
+    }
+
+    /**
+     * Packs frames published together into one batch frame.
+     */
+    public static byte[] encodeBatch(java.util.List<byte[]> frames) {
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        out.writeByte(MAGIC);
+        out.writeByte(BATCH_VERSION);
+        out.writeShort(BATCH);
+        writeVarInt(out, frames.size());
+        for (byte[] frame : frames) {
+            writeVarInt(out, frame.length);
+            out.write(frame);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @return The frames of a batch in the order they were queued, or null if the data is not a readable batch
+     */
+    public static java.util.List<byte[]> unpackBatch(byte[] data) {
+        if (!isBatch(data) || (data[1] & 0xFF) > PROTOCOL_VERSION) {
+            return null;
+        }
         try {
-            ByteArrayDataInput in = ByteStreams.newDataInput(data);
-            String type = in.readUTF();
-            String payload = in.readUTF();
-            return new NexusPacket(type, payload);
+            ByteBuffer in = ByteBuffer.wrap(data, 4, data.length - 4);
+            int count = readVarInt(in);
+            java.util.List<byte[]> frames = new java.util.ArrayList<>(Math.min(count, in.remaining()));
+            for (int i = 0; i < count; i++) {
+                int len = readVarInt(in);
+                if (len > in.remaining()) {
+                    return null;
+                }
+                byte[] frame = new byte[len];
+                in.get(frame);
+                frames.add(frame);
+            }
+            return frames;
         } catch (Exception e) {
-            e.printStackTrace();
             return null;
         }
     }
+
+    public static byte[] encode(NexusPacket packet) {
+        return encode("ALL", packet);
+    }
+
+    public static NexusPacket decode(byte[] data) {
+        Frame frame = decodeFrame(data);
+        return frame != null ? frame.getPacket() : null;
+    }
+
+    /**
+     * Picks the frame version to send with: the lowest one advertised by the proxy and every live server.
+     * @param proxyProtocol The proxy's advertised version, null if it advertised none
+     * @return The version every node reads, or 0 if some node only reads the JSON envelope
+     */
+    public static int negotiate(String proxyProtocol, java.util.Collection<ServerInfo> servers) {
+        int version;
+        try {
+            version = proxyProtocol != null ? Integer.parseInt(proxyProtocol.trim()) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+        version = Math.min(version, PROTOCOL_VERSION);
+        for (ServerInfo server : servers) {
+            version = Math.min(version, server.getProtocol());
+        }
+        return Math.max(0, version);
+    }
+
+    /**
+     * @return The typed body, or null if the payload does not have the exact shape of its type
+     */
+    private static byte[] typedBody(PacketType type, String payload) {
+        if (payload == null) {
+            return null;
+        }
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        switch (type) {
+            case SYNC_PLAYER: {
+                PlayerInvalidation inv = PlayerInvalidation.parse(payload);
+                if (inv == null || !inv.toJson().equals(payload)) {
+                    return null;
+                }
+                writeUuid(out, inv.getUuid());
+                out.writeLong(inv.getVersion());
+                writeString(out, inv.getServer());
+                writeString(out, inv.getName());
+                return out.toByteArray();
+            }
+            case METADATA_UPDATE:
+            case METADATA_SYNC: {
+                // Payload: UUID:KEY:VALUE
+                String[] parts = payload.split(":", 3);
+                UUID uuid = parts.length == 3 ? parseUuid(parts[0]) : null;
+                if (uuid == null || !uuid.toString().equals(parts[0])) {
+                    return null;
+                }
+                writeUuid(out, uuid);
+                writeString(out, parts[1]);
+                writeString(out, parts[2]);
+                return out.toByteArray();
+            }
+            default:
+                return null;
+        }
+    }
+
+    private static String readTypedBody(PacketType type, ByteBuffer in) {
+        switch (type) {
+            case SYNC_PLAYER: {
+                UUID uuid = readUuid(in);
+                long version = in.getLong();
+                String server = readString(in);
+                String name = readString(in);
+                return new PlayerInvalidation(uuid, version, server, name).toJson();
+            }
+            case METADATA_UPDATE:
+            case METADATA_SYNC:
+                return readUuid(in) + ":" + readString(in) + ":" + readString(in);
+            default:
+                throw new IllegalStateException("No typed body for " + type);
+        }
+    }
+
+    private static UUID parseUuid(String value) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void writeUuid(ByteArrayDataOutput out, UUID uuid) {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(ByteBuffer in) {
+        return new UUID(in.getLong(), in.getLong());
+    }
+
+    // Length + 1 as a varint (0 for null), then the UTF-8 bytes; unlike writeUTF not capped at 64 KiB
+    private static void writeString(ByteArrayDataOutput out, String value) {
+        if (value == null) {
+            out.writeByte(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int len = readVarInt(in);
+        if (len == 0) {
+            return null;
+        }
+        if (len - 1 > in.remaining()) {
+            throw new IllegalStateException("Truncated string");
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), len - 1, StandardCharsets.UTF_8);
+        in.position(in.position() + len - 1);
+        return value;
+    }
+
+    private static void writeVarInt(ByteArrayDataOutput out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.get() & 0xFF;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    throw new IllegalStateException("Negative length");
+                }
+                return value;
+            }
+        }
+        throw new IllegalStateException("VarInt too long");
+    }
 }
@@ -5,10 +5,12 @@ import java.util.concurrent.ConcurrentHashMap;
 
 public class PacketRegistry {
     private static final Map<Integer, PacketType> ID_MAP = new ConcurrentHashMap<>();
+    private static final Map<String, PacketType> NAME_MAP = new ConcurrentHashMap<>();
     
     static {
         for (PacketType type : PacketType.values()) {
             ID_MAP.put(type.ordinal(), type);
+            NAME_MAP.put(type.name(), type);
         }
     }
     
@@ -19,4 +21,11 @@ public class PacketRegistry {
     public static int getId(PacketType type) {
         return type.ordinal();
     }
+
+    /**
+     * @return The registered type of a packet type string, or null for plugin-defined types
+     */
+    public static PacketType getByName(String name) {
+        return name != null ? NAME_MAP.get(name) : null;
+    }
 }
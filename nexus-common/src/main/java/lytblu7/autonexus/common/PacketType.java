@@ -1,10 +1,17 @@
 package lytblu7.autonexus.common;
 
+/**
+ * Packet types with a fixed wire id (the ordinal); new types are only ever appended.
+ */
 public enum PacketType {
     SYNC_PLAYER,
     EXECUTE_COMMAND,
     GLOBAL_MESSAGE,
     REFRESH_DATA,
     STAFF_CHAT,
-    PING
+    PING,
+    DISPATCH_COMMAND,
+    METADATA_UPDATE,
+    METADATA_SYNC,
+    PLAYER_SNAPSHOT
 }
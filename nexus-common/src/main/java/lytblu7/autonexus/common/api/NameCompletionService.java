@@ -0,0 +1,19 @@
+package lytblu7.autonexus.common.api;
+
+import java.util.List;
+
+/**
+ * Case-insensitive prefix lookup over the names of players online anywhere on the network.
+ */
+public interface NameCompletionService {
+    /**
+     * @param prefix The typed prefix (case-insensitive, empty matches everyone).
+     * @param limit The maximum number of names to return.
+     * @return Up to {@code limit} names in alphabetical order, with their original casing.
+     */
+    List<String> complete(String prefix, int limit);
+
+    boolean contains(String name);
+
+    int size();
+}
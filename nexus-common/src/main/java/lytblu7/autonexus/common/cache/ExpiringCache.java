@@ -0,0 +1,99 @@
+package lytblu7.autonexus.common.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small thread-safe key/value cache with a fixed time-to-live per entry.
+ * Expired entries are dropped lazily on read and in bulk when the cache grows past its bound.
+ */
+public class ExpiringCache<K, V> {
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxSize;
+
+    public ExpiringCache(long ttl, TimeUnit unit, int maxSize) {
+        this.ttlNanos = Math.max(0L, unit.toNanos(ttl));
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    /**
+     * @return true if entries are kept at all (a TTL of zero disables the cache).
+     */
+    public boolean isEnabled() {
+        return ttlNanos > 0;
+    }
+
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    public void put(K key, V value) {
+        if (!isEnabled() || key == null || value == null) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+        if (entries.size() > maxSize) {
+            evict();
+        }
+    }
+
+    public V invalidate(K key) {
+        Entry<V> removed = entries.remove(key);
+        return removed != null ? removed.value : null;
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes expired entries, then the entries closest to expiry until the cache is back under its bound.
+     */
+    public void evict() {
+        long now = System.nanoTime();
+        entries.entrySet().removeIf(e -> e.getValue().isExpired(now));
+        int overflow = entries.size() - maxSize;
+        if (overflow <= 0) {
+            return;
+        }
+        List<Map.Entry<K, Entry<V>>> snapshot = new ArrayList<>(entries.entrySet());
+        snapshot.sort(Comparator.comparingLong(e -> e.getValue().expiresAt));
+        // Drop a little more than needed so a hot insert path does not sort on every put
+        int toRemove = Math.min(snapshot.size(), overflow + Math.max(1, maxSize / 10));
+        for (int i = 0; i < toRemove; i++) {
+            Map.Entry<K, Entry<V>> e = snapshot.get(i);
+            entries.remove(e.getKey(), e.getValue());
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
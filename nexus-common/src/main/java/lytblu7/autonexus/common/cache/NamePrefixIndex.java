@@ -0,0 +1,94 @@
+package lytblu7.autonexus.common.cache;
+
+import lytblu7.autonexus.common.api.NameCompletionService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sorted index of player names keyed by their lower-case form.
+ * A prefix query walks only the matching range, so its cost depends on the number of results rather than on the index size.
+ */
+public class NamePrefixIndex implements NameCompletionService {
+    private final ConcurrentSkipListMap<String, String> names = new ConcurrentSkipListMap<>();
+    // ConcurrentSkipListMap.size() is a full traversal
+    private final AtomicInteger count = new AtomicInteger();
+
+    public void add(String name) {
+        if (name == null || name.isEmpty()) return;
+        if (names.put(key(name), name) == null) {
+            count.incrementAndGet();
+        }
+    }
+
+    public void remove(String name) {
+        if (name == null) return;
+        if (names.remove(key(name)) != null) {
+            count.decrementAndGet();
+        }
+    }
+
+    public void clear() {
+        names.clear();
+        count.set(0);
+    }
+
+    /**
+     * Makes the index match {@code target}, touching only the names that differ.
+     */
+    public void replaceAll(Collection<String> target) {
+        Set<String> wanted = new HashSet<>();
+        for (String name : target) {
+            if (name != null && !name.isEmpty()) {
+                wanted.add(key(name));
+                add(name);
+            }
+        }
+        for (String k : names.keySet()) {
+            if (!wanted.contains(k) && names.remove(k) != null) {
+                count.decrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public List<String> complete(String prefix, int limit) {
+        List<String> result = new ArrayList<>(Math.max(0, Math.min(limit, 64)));
+        if (limit <= 0) return result;
+        String p = prefix != null ? key(prefix) : "";
+        for (Map.Entry<String, String> e : names.tailMap(p, true).entrySet()) {
+            if (!e.getKey().startsWith(p)) break;
+            result.add(e.getValue());
+            if (result.size() >= limit) break;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean contains(String name) {
+        return name != null && names.containsKey(key(name));
+    }
+
+    @Override
+    public int size() {
+        return count.get();
+    }
+
+    /**
+     * @return A copy of all names, for callers that need the full list.
+     */
+    public List<String> values() {
+        return new ArrayList<>(names.values());
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,78 @@
+package lytblu7.autonexus.common.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves player names for whole pages of UUIDs (leaderboards, rank lookups) with one read of the
+ * network-wide name index, keeping recently seen names in a local cache.
+ */
+public class PlayerNameResolver {
+
+    /**
+     * Redis access used by the resolver; implemented by the platform's Redis manager.
+     */
+    public interface Store {
+        /**
+         * @return One name per requested UUID, in order; null where the index has no entry
+         */
+        CompletableFuture<List<String>> getPlayerNames(List<UUID> uuids);
+    }
+
+    private final Store store;
+    private final ExpiringCache<UUID, String> names;
+
+    public PlayerNameResolver(Store store, long ttl, TimeUnit unit, int maxSize) {
+        this.store = store;
+        this.names = new ExpiringCache<>(ttl, unit, maxSize);
+    }
+
+    /**
+     * Records a name this node already knows, e.g. from a login or an explicit baltop update.
+     */
+    public void remember(UUID uuid, String name) {
+        if (uuid != null && name != null && !name.isEmpty()) {
+            names.put(uuid, name);
+        }
+    }
+
+    /**
+     * @return The name of every requested UUID that has one; unknown UUIDs are left out
+     */
+    public CompletableFuture<Map<UUID, String>> resolve(Collection<UUID> uuids) {
+        Map<UUID, String> out = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        for (UUID uuid : new LinkedHashSet<>(uuids)) {
+            String name = names.get(uuid);
+            if (name != null) {
+                out.put(uuid, name);
+            } else {
+                missing.add(uuid);
+            }
+        }
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(out);
+        }
+        return store.getPlayerNames(missing).thenApply(found -> {
+            for (int i = 0; i < missing.size() && i < found.size(); i++) {
+                String name = found.get(i);
+                if (name != null && !name.isEmpty()) {
+                    names.put(missing.get(i), name);
+                    out.put(missing.get(i), name);
+                }
+            }
+            return out;
+        });
+    }
+
+    public void evictExpired() {
+        names.evict();
+    }
+}
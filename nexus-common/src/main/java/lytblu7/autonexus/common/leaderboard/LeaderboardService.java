@@ -0,0 +1,235 @@
+package lytblu7.autonexus.common.leaderboard;
+
+import com.google.gson.Gson;
+import lytblu7.autonexus.common.cache.ExpiringCache;
+import lytblu7.autonexus.common.model.LeaderboardEntry;
+import lytblu7.autonexus.common.model.LeaderboardRank;
+import lytblu7.autonexus.common.model.LeaderboardSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * Serves leaderboard pages from local snapshots instead of reading the sorted sets on every call.
+ * <p>
+ * On every {@link #refresh()} the nodes race for a short lock; the holder reads the top rows of each
+ * registered group and stores them as snapshots, and every other node loads those snapshots. A group
+ * is registered the first time any node asks for it. Pages beyond the snapshot depth, and groups
+ * without a fresh snapshot, are read from Redis directly. Rank lookups are cached per player for one
+ * snapshot interval.
+ */
+public final class LeaderboardService {
+    private static final Gson GSON = new Gson();
+    private static final int MAX_RADIUS = 50;
+
+    /**
+     * Redis access used by the service; implemented by the platform's Redis manager.
+     */
+    public interface Store {
+        /**
+         * Takes or renews the publisher lock.
+         * @return true if this node holds the lock
+         */
+        CompletableFuture<Boolean> acquireLeaderboardLock(String nodeId, long ttlMillis);
+
+        CompletableFuture<Set<String>> getLeaderboardGroups();
+
+        CompletableFuture<Void> addLeaderboardGroup(String group);
+
+        CompletableFuture<Void> storeLeaderboardSnapshot(String group, String payload, long ttlMillis);
+
+        /**
+         * @return The stored payload, or null if there is none
+         */
+        CompletableFuture<String> loadLeaderboardSnapshot(String group);
+
+        CompletableFuture<List<LeaderboardEntry>> getBaltop(String group, int offset, int limit);
+
+        CompletableFuture<LeaderboardRank> getRankAround(UUID player, String group, int radius);
+    }
+
+    private final String nodeId;
+    private final int depth;
+    private final long intervalMillis;
+    private final Store store;
+    private final Logger logger;
+    private final Map<String, LeaderboardSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final Set<String> groups = ConcurrentHashMap.newKeySet();
+    private final ExpiringCache<String, LeaderboardRank> ranks;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile boolean leader;
+
+    /**
+     * @param depth Rows kept per snapshot
+     * @param intervalMillis Time between refreshes; 0 disables snapshots and every page is read from Redis
+     */
+    public LeaderboardService(String nodeId, int depth, long intervalMillis, Store store, Logger logger) {
+        this.nodeId = nodeId;
+        this.depth = Math.max(1, depth);
+        this.intervalMillis = Math.max(0L, intervalMillis);
+        this.store = store;
+        this.logger = logger;
+        this.ranks = new ExpiringCache<>(this.intervalMillis, TimeUnit.MILLISECONDS, 10_000);
+    }
+
+    public boolean isEnabled() {
+        return intervalMillis > 0;
+    }
+
+    public boolean isLeader() {
+        return leader;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    public CompletableFuture<List<LeaderboardEntry>> getTop(String group, int offset, int limit) {
+        if (!isEnabled()) {
+            return store.getBaltop(group, offset, limit);
+        }
+        String key = normalize(group);
+        LeaderboardSnapshot snapshot = snapshots.get(key);
+        if (snapshot != null && isFresh(snapshot) && snapshot.covers(offset, limit)) {
+            return CompletableFuture.completedFuture(snapshot.page(offset, limit));
+        }
+        if (groups.add(key)) {
+            store.addLeaderboardGroup(key).exceptionally(ex -> {
+                groups.remove(key);
+                return null;
+            });
+        }
+        return store.getBaltop(key, offset, limit);
+    }
+
+    public CompletableFuture<LeaderboardRank> getRank(UUID player, String group) {
+        return getAround(player, group, 0);
+    }
+
+    /**
+     * @param radius Rows above and below the player to include, at most 50
+     */
+    public CompletableFuture<LeaderboardRank> getAround(UUID player, String group, int radius) {
+        String key = normalize(group);
+        int r = Math.max(0, Math.min(MAX_RADIUS, radius));
+        String cacheKey = player + "|" + key + "|" + r;
+        LeaderboardRank cached = ranks.get(cacheKey);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return store.getRankAround(player, key, r).thenApply(rank -> {
+            ranks.put(cacheKey, rank);
+            return rank;
+        });
+    }
+
+    /**
+     * @return The last snapshot of a group, or null if this node has none
+     */
+    public LeaderboardSnapshot getSnapshot(String group) {
+        return snapshots.get(normalize(group));
+    }
+
+    /**
+     * Runs one publishing round as leader, or loads the published snapshots otherwise.
+     * Rounds do not overlap; a call while one is running returns immediately.
+     */
+    public CompletableFuture<Void> refresh() {
+        if (!isEnabled() || !refreshing.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return store.acquireLeaderboardLock(nodeId, intervalMillis * 3)
+                .thenCompose(held -> {
+                    if (held && !leader && logger != null) {
+                        logger.info("[AutoNexus] This node now publishes leaderboard snapshots.");
+                    }
+                    leader = held;
+                    ranks.evict();
+                    return held ? publish() : load();
+                })
+                .exceptionally(ex -> {
+                    leader = false;
+                    if (logger != null) {
+                        logger.warning("[AutoNexus] Leaderboard refresh failed: " + ex.getMessage());
+                    }
+                    return null;
+                })
+                .whenComplete((v, ex) -> refreshing.set(false));
+    }
+
+    private CompletableFuture<Void> publish() {
+        return store.getLeaderboardGroups().thenCompose(registered -> {
+            groups.addAll(registered);
+            List<CompletableFuture<Void>> pending = new ArrayList<>();
+            for (String group : groups) {
+                pending.add(store.getBaltop(group, 0, depth).thenCompose(rows -> {
+                    LeaderboardSnapshot snapshot = new LeaderboardSnapshot(group, System.currentTimeMillis(), rows, rows.size() < depth);
+                    snapshots.put(group, snapshot);
+                    return store.storeLeaderboardSnapshot(group, encode(snapshot), intervalMillis * 3);
+                }));
+            }
+            return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]));
+        });
+    }
+
+    private CompletableFuture<Void> load() {
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (String group : groups) {
+            pending.add(store.loadLeaderboardSnapshot(group).thenAccept(payload -> {
+                LeaderboardSnapshot snapshot = decode(group, payload);
+                if (snapshot != null) {
+                    snapshots.put(group, snapshot);
+                }
+            }));
+        }
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private boolean isFresh(LeaderboardSnapshot snapshot) {
+        return System.currentTimeMillis() - snapshot.getTakenAt() <= intervalMillis * 3;
+    }
+
+    private static String normalize(String group) {
+        return (group == null || group.isBlank()) ? "default" : group.toLowerCase();
+    }
+
+    private static String encode(LeaderboardSnapshot snapshot) {
+        Payload payload = new Payload();
+        payload.takenAt = snapshot.getTakenAt();
+        payload.complete = snapshot.isComplete();
+        payload.entries = snapshot.getEntries();
+        return GSON.toJson(payload);
+    }
+
+    private LeaderboardSnapshot decode(String group, String json) {
+        if (json == null || json.isEmpty()) {
+            return null;
+        }
+        try {
+            Payload payload = GSON.fromJson(json, Payload.class);
+            if (payload == null || payload.entries == null) {
+                return null;
+            }
+            return new LeaderboardSnapshot(group, payload.takenAt, payload.entries, payload.complete);
+        } catch (Exception e) {
+            if (logger != null) {
+                logger.warning("[AutoNexus] Ignoring unreadable leaderboard snapshot for '" + group + "': " + e.getMessage());
+            }
+            return null;
+        }
+    }
+
+    private static final class Payload {
+        private long takenAt;
+        private boolean complete;
+        private List<LeaderboardEntry> entries;
+    }
+}
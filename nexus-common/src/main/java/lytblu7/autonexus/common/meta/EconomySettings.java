@@ -0,0 +1,85 @@
+package lytblu7.autonexus.common.meta;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Locale;
+
+/**
+ * How balance fields ("balance*" metadata keys) are stored.
+ * In LEGACY mode they are decimal strings inside the player record. In FIXED mode they are
+ * integer minor units (amount * 10^scale) in a per-player hash, updated with HINCRBY.
+ * All nodes of a network must use the same mode and scale.
+ */
+public final class EconomySettings {
+    public enum Mode {
+        LEGACY,
+        FIXED
+    }
+
+    public static final EconomySettings LEGACY = new EconomySettings(Mode.LEGACY, 2);
+
+    private final Mode mode;
+    private final int scale;
+
+    public EconomySettings(Mode mode, int scale) {
+        this.mode = mode != null ? mode : Mode.LEGACY;
+        this.scale = Math.max(0, Math.min(8, scale));
+    }
+
+    public static EconomySettings of(String mode, int scale) {
+        Mode m = "fixed".equalsIgnoreCase(mode != null ? mode.trim() : "") ? Mode.FIXED : Mode.LEGACY;
+        return new EconomySettings(m, scale);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public boolean isFixed() {
+        return mode == Mode.FIXED;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public boolean isBalanceField(String field) {
+        return field != null && field.toLowerCase(Locale.ROOT).startsWith("balance");
+    }
+
+    /**
+     * Converts an amount to minor units, rounding half-up to the configured scale.
+     */
+    public long toMinor(double amount) {
+        return BigDecimal.valueOf(amount).setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public double fromMinor(long minor) {
+        return BigDecimal.valueOf(minor, scale).doubleValue();
+    }
+
+    /**
+     * @return The amount as a plain decimal string with exactly {@code scale} fraction digits, e.g. "12.50".
+     */
+    public String format(long minor) {
+        return BigDecimal.valueOf(minor, scale).toPlainString();
+    }
+
+    /**
+     * Parses a stored balance (either a legacy decimal string or a minor-unit integer from the hash).
+     */
+    public long parseMinor(String value, boolean isMinor) {
+        if (value == null || value.isBlank()) {
+            return 0L;
+        }
+        if (isMinor) {
+            return Long.parseLong(value.trim());
+        }
+        return new BigDecimal(value.trim()).setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    @Override
+    public String toString() {
+        return mode.name().toLowerCase(Locale.ROOT) + "(scale=" + scale + ")";
+    }
+}
@@ -0,0 +1,55 @@
+package lytblu7.autonexus.common.meta;
+
+import java.util.UUID;
+
+/**
+ * One entry of {@link MetadataManager#applyBatch}: add {@code delta} to a numeric metadata key of a player.
+ */
+public final class MetadataDelta {
+    private final UUID player;
+    private final String key;
+    private final double delta;
+    private final String group; // Nullable, the current server group is used when absent
+    private final String reason; // Nullable
+
+    public MetadataDelta(UUID player, String key, double delta) {
+        this(player, key, delta, null, null);
+    }
+
+    public MetadataDelta(UUID player, String key, double delta, String group, String reason) {
+        this.player = player;
+        this.key = key;
+        this.delta = delta;
+        this.group = group;
+        this.reason = reason;
+    }
+
+    public UUID getPlayer() {
+        return player;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public double getDelta() {
+        return delta;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public String getTransactionType() {
+        if (delta > 0) {
+            return "CREDIT";
+        } else if (delta < 0) {
+            return "DEBIT";
+        }
+        return "ADJUST";
+    }
+}
@@ -5,13 +5,105 @@ import java.util.concurrent.CompletableFuture;
 import java.util.List;
 
 public interface MetadataManager {
+    /**
+     * Result of {@link #modifyBalance} when a debit would make the balance negative.
+     */
+    long INSUFFICIENT_FUNDS = Long.MIN_VALUE;
+
     CompletableFuture<Double> modifyMetadata(UUID player, String key, double delta);
     CompletableFuture<Double> modifyMetadata(UUID player, String key, double delta, String group);
-    
+
     default CompletableFuture<Double> modifyMetadata(UUID player, String key, double delta, String group, String reason) {
         return modifyMetadata(player, key, delta, group);
     }
     CompletableFuture<Void> setMetadata(UUID player, String key, Object value);
     CompletableFuture<Void> setMetadata(UUID player, String key, Object value, String group);
     CompletableFuture<List<String>> getGlobalHistory(UUID player);
+
+    default EconomySettings getEconomySettings() {
+        return EconomySettings.LEGACY;
+    }
+
+    /**
+     * Adds {@code deltaMinor} minor units (see {@link EconomySettings}) to a balance field.
+     * @return The new balance in minor units, or {@link #INSUFFICIENT_FUNDS}.
+     */
+    default CompletableFuture<Long> modifyBalance(UUID player, String key, long deltaMinor, String group, String reason) {
+        EconomySettings economy = getEconomySettings();
+        return modifyMetadata(player, key, economy.fromMinor(deltaMinor), group, reason)
+                .thenApply(v -> Double.isNaN(v) ? INSUFFICIENT_FUNDS : economy.toMinor(v));
+    }
+
+    /**
+     * Applies many increments in as few Redis round trips as possible. Each entry succeeds or fails on its own.
+     * Large batches are split into chunks of up to 250 entries, and each chunk reaches the update stream as its own
+     * batch message, so listeners may see one call's updates spread over several messages.
+     * @return The new value of each entry, in order; NaN where a debit was refused for insufficient funds.
+     */
+    default CompletableFuture<List<Double>> applyBatch(List<MetadataDelta> deltas) {
+        CompletableFuture<List<Double>> chain = CompletableFuture.completedFuture(new java.util.ArrayList<>(deltas.size()));
+        for (MetadataDelta d : deltas) {
+            chain = chain.thenCompose(results -> modifyMetadata(d.getPlayer(), d.getKey(), d.getDelta(), d.getGroup(), d.getReason())
+                    .thenApply(v -> {
+                        results.add(v);
+                        return results;
+                    }));
+        }
+        return chain;
+    }
+
+    /**
+     * Like {@link #applyBatch(List)}, but a repeat call with the same {@code txId} within
+     * {@code RedisScripts.TX_DEDUPE_TTL_SECONDS} returns the first call's results without applying the batch again.
+     */
+    default CompletableFuture<List<Double>> applyBatch(List<MetadataDelta> deltas, String txId) {
+        CompletableFuture<List<Double>> f = new CompletableFuture<>();
+        f.completeExceptionally(new UnsupportedOperationException("Deduplicated batches are not supported on this platform"));
+        return f;
+    }
+
+    /**
+     * Opts a key in or out of write-behind: increments are summed on this node and written in periodic batches.
+     */
+    default void setWriteBehind(String key, boolean enabled) {
+        throw new UnsupportedOperationException("Write-behind is not supported on this platform");
+    }
+
+    /**
+     * Writes all accumulated increments now.
+     */
+    default CompletableFuture<Void> flushWriteBehind() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Synchronous view of a numeric key for a player cached on this node, including increments not yet written.
+     * @return The value, or NaN if the player is not cached here.
+     */
+    default double peekMetadata(UUID player, String key, String group) {
+        return Double.NaN;
+    }
+
+    /**
+     * A network-wide counter split into the configured number of shards, for amounts written from many nodes at once.
+     */
+    default ShardedCounter getCounter(String name) {
+        throw new UnsupportedOperationException("Sharded counters are not supported on this platform");
+    }
+
+    /**
+     * Same as {@link #getCounter(String)} with an explicit shard count; every node must use the same count for a name.
+     */
+    default ShardedCounter getCounter(String name, int shards) {
+        throw new UnsupportedOperationException("Sharded counters are not supported on this platform");
+    }
+
+    /**
+     * @return The balance in minor units, 0 if the player has none.
+     */
+    default CompletableFuture<Long> getBalance(UUID player, String key, String group) {
+        CompletableFuture<Long> f = new CompletableFuture<>();
+        f.completeExceptionally(new UnsupportedOperationException("getBalance is not supported on this platform"));
+        return f;
+    }
 }
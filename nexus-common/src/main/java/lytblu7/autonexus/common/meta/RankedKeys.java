@@ -0,0 +1,52 @@
+package lytblu7.autonexus.common.meta;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Registry of metadata keys that get network-wide leaderboards (kills, playtime, level, ...).
+ * Entries are base keys; a stored field matches its base key alone or with a group suffix ("kills_lobby").
+ */
+public final class RankedKeys {
+    public static final RankedKeys NONE = new RankedKeys(Collections.emptySet());
+
+    private final Set<String> keys;
+
+    public RankedKeys(Collection<String> keys) {
+        Set<String> copy = new LinkedHashSet<>();
+        for (String key : keys) {
+            if (key != null && !key.isBlank()) {
+                copy.add(key.trim().toLowerCase());
+            }
+        }
+        this.keys = Collections.unmodifiableSet(copy);
+    }
+
+    public Set<String> getKeys() {
+        return keys;
+    }
+
+    public boolean isEmpty() {
+        return keys.isEmpty();
+    }
+
+    public boolean isRankedField(String field) {
+        if (field == null || keys.isEmpty()) {
+            return false;
+        }
+        String lower = field.toLowerCase();
+        if (keys.contains(lower)) {
+            return true;
+        }
+        int idx = lower.indexOf('_');
+        while (idx > 0) {
+            if (keys.contains(lower.substring(0, idx))) {
+                return true;
+            }
+            idx = lower.indexOf('_', idx + 1);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,133 @@
+package lytblu7.autonexus.common.meta;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A network-wide amount (server bank, jackpot, guild treasury) split over several Redis keys so that
+ * writers do not serialize on one value. Each write goes to a single shard, picked round-robin from a
+ * start that depends on the node, and touches no other key than that shard and its transaction marker.
+ * The total is read separately by summing all shards. Amounts are integer minor units at the economy scale.
+ * <p>
+ * No shard ever goes below zero. Only a debit larger than its shard holds reads the other shards: it
+ * borrows the shortfall from them in one atomic call, or is refused if the total is too small.
+ * All nodes must use the same shard count for a counter.
+ */
+public final class ShardedCounter {
+    public static final int MAX_SHARDS = 64;
+
+    /**
+     * Redis access used by counters; implemented by the platform's Redis manager.
+     */
+    public interface Store {
+        /**
+         * Adds to one shard.
+         * @return The shard's new amount in minor units as a string, or "SHORT" if a debit needs more than the shard holds
+         */
+        CompletableFuture<String> addToShard(String name, int shard, long deltaMinor, String txId);
+
+        /**
+         * Debits {@code -deltaMinor} starting at {@code shard} and borrowing the rest from the other shards.
+         * @return The shard's new amount in minor units as a string, or "INSUFFICIENT_FUNDS"
+         */
+        CompletableFuture<String> borrowFromShards(String name, int shards, int shard, long deltaMinor, String txId);
+
+        /**
+         * @return The sum of all shards in minor units
+         */
+        CompletableFuture<Long> sumCounter(String name, int shards);
+    }
+
+    private final String name;
+    private final int shards;
+    private final int home;
+    private final java.util.concurrent.atomic.AtomicInteger rotation = new java.util.concurrent.atomic.AtomicInteger();
+    private final EconomySettings economy;
+    private final Store store;
+    private volatile Snapshot cached;
+
+    public ShardedCounter(String name, int shards, String nodeId, EconomySettings economy, Store store) {
+        this.name = name;
+        this.shards = Math.max(1, Math.min(MAX_SHARDS, shards));
+        this.home = Math.floorMod(nodeId != null ? nodeId.hashCode() : 0, this.shards);
+        this.economy = economy != null ? economy : EconomySettings.LEGACY;
+        this.store = store;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    /**
+     * Adds to the counter; negative amounts are debits. Use {@link #get()} to read the total.
+     * @return false if a debit was refused because the total is too small
+     */
+    public CompletableFuture<Boolean> add(double amount) {
+        long delta = economy.toMinor(amount);
+        int shard = nextShard();
+        String txId = UUID.randomUUID().toString();
+        return store.addToShard(name, shard, delta, txId).thenCompose(result -> "SHORT".equals(result)
+                ? store.borrowFromShards(name, shards, shard, delta, txId)
+                : CompletableFuture.completedFuture(result)).thenApply(result -> {
+            if ("INSUFFICIENT_FUNDS".equalsIgnoreCase(result)) {
+                return false;
+            }
+            // Keep the last known total in step with our own writes until the next read
+            Snapshot snapshot = cached;
+            if (snapshot != null) {
+                cached = new Snapshot(snapshot.minor + delta, snapshot.at);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * @return The shard the next write goes to: round-robin over all shards, starting at this node's own
+     */
+    int nextShard() {
+        return Math.floorMod(home + rotation.getAndIncrement(), shards);
+    }
+
+    /**
+     * Reads the total from Redis.
+     */
+    public CompletableFuture<Double> get() {
+        return store.sumCounter(name, shards).thenApply(total -> {
+            cached = new Snapshot(total, System.currentTimeMillis());
+            return economy.fromMinor(total);
+        });
+    }
+
+    /**
+     * Returns the last known total if it is at most {@code maxAgeMillis} old, otherwise reads it from Redis.
+     */
+    public CompletableFuture<Double> get(long maxAgeMillis) {
+        Snapshot snapshot = cached;
+        if (snapshot != null && System.currentTimeMillis() - snapshot.at <= maxAgeMillis) {
+            return CompletableFuture.completedFuture(economy.fromMinor(snapshot.minor));
+        }
+        return get();
+    }
+
+    /**
+     * @return The last total seen by this node, or NaN if it has not been read or written yet
+     */
+    public double getCached() {
+        Snapshot snapshot = cached;
+        return snapshot != null ? economy.fromMinor(snapshot.minor) : Double.NaN;
+    }
+
+    private static final class Snapshot {
+        private final long minor;
+        private final long at;
+
+        private Snapshot(long minor, long at) {
+            this.minor = minor;
+            this.at = at;
+        }
+    }
+}
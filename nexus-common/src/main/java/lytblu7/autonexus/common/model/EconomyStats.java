@@ -0,0 +1,56 @@
+package lytblu7.autonexus.common.model;
+
+import java.util.UUID;
+
+/**
+ * What a player earned and spent of one balance field over a range of UTC days, both as positive amounts.
+ */
+public final class EconomyStats {
+    private final UUID player;
+    private final String field;
+    private final long firstDay;
+    private final long lastDay;
+    private final double earned;
+    private final double spent;
+
+    /**
+     * @param firstDay First day of the range, as days since the epoch
+     * @param lastDay Last day of the range (inclusive)
+     */
+    public EconomyStats(UUID player, String field, long firstDay, long lastDay, double earned, double spent) {
+        this.player = player;
+        this.field = field;
+        this.firstDay = firstDay;
+        this.lastDay = lastDay;
+        this.earned = earned;
+        this.spent = spent;
+    }
+
+    public UUID getPlayer() {
+        return player;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public long getFirstDay() {
+        return firstDay;
+    }
+
+    public long getLastDay() {
+        return lastDay;
+    }
+
+    public double getEarned() {
+        return earned;
+    }
+
+    public double getSpent() {
+        return spent;
+    }
+
+    public double getNet() {
+        return earned - spent;
+    }
+}
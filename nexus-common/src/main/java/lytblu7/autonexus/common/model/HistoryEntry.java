@@ -0,0 +1,61 @@
+package lytblu7.autonexus.common.model;
+
+/**
+ * One economy transaction of a player's history.
+ */
+public final class HistoryEntry {
+    private final String id;
+    private final long timestamp;
+    private final String type;
+    private final double amount;
+    private final String otherPlayer;
+    private final String reason;
+    private final String json;
+
+    public HistoryEntry(String id, long timestamp, String type, double amount, String otherPlayer, String reason, String json) {
+        this.id = id;
+        this.timestamp = timestamp;
+        this.type = type;
+        this.amount = amount;
+        this.otherPlayer = otherPlayer;
+        this.reason = reason;
+        this.json = json;
+    }
+
+    /**
+     * @return The stream entry ID; usable as a cursor to continue after this entry
+     */
+    public String getId() {
+        return id;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    /**
+     * @return The other side of a transfer, or an empty string
+     */
+    public String getOtherPlayer() {
+        return otherPlayer;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * @return The entry as stored, in the JSON format of {@code getGlobalHistory}
+     */
+    public String getJson() {
+        return json;
+    }
+}
@@ -0,0 +1,65 @@
+package lytblu7.autonexus.common.model;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Restricts a history read to some transaction types (CREDIT, DEBIT, TRANSFER_IN, ...) and a time range.
+ */
+public final class HistoryFilter {
+    public static final HistoryFilter ALL = new HistoryFilter(Collections.emptySet(), 0L, 0L);
+
+    private final Set<String> types;
+    private final long from;
+    private final long to;
+
+    /**
+     * @param types Wanted types; empty for every type
+     * @param from Oldest timestamp in milliseconds, inclusive; 0 for no lower bound
+     * @param to Newest timestamp in milliseconds, inclusive; 0 for no upper bound
+     */
+    public HistoryFilter(Collection<String> types, long from, long to) {
+        Set<String> copy = new LinkedHashSet<>();
+        for (String type : types) {
+            if (type != null && !type.isBlank()) {
+                copy.add(type.trim().toUpperCase());
+            }
+        }
+        this.types = Collections.unmodifiableSet(copy);
+        this.from = Math.max(0L, from);
+        this.to = Math.max(0L, to);
+    }
+
+    public static HistoryFilter ofTypes(String... types) {
+        return new HistoryFilter(java.util.Arrays.asList(types), 0L, 0L);
+    }
+
+    public static HistoryFilter between(long from, long to) {
+        return new HistoryFilter(Collections.emptySet(), from, to);
+    }
+
+    /**
+     * @param timestamp When the entry was written, in milliseconds
+     * @return Whether an entry of this type and time passes the filter
+     */
+    public boolean matches(String type, long timestamp) {
+        if (timestamp < from || (to > 0 && timestamp > to)) {
+            return false;
+        }
+        return types.isEmpty() || (type != null && types.contains(type.trim().toUpperCase()));
+    }
+
+    public Set<String> getTypes() {
+        return types;
+    }
+
+    public long getFrom() {
+        return from;
+    }
+
+    public long getTo() {
+        return to;
+    }
+}
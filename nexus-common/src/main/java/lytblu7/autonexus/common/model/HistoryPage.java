@@ -0,0 +1,33 @@
+package lytblu7.autonexus.common.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A page of a player's history, newest first.
+ */
+public final class HistoryPage {
+    private final List<HistoryEntry> entries;
+    private final String nextCursor;
+
+    public HistoryPage(List<HistoryEntry> entries, String nextCursor) {
+        this.entries = Collections.unmodifiableList(new ArrayList<>(entries));
+        this.nextCursor = nextCursor;
+    }
+
+    public List<HistoryEntry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return The cursor of the next page, or null when there are no older entries in range
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
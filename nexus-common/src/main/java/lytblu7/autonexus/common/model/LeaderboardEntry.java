@@ -1,14 +1,29 @@
 package lytblu7.autonexus.common.model;
 
+import java.util.UUID;
+
 public class LeaderboardEntry {
+    private final UUID uuid;
     private final String name;
     private final double score;
 
     public LeaderboardEntry(String name, double score) {
+        this(null, name, score);
+    }
+
+    public LeaderboardEntry(UUID uuid, String name, double score) {
+        this.uuid = uuid;
         this.name = name;
         this.score = score;
     }
 
+    /**
+     * @return The player's UUID, or null for rows written by older versions
+     */
+    public UUID getUuid() {
+        return uuid;
+    }
+
     public String getName() {
         return name;
     }
@@ -17,4 +32,3 @@ public class LeaderboardEntry {
         return score;
     }
 }
-
@@ -0,0 +1,65 @@
+package lytblu7.autonexus.common.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A player's position on a leaderboard, optionally with the rows around it.
+ */
+public final class LeaderboardRank {
+    private final UUID player;
+    private final String group;
+    private final long rank;
+    private final double score;
+    private final long firstRank;
+    private final List<LeaderboardEntry> around;
+
+    /**
+     * @param rank 1-based rank, or 0 if the player is not on the board
+     * @param firstRank 1-based rank of the first row of {@code around}
+     */
+    public LeaderboardRank(UUID player, String group, long rank, double score, long firstRank, List<LeaderboardEntry> around) {
+        this.player = player;
+        this.group = group;
+        this.rank = rank;
+        this.score = score;
+        this.firstRank = firstRank;
+        this.around = around != null ? Collections.unmodifiableList(around) : Collections.emptyList();
+    }
+
+    public static LeaderboardRank unranked(UUID player, String group) {
+        return new LeaderboardRank(player, group, 0L, 0.0, 0L, null);
+    }
+
+    public UUID getPlayer() {
+        return player;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public boolean isRanked() {
+        return rank > 0;
+    }
+
+    public long getRank() {
+        return rank;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public long getFirstRank() {
+        return firstRank;
+    }
+
+    /**
+     * @return The rows from {@link #getFirstRank()} on, including the player's own row; empty for a radius of 0
+     */
+    public List<LeaderboardEntry> getAround() {
+        return around;
+    }
+}
@@ -0,0 +1,54 @@
+package lytblu7.autonexus.common.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable top list of one group as published by the elected leaderboard node.
+ */
+public final class LeaderboardSnapshot {
+    private final String group;
+    private final long takenAt;
+    private final List<LeaderboardEntry> entries;
+    private final boolean complete;
+
+    /**
+     * @param complete true if {@code entries} holds the whole board rather than its first rows
+     */
+    public LeaderboardSnapshot(String group, long takenAt, List<LeaderboardEntry> entries, boolean complete) {
+        this.group = group;
+        this.takenAt = takenAt;
+        this.entries = Collections.unmodifiableList(new ArrayList<>(entries));
+        this.complete = complete;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public long getTakenAt() {
+        return takenAt;
+    }
+
+    public List<LeaderboardEntry> getEntries() {
+        return entries;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return true if the rows {@code offset .. offset + limit - 1} can be answered from this snapshot
+     */
+    public boolean covers(int offset, int limit) {
+        return complete || (long) Math.max(0, offset) + Math.max(0, limit) <= entries.size();
+    }
+
+    public List<LeaderboardEntry> page(int offset, int limit) {
+        int from = Math.min(Math.max(0, offset), entries.size());
+        int to = (int) Math.min((long) from + Math.max(0, limit), entries.size());
+        return entries.subList(from, to);
+    }
+}
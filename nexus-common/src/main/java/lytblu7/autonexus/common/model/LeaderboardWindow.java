@@ -0,0 +1,49 @@
+package lytblu7.autonexus.common.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+/**
+ * Period a leaderboard covers. {@link #ALL_TIME} ranks current balances; the other windows rank the
+ * amounts earned during the current UTC day, week (from Monday) or month.
+ */
+public enum LeaderboardWindow {
+    ALL_TIME,
+    DAILY,
+    WEEKLY,
+    MONTHLY;
+
+    /**
+     * @return The current UTC day of the {@link lytblu7.autonexus.common.NetworkClock} as days since the epoch;
+     * earnings are bucketed by this number
+     */
+    public static long today() {
+        return Math.floorDiv(lytblu7.autonexus.common.NetworkClock.currentTimeMillis(), 86_400_000L);
+    }
+
+    /**
+     * @return The first day of the window that contains {@code day}; {@code day} itself for ALL_TIME
+     */
+    public long firstDay(long day) {
+        LocalDate date = LocalDate.ofEpochDay(day);
+        switch (this) {
+            case WEEKLY:
+                return date.with(DayOfWeek.MONDAY).toEpochDay();
+            case MONTHLY:
+                return date.withDayOfMonth(1).toEpochDay();
+            default:
+                return day;
+        }
+    }
+
+    public static LeaderboardWindow parse(String value) {
+        if (value != null) {
+            for (LeaderboardWindow window : values()) {
+                if (window.name().equalsIgnoreCase(value)) {
+                    return window;
+                }
+            }
+        }
+        return ALL_TIME;
+    }
+}
@@ -12,6 +12,7 @@ public class NexusPlayer {
     private final UUID uuid;
     private volatile String lastSeenName;
     private volatile String currentServer;
+    private volatile long version;
     private final Map<String, String> metadata;
 
     public NexusPlayer(UUID uuid, String lastSeenName, String currentServer) {
@@ -41,6 +42,19 @@ public class NexusPlayer {
         this.currentServer = currentServer;
     }
 
+    /**
+     * Gets the record version stored in Redis.
+     * Every write to the player record increments it, so a higher version is always newer data.
+     * @return The version, or 0 if the record was never written by a versioned script
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     /**
      * Gets a read-only view of the player's metadata.
      * @return Map of metadata keys and values
@@ -0,0 +1,113 @@
+package lytblu7.autonexus.common.model;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.util.UUID;
+
+/**
+ * Payload of a SYNC_PLAYER packet: tells other nodes that the Redis record of a player changed.
+ * Receivers only refetch when their cached copy is older than {@link #getVersion()}.
+ */
+public final class PlayerInvalidation {
+    private static final Gson GSON = new Gson();
+
+    private final UUID uuid;
+    private final long version;
+    private final String server; // Nullable, set when the write only moved the player
+    private final String name; // Nullable
+
+    public PlayerInvalidation(UUID uuid, long version) {
+        this(uuid, version, null, null);
+    }
+
+    public PlayerInvalidation(UUID uuid, long version, String server, String name) {
+        this.uuid = uuid;
+        this.version = version;
+        this.server = server;
+        this.name = name;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    /**
+     * @return The record version after the write, or 0 if the sender did not know it (legacy senders).
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public String getServer() {
+        return server;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return true if the write only changed location/name, so a copy at exactly {@code version - 1}
+     * can be brought up to date in place.
+     */
+    public boolean hasLocation() {
+        return server != null;
+    }
+
+    /**
+     * Checks whether a copy at the given version can be updated in place instead of refetched.
+     */
+    public boolean isNextLocationOf(long cachedVersion) {
+        return hasLocation() && version > 0 && version == cachedVersion + 1;
+    }
+
+    /**
+     * Checks whether a cached copy at the given version must be refetched.
+     */
+    public boolean isNewerThan(long cachedVersion) {
+        return version <= 0 || version > cachedVersion;
+    }
+
+    public String toJson() {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("uuid", uuid.toString());
+        obj.addProperty("version", version);
+        if (server != null) {
+            obj.addProperty("server", server);
+        }
+        if (name != null) {
+            obj.addProperty("name", name);
+        }
+        return GSON.toJson(obj);
+    }
+
+    /**
+     * Parses a SYNC_PLAYER payload. Accepts the versioned form, a bare UUID and
+     * the full player JSON sent by older nodes.
+     * @return The invalidation, or null if the payload carries no valid UUID
+     */
+    public static PlayerInvalidation parse(String payload) {
+        if (payload == null || payload.isBlank()) {
+            return null;
+        }
+        try {
+            String trimmed = payload.trim();
+            if (!trimmed.startsWith("{")) {
+                return new PlayerInvalidation(UUID.fromString(trimmed), 0L);
+            }
+            JsonObject json = GSON.fromJson(trimmed, JsonObject.class);
+            if (json == null || !json.has("uuid")) {
+                return null;
+            }
+            UUID uuid = UUID.fromString(json.get("uuid").getAsString());
+            long version = json.has("version") ? json.get("version").getAsLong() : 0L;
+            // Legacy full-player payloads carry "currentServer" but are not location-only writes
+            String server = json.has("server") && !json.get("server").isJsonNull() ? json.get("server").getAsString() : null;
+            String name = json.has("name") && !json.get("name").isJsonNull() ? json.get("name").getAsString() : null;
+            return new PlayerInvalidation(uuid, version, server, name);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -5,16 +5,23 @@ public class ServerInfo {
     private int onlinePlayers;
     private int maxPlayers;
     private double tps;
+    private int protocol; // Packet frame version the server reads, 0 if it only reads JSON
 
     public ServerInfo(String name, int onlinePlayers, int maxPlayers, double tps) {
+        this(name, onlinePlayers, maxPlayers, tps, 0);
+    }
+
+    public ServerInfo(String name, int onlinePlayers, int maxPlayers, double tps, int protocol) {
         this.name = name;
         this.onlinePlayers = onlinePlayers;
         this.maxPlayers = maxPlayers;
         this.tps = tps;
+        this.protocol = protocol;
     }
 
     public String getName() { return name; }
     public int getOnlinePlayers() { return onlinePlayers; }
     public int getMaxPlayers() { return maxPlayers; }
     public double getTps() { return tps; }
+    public int getProtocol() { return protocol; }
 }
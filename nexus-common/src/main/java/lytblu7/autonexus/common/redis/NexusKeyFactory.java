@@ -3,6 +3,11 @@ package lytblu7.autonexus.common.redis;
 import java.util.UUID;
 
 public class NexusKeyFactory {
+    /**
+     * Single channel every node used before routed channels; still subscribed so older nodes can reach this one.
+     */
+    public static final String LEGACY_NETWORK_CHANNEL = "autonexus:network";
+
     private final String namespace;
     
     public NexusKeyFactory(String namespace) {
@@ -14,7 +19,11 @@ public class NexusKeyFactory {
     }
     
     public String player(UUID uuid) {
-        return "autonexus:" + namespace + ":player:" + uuid.toString();
+        return playerPrefix() + uuid.toString();
+    }
+
+    public String playerPrefix() {
+        return "autonexus:" + namespace + ":player:";
     }
     
     public String metadata(UUID uuid) {
@@ -25,6 +34,63 @@ public class NexusKeyFactory {
         return "autonexus:" + namespace + ":location:" + uuid.toString();
     }
     
+    /**
+     * Pub/Sub channel of one backend server; packets addressed to it by name.
+     */
+    public String nodeChannel(String server) {
+        return "autonexus:" + namespace + ":node:" + server.toLowerCase();
+    }
+
+    /**
+     * Pub/Sub channel shared by the servers of one group.
+     */
+    public String groupChannel(String group) {
+        String g = (group == null || group.isBlank()) ? "default" : group.toLowerCase();
+        return "autonexus:" + namespace + ":group:" + g;
+    }
+
+    public String proxyChannel() {
+        return "autonexus:" + namespace + ":proxy";
+    }
+
+    /**
+     * Pub/Sub channel every node (proxy and servers) listens on.
+     */
+    public String allChannel() {
+        return "autonexus:" + namespace + ":all";
+    }
+
+    /**
+     * Channel a packet is published on: "ALL" or "*" reaches every node, "GROUP" the servers of
+     * {@code targetGroup}, "PROXY" the proxy, and any other target the server of that name.
+     */
+    public String channelFor(String target, String targetGroup) {
+        if (target == null || target.isBlank() || "ALL".equalsIgnoreCase(target) || "*".equals(target)) {
+            return allChannel();
+        }
+        if ("GROUP".equalsIgnoreCase(target)) {
+            return groupChannel(targetGroup);
+        }
+        if ("PROXY".equalsIgnoreCase(target)) {
+            return proxyChannel();
+        }
+        return nodeChannel(target);
+    }
+
+    /**
+     * Packet frame version the proxy reads, refreshed with a TTL while it runs; servers advertise theirs in the heartbeat.
+     */
+    public String proxyProtocol() {
+        return "autonexus:" + namespace + ":protocol:proxy";
+    }
+
+    /**
+     * Set with a TTL while a proxy archives player history; history writers then leave trimming to the archiver.
+     */
+    public String historyArchiver() {
+        return "autonexus:" + namespace + ":history:archiver";
+    }
+
     public String groupMap() {
         return "autonexus:" + namespace + ":groups_map";
     }
@@ -35,10 +101,129 @@ public class NexusKeyFactory {
     
     public String economyBaltop(String group) {
         String g = (group == null || group.isBlank()) ? "default" : group.toLowerCase();
-        return "autonexus:" + namespace + ":economy:baltop:" + g;
+        return economyBaltopPrefix() + g;
     }
     
+    /**
+     * Hash of player UUID to last seen name; leaderboard members are bare UUIDs resolved through it.
+     */
+    public String playerNames() {
+        return "autonexus:" + namespace + ":player_names";
+    }
+
+    public String economyBaltopPrefix() {
+        return "autonexus:" + namespace + ":economy:baltop:";
+    }
+
+    /**
+     * Set of metadata base keys that are ranked (see RankedKeys).
+     */
+    public String rankedKeys() {
+        return "autonexus:" + namespace + ":ranked_keys";
+    }
+
+    /**
+     * Set of the stored fields that have a persisted ranking.
+     */
+    public String rankedBoards() {
+        return "autonexus:" + namespace + ":ranked_boards";
+    }
+
+    public String rankedMetadata(String field) {
+        return "autonexus:" + namespace + ":ranked:" + field.toLowerCase();
+    }
+
+    public String leaderboardLock() {
+        return "autonexus:" + namespace + ":leaderboard:lock";
+    }
+
+    /**
+     * Groups whose top lists the elected node publishes.
+     */
+    public String leaderboardGroups() {
+        return "autonexus:" + namespace + ":leaderboard:groups";
+    }
+
+    public String leaderboardSnapshot(String group) {
+        String g = (group == null || group.isBlank()) ? "default" : group.toLowerCase();
+        return "autonexus:" + namespace + ":leaderboard:snapshot:" + g;
+    }
+
+    /**
+     * Amounts earned per player in one group during one UTC day (days since the epoch).
+     */
+    public String economyEarned(String group, long epochDay) {
+        String g = (group == null || group.isBlank()) ? "default" : group.toLowerCase();
+        return "autonexus:" + namespace + ":economy:earned:" + g + ":" + epochDay;
+    }
+
+    /**
+     * Cached union of the day buckets of a window, named after the window and its last day.
+     */
+    public String economyEarnedWindow(String group, String window, long epochDay) {
+        String g = (group == null || group.isBlank()) ? "default" : group.toLowerCase();
+        return "autonexus:" + namespace + ":economy:earned:" + g + ":" + window.toLowerCase() + ":" + epochDay;
+    }
+
+    /**
+     * Amounts one player earned and spent during one UTC day, per balance field.
+     */
+    public String playerStats(UUID uuid, long epochDay) {
+        return "autonexus:" + namespace + ":economy:stats:" + uuid.toString() + ":" + epochDay;
+    }
+
+    public String balances(UUID uuid) {
+        return "autonexus:" + namespace + ":economy:balances:" + uuid.toString();
+    }
+
+    /**
+     * Stream of balance changes written by the economy scripts.
+     */
+    public String economyStream() {
+        return "autonexus:" + namespace + ":economy:stream";
+    }
+
+    public String counterShard(String name, int shard) {
+        return "autonexus:" + namespace + ":counter:" + name + ":" + shard;
+    }
+
+    /**
+     * Transaction marker of a counter write; the hash tag puts it in the same cluster slot as the shard it guards.
+     */
+    public String counterTransaction(String name, int shard, String txId) {
+        return txId == null || txId.isEmpty() ? "" : "{" + counterShard(name, shard) + "}:tx:" + txId;
+    }
+
+    /**
+     * Marker of an applied economy transaction; an empty string when no ID is given disables deduplication.
+     */
+    public String transaction(String txId) {
+        return txId == null || txId.isEmpty() ? "" : "autonexus:" + namespace + ":economy:tx:" + txId;
+    }
+
+    public String onlinePlayers() {
+        return "autonexus:" + namespace + ":online_players";
+    }
+
+    public String onlinePlayersSeq() {
+        return "autonexus:" + namespace + ":online_players:seq";
+    }
+
+    /**
+     * Legacy history list (newest 50 entries); read only, as a fallback for players without a history stream.
+     */
     public String history(UUID uuid) {
         return "autonexus:history:" + uuid.toString();
     }
+
+    /**
+     * Stream of a player's economy transactions; entry IDs are the write time.
+     */
+    public String historyStream(UUID uuid) {
+        return historyStreamPrefix() + uuid.toString();
+    }
+
+    public String historyStreamPrefix() {
+        return "autonexus:" + namespace + ":economy:history:";
+    }
 }
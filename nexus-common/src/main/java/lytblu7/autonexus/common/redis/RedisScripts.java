@@ -4,49 +4,205 @@ public final class RedisScripts {
     private RedisScripts() {
     }
     
+    // Every script that writes a player record bumps its "version" so caches can tell newer data apart.
+    // KEYS: player, player name index. ARGV: server, name, uuid.
     public static final String UPDATE_PLAYER_LOCATION =
             "local key = KEYS[1]; " +
             "local server = ARGV[1]; " +
             "local name = ARGV[2]; " +
             "local uuid = ARGV[3]; " +
             "local existing = redis.call('GET', key); " +
+            "local version = 1; " +
             "if existing then " +
             "    local decoded = cjson.decode(existing); " +
             "    decoded.currentServer = server; " +
             "    decoded.lastSeenName = name; " +
+            "    version = (tonumber(decoded.version) or 0) + 1; " +
+            "    decoded.version = version; " +
             "    local encoded = cjson.encode(decoded); " +
             "    redis.call('SET', key, encoded); " +
             "else " +
-            "    local newPlayer = {uuid = uuid, lastSeenName = name, currentServer = server, metadata = {}}; " +
+            "    local newPlayer = {uuid = uuid, lastSeenName = name, currentServer = server, version = version, metadata = {}}; " +
             "    local encoded = cjson.encode(newPlayer); " +
             "    redis.call('SET', key, encoded); " +
             "end; " +
-            "return 1;";
+            "if KEYS[2] and name ~= '' then redis.call('HSET', KEYS[2], uuid, name) end; " +
+            "return version;";
+
+    /**
+     * Writes a full player record. If the stored record is newer than the one being saved
+     * (someone else wrote in between), nothing is written: neither its metadata nor its location, which the
+     * proxy or a quit may have changed since, is rolled back.
+     * Returns the new version, or the stored version negated when the save was stale.
+     */
+    public static final String SAVE_PLAYER_VERSIONED =
+            "local key = KEYS[1]; " +
+            "local incoming = cjson.decode(ARGV[1]); " +
+            "local existing = redis.call('GET', key); " +
+            "local base = tonumber(incoming.version) or 0; " +
+            "if not existing then " +
+            "    incoming.version = base + 1; " +
+            "    redis.call('SET', key, cjson.encode(incoming)); " +
+            "    return incoming.version; " +
+            "end; " +
+            "local decoded = cjson.decode(existing); " +
+            "local current = tonumber(decoded.version) or 0; " +
+            "if current > base then return -current end; " +
+            "incoming.version = current + 1; " +
+            "redis.call('SET', key, cjson.encode(incoming)); " +
+            "return incoming.version;";
+
+    public static final String SET_PLAYER_OFFLINE =
+            "local key = KEYS[1]; " +
+            "local existing = redis.call('GET', key); " +
+            "if not existing then return 0 end; " +
+            "local decoded = cjson.decode(existing); " +
+            "decoded.currentServer = 'offline'; " +
+            "decoded.version = (tonumber(decoded.version) or 0) + 1; " +
+            "redis.call('SET', key, cjson.encode(decoded)); " +
+            "return decoded.version;";
     
+    /**
+     * Seconds a transaction ID is remembered. A retry of the same transaction within this window
+     * returns the recorded result instead of applying the change again.
+     */
+    public static final int TX_DEDUPE_TTL_SECONDS = 300;
+
+    // Economy scripts take a transaction key (empty to disable deduplication); scripts that emit
+    // balance updates take the update stream key after it, as their last KEYS entry
+    private static final String TX_GUARD =
+            "local function txPrior(txKey) " +
+            "    if txKey and txKey ~= '' then return redis.call('GET', txKey) end; " +
+            "    return false; " +
+            "end; " +
+            "local function txRecord(txKey, result) " +
+            "    if txKey and txKey ~= '' then redis.call('SET', txKey, result, 'EX', " + TX_DEDUPE_TTL_SECONDS + ") end; " +
+            "    return result; " +
+            "end; ";
+
+    /**
+     * Approximate number of entries kept in the economy update stream.
+     */
+    public static final int ECONOMY_STREAM_MAXLEN = 100000;
+
+    private static final String UPDATE_STREAM =
+            "local function emitUpdate(update) " +
+            "    redis.call('XADD', KEYS[#KEYS], 'MAXLEN', '~', " + ECONOMY_STREAM_MAXLEN + ", '*', 'data', cjson.encode(update)); " +
+            "end; ";
+
+    /**
+     * Merges metadata into a player record. KEYS: player, and the stream when ranked fields change.
+     * ARGV: updates (JSON object), ranked fields among them (JSON array, may be empty), playerUuid.
+     * Every ranked field gets a SET update on the stream so the proxy's rank index sees it, with the player's name.
+     */
     public static final String UPDATE_PLAYER_METADATA =
+            UPDATE_STREAM +
             "local key = KEYS[1]; " +
             "local updates = cjson.decode(ARGV[1]); " +
             "local existing = redis.call('GET', key); " +
+            "local version, name = 0, nil; " +
             "if existing then " +
             "    local decoded = cjson.decode(existing); " +
+            "    name = decoded.lastSeenName; " +
             "    if not decoded.metadata then decoded.metadata = {} end; " +
             "    for k,v in pairs(updates) do " +
             "        decoded.metadata[k] = v; " +
             "    end; " +
+            "    version = (tonumber(decoded.version) or 0) + 1; " +
+            "    decoded.version = version; " +
             "    local encoded = cjson.encode(decoded); " +
             "    redis.call('SET', key, encoded); " +
             "else " +
             "    return 0; " +
             "end; " +
-            "return 1;";
-    
+            "if ARGV[2] and ARGV[2] ~= '' and #KEYS > 1 then " +
+            "    for _, f in ipairs(cjson.decode(ARGV[2])) do " +
+            "        emitUpdate({ playerUuid = ARGV[3], name = name, field = f, newBalance = updates[f], version = version, transactionType = 'SET' }); " +
+            "    end; " +
+            "end; " +
+            "return version;";
+
+    /**
+     * Days an earnings bucket is kept; long enough to rebuild the monthly window.
+     */
+    public static final int EARNINGS_BUCKET_TTL_SECONDS = 35 * 86400;
+
+    // Positive balance changes are added to the player's entry in the day's earnings bucket of the group.
+    // Transfers between players are not earnings and never reach the bucket. The TTL is only set when the
+    // day's first change creates the bucket.
+    private static final String EARNINGS_BUCKET =
+            "local function earned(dayKey, member, amount) " +
+            "    if dayKey == nil or dayKey == '' or amount == nil or amount <= 0 then return end; " +
+            "    local created = redis.call('EXISTS', dayKey) == 0; " +
+            "    redis.call('ZINCRBY', dayKey, amount, member); " +
+            "    if created then redis.call('EXPIRE', dayKey, " + EARNINGS_BUCKET_TTL_SECONDS + ") end; " +
+            "end; ";
+
+    /**
+     * Days a player's daily economy totals are kept.
+     */
+    public static final int PLAYER_STATS_TTL_SECONDS = 35 * 86400;
+
+    // Balance changes are also added to the player's totals of the day: "<field>:earned" and "<field>:spent",
+    // both positive. Transfers between players go to "<field>:sent" and "<field>:received" instead, so moving
+    // money back and forth between accounts does not inflate what anyone earned. The TTL is only set when the
+    // day's first change creates the hash.
+    private static final String PLAYER_STATS =
+            "local function addStat(statsKey, name, amount) " +
+            "    local created = redis.call('EXISTS', statsKey) == 0; " +
+            "    redis.call('HINCRBYFLOAT', statsKey, name, amount); " +
+            "    if created then redis.call('EXPIRE', statsKey, " + PLAYER_STATS_TTL_SECONDS + ") end; " +
+            "end; " +
+            "local function tally(statsKey, field, amount) " +
+            "    if statsKey == nil or statsKey == '' or amount == nil or amount == 0 then return end; " +
+            "    local side = 'earned'; " +
+            "    if amount < 0 then side, amount = 'spent', -amount end; " +
+            "    addStat(statsKey, field .. ':' .. side, amount); " +
+            "end; " +
+            "local function tallyTransfer(fromStats, toStats, field, amount) " +
+            "    if amount == nil or amount <= 0 then return end; " +
+            "    if fromStats ~= nil and fromStats ~= '' then addStat(fromStats, field .. ':sent', amount) end; " +
+            "    if toStats ~= nil and toStats ~= '' then addStat(toStats, field .. ':received', amount) end; " +
+            "end; ";
+
+    // Player history is a stream per player whose entry IDs are the write time, so time filters are ID ranges.
+    // Scripts that write history take the retention "maxEntries:maxAgeMillis" as their last ARGV; 0 disables a limit.
+    private static final String HISTORY_STREAM =
+            "local function appendHistory(historyKey, tx) " +
+            "    local maxLen, maxAge = string.match(ARGV[#ARGV] or '', '^(%d+):(%d+)$'); " +
+            "    maxLen, maxAge = tonumber(maxLen) or 0, tonumber(maxAge) or 0; " +
+            "    if maxLen > 0 then " +
+            "        redis.call('XADD', historyKey, 'MAXLEN', '~', maxLen, '*', 'type', tx.type or '', 'data', cjson.encode(tx)); " +
+            "    else " +
+            "        redis.call('XADD', historyKey, '*', 'type', tx.type or '', 'data', cjson.encode(tx)); " +
+            "    end; " +
+            "    if maxAge > 0 then " +
+            "        local now = redis.call('TIME'); " +
+            "        local cutoff = tonumber(now[1]) * 1000 + math.floor(tonumber(now[2]) / 1000) - maxAge; " +
+            "        if cutoff > 0 then redis.call('XTRIM', historyKey, 'MINID', '~', string.format('%d', cutoff)) end; " +
+            "    end; " +
+            "end; ";
+
+    /**
+     * KEYS: player, history, baltop, transaction, earnings bucket, player stats, stream.
+     * ARGV: field, delta, kind, serverSource, txType, otherPlayer, playerUuid, timestamp, reason, history retention.
+     * kind is "1" for balances, "R" for ranked metadata keys (stream update only) and "0" otherwise.
+     */
     public static final String INCREMENT_METADATA_ATOMIC =
+            TX_GUARD +
+            HISTORY_STREAM +
+            UPDATE_STREAM +
+            EARNINGS_BUCKET +
+            PLAYER_STATS +
+            "local prior = txPrior(KEYS[4]); " +
+            "if prior then return prior end; " +
             "local playerKey = KEYS[1]; " +
             "local historyKey = KEYS[2]; " +
             "local baltopKey = KEYS[3]; " +
             "local field = ARGV[1]; " +
             "local delta = tonumber(ARGV[2]); " +
             "local isBalance = ARGV[3] == \"1\"; " +
+            "local isRanked = ARGV[3] == \"R\"; " +
             "local serverSource = ARGV[4]; " +
             "local txType = ARGV[5]; " +
             "local otherPlayer = ARGV[6]; " +
@@ -54,40 +210,62 @@ public final class RedisScripts {
             "local timestamp = ARGV[8]; " +
             "local reason = ARGV[9]; " +
             "local existing = redis.call('GET', playerKey); " +
-            "if not existing then return \"0\" end; " +
+            "if not existing then return txRecord(KEYS[4], \"0\") end; " +
             "local obj = cjson.decode(existing); " +
             "if not obj.metadata then obj.metadata = {} end; " +
             "local current = tonumber(obj.metadata[field] or \"0\") or 0; " +
             "local newval = current + delta; " +
-            "if delta < 0 and newval < 0 then return \"INSUFFICIENT_FUNDS\" end; " +
+            "if delta < 0 and newval < 0 then return txRecord(KEYS[4], \"INSUFFICIENT_FUNDS\") end; " +
             "obj.metadata[field] = tostring(newval); " +
+            "obj.version = (tonumber(obj.version) or 0) + 1; " +
             "redis.call('SET', playerKey, cjson.encode(obj)); " +
             "if isBalance then " +
             "  if baltopKey ~= nil and baltopKey ~= '' then " +
             "    redis.call('ZADD', baltopKey, newval, playerUuid); " +
             "  end; " +
+            "  earned(KEYS[5], playerUuid, delta); " +
+            "  tally(KEYS[6], field, delta); " +
             "  if delta ~= 0 then " +
             "    if not reason or reason == '' then reason = 'SYSTEM' end; " +
-            "    local tx = { type = txType, amount = delta, otherPlayer = otherPlayer, timestamp = timestamp, reason = reason }; " +
-            "    local txJson = cjson.encode(tx); " +
-            "    redis.call('LPUSH', historyKey, txJson); " +
-            "    redis.call('LTRIM', historyKey, 0, 49); " +
-            "    redis.log(redis.LOG_NOTICE, 'History pushed for ' .. historyKey); " +
+            "    appendHistory(historyKey, { type = txType, amount = delta, otherPlayer = otherPlayer, timestamp = timestamp, reason = reason }); " +
             "  end; " +
-            "  local update = { playerUuid = playerUuid, newBalance = tostring(newval), serverSource = serverSource, transactionType = txType }; " +
-            "  local updateJson = cjson.encode(update); " +
-            "  redis.call('PUBLISH', 'autonexus:updates', updateJson); " +
+            "  local update = { playerUuid = playerUuid, field = field, newBalance = tostring(newval), amount = delta, version = obj.version, serverSource = serverSource, transactionType = txType }; " +
+            "  emitUpdate(update); " +
+            "elseif isRanked then " +
+            "  emitUpdate({ playerUuid = playerUuid, name = obj.lastSeenName, field = field, newBalance = tostring(newval), amount = delta, version = obj.version, serverSource = serverSource, transactionType = txType }); " +
             "end; " +
-            "return tostring(newval);";
+            "return txRecord(KEYS[4], tostring(newval));";
     
+    // Transfers write a history entry for both players, update both baltop entries and publish one
+    // batch update to the stream, all in the same call. Both history entries share the transaction's reason.
+    private static final String TRANSFER_SIDE_EFFECTS =
+            HISTORY_STREAM +
+            "local function transferHistory(historyKey, txType, amount, amountMinor, otherPlayer, timestamp, reason) " +
+            "    appendHistory(historyKey, { type = txType, amount = amount, amountMinor = amountMinor, otherPlayer = otherPlayer, timestamp = timestamp, reason = reason }); " +
+            "end; ";
+
+    /**
+     * KEYS: fromPlayer, toPlayer, fromHistory, toHistory, baltop, transaction, fromStats, toStats, stream.
+     * ARGV: field, amount, isBalance, serverSource, fromUuid, toUuid, timestamp, reason, history retention.
+     */
     public static final String TRANSFER_METADATA_ATOMIC =
+            TX_GUARD +
+            UPDATE_STREAM +
+            PLAYER_STATS +
+            TRANSFER_SIDE_EFFECTS +
+            "local prior = txPrior(KEYS[6]); " +
+            "if prior then return prior end; " +
             "local fromKey = KEYS[1]; " +
             "local toKey = KEYS[2]; " +
             "local field = ARGV[1]; " +
             "local amount = tonumber(ARGV[2]); " +
-            "if amount <= 0 then return \"0\" end; " +
+            "local isBalance = ARGV[3] == \"1\"; " +
+            "local fromUuid, toUuid, timestamp = ARGV[5], ARGV[6], ARGV[7]; " +
+            "local reason = ARGV[8]; " +
+            "if not reason or reason == '' then reason = 'TRANSFER' end; " +
+            "if amount <= 0 then return txRecord(KEYS[6], \"0\") end; " +
             "local fromJson = redis.call('GET', fromKey); " +
-            "if not fromJson then return \"INSUFFICIENT_FUNDS\" end; " +
+            "if not fromJson then return txRecord(KEYS[6], \"INSUFFICIENT_FUNDS\") end; " +
             "local toJson = redis.call('GET', toKey); " +
             "local fromObj = fromJson and cjson.decode(fromJson) or {metadata={}}; " +
             "local toObj = toJson and cjson.decode(toJson) or {metadata={}}; " +
@@ -95,12 +273,470 @@ public final class RedisScripts {
             "if not toObj.metadata then toObj.metadata = {} end; " +
             "local fromBal = tonumber(fromObj.metadata[field] or \"0\") or 0; " +
             "local newFrom = fromBal - amount; " +
-            "if amount > 0 and newFrom < 0 then return \"INSUFFICIENT_FUNDS\" end; " +
+            "if amount > 0 and newFrom < 0 then return txRecord(KEYS[6], \"INSUFFICIENT_FUNDS\") end; " +
             "local toBal = tonumber(toObj.metadata[field] or \"0\") or 0; " +
             "local newTo = toBal + amount; " +
             "fromObj.metadata[field] = tostring(newFrom); " +
             "toObj.metadata[field] = tostring(newTo); " +
+            "fromObj.version = (tonumber(fromObj.version) or 0) + 1; " +
+            "toObj.version = (tonumber(toObj.version) or 0) + 1; " +
             "redis.call('SET', fromKey, cjson.encode(fromObj)); " +
             "redis.call('SET', toKey, cjson.encode(toObj)); " +
-            "return tostring(newFrom);";
+            "if isBalance then " +
+            "    if KEYS[5] ~= nil and KEYS[5] ~= '' then " +
+            "        redis.call('ZADD', KEYS[5], newFrom, fromUuid); " +
+            "        redis.call('ZADD', KEYS[5], newTo, toUuid); " +
+            "    end; " +
+            "    tallyTransfer(KEYS[7], KEYS[8], field, amount); " +
+            "    transferHistory(KEYS[3], 'TRANSFER_OUT', -amount, nil, toUuid, timestamp, reason); " +
+            "    transferHistory(KEYS[4], 'TRANSFER_IN', amount, nil, fromUuid, timestamp, reason); " +
+            "    local updates = { " +
+            "        { playerUuid = fromUuid, field = field, newBalance = tostring(newFrom), amount = -amount, version = fromObj.version, transactionType = 'TRANSFER_OUT' }, " +
+            "        { playerUuid = toUuid, field = field, newBalance = tostring(newTo), amount = amount, version = toObj.version, transactionType = 'TRANSFER_IN' } " +
+            "    }; " +
+            "    emitUpdate({ serverSource = ARGV[4], batch = updates }); " +
+            "end; " +
+            "return txRecord(KEYS[6], tostring(newFrom));";
+
+    /**
+     * Adds to one shard of a sharded counter (see ShardedCounter); touches no other shard.
+     * KEYS: shard, transaction (hash-tagged to the shard's slot). ARGV: delta (minor units).
+     * Returns the shard's new amount in minor units, or "SHORT" without changing anything when a debit
+     * needs more than the shard holds (the caller then uses SHARDED_COUNTER_BORROW).
+     */
+    public static final String SHARDED_COUNTER_ADD =
+            TX_GUARD +
+            "local prior = txPrior(KEYS[2]); " +
+            "if prior then return prior end; " +
+            "local delta = tonumber(ARGV[1]); " +
+            "if delta >= 0 then " +
+            "    return txRecord(KEYS[2], tostring(redis.call('INCRBY', KEYS[1], ARGV[1]))); " +
+            "end; " +
+            "local have = tonumber(redis.call('GET', KEYS[1]) or '0') or 0; " +
+            "if have < -delta then return 'SHORT' end; " +
+            "return txRecord(KEYS[2], tostring(redis.call('DECRBY', KEYS[1], string.format('%d', -delta))));";
+
+    /**
+     * Debit of a sharded counter larger than the own shard holds: takes from the own shard first and borrows
+     * the rest from the other shards in order. Only used after SHARDED_COUNTER_ADD returned "SHORT".
+     * KEYS: shard 1..n, transaction. ARGV: own shard (1-based), delta (negative, minor units).
+     * Returns the own shard's new amount in minor units, or "INSUFFICIENT_FUNDS".
+     */
+    public static final String SHARDED_COUNTER_BORROW =
+            TX_GUARD +
+            "local n = #KEYS - 1; " +
+            "local prior = txPrior(KEYS[n + 1]); " +
+            "if prior then return prior end; " +
+            "local own = tonumber(ARGV[1]); " +
+            "local remaining = -tonumber(ARGV[2]); " +
+            "local amounts = {}; " +
+            "local sum = 0; " +
+            "for i = 1, n do " +
+            "    amounts[i] = tonumber(redis.call('GET', KEYS[i]) or '0') or 0; " +
+            "    sum = sum + amounts[i]; " +
+            "end; " +
+            "if sum < remaining then return txRecord(KEYS[n + 1], 'INSUFFICIENT_FUNDS') end; " +
+            "for step = 0, n - 1 do " +
+            "    if remaining <= 0 then break end; " +
+            "    local i = ((own - 1 + step) % n) + 1; " +
+            "    local take = math.min(amounts[i], remaining); " +
+            "    if take > 0 then " +
+            "        redis.call('DECRBY', KEYS[i], string.format('%d', take)); " +
+            "        amounts[i] = amounts[i] - take; " +
+            "        remaining = remaining - take; " +
+            "    end; " +
+            "end; " +
+            "return txRecord(KEYS[n + 1], string.format('%d', amounts[own]));";
+
+    // Fixed-point balances: integer minor units in a per-player hash (see EconomySettings).
+    // seed() returns the current amount, moving a legacy decimal value out of the player record on first
+    // touch; nil means the player has no record at all. fmt() renders minor units as a decimal string.
+    private static final String FIXED_BALANCE_HELPERS =
+            "local function seed(playerKey, balKey, field, scale) " +
+            "    local cur = redis.call('HGET', balKey, field); " +
+            "    if cur then return tonumber(cur) end; " +
+            "    local existing = redis.call('GET', playerKey); " +
+            "    if not existing then return nil end; " +
+            "    local obj = cjson.decode(existing); " +
+            "    local legacy = 0; " +
+            "    if type(obj.metadata) == 'table' and obj.metadata[field] ~= nil then " +
+            "        local v = (tonumber(obj.metadata[field]) or 0) * (10 ^ scale); " +
+            "        if v >= 0 then legacy = math.floor(v + 0.5) else legacy = -math.floor(-v + 0.5) end; " +
+            "        obj.metadata[field] = nil; " +
+            "        obj.version = (tonumber(obj.version) or 0) + 1; " +
+            "        redis.call('SET', playerKey, cjson.encode(obj)); " +
+            "    end; " +
+            "    redis.call('HSET', balKey, field, string.format('%d', legacy)); " +
+            "    return legacy; " +
+            "end; " +
+            "local function fmt(v, scale) " +
+            "    if scale == 0 then return string.format('%d', v) end; " +
+            "    local sign = ''; " +
+            "    if v < 0 then sign = '-'; v = -v end; " +
+            "    local unit = 10 ^ scale; " +
+            "    return sign .. string.format('%d', math.floor(v / unit)) .. '.' .. string.format('%0' .. scale .. 'd', v % unit); " +
+            "end; ";
+
+    /**
+     * Fixed-mode counterpart of INCREMENT_METADATA_ATOMIC for balance fields.
+     * KEYS: player, history, baltop, balances, transaction, earnings bucket, player stats, stream. ARGV: field, delta (minor units), serverSource, txType,
+     * otherPlayer, playerUuid, timestamp, reason, scale, history retention. Returns the new balance in minor units.
+     */
+    public static final String INCREMENT_BALANCE_FIXED =
+            FIXED_BALANCE_HELPERS +
+            TX_GUARD +
+            HISTORY_STREAM +
+            UPDATE_STREAM +
+            EARNINGS_BUCKET +
+            PLAYER_STATS +
+            "local prior = txPrior(KEYS[5]); " +
+            "if prior then return prior end; " +
+            "local field = ARGV[1]; " +
+            "local delta = tonumber(ARGV[2]); " +
+            "local scale = tonumber(ARGV[9]) or 0; " +
+            "local cur = seed(KEYS[1], KEYS[4], field, scale); " +
+            "if cur == nil then return txRecord(KEYS[5], \"0\") end; " +
+            "if delta < 0 and cur + delta < 0 then return txRecord(KEYS[5], \"INSUFFICIENT_FUNDS\") end; " +
+            "local newval = redis.call('HINCRBY', KEYS[4], field, ARGV[2]); " +
+            "local amount = fmt(newval, scale); " +
+            "if KEYS[3] ~= nil and KEYS[3] ~= '' then " +
+            "    redis.call('ZADD', KEYS[3], tonumber(amount), ARGV[6]); " +
+            "end; " +
+            "earned(KEYS[6], ARGV[6], tonumber(fmt(delta, scale))); " +
+            "tally(KEYS[7], field, tonumber(fmt(delta, scale))); " +
+            "if delta ~= 0 then " +
+            "    local reason = ARGV[8]; " +
+            "    if not reason or reason == '' then reason = 'SYSTEM' end; " +
+            "    appendHistory(KEYS[2], { type = ARGV[4], amount = tonumber(fmt(delta, scale)), amountMinor = delta, otherPlayer = ARGV[5], timestamp = ARGV[7], reason = reason }); " +
+            "end; " +
+            "local update = { playerUuid = ARGV[6], field = field, newBalance = amount, amount = tonumber(fmt(delta, scale)), minor = newval, serverSource = ARGV[3], transactionType = ARGV[4] }; " +
+            "emitUpdate(update); " +
+            "return txRecord(KEYS[5], string.format('%d', newval));";
+
+    /**
+     * Fixed-mode counterpart of TRANSFER_METADATA_ATOMIC.
+     * KEYS: fromPlayer, toPlayer, fromBalances, toBalances, fromHistory, toHistory, baltop, transaction, fromStats, toStats, stream.
+     * ARGV: field, amount (minor units), scale, serverSource, fromUuid, toUuid, timestamp, reason, history retention.
+     * Returns the sender's new balance in minor units.
+     */
+    public static final String TRANSFER_BALANCE_FIXED =
+            FIXED_BALANCE_HELPERS +
+            TX_GUARD +
+            UPDATE_STREAM +
+            PLAYER_STATS +
+            TRANSFER_SIDE_EFFECTS +
+            "local prior = txPrior(KEYS[8]); " +
+            "if prior then return prior end; " +
+            "local field = ARGV[1]; " +
+            "local amount = tonumber(ARGV[2]); " +
+            "local scale = tonumber(ARGV[3]) or 0; " +
+            "local fromUuid, toUuid, timestamp = ARGV[5], ARGV[6], ARGV[7]; " +
+            "local reason = ARGV[8]; " +
+            "if not reason or reason == '' then reason = 'TRANSFER' end; " +
+            "if amount <= 0 then return txRecord(KEYS[8], \"0\") end; " +
+            "local fromBal = seed(KEYS[1], KEYS[3], field, scale); " +
+            "if fromBal == nil or fromBal - amount < 0 then return txRecord(KEYS[8], \"INSUFFICIENT_FUNDS\") end; " +
+            "seed(KEYS[2], KEYS[4], field, scale); " +
+            "local newFrom = redis.call('HINCRBY', KEYS[3], field, '-' .. ARGV[2]); " +
+            "local newTo = redis.call('HINCRBY', KEYS[4], field, ARGV[2]); " +
+            "local fromAmount, toAmount = fmt(newFrom, scale), fmt(newTo, scale); " +
+            "if KEYS[7] ~= nil and KEYS[7] ~= '' then " +
+            "    redis.call('ZADD', KEYS[7], tonumber(fromAmount), fromUuid); " +
+            "    redis.call('ZADD', KEYS[7], tonumber(toAmount), toUuid); " +
+            "end; " +
+            "local display = tonumber(fmt(amount, scale)); " +
+            "tallyTransfer(KEYS[9], KEYS[10], field, display); " +
+            "transferHistory(KEYS[5], 'TRANSFER_OUT', -display, -amount, toUuid, timestamp, reason); " +
+            "transferHistory(KEYS[6], 'TRANSFER_IN', display, amount, fromUuid, timestamp, reason); " +
+            "local updates = { " +
+            "    { playerUuid = fromUuid, field = field, newBalance = fromAmount, amount = -display, minor = newFrom, transactionType = 'TRANSFER_OUT' }, " +
+            "    { playerUuid = toUuid, field = field, newBalance = toAmount, amount = display, minor = newTo, transactionType = 'TRANSFER_IN' } " +
+            "}; " +
+            "emitUpdate({ serverSource = ARGV[4], batch = updates }); " +
+            "return txRecord(KEYS[8], string.format('%d', newFrom));";
+
+    /**
+     * Moves every legacy "balance*" value of one player record into the balance hash.
+     * KEYS: player, balances. ARGV: scale. Returns the number of fields moved.
+     */
+    public static final String MIGRATE_BALANCES_FIXED =
+            "local existing = redis.call('GET', KEYS[1]); " +
+            "if not existing then return 0 end; " +
+            "local obj = cjson.decode(existing); " +
+            "if type(obj.metadata) ~= 'table' then return 0 end; " +
+            "local scale = tonumber(ARGV[1]) or 0; " +
+            "local moved = 0; " +
+            "for k, v in pairs(obj.metadata) do " +
+            "    if string.sub(string.lower(k), 1, 7) == 'balance' then " +
+            "        if redis.call('HEXISTS', KEYS[2], k) == 0 then " +
+            "            local minor = (tonumber(v) or 0) * (10 ^ scale); " +
+            "            if minor >= 0 then minor = math.floor(minor + 0.5) else minor = -math.floor(-minor + 0.5) end; " +
+            "            redis.call('HSET', KEYS[2], k, string.format('%d', minor)); " +
+            "        end; " +
+            "        obj.metadata[k] = nil; " +
+            "        moved = moved + 1; " +
+            "    end; " +
+            "end; " +
+            "if moved > 0 then " +
+            "    obj.version = (tonumber(obj.version) or 0) + 1; " +
+            "    redis.call('SET', KEYS[1], cjson.encode(obj)); " +
+            "end; " +
+            "return moved;";
+
+    /**
+     * Applies a batch of increments; every entry succeeds or fails on its own and all updates go out in one message.
+     * KEYS per entry: player, history, baltop, balances, earnings bucket, player stats; then one transaction key for the whole batch and the stream key.
+     * ARGV: count, scale, serverSource, timestamp, then per entry: field, delta, kind, txType, reason, playerUuid; then history retention.
+     * kind is "L" (plain metadata), "R" (ranked metadata), "B" (legacy balance) or "F" (fixed-point balance, delta in minor units).
+     * Returns one string per entry: the new value, "INSUFFICIENT_FUNDS", or "0" if the player has no record.
+     */
+    public static final String INCREMENT_METADATA_BATCH =
+            FIXED_BALANCE_HELPERS +
+            TX_GUARD +
+            UPDATE_STREAM +
+            EARNINGS_BUCKET +
+            PLAYER_STATS +
+            HISTORY_STREAM +
+            "local count = tonumber(ARGV[1]); " +
+            "local prior = txPrior(KEYS[count * 6 + 1]); " +
+            "if prior then return cjson.decode(prior) end; " +
+            "local scale = tonumber(ARGV[2]) or 0; " +
+            "local serverSource = ARGV[3]; " +
+            "local timestamp = ARGV[4]; " +
+            "local results = {}; " +
+            "local updates = {}; " +
+            "local function history(historyKey, txType, amount, amountMinor, reason) " +
+            "    if not reason or reason == '' then reason = 'SYSTEM' end; " +
+            "    appendHistory(historyKey, { type = txType, amount = amount, amountMinor = amountMinor, otherPlayer = '', timestamp = timestamp, reason = reason }); " +
+            "end; " +
+            "for i = 1, count do " +
+            "    local k = (i - 1) * 6; " +
+            "    local a = 4 + (i - 1) * 6; " +
+            "    local playerKey, historyKey, baltopKey, balKey, earnedKey, statsKey = KEYS[k + 1], KEYS[k + 2], KEYS[k + 3], KEYS[k + 4], KEYS[k + 5], KEYS[k + 6]; " +
+            "    local field, deltaRaw, kind, txType, reason, playerUuid = ARGV[a + 1], ARGV[a + 2], ARGV[a + 3], ARGV[a + 4], ARGV[a + 5], ARGV[a + 6]; " +
+            "    local delta = tonumber(deltaRaw); " +
+            "    local result = '0'; " +
+            "    if kind == 'F' then " +
+            "        local cur = seed(playerKey, balKey, field, scale); " +
+            "        if cur ~= nil then " +
+            "            if delta < 0 and cur + delta < 0 then " +
+            "                result = 'INSUFFICIENT_FUNDS'; " +
+            "            else " +
+            "                local newval = redis.call('HINCRBY', balKey, field, deltaRaw); " +
+            "                local amount = fmt(newval, scale); " +
+            "                redis.call('ZADD', baltopKey, tonumber(amount), playerUuid); " +
+            "                earned(earnedKey, playerUuid, tonumber(fmt(delta, scale))); " +
+            "                tally(statsKey, field, tonumber(fmt(delta, scale))); " +
+            "                if delta ~= 0 then history(historyKey, txType, tonumber(fmt(delta, scale)), delta, reason) end; " +
+            "                table.insert(updates, { playerUuid = playerUuid, field = field, newBalance = amount, amount = tonumber(fmt(delta, scale)), minor = newval, transactionType = txType }); " +
+            "                result = string.format('%d', newval); " +
+            "            end; " +
+            "        end; " +
+            "    else " +
+            "        local existing = redis.call('GET', playerKey); " +
+            "        if existing then " +
+            "            local obj = cjson.decode(existing); " +
+            "            if not obj.metadata then obj.metadata = {} end; " +
+            "            local newval = (tonumber(obj.metadata[field] or '0') or 0) + delta; " +
+            "            if delta < 0 and newval < 0 then " +
+            "                result = 'INSUFFICIENT_FUNDS'; " +
+            "            else " +
+            "                obj.metadata[field] = tostring(newval); " +
+            "                obj.version = (tonumber(obj.version) or 0) + 1; " +
+            "                redis.call('SET', playerKey, cjson.encode(obj)); " +
+            "                if kind == 'B' then " +
+            "                    redis.call('ZADD', baltopKey, newval, playerUuid); " +
+            "                    earned(earnedKey, playerUuid, delta); " +
+            "                    tally(statsKey, field, delta); " +
+            "                    if delta ~= 0 then history(historyKey, txType, delta, nil, reason) end; " +
+            "                    table.insert(updates, { playerUuid = playerUuid, field = field, newBalance = tostring(newval), amount = delta, version = obj.version, transactionType = txType }); " +
+            "                elseif kind == 'R' then " +
+            "                    table.insert(updates, { playerUuid = playerUuid, name = obj.lastSeenName, field = field, newBalance = tostring(newval), amount = delta, version = obj.version, transactionType = txType }); " +
+            "                end; " +
+            "                result = tostring(newval); " +
+            "            end; " +
+            "        end; " +
+            "    end; " +
+            "    results[i] = result; " +
+            "end; " +
+            "if #updates > 0 then " +
+            "    emitUpdate({ serverSource = serverSource, batch = updates }); " +
+            "end; " +
+            "txRecord(KEYS[count * 6 + 1], cjson.encode(results)); " +
+            "return results;";
+
+    /**
+     * Reads one page of a player's history stream, newest first, skipping entries whose type is not wanted.
+     * KEYS: history stream. ARGV: end (exclusive cursor "(id", a timestamp, or "+"), start (a timestamp or "-"),
+     * limit, wanted types (comma separated, empty for all), scan budget.
+     * Returns the next cursor ("" once the range is exhausted) followed by id/data pairs. A page may hold fewer
+     * than limit entries when the scan budget runs out first; the cursor then continues the scan.
+     */
+    public static final String HISTORY_PAGE =
+            "local hi, lo = ARGV[1], ARGV[2]; " +
+            "local limit = tonumber(ARGV[3]); " +
+            "local budget = tonumber(ARGV[5]); " +
+            "local wanted, anyType = {}, true; " +
+            "for t in string.gmatch(ARGV[4], '[^,]+') do wanted[t] = true; anyType = false end; " +
+            "local out, found, last, exhausted = { '' }, 0, nil, false; " +
+            "while found < limit and budget > 0 do " +
+            "    local count = math.min(budget, math.max(limit - found, 64)); " +
+            "    local page = redis.call('XREVRANGE', KEYS[1], hi, lo, 'COUNT', count); " +
+            "    for _, e in ipairs(page) do " +
+            "        last = e[1]; " +
+            "        budget = budget - 1; " +
+            "        local fields, typ, data = e[2], '', nil; " +
+            "        for i = 1, #fields, 2 do " +
+            "            if fields[i] == 'type' then typ = fields[i + 1] elseif fields[i] == 'data' then data = fields[i + 1] end; " +
+            "        end; " +
+            "        if data and (anyType or wanted[typ]) then " +
+            "            out[#out + 1] = e[1]; " +
+            "            out[#out + 1] = data; " +
+            "            found = found + 1; " +
+            "            if found >= limit then break end; " +
+            "        end; " +
+            "    end; " +
+            "    if #page < count and found < limit then exhausted = true; break end; " +
+            "    if last then hi = '(' .. last end; " +
+            "end; " +
+            "if not exhausted and last then out[1] = last end; " +
+            "return out;";
+
+    /**
+     * Reads the oldest history entries written before a cutoff, for archiving.
+     * KEYS: history stream. ARGV: start (exclusive cursor "(id" or "-"), cutoff timestamp (exclusive), count.
+     * Returns the same shape as HISTORY_PAGE: an unused cursor slot followed by id/data pairs, oldest first.
+     */
+    public static final String HISTORY_DRAIN =
+            "local out = { '' }; " +
+            "for _, e in ipairs(redis.call('XRANGE', KEYS[1], ARGV[1], '(' .. ARGV[2], 'COUNT', tonumber(ARGV[3]))) do " +
+            "    local fields, data = e[2], nil; " +
+            "    for i = 1, #fields, 2 do if fields[i] == 'data' then data = fields[i + 1] end end; " +
+            "    if data then out[#out + 1] = e[1]; out[#out + 1] = data end; " +
+            "end; " +
+            "return out;";
+
+    /**
+     * Reads a page of a multi-day earnings window, building the union of its day buckets on first use.
+     * KEYS: window cache, day buckets. ARGV: cacheMillis, start, stop. Returns member/score pairs.
+     */
+    public static final String EARNINGS_WINDOW_TOP =
+            "if redis.call('EXISTS', KEYS[1]) == 0 then " +
+            "    local buckets = {}; " +
+            "    for i = 2, #KEYS do buckets[#buckets + 1] = KEYS[i] end; " +
+            "    redis.call('ZUNIONSTORE', KEYS[1], #buckets, unpack(buckets)); " +
+            "    redis.call('PEXPIRE', KEYS[1], ARGV[1]); " +
+            "end; " +
+            "return redis.call('ZREVRANGE', KEYS[1], ARGV[2], ARGV[3], 'WITHSCORES');";
+
+    /**
+     * Sets a player's leaderboard score under the bare UUID member and records the name in the index.
+     * KEYS: baltop, player name index. ARGV: uuid, score, name (may be empty).
+     * A legacy "name|uuid" member for the same name is removed.
+     */
+    public static final String BALTOP_SET =
+            "redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1]); " +
+            "if ARGV[3] ~= '' then " +
+            "    redis.call('ZREM', KEYS[1], ARGV[3] .. '|' .. ARGV[1]); " +
+            "    redis.call('HSET', KEYS[2], ARGV[1], ARGV[3]); " +
+            "end; " +
+            "return 1;";
+
+    /**
+     * Rewrites legacy "name|uuid" leaderboard members as bare UUIDs.
+     * KEYS: baltop, player name index. ARGV: legacy members.
+     * A score already stored under the bare UUID is kept (the economy scripts write it on every change);
+     * otherwise the legacy score moves over. Returns the number of members rewritten.
+     */
+    public static final String BALTOP_COMPACT =
+            "local moved = 0; " +
+            "for _, member in ipairs(ARGV) do " +
+            "    local sep = string.find(member, '|[^|]*$'); " +
+            "    local score = redis.call('ZSCORE', KEYS[1], member); " +
+            "    if sep and score then " +
+            "        local name = string.sub(member, 1, sep - 1); " +
+            "        local uuid = string.sub(member, sep + 1); " +
+            "        if not redis.call('ZSCORE', KEYS[1], uuid) then redis.call('ZADD', KEYS[1], score, uuid) end; " +
+            "        if name ~= '' then redis.call('HSETNX', KEYS[2], uuid, name) end; " +
+            "        redis.call('ZREM', KEYS[1], member); " +
+            "        moved = moved + 1; " +
+            "    end; " +
+            "end; " +
+            "return moved;";
+
+    /**
+     * Looks up a player's leaderboard position and the rows around it in one call.
+     * KEYS: baltop, player. ARGV: uuid, radius.
+     * Legacy "name|uuid" members, until the baltop compaction rewrites them, are found through the name in the player record.
+     * Returns {-1} if the player is not on the board, otherwise {rank0, score} followed,
+     * for a radius above 0, by the 0-based start rank and the member/score pairs of the range.
+     */
+    public static final String LEADERBOARD_RANK_AROUND =
+            "local member = ARGV[1]; " +
+            "local rank = redis.call('ZREVRANK', KEYS[1], member); " +
+            "if not rank then " +
+            "    local raw = redis.call('GET', KEYS[2]); " +
+            "    if raw then " +
+            "        local ok, p = pcall(cjson.decode, raw); " +
+            "        if ok and type(p) == 'table' and type(p.lastSeenName) == 'string' then " +
+            "            member = p.lastSeenName .. '|' .. ARGV[1]; " +
+            "            rank = redis.call('ZREVRANK', KEYS[1], member); " +
+            "        end; " +
+            "    end; " +
+            "end; " +
+            "if not rank then return {-1} end; " +
+            "local out = { rank, redis.call('ZSCORE', KEYS[1], member) }; " +
+            "local radius = tonumber(ARGV[2]) or 0; " +
+            "if radius > 0 then " +
+            "    local start = math.max(0, rank - radius); " +
+            "    table.insert(out, start); " +
+            "    for _, v in ipairs(redis.call('ZREVRANGE', KEYS[1], start, rank + radius, 'WITHSCORES')) do " +
+            "        table.insert(out, v); " +
+            "    end; " +
+            "end; " +
+            "return out;";
+
+    /**
+     * Takes or renews a leadership lock. KEYS: lock. ARGV: nodeId, ttlMillis.
+     * Returns 1 if the caller holds the lock afterwards, 0 if another node does.
+     */
+    public static final String LEADER_LOCK =
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+            "    redis.call('PEXPIRE', KEYS[1], ARGV[2]); " +
+            "    return 1; " +
+            "end; " +
+            "if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then return 1 end; " +
+            "return 0;";
+
+    /**
+     * Applies one change to the network-wide online player set and publishes it as a sequenced delta.
+     * KEYS: set, sequence. ARGV: op ("+" join, "-" leave, "0" reset), name, channel, namespace.
+     * Changes that do not modify the set do not consume a sequence number.
+     */
+    public static final String ONLINE_SET_DELTA =
+            "local setKey = KEYS[1]; " +
+            "local seqKey = KEYS[2]; " +
+            "local op = ARGV[1]; " +
+            "local name = ARGV[2]; " +
+            "local changed = 1; " +
+            "if op == '+' then " +
+            "    changed = redis.call('SADD', setKey, name); " +
+            "elseif op == '-' then " +
+            "    changed = redis.call('SREM', setKey, name); " +
+            "else " +
+            "    redis.call('DEL', setKey); " +
+            "end; " +
+            "if changed == 0 then return tonumber(redis.call('GET', seqKey) or '0') end; " +
+            "local seq = redis.call('INCR', seqKey); " +
+            "local delta = { action = 'ONLINE_DELTA', namespace = ARGV[4], seq = seq, op = op, name = name }; " +
+            "redis.call('PUBLISH', ARGV[3], cjson.encode(delta)); " +
+            "return seq;";
+
+    /**
+     * Reads the online player set together with its sequence number. Returns {seq, name1, name2, ...}.
+     */
+    public static final String ONLINE_SET_SNAPSHOT =
+            "local members = redis.call('SMEMBERS', KEYS[1]); " +
+            "table.insert(members, 1, redis.call('GET', KEYS[2]) or '0'); " +
+            "return members;";
 }
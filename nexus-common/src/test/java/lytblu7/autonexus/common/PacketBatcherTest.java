@@ -0,0 +1,146 @@
+package lytblu7.autonexus.common;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PacketBatcherTest {
+    // Long enough that only the limits or an explicit flush publish within a test
+    private static final long NEVER = TimeUnit.SECONDS.toMicros(60);
+
+    private final List<String> channels = Collections.synchronizedList(new ArrayList<>());
+    private final List<byte[]> published = Collections.synchronizedList(new ArrayList<>());
+    private PacketBatcher batcher;
+
+    @AfterEach
+    void close() {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
+    private PacketBatcher.Sink recording(long receivers) {
+        return (channel, frame) -> {
+            channels.add(channel);
+            published.add(frame);
+            return CompletableFuture.completedFuture(receivers);
+        };
+    }
+
+    private static byte[] frame(String text) {
+        return PacketIO.encode(new NexusPacket("GLOBAL_MESSAGE", text));
+    }
+
+    @Test
+    void publishesOneBatchOnceMaxPacketsAreQueued() throws Exception {
+        batcher = new PacketBatcher(recording(3L), NEVER, 3, 1 << 20);
+        byte[] a = frame("a"), b = frame("b"), c = frame("c");
+
+        CompletableFuture<Long> first = batcher.submit("chan", a);
+        batcher.submit("chan", b);
+        assertTrue(published.isEmpty());
+        batcher.submit("chan", c);
+
+        assertEquals(1, published.size());
+        List<byte[]> frames = PacketIO.unpackBatch(published.get(0));
+        assertNotNull(frames);
+        assertEquals(3, frames.size());
+        assertArrayEquals(a, frames.get(0));
+        assertArrayEquals(b, frames.get(1));
+        assertArrayEquals(c, frames.get(2));
+        assertEquals(3L, first.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void publishesOnceMaxBytesAreQueued() {
+        byte[] a = frame("aaaaaaaaaa");
+        batcher = new PacketBatcher(recording(1L), NEVER, 100, a.length * 2);
+
+        batcher.submit("chan", a);
+        assertTrue(published.isEmpty());
+        batcher.submit("chan", frame("bbbbbbbbbb"));
+
+        assertEquals(1, published.size());
+        assertTrue(PacketIO.isBatch(published.get(0)));
+    }
+
+    @Test
+    void aLoneFrameIsPublishedAsItselfWhenTheWindowCloses() throws Exception {
+        batcher = new PacketBatcher(recording(1L), 1_000L, 10, 1 << 20);
+        byte[] a = frame("a");
+
+        assertEquals(1L, batcher.submit("chan", a).get(5, TimeUnit.SECONDS));
+
+        assertEquals(1, published.size());
+        assertArrayEquals(a, published.get(0));
+    }
+
+    @Test
+    void keepsChannelsApart() {
+        batcher = new PacketBatcher(recording(1L), NEVER, 2, 1 << 20);
+
+        batcher.submit("one", frame("a"));
+        batcher.submit("two", frame("b"));
+        assertTrue(published.isEmpty());
+        batcher.flushAll();
+
+        assertEquals(2, published.size());
+        assertTrue(channels.containsAll(List.of("one", "two")));
+        assertFalse(PacketIO.isBatch(published.get(0)));
+        assertFalse(PacketIO.isBatch(published.get(1)));
+    }
+
+    @Test
+    void publishesRightAwayAfterClose() {
+        batcher = new PacketBatcher(recording(1L), NEVER, 10, 1 << 20);
+        batcher.submit("chan", frame("a"));
+
+        batcher.close();
+        assertEquals(1, published.size());
+        batcher.submit("chan", frame("b"));
+
+        assertEquals(2, published.size());
+    }
+
+    @Test
+    void failsEveryFutureOfAFailedPublish() {
+        batcher = new PacketBatcher((channel, frame) -> CompletableFuture.failedFuture(new IllegalStateException("down")), NEVER, 2, 1 << 20);
+
+        CompletableFuture<Long> first = batcher.submit("chan", frame("a"));
+        CompletableFuture<Long> second = batcher.submit("chan", frame("b"));
+
+        assertThrows(ExecutionException.class, () -> first.get(1, TimeUnit.SECONDS));
+        assertThrows(ExecutionException.class, () -> second.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void countsPublishesByBatchSize() {
+        batcher = new PacketBatcher(recording(1L), NEVER, 100, 1 << 20);
+
+        batcher.submit("chan", frame("a"));
+        batcher.flushAll();
+        for (int i = 0; i < 5; i++) {
+            batcher.submit("chan", frame("b" + i));
+        }
+        batcher.flushAll();
+        for (int i = 0; i < 70; i++) {
+            batcher.submit("chan", frame("c" + i));
+        }
+        batcher.flushAll();
+
+        assertEquals("1=1 2-3=0 4-7=1 8-15=0 16-31=0 32-63=0 64+=1 (3 publishes)", batcher.describeHistogram());
+    }
+}
@@ -0,0 +1,155 @@
+package lytblu7.autonexus.common;
+
+import lytblu7.autonexus.common.model.PlayerInvalidation;
+import lytblu7.autonexus.common.model.ServerInfo;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PacketIOTest {
+    private static final UUID PLAYER = UUID.fromString("0f8fad5b-d9cb-469f-a165-70867728950e");
+
+    @Test
+    void typedSyncPlayerRoundTrips() {
+        String payload = new PlayerInvalidation(PLAYER, 42L, "lobby-1", "Steve").toJson();
+        NexusPacket packet = new NexusPacket("SYNC_PLAYER", payload, "survival", UUID.randomUUID().toString());
+
+        byte[] data = PacketIO.encode("lobby-1", packet);
+        PacketIO.Frame frame = PacketIO.decodeFrame(data);
+
+        assertTrue(PacketIO.isBinary(data));
+        assertFalse(PacketIO.isBatch(data));
+        assertNotNull(frame);
+        assertEquals("lobby-1", frame.getTarget());
+        assertSamePacket(packet, frame.getPacket());
+    }
+
+    @Test
+    void typedMetadataUpdateRoundTrips() {
+        NexusPacket packet = new NexusPacket("METADATA_UPDATE", PLAYER + ":balance:12.50:extra");
+
+        NexusPacket decoded = PacketIO.decode(PacketIO.encode(packet));
+
+        assertSamePacket(packet, decoded);
+    }
+
+    @Test
+    void payloadsThatDoNotFitTheirTypeKeepTheirExactString() {
+        // Not a UUID and not in canonical form: both fall back to a raw body
+        NexusPacket notUuid = new NexusPacket("METADATA_UPDATE", "someone:balance:1");
+        NexusPacket upperCase = new NexusPacket("METADATA_SYNC", PLAYER.toString().toUpperCase() + ":k:v");
+
+        assertSamePacket(notUuid, PacketIO.decode(PacketIO.encode(notUuid)));
+        assertSamePacket(upperCase, PacketIO.decode(PacketIO.encode(upperCase)));
+    }
+
+    @Test
+    void customTypesAndTextSendersRoundTrip() {
+        NexusPacket packet = new NexusPacket("myplugin:party", "{\"members\":[\"a\",\"b\"]}", null, "console");
+
+        NexusPacket decoded = PacketIO.decode(PacketIO.encode("ALL", packet));
+
+        assertSamePacket(packet, decoded);
+    }
+
+    @Test
+    void nullAndLongStringsRoundTrip() {
+        char[] big = new char[70_000];
+        Arrays.fill(big, 'é');
+        NexusPacket large = new NexusPacket("GLOBAL_MESSAGE", new String(big));
+        NexusPacket empty = new NexusPacket("PING", null);
+
+        assertSamePacket(large, PacketIO.decode(PacketIO.encode(large)));
+        assertSamePacket(empty, PacketIO.decode(PacketIO.encode(empty)));
+    }
+
+    @Test
+    void carriesTheSendTime() {
+        long before = System.currentTimeMillis();
+        PacketIO.Frame frame = PacketIO.decodeFrame(PacketIO.encode(new NexusPacket("PING", "x")));
+        long after = System.currentTimeMillis();
+
+        assertNotNull(frame);
+        assertTrue(frame.getTimestamp() >= before && frame.getTimestamp() <= after);
+    }
+
+    @Test
+    void rejectsJsonNewerVersionsAndTruncatedFrames() {
+        byte[] data = PacketIO.encode(new NexusPacket("GLOBAL_MESSAGE", "hello"));
+        byte[] newer = data.clone();
+        newer[1] = (byte) (PacketIO.PROTOCOL_VERSION + 1);
+
+        assertFalse(PacketIO.isBinary("{\"type\":\"PING\"}".getBytes(StandardCharsets.UTF_8)));
+        assertNull(PacketIO.decodeFrame("{\"type\":\"PING\"}".getBytes(StandardCharsets.UTF_8)));
+        assertNull(PacketIO.decodeFrame(newer));
+        assertNull(PacketIO.decodeFrame(Arrays.copyOf(data, data.length - 2)));
+        assertNull(PacketIO.decodeFrame(new byte[0]));
+    }
+
+    @Test
+    void batchKeepsFramesInOrder() {
+        byte[] first = PacketIO.encode(new NexusPacket("GLOBAL_MESSAGE", "one"));
+        byte[] second = PacketIO.encode(new NexusPacket("STAFF_CHAT", "two"));
+        byte[] third = PacketIO.encode(new NexusPacket("PING", "three"));
+
+        byte[] batch = PacketIO.encodeBatch(List.of(first, second, third));
+        List<byte[]> frames = PacketIO.unpackBatch(batch);
+
+        assertTrue(PacketIO.isBinary(batch));
+        assertTrue(PacketIO.isBatch(batch));
+        assertNotNull(frames);
+        assertEquals(3, frames.size());
+        assertArrayEquals(first, frames.get(0));
+        assertArrayEquals(second, frames.get(1));
+        assertArrayEquals(third, frames.get(2));
+        // A batch is not a frame; version 1 readers drop it instead of misreading it
+        assertNull(PacketIO.decodeFrame(batch));
+    }
+
+    @Test
+    void singleFramesAreNotBatches() {
+        assertNull(PacketIO.unpackBatch(PacketIO.encode(new NexusPacket("PING", "x"))));
+    }
+
+    @Test
+    void rejectsTruncatedBatches() {
+        byte[] batch = PacketIO.encodeBatch(List.of(PacketIO.encode(new NexusPacket("PING", "x")),
+                PacketIO.encode(new NexusPacket("PING", "y"))));
+
+        assertNull(PacketIO.unpackBatch(Arrays.copyOf(batch, batch.length - 1)));
+        assertNull(PacketIO.unpackBatch(Arrays.copyOf(batch, 4)));
+    }
+
+    @Test
+    void negotiatesTheLowestAdvertisedVersion() {
+        List<ServerInfo> current = List.of(new ServerInfo("a", 0, 100, 20.0, 2), new ServerInfo("b", 0, 100, 20.0, 2));
+        List<ServerInfo> mixed = List.of(new ServerInfo("a", 0, 100, 20.0, 2), new ServerInfo("b", 0, 100, 20.0, 1));
+        List<ServerInfo> json = List.of(new ServerInfo("a", 0, 100, 20.0, 2), new ServerInfo("b", 0, 100, 20.0));
+
+        assertEquals(2, PacketIO.negotiate("2", current));
+        assertEquals(1, PacketIO.negotiate("2", mixed));
+        assertEquals(0, PacketIO.negotiate("2", json));
+        assertEquals(PacketIO.PROTOCOL_VERSION, PacketIO.negotiate("99", Collections.emptyList()));
+        assertEquals(0, PacketIO.negotiate(null, current));
+        assertEquals(0, PacketIO.negotiate("two", current));
+    }
+
+    private static void assertSamePacket(NexusPacket expected, NexusPacket actual) {
+        assertNotNull(actual);
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getPayload(), actual.getPayload());
+        assertEquals(expected.getTargetGroup(), actual.getTargetGroup());
+        assertEquals(expected.getSenderUuid(), actual.getSenderUuid());
+    }
+}
@@ -0,0 +1,67 @@
+package lytblu7.autonexus.common.meta;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EconomySettingsTest {
+    private static final EconomySettings CENTS = new EconomySettings(EconomySettings.Mode.FIXED, 2);
+
+    @Test
+    void parsesModeAndClampsScale() {
+        assertTrue(EconomySettings.of(" Fixed ", 2).isFixed());
+        assertFalse(EconomySettings.of("legacy", 2).isFixed());
+        assertFalse(EconomySettings.of(null, 2).isFixed());
+        assertEquals(0, EconomySettings.of("fixed", -3).getScale());
+        assertEquals(8, EconomySettings.of("fixed", 20).getScale());
+    }
+
+    @Test
+    void recognizesBalanceFields() {
+        assertTrue(CENTS.isBalanceField("balance"));
+        assertTrue(CENTS.isBalanceField("BALANCE_gems"));
+        assertFalse(CENTS.isBalanceField("kills"));
+        assertFalse(CENTS.isBalanceField(null));
+    }
+
+    @Test
+    void roundsHalfUpToMinorUnits() {
+        assertEquals(1250L, CENTS.toMinor(12.5));
+        assertEquals(1L, CENTS.toMinor(0.005));
+        assertEquals(-1L, CENTS.toMinor(-0.005));
+        // 0.1 + 0.2 is 0.30000000000000004 as a double
+        assertEquals(30L, CENTS.toMinor(0.1 + 0.2));
+        assertEquals(3L, new EconomySettings(EconomySettings.Mode.FIXED, 0).toMinor(2.5));
+    }
+
+    @Test
+    void repeatedAdditionsDoNotDrift() {
+        long minor = 0L;
+        for (int i = 0; i < 1_000; i++) {
+            minor += CENTS.toMinor(0.1);
+        }
+        assertEquals(10_000L, minor);
+        assertEquals("100.00", CENTS.format(minor));
+        assertEquals(100.0, CENTS.fromMinor(minor));
+    }
+
+    @Test
+    void formatsWithExactlyScaleDigits() {
+        assertEquals("12.50", CENTS.format(1250L));
+        assertEquals("0.05", CENTS.format(5L));
+        assertEquals("-0.05", CENTS.format(-5L));
+        assertEquals("7", new EconomySettings(EconomySettings.Mode.FIXED, 0).format(7L));
+        assertEquals("92233720368547758.07", CENTS.format(Long.MAX_VALUE));
+    }
+
+    @Test
+    void parsesStoredBalances() {
+        assertEquals(1250L, CENTS.parseMinor("12.5", false));
+        assertEquals(1250L, CENTS.parseMinor(" 1250 ", true));
+        assertEquals(1L, CENTS.parseMinor("0.005", false));
+        assertEquals(0L, CENTS.parseMinor(null, false));
+        assertEquals(0L, CENTS.parseMinor("  ", true));
+    }
+}
@@ -0,0 +1,142 @@
+package lytblu7.autonexus.common.meta;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedCounterTest {
+    private static final EconomySettings CENTS = new EconomySettings(EconomySettings.Mode.FIXED, 2);
+
+    /**
+     * Keeps shards in memory with the semantics of the shard scripts.
+     */
+    private static final class MemoryStore implements ShardedCounter.Store {
+        private final Map<String, long[]> counters = new HashMap<>();
+        private int reads;
+
+        long[] shards(String name, int count) {
+            return counters.computeIfAbsent(name, k -> new long[count]);
+        }
+
+        @Override
+        public CompletableFuture<String> addToShard(String name, int shard, long deltaMinor, String txId) {
+            long[] shards = counters.get(name);
+            if (deltaMinor < 0 && shards[shard] < -deltaMinor) {
+                return CompletableFuture.completedFuture("SHORT");
+            }
+            shards[shard] += deltaMinor;
+            return CompletableFuture.completedFuture(String.valueOf(shards[shard]));
+        }
+
+        @Override
+        public CompletableFuture<String> borrowFromShards(String name, int count, int shard, long deltaMinor, String txId) {
+            long[] shards = counters.get(name);
+            long remaining = -deltaMinor;
+            if (Arrays.stream(shards).sum() < remaining) {
+                return CompletableFuture.completedFuture("INSUFFICIENT_FUNDS");
+            }
+            for (int step = 0; step < count && remaining > 0; step++) {
+                int i = (shard + step) % count;
+                long take = Math.min(shards[i], remaining);
+                shards[i] -= take;
+                remaining -= take;
+            }
+            return CompletableFuture.completedFuture(String.valueOf(shards[shard]));
+        }
+
+        @Override
+        public CompletableFuture<Long> sumCounter(String name, int count) {
+            reads++;
+            return CompletableFuture.completedFuture(Arrays.stream(shards(name, count)).sum());
+        }
+    }
+
+    @Test
+    void clampsTheShardCount() {
+        MemoryStore store = new MemoryStore();
+
+        assertEquals(1, new ShardedCounter("a", 0, "node", CENTS, store).getShards());
+        assertEquals(ShardedCounter.MAX_SHARDS, new ShardedCounter("b", 1_000, "node", CENTS, store).getShards());
+    }
+
+    @Test
+    void writesRoundRobinFromTheNodesOwnShard() {
+        ShardedCounter counter = new ShardedCounter("bank", 4, "node-a", CENTS, new MemoryStore());
+        int home = Math.floorMod("node-a".hashCode(), 4);
+
+        for (int i = 0; i < 8; i++) {
+            assertEquals((home + i) % 4, counter.nextShard());
+        }
+    }
+
+    @Test
+    void creditsLandOnOneShardEach() {
+        MemoryStore store = new MemoryStore();
+        long[] shards = store.shards("bank", 4);
+        ShardedCounter counter = new ShardedCounter("bank", 4, "node-a", CENTS, store);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(counter.add(2.5).join());
+        }
+
+        assertArrayEquals(new long[]{250L, 250L, 250L, 250L}, shards);
+        assertEquals(10.0, counter.get().join());
+    }
+
+    @Test
+    void debitsBorrowFromOtherShardsWhenTheirOwnIsShort() {
+        MemoryStore store = new MemoryStore();
+        long[] shards = store.shards("bank", 3);
+        shards[0] = 100L;
+        shards[1] = 100L;
+        shards[2] = 100L;
+        ShardedCounter counter = new ShardedCounter("bank", 3, "node-a", CENTS, store);
+        int first = Math.floorMod("node-a".hashCode(), 3);
+
+        assertTrue(counter.add(-2.5).join());
+
+        assertEquals(0L, shards[first]);
+        assertEquals(0L, shards[(first + 1) % 3]);
+        assertEquals(50L, shards[(first + 2) % 3]);
+        assertEquals(0.5, counter.get().join());
+    }
+
+    @Test
+    void refusesDebitsLargerThanTheTotal() {
+        MemoryStore store = new MemoryStore();
+        long[] shards = store.shards("bank", 2);
+        shards[0] = 100L;
+        shards[1] = 100L;
+        ShardedCounter counter = new ShardedCounter("bank", 2, "node-a", CENTS, store);
+
+        assertFalse(counter.add(-2.01).join());
+
+        assertArrayEquals(new long[]{100L, 100L}, shards);
+    }
+
+    @Test
+    void cachedTotalFollowsOwnWritesUntilTheNextRead() {
+        MemoryStore store = new MemoryStore();
+        store.shards("bank", 2);
+        ShardedCounter counter = new ShardedCounter("bank", 2, "node-a", CENTS, store);
+
+        assertTrue(Double.isNaN(counter.getCached()));
+        assertEquals(0.0, counter.get().join());
+        counter.add(1.1).join();
+        counter.add(2.2).join();
+
+        assertEquals(3.3, counter.getCached());
+        assertEquals(3.3, counter.get(60_000L).join());
+        assertEquals(1, store.reads);
+        counter.get(-1L).join();
+        assertEquals(2, store.reads);
+    }
+}
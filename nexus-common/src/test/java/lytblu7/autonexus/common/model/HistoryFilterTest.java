@@ -0,0 +1,58 @@
+package lytblu7.autonexus.common.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistoryFilterTest {
+    @Test
+    void allMatchesEverything() {
+        assertTrue(HistoryFilter.ALL.matches("CREDIT", 1L));
+        assertTrue(HistoryFilter.ALL.matches(null, Long.MAX_VALUE));
+    }
+
+    @Test
+    void normalizesTypes() {
+        HistoryFilter filter = new HistoryFilter(Arrays.asList(" credit", "DEBIT", "", null, "Credit"), 0L, 0L);
+
+        assertEquals(Set.of("CREDIT", "DEBIT"), filter.getTypes());
+        assertTrue(filter.matches("credit", 5L));
+        assertTrue(filter.matches("DEBIT", 5L));
+        assertFalse(filter.matches("TRANSFER_IN", 5L));
+        assertFalse(filter.matches(null, 5L));
+    }
+
+    @Test
+    void timeBoundsAreInclusive() {
+        HistoryFilter filter = HistoryFilter.between(100L, 200L);
+
+        assertFalse(filter.matches("CREDIT", 99L));
+        assertTrue(filter.matches("CREDIT", 100L));
+        assertTrue(filter.matches("CREDIT", 200L));
+        assertFalse(filter.matches("CREDIT", 201L));
+    }
+
+    @Test
+    void zeroLeavesABoundOpen() {
+        assertTrue(HistoryFilter.between(0L, 200L).matches("CREDIT", 0L));
+        assertTrue(HistoryFilter.between(100L, 0L).matches("CREDIT", Long.MAX_VALUE));
+        // Negative bounds are treated as open
+        assertEquals(0L, HistoryFilter.between(-5L, -5L).getFrom());
+        assertEquals(0L, HistoryFilter.between(-5L, -5L).getTo());
+    }
+
+    @Test
+    void combinesTypesAndTime() {
+        HistoryFilter filter = new HistoryFilter(Arrays.asList("TRANSFER_IN", "TRANSFER_OUT"), 1_000L, 2_000L);
+
+        assertTrue(filter.matches("TRANSFER_OUT", 1_500L));
+        assertFalse(filter.matches("TRANSFER_OUT", 2_500L));
+        assertFalse(filter.matches("CREDIT", 1_500L));
+        assertTrue(HistoryFilter.ofTypes("credit").matches("CREDIT", 42L));
+    }
+}
@@ -0,0 +1,376 @@
+package lytblu7.autonexus.common.redis;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import org.luaj.vm2.Globals;
+import org.luaj.vm2.LuaError;
+import org.luaj.vm2.LuaTable;
+import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.Varargs;
+import org.luaj.vm2.lib.OneArgFunction;
+import org.luaj.vm2.lib.VarArgFunction;
+import org.luaj.vm2.lib.jse.JsePlatform;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the Redis scripts with luaj against an in-memory keyspace, for the commands the economy scripts use.
+ * Replies are converted the way Redis converts them: Lua numbers become integers, tables become lists and
+ * false or nil becomes null. Commands outside that set fail the script.
+ */
+final class FakeRedis {
+    private final Map<String, String> strings = new HashMap<>();
+    private final Map<String, Map<String, String>> hashes = new HashMap<>();
+    private final Map<String, Map<String, Double>> zsets = new HashMap<>();
+    private final Map<String, List<Entry>> streams = new HashMap<>();
+    private final Map<String, Long> ttls = new HashMap<>();
+    private long nowMillis = 1_700_000_000_000L;
+    private long lastId;
+    private long lastSeq;
+
+    /**
+     * One stream entry: its ID and fields in order.
+     */
+    static final class Entry {
+        final String id;
+        final Map<String, String> fields;
+
+        Entry(String id, Map<String, String> fields) {
+            this.id = id;
+            this.fields = fields;
+        }
+    }
+
+    Object eval(String script, String[] keys, String... args) {
+        Globals globals = JsePlatform.standardGlobals();
+        globals.set("KEYS", list(keys));
+        globals.set("ARGV", list(args));
+        // Redis runs Lua 5.1, which still has the global unpack
+        globals.set("unpack", globals.get("table").get("unpack"));
+        LuaTable redis = new LuaTable();
+        redis.set("call", new VarArgFunction() {
+            @Override
+            public Varargs invoke(Varargs a) {
+                String[] argv = new String[a.narg()];
+                for (int i = 0; i < argv.length; i++) {
+                    argv[i] = argument(a.arg(i + 1));
+                }
+                return command(argv);
+            }
+        });
+        globals.set("redis", redis);
+        LuaTable cjson = new LuaTable();
+        cjson.set("encode", new OneArgFunction() {
+            @Override
+            public LuaValue call(LuaValue value) {
+                return LuaValue.valueOf(new Gson().toJson(toJson(value)));
+            }
+        });
+        cjson.set("decode", new OneArgFunction() {
+            @Override
+            public LuaValue call(LuaValue value) {
+                return fromJson(JsonParser.parseString(value.checkjstring()));
+            }
+        });
+        globals.set("cjson", cjson);
+        return reply(globals.load(script, "script").call());
+    }
+
+    void set(String key, String value) {
+        strings.put(key, value);
+    }
+
+    String get(String key) {
+        return strings.get(key);
+    }
+
+    JsonObject getJson(String key) {
+        String value = strings.get(key);
+        return value != null ? JsonParser.parseString(value).getAsJsonObject() : null;
+    }
+
+    String hget(String key, String field) {
+        Map<String, String> hash = hashes.get(key);
+        return hash != null ? hash.get(field) : null;
+    }
+
+    void hset(String key, String field, String value) {
+        hashes.computeIfAbsent(key, k -> new HashMap<>()).put(field, value);
+    }
+
+    Double zscore(String key, String member) {
+        Map<String, Double> zset = zsets.get(key);
+        return zset != null ? zset.get(member) : null;
+    }
+
+    List<Entry> stream(String key) {
+        return streams.getOrDefault(key, new ArrayList<>());
+    }
+
+    long ttl(String key) {
+        if (!exists(key)) {
+            return -2L;
+        }
+        return ttls.getOrDefault(key, -1L);
+    }
+
+    boolean exists(String key) {
+        return strings.containsKey(key) || hashes.containsKey(key) || zsets.containsKey(key) || streams.containsKey(key);
+    }
+
+    void expire(String key, long seconds) {
+        ttls.put(key, seconds);
+    }
+
+    void advance(long millis) {
+        nowMillis += millis;
+    }
+
+    private LuaValue command(String[] a) {
+        String command = a[0].toUpperCase();
+        switch (command) {
+            case "GET":
+                return bulk(strings.get(a[1]));
+            case "SET": {
+                strings.put(a[1], a[2]);
+                ttls.remove(a[1]);
+                if (a.length > 4 && "EX".equalsIgnoreCase(a[3])) {
+                    ttls.put(a[1], Long.parseLong(a[4]));
+                }
+                LuaTable ok = new LuaTable();
+                ok.set("ok", "OK");
+                return ok;
+            }
+            case "INCRBY":
+            case "DECRBY": {
+                long delta = Long.parseLong(a[2]) * ("DECRBY".equals(command) ? -1L : 1L);
+                long value = Long.parseLong(strings.getOrDefault(a[1], "0")) + delta;
+                strings.put(a[1], String.valueOf(value));
+                return LuaValue.valueOf(value);
+            }
+            case "HGET":
+                return bulk(hget(a[1], a[2]));
+            case "HSET": {
+                int added = 0;
+                for (int i = 2; i + 1 < a.length; i += 2) {
+                    if (hashes.computeIfAbsent(a[1], k -> new HashMap<>()).put(a[i], a[i + 1]) == null) {
+                        added++;
+                    }
+                }
+                return LuaValue.valueOf(added);
+            }
+            case "HINCRBY": {
+                long value = Long.parseLong(hget(a[1], a[2]) != null ? hget(a[1], a[2]) : "0") + Long.parseLong(a[3]);
+                hset(a[1], a[2], String.valueOf(value));
+                return LuaValue.valueOf(value);
+            }
+            case "HINCRBYFLOAT": {
+                BigDecimal value = new BigDecimal(hget(a[1], a[2]) != null ? hget(a[1], a[2]) : "0").add(new BigDecimal(a[3]));
+                String text = value.stripTrailingZeros().toPlainString();
+                hset(a[1], a[2], text);
+                return LuaValue.valueOf(text);
+            }
+            case "ZADD": {
+                int added = 0;
+                for (int i = 2; i + 1 < a.length; i += 2) {
+                    if (zsets.computeIfAbsent(a[1], k -> new HashMap<>()).put(a[i + 1], Double.parseDouble(a[i])) == null) {
+                        added++;
+                    }
+                }
+                return LuaValue.valueOf(added);
+            }
+            case "ZINCRBY": {
+                double value = zsets.computeIfAbsent(a[1], k -> new HashMap<>()).merge(a[3], Double.parseDouble(a[2]), Double::sum);
+                return LuaValue.valueOf(number(value));
+            }
+            case "ZSCORE": {
+                Double score = zscore(a[1], a[2]);
+                return bulk(score != null ? number(score) : null);
+            }
+            case "EXISTS": {
+                int found = 0;
+                for (int i = 1; i < a.length; i++) {
+                    if (exists(a[i])) {
+                        found++;
+                    }
+                }
+                return LuaValue.valueOf(found);
+            }
+            case "TTL":
+                return LuaValue.valueOf(ttl(a[1]));
+            case "EXPIRE":
+                if (!exists(a[1])) {
+                    return LuaValue.valueOf(0);
+                }
+                ttls.put(a[1], Long.parseLong(a[2]));
+                return LuaValue.valueOf(1);
+            case "TIME": {
+                LuaTable time = new LuaTable();
+                time.set(1, LuaValue.valueOf(String.valueOf(nowMillis / 1000L)));
+                time.set(2, LuaValue.valueOf(String.valueOf(nowMillis % 1000L * 1000L)));
+                return time;
+            }
+            case "XADD":
+                return LuaValue.valueOf(xadd(a));
+            case "XTRIM":
+                return LuaValue.valueOf(xtrim(a));
+            default:
+                throw new LuaError("ERR command not supported by FakeRedis: " + command);
+        }
+    }
+
+    private String xadd(String[] a) {
+        int i = 2;
+        long maxLen = 0L;
+        if ("MAXLEN".equalsIgnoreCase(a[i])) {
+            i++;
+            if ("~".equals(a[i]) || "=".equals(a[i])) {
+                i++;
+            }
+            maxLen = Long.parseLong(a[i++]);
+        }
+        if (!"*".equals(a[i++])) {
+            throw new LuaError("ERR FakeRedis only generates stream IDs");
+        }
+        long seq = nowMillis == lastId ? lastSeq + 1 : 0L;
+        lastId = nowMillis;
+        lastSeq = seq;
+        String id = nowMillis + "-" + seq;
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (; i + 1 < a.length; i += 2) {
+            fields.put(a[i], a[i + 1]);
+        }
+        List<Entry> stream = streams.computeIfAbsent(a[1], k -> new ArrayList<>());
+        stream.add(new Entry(id, fields));
+        while (maxLen > 0 && stream.size() > maxLen) {
+            stream.remove(0);
+        }
+        return id;
+    }
+
+    private long xtrim(String[] a) {
+        if (!"MINID".equalsIgnoreCase(a[2])) {
+            throw new LuaError("ERR FakeRedis only trims by MINID");
+        }
+        long minId = Long.parseLong(a["~".equals(a[3]) || "=".equals(a[3]) ? 4 : 3].split("-")[0]);
+        List<Entry> stream = streams.getOrDefault(a[1], new ArrayList<>());
+        int before = stream.size();
+        stream.removeIf(e -> Long.parseLong(e.id.split("-")[0]) < minId);
+        return before - stream.size();
+    }
+
+    private static LuaValue bulk(String value) {
+        return value != null ? LuaValue.valueOf(value) : LuaValue.FALSE;
+    }
+
+    private static String number(double value) {
+        return value == Math.rint(value) && !Double.isInfinite(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+
+    // Redis turns Lua numbers into their decimal text when passing them as arguments
+    private static String argument(LuaValue value) {
+        if (value.type() == LuaValue.TNUMBER) {
+            return number(value.todouble());
+        }
+        return value.checkjstring();
+    }
+
+    private static LuaTable list(String[] values) {
+        LuaTable table = new LuaTable();
+        for (int i = 0; i < values.length; i++) {
+            table.set(i + 1, LuaValue.valueOf(values[i]));
+        }
+        return table;
+    }
+
+    private static Object reply(LuaValue value) {
+        switch (value.type()) {
+            case LuaValue.TNUMBER:
+                return (long) value.todouble();
+            case LuaValue.TSTRING:
+                return value.tojstring();
+            case LuaValue.TBOOLEAN:
+                return value.toboolean() ? 1L : null;
+            case LuaValue.TTABLE: {
+                List<Object> out = new ArrayList<>();
+                for (int i = 1; !value.get(i).isnil(); i++) {
+                    out.add(reply(value.get(i)));
+                }
+                return out;
+            }
+            default:
+                return null;
+        }
+    }
+
+    private static JsonElement toJson(LuaValue value) {
+        switch (value.type()) {
+            case LuaValue.TNUMBER: {
+                double d = value.todouble();
+                return d == Math.rint(d) ? new JsonPrimitive((long) d) : new JsonPrimitive(d);
+            }
+            case LuaValue.TSTRING:
+                return new JsonPrimitive(value.tojstring());
+            case LuaValue.TBOOLEAN:
+                return new JsonPrimitive(value.toboolean());
+            case LuaValue.TTABLE: {
+                LuaTable table = value.checktable();
+                int length = table.length();
+                if (length > 0) {
+                    JsonArray array = new JsonArray();
+                    for (int i = 1; i <= length; i++) {
+                        array.add(toJson(table.get(i)));
+                    }
+                    return array;
+                }
+                JsonObject object = new JsonObject();
+                for (LuaValue key = table.next(LuaValue.NIL).arg1(); !key.isnil(); key = table.next(key).arg1()) {
+                    object.add(key.tojstring(), toJson(table.get(key)));
+                }
+                return object;
+            }
+            default:
+                throw new LuaError("cannot encode " + value.typename());
+        }
+    }
+
+    private static LuaValue fromJson(JsonElement json) {
+        if (json.isJsonObject()) {
+            LuaTable table = new LuaTable();
+            for (Map.Entry<String, JsonElement> e : json.getAsJsonObject().entrySet()) {
+                if (!e.getValue().isJsonNull()) {
+                    table.set(e.getKey(), fromJson(e.getValue()));
+                }
+            }
+            return table;
+        }
+        if (json.isJsonArray()) {
+            LuaTable table = new LuaTable();
+            int i = 1;
+            for (JsonElement element : json.getAsJsonArray()) {
+                table.set(i++, fromJson(element));
+            }
+            return table;
+        }
+        if (json.isJsonNull()) {
+            return LuaValue.NIL;
+        }
+        JsonPrimitive primitive = json.getAsJsonPrimitive();
+        if (primitive.isBoolean()) {
+            return LuaValue.valueOf(primitive.getAsBoolean());
+        }
+        if (primitive.isNumber()) {
+            return LuaValue.valueOf(primitive.getAsDouble());
+        }
+        return LuaValue.valueOf(primitive.getAsString());
+    }
+}
@@ -0,0 +1,376 @@
+package lytblu7.autonexus.common.redis;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RedisScriptsTest {
+    private static final String ALICE = "11111111-1111-1111-1111-111111111111";
+    private static final String BOB = "22222222-2222-2222-2222-222222222222";
+    private static final String STREAM = "updates";
+
+    private final FakeRedis redis = new FakeRedis();
+
+    private void player(String uuid, String name, String balance) {
+        JsonObject record = new JsonObject();
+        record.addProperty("uuid", uuid);
+        record.addProperty("lastSeenName", name);
+        record.addProperty("version", 3);
+        JsonObject metadata = new JsonObject();
+        if (balance != null) {
+            metadata.addProperty("balance", balance);
+        }
+        record.add("metadata", metadata);
+        redis.set("player:" + uuid, record.toString());
+    }
+
+    private String balance(String uuid) {
+        return redis.getJson("player:" + uuid).getAsJsonObject("metadata").get("balance").getAsString();
+    }
+
+    private JsonObject update(int index) {
+        return JsonParser.parseString(redis.stream(STREAM).get(index).fields.get("data")).getAsJsonObject();
+    }
+
+    private JsonObject history(String uuid, int index) {
+        return JsonParser.parseString(redis.stream("history:" + uuid).get(index).fields.get("data")).getAsJsonObject();
+    }
+
+    @Test
+    void staleSaveLeavesTheStoredRecordAlone() {
+        player(ALICE, "Alice", "10");
+        JsonObject stale = redis.getJson("player:" + ALICE);
+        stale.addProperty("version", 2);
+        stale.addProperty("currentServer", "lobby");
+        stale.getAsJsonObject("metadata").addProperty("balance", "99");
+        String stored = redis.get("player:" + ALICE);
+
+        assertEquals(-3L, redis.eval(RedisScripts.SAVE_PLAYER_VERSIONED, new String[]{"player:" + ALICE}, stale.toString()));
+
+        assertEquals(stored, redis.get("player:" + ALICE));
+    }
+
+    @Test
+    void currentSaveReplacesTheRecord() {
+        player(ALICE, "Alice", "10");
+        JsonObject record = redis.getJson("player:" + ALICE);
+        record.addProperty("currentServer", "lobby");
+
+        assertEquals(4L, redis.eval(RedisScripts.SAVE_PLAYER_VERSIONED, new String[]{"player:" + ALICE}, record.toString()));
+
+        assertEquals("lobby", redis.getJson("player:" + ALICE).get("currentServer").getAsString());
+        assertEquals(4, redis.getJson("player:" + ALICE).get("version").getAsInt());
+    }
+
+    // KEYS: player, history, baltop, transaction, earnings bucket, player stats, stream
+    private Object increment(String uuid, String field, String delta, String kind, String txType, String tx) {
+        return redis.eval(RedisScripts.INCREMENT_METADATA_ATOMIC,
+                new String[]{"player:" + uuid, "history:" + uuid, "baltop", tx, "earned", "stats:" + uuid, STREAM},
+                field, delta, kind, "lobby", txType, "", uuid, "1700000000000", "", "0:0");
+    }
+
+    @Test
+    void creditUpdatesRecordBaltopEarningsStatsHistoryAndStream() {
+        player(ALICE, "Alice", "10");
+
+        assertEquals("15", increment(ALICE, "balance", "5", "1", "CREDIT", "tx-1"));
+
+        JsonObject record = redis.getJson("player:" + ALICE);
+        assertEquals("15", balance(ALICE));
+        assertEquals(4, record.get("version").getAsInt());
+        assertEquals(15.0, redis.zscore("baltop", ALICE));
+        assertEquals(5.0, redis.zscore("earned", ALICE));
+        assertTrue(redis.ttl("earned") > 0);
+        assertEquals("5", redis.hget("stats:" + ALICE, "balance:earned"));
+        assertEquals("CREDIT", redis.stream("history:" + ALICE).get(0).fields.get("type"));
+        assertEquals(5, history(ALICE, 0).get("amount").getAsInt());
+        assertEquals(1, redis.stream(STREAM).size());
+        assertEquals("15", update(0).get("newBalance").getAsString());
+        assertEquals(4, update(0).get("version").getAsInt());
+    }
+
+    @Test
+    void debitIsSpendingNotEarnings() {
+        player(ALICE, "Alice", "10");
+
+        assertEquals("7", increment(ALICE, "balance", "-3", "1", "DEBIT", "tx-1"));
+
+        assertNull(redis.zscore("earned", ALICE));
+        assertEquals("3", redis.hget("stats:" + ALICE, "balance:spent"));
+        assertNull(redis.hget("stats:" + ALICE, "balance:earned"));
+    }
+
+    @Test
+    void statsExpiryIsSetOnlyWhenTheDayStarts() {
+        player(ALICE, "Alice", "10");
+
+        increment(ALICE, "balance", "-3", "1", "DEBIT", "tx-1");
+        assertEquals(RedisScripts.PLAYER_STATS_TTL_SECONDS, redis.ttl("stats:" + ALICE));
+        redis.expire("stats:" + ALICE, 60L);
+        increment(ALICE, "balance", "5", "1", "CREDIT", "tx-2");
+
+        assertEquals(60L, redis.ttl("stats:" + ALICE));
+        assertEquals("5", redis.hget("stats:" + ALICE, "balance:earned"));
+    }
+
+    @Test
+    void refusesOverdraftWithoutWriting() {
+        player(ALICE, "Alice", "10");
+
+        assertEquals("INSUFFICIENT_FUNDS", increment(ALICE, "balance", "-10.5", "1", "DEBIT", "tx-1"));
+
+        assertEquals("10", balance(ALICE));
+        assertEquals(3, redis.getJson("player:" + ALICE).get("version").getAsInt());
+        assertTrue(redis.stream(STREAM).isEmpty());
+        assertTrue(redis.stream("history:" + ALICE).isEmpty());
+    }
+
+    @Test
+    void retriedTransactionIsAppliedOnce() {
+        player(ALICE, "Alice", "10");
+
+        assertEquals("15", increment(ALICE, "balance", "5", "1", "CREDIT", "tx-1"));
+        assertEquals("15", increment(ALICE, "balance", "5", "1", "CREDIT", "tx-1"));
+
+        assertEquals("15", balance(ALICE));
+        assertEquals(1, redis.stream(STREAM).size());
+        assertEquals(RedisScripts.TX_DEDUPE_TTL_SECONDS, redis.ttl("tx-1"));
+    }
+
+    @Test
+    void unknownPlayersAreNotCreated() {
+        assertEquals("0", increment(ALICE, "balance", "5", "1", "CREDIT", "tx-1"));
+
+        assertNull(redis.get("player:" + ALICE));
+    }
+
+    @Test
+    void earningsBucketExpiryIsSetOnlyWhenTheDayStarts() {
+        player(ALICE, "Alice", "10");
+        player(BOB, "Bob", "10");
+
+        increment(ALICE, "balance", "5", "1", "CREDIT", "tx-1");
+        assertEquals(RedisScripts.EARNINGS_BUCKET_TTL_SECONDS, redis.ttl("earned"));
+        redis.expire("earned", 60L);
+        increment(BOB, "balance", "5", "1", "CREDIT", "tx-2");
+
+        assertEquals(60L, redis.ttl("earned"));
+    }
+
+    @Test
+    void rankedIncrementCarriesTheNameAndSkipsMoneyKeys() {
+        player(ALICE, "Alice", null);
+
+        assertEquals("2", increment(ALICE, "kills", "2", "R", "CREDIT", ""));
+
+        assertNull(redis.zscore("baltop", ALICE));
+        assertTrue(redis.stream("history:" + ALICE).isEmpty());
+        assertEquals("Alice", update(0).get("name").getAsString());
+        assertEquals("kills", update(0).get("field").getAsString());
+    }
+
+    // KEYS: fromPlayer, toPlayer, fromHistory, toHistory, baltop, transaction, fromStats, toStats, stream
+    private Object transfer(String amount) {
+        return redis.eval(RedisScripts.TRANSFER_METADATA_ATOMIC,
+                new String[]{"player:" + ALICE, "player:" + BOB, "history:" + ALICE, "history:" + BOB, "baltop", "tx-1",
+                        "stats:" + ALICE, "stats:" + BOB, STREAM},
+                "balance", amount, "1", "lobby", ALICE, BOB, "1700000000000", "", "0:0");
+    }
+
+    @Test
+    void transferMovesMoneyAsSentAndReceived() {
+        player(ALICE, "Alice", "10");
+        player(BOB, "Bob", "1");
+
+        assertEquals("6", transfer("4"));
+
+        assertEquals("6", balance(ALICE));
+        assertEquals("5", balance(BOB));
+        assertEquals(6.0, redis.zscore("baltop", ALICE));
+        assertEquals(5.0, redis.zscore("baltop", BOB));
+        assertEquals("4", redis.hget("stats:" + ALICE, "balance:sent"));
+        assertEquals("4", redis.hget("stats:" + BOB, "balance:received"));
+        assertNull(redis.hget("stats:" + BOB, "balance:earned"));
+        assertEquals("TRANSFER_OUT", history(ALICE, 0).get("type").getAsString());
+        assertEquals("TRANSFER", history(BOB, 0).get("reason").getAsString());
+        JsonArray batch = update(0).getAsJsonArray("batch");
+        assertEquals(1, redis.stream(STREAM).size());
+        assertEquals(2, batch.size());
+        assertEquals(-4, batch.get(0).getAsJsonObject().get("amount").getAsInt());
+    }
+
+    @Test
+    void transferRefusesOverdraft() {
+        player(ALICE, "Alice", "3");
+        player(BOB, "Bob", "1");
+
+        assertEquals("INSUFFICIENT_FUNDS", transfer("4"));
+
+        assertEquals("3", balance(ALICE));
+        assertEquals("1", balance(BOB));
+        assertTrue(redis.stream(STREAM).isEmpty());
+    }
+
+    // KEYS: player, history, baltop, balances, transaction, earnings bucket, player stats, stream
+    private Object incrementFixed(String uuid, String deltaMinor, String tx) {
+        return redis.eval(RedisScripts.INCREMENT_BALANCE_FIXED,
+                new String[]{"player:" + uuid, "history:" + uuid, "baltop", "balances:" + uuid, tx, "earned", "stats:" + uuid, STREAM},
+                "balance", deltaMinor, "lobby", deltaMinor.startsWith("-") ? "DEBIT" : "CREDIT", "", uuid, "1700000000000", "", "2", "0:0");
+    }
+
+    @Test
+    void fixedIncrementSeedsFromTheLegacyValue() {
+        player(ALICE, "Alice", "12.5");
+
+        assertEquals("1500", incrementFixed(ALICE, "250", "tx-1"));
+
+        assertEquals("1500", redis.hget("balances:" + ALICE, "balance"));
+        assertFalse(redis.getJson("player:" + ALICE).getAsJsonObject("metadata").has("balance"));
+        assertEquals(15.0, redis.zscore("baltop", ALICE));
+        assertEquals(2.5, redis.zscore("earned", ALICE));
+        assertEquals("15.00", update(0).get("newBalance").getAsString());
+        assertEquals(1500, update(0).get("minor").getAsLong());
+        assertEquals(250, history(ALICE, 0).get("amountMinor").getAsLong());
+    }
+
+    @Test
+    void fixedDebitFormatsCentsAndRefusesOverdraft() {
+        player(ALICE, "Alice", null);
+        redis.hset("balances:" + ALICE, "balance", "105");
+
+        assertEquals("100", incrementFixed(ALICE, "-5", "tx-1"));
+        assertEquals("INSUFFICIENT_FUNDS", incrementFixed(ALICE, "-101", "tx-2"));
+
+        assertEquals("100", redis.hget("balances:" + ALICE, "balance"));
+        assertEquals("1.00", update(0).get("newBalance").getAsString());
+        assertEquals(-0.05, history(ALICE, 0).get("amount").getAsDouble());
+        assertEquals("0.05", redis.hget("stats:" + ALICE, "balance:spent"));
+    }
+
+    // KEYS: fromPlayer, toPlayer, fromBalances, toBalances, fromHistory, toHistory, baltop, transaction, fromStats, toStats, stream
+    private Object transferFixed(String amountMinor) {
+        return redis.eval(RedisScripts.TRANSFER_BALANCE_FIXED,
+                new String[]{"player:" + ALICE, "player:" + BOB, "balances:" + ALICE, "balances:" + BOB, "history:" + ALICE,
+                        "history:" + BOB, "baltop", "tx-1", "stats:" + ALICE, "stats:" + BOB, STREAM},
+                "balance", amountMinor, "2", "lobby", ALICE, BOB, "1700000000000", "gift", "0:0");
+    }
+
+    @Test
+    void fixedTransferMovesMinorUnits() {
+        player(ALICE, "Alice", "1");
+        player(BOB, "Bob", null);
+
+        assertEquals("95", transferFixed("5"));
+
+        assertEquals("95", redis.hget("balances:" + ALICE, "balance"));
+        assertEquals("5", redis.hget("balances:" + BOB, "balance"));
+        assertEquals(0.95, redis.zscore("baltop", ALICE));
+        assertEquals(0.05, redis.zscore("baltop", BOB));
+        assertEquals(-5, history(ALICE, 0).get("amountMinor").getAsLong());
+        assertEquals("gift", history(BOB, 0).get("reason").getAsString());
+        assertEquals("0.05", redis.hget("stats:" + BOB, "balance:received"));
+        JsonArray batch = update(0).getAsJsonArray("batch");
+        assertEquals("0.95", batch.get(0).getAsJsonObject().get("newBalance").getAsString());
+        assertEquals("0.05", batch.get(1).getAsJsonObject().get("newBalance").getAsString());
+    }
+
+    @Test
+    void fixedTransferRefusesOverdraftAndUnknownSenders() {
+        player(BOB, "Bob", null);
+
+        assertEquals("INSUFFICIENT_FUNDS", transferFixed("5"));
+        assertNull(redis.hget("balances:" + BOB, "balance"));
+    }
+
+    @Test
+    void batchAppliesEachEntryOnItsOwnAndEmitsOneMessage() {
+        player(ALICE, "Alice", null);
+        player(BOB, "Bob", null);
+        redis.hset("balances:" + ALICE, "balance", "1000");
+        // Per entry: field, delta, kind, txType, reason, playerUuid
+        String[][] entries = {
+                {"balance", "250", "F", "CREDIT", "quest", ALICE},
+                {"balance", "-100", "F", "DEBIT", "shop", BOB},
+                {"kills", "3", "R", "CREDIT", "", BOB},
+        };
+        String[] keys = new String[entries.length * 6 + 2];
+        String[] args = new String[4 + entries.length * 6 + 1];
+        args[0] = String.valueOf(entries.length);
+        args[1] = "2";
+        args[2] = "lobby";
+        args[3] = "1700000000000";
+        for (int i = 0; i < entries.length; i++) {
+            String uuid = entries[i][5];
+            String[] entryKeys = {"player:" + uuid, "history:" + uuid, "baltop", "balances:" + uuid, "earned", "stats:" + uuid};
+            System.arraycopy(entryKeys, 0, keys, i * 6, 6);
+            System.arraycopy(entries[i], 0, args, 4 + i * 6, 6);
+        }
+        keys[entries.length * 6] = "tx-1";
+        keys[entries.length * 6 + 1] = STREAM;
+        args[args.length - 1] = "0:0";
+
+        Object result = redis.eval(RedisScripts.INCREMENT_METADATA_BATCH, keys, args);
+
+        assertEquals(List.of("1250", "INSUFFICIENT_FUNDS", "3"), result);
+        assertEquals("1250", redis.hget("balances:" + ALICE, "balance"));
+        assertEquals("0", redis.hget("balances:" + BOB, "balance"));
+        assertEquals(1, redis.stream(STREAM).size());
+        JsonArray batch = update(0).getAsJsonArray("batch");
+        assertEquals(2, batch.size());
+        assertEquals("12.50", batch.get(0).getAsJsonObject().get("newBalance").getAsString());
+        assertEquals("Bob", batch.get(1).getAsJsonObject().get("name").getAsString());
+        // A retry returns the recorded results
+        assertEquals(result, redis.eval(RedisScripts.INCREMENT_METADATA_BATCH, keys, args));
+        assertEquals(1, redis.stream(STREAM).size());
+    }
+
+    @Test
+    void historyKeepsTheNewestEntriesWhenCapped() {
+        player(ALICE, "Alice", "0");
+        String[] keys = {"player:" + ALICE, "history:" + ALICE, "baltop", "", "", "", STREAM};
+        for (int i = 0; i < 5; i++) {
+            redis.advance(1L);
+            redis.eval(RedisScripts.INCREMENT_METADATA_ATOMIC, keys,
+                    "balance", "1", "1", "lobby", "CREDIT", "", ALICE, String.valueOf(i), "", "3:0");
+        }
+
+        List<FakeRedis.Entry> history = redis.stream("history:" + ALICE);
+        assertEquals(3, history.size());
+        assertEquals("4", JsonParser.parseString(history.get(2).fields.get("data")).getAsJsonObject().get("timestamp").getAsString());
+    }
+
+    @Test
+    void shardAddReportsShortDebitsWithoutWriting() {
+        redis.set("shard:0", "100");
+
+        assertEquals("150", redis.eval(RedisScripts.SHARDED_COUNTER_ADD, new String[]{"shard:0", "tx-1"}, "50"));
+        assertEquals("SHORT", redis.eval(RedisScripts.SHARDED_COUNTER_ADD, new String[]{"shard:0", "tx-2"}, "-200"));
+        assertEquals("150", redis.get("shard:0"));
+        assertEquals("150", redis.eval(RedisScripts.SHARDED_COUNTER_ADD, new String[]{"shard:0", "tx-1"}, "50"));
+    }
+
+    @Test
+    void shardBorrowTakesFromTheOwnShardFirst() {
+        redis.set("shard:0", "100");
+        redis.set("shard:1", "30");
+        redis.set("shard:2", "100");
+        String[] keys = {"shard:0", "shard:1", "shard:2", "tx-1"};
+
+        assertEquals("0", redis.eval(RedisScripts.SHARDED_COUNTER_BORROW, keys, "2", "-80"));
+
+        assertEquals("100", redis.get("shard:0"));
+        assertEquals("0", redis.get("shard:1"));
+        assertEquals("50", redis.get("shard:2"));
+        assertEquals("INSUFFICIENT_FUNDS", redis.eval(RedisScripts.SHARDED_COUNTER_BORROW,
+                new String[]{"shard:0", "shard:1", "shard:2", "tx-2"}, "1", "-151"));
+        assertEquals("100", redis.get("shard:0"));
+    }
+}
@@ -7,6 +7,7 @@ import com.velocitypowered.api.event.proxy.ProxyShutdownEvent;
 import com.velocitypowered.api.event.connection.PostLoginEvent;
 import com.velocitypowered.api.event.connection.DisconnectEvent;
 import com.velocitypowered.api.event.player.ServerConnectedEvent;
+import com.velocitypowered.api.event.player.ServerPreConnectEvent;
 import com.velocitypowered.api.plugin.Plugin;
 import com.velocitypowered.api.plugin.annotation.DataDirectory;
 import com.velocitypowered.api.proxy.ProxyServer;
@@ -17,11 +18,15 @@ import lytblu7.autonexus.common.NexusPacket;
 import lytblu7.autonexus.common.model.NexusPlayer;
 import lytblu7.autonexus.common.model.LeaderboardEntry;
 import lytblu7.autonexus.common.model.NexusProfile;
+import lytblu7.autonexus.common.model.PlayerInvalidation;
 import lytblu7.autonexus.common.model.ServerInfo;
 import lytblu7.autonexus.proxy.storage.RedisManager;
 import lytblu7.autonexus.proxy.config.ProxyConfig;
 import lytblu7.autonexus.proxy.event.DataUpdateEvent;
 import lytblu7.autonexus.proxy.meta.ProxyMetadataManager;
+import lytblu7.autonexus.proxy.journal.JournalEntry;
+import lytblu7.autonexus.proxy.journal.TransactionJournal;
+import lytblu7.autonexus.proxy.cache.ProxyPlayerCache;
 
 import java.nio.file.Path;
 import java.util.logging.Logger;
@@ -49,7 +54,19 @@ public class NexusProxy implements NexusAPI, INexusAPI {
     private final Gson gson = new Gson();
     private final ProxyConfig config;
     private final NexusEventBus eventBus;
-    private final MetadataManager metadataManager;
+    private final ProxyMetadataManager metadataManager;
+    // Authoritative in-memory view of players connected to this proxy
+    // Safety net for writes whose invalidation never reaches this proxy
+    private final ProxyPlayerCache playerCache = new ProxyPlayerCache(60_000L);
+    private final lytblu7.autonexus.common.cache.NamePrefixIndex onlineNames = new lytblu7.autonexus.common.cache.NamePrefixIndex();
+    private volatile TransactionJournal journal;
+    private volatile lytblu7.autonexus.common.leaderboard.LeaderboardService leaderboards;
+    private volatile lytblu7.autonexus.proxy.leaderboard.RankedMetadataIndex rankedIndex;
+    private volatile lytblu7.autonexus.proxy.archive.HistoryArchive archive;
+    // Archive segment reads of history pages; kept off the common pool since they block on disk
+    private volatile java.util.concurrent.ExecutorService archiveReader;
+    // Pub/Sub channels this proxy listens on; replaced when a reload changes the namespace
+    private final java.util.List<String> networkChannels = new java.util.ArrayList<>();
 
     @Inject
     public NexusProxy(ProxyServer server, Logger logger, @DataDirectory Path dataDirectory) {
@@ -59,6 +76,7 @@ public class NexusProxy implements NexusAPI, INexusAPI {
         this.redisManager = new RedisManager();
         this.eventBus = new DefaultNexusEventBus();
         this.metadataManager = new ProxyMetadataManager(redisManager, this::getServerGroup, eventBus, logger);
+        this.eventBus.registerMetadataListener(event -> playerCache.applyMetadata(event.getPlayerId(), event.getResolvedKey(), event.getNewValue(), 0L));
     }
 
     @Override
@@ -75,6 +93,11 @@ public class NexusProxy implements NexusAPI, INexusAPI {
     public NexusEventBus getEventBus() {
         return eventBus;
     }
+
+    @Override
+    public lytblu7.autonexus.common.api.NameCompletionService getNameCompletion() {
+        return onlineNames;
+    }
     
     @Override
     public String getServerGroup() {
@@ -114,6 +137,14 @@ public class NexusProxy implements NexusAPI, INexusAPI {
             if (redisManager != null) {
                 redisManager.setNamespace(config.getNamespace());
                 redisManager.setDebug(newDebug);
+                redisManager.setRankedKeys(config.getRankedKeys());
+                redisManager.setHistoryRetention(config.getHistoryMaxEntries(), config.getHistoryMaxAgeDays() * 86_400_000L);
+                redisManager.setBinaryPackets(config.isBinaryPackets());
+                redisManager.configureBatching(config.getBatchWindowMicros(), config.getBatchMaxPackets(), config.getBatchMaxBytes());
+                redisManager.publishRankedKeys(config.getRankedKeys());
+                if (!networkChannels.contains(lytblu7.autonexus.common.redis.NexusKeyFactory.of(config.getNamespace()).proxyChannel())) {
+                    subscribeNetworkChannels();
+                }
             }
             logger.info("AutoNexus: Reloaded group to '" + newGroup + "', namespace='" + config.getNamespace() + "', debug=" + newDebug);
         } catch (Exception e) {
@@ -133,10 +164,20 @@ public class NexusProxy implements NexusAPI, INexusAPI {
             // Apply namespace & debug settings before connecting
             redisManager.setNamespace(config.getNamespace());
             redisManager.setDebug(config.isDebug());
+            redisManager.setEconomySettings(config.getEconomySettings());
+            redisManager.setRankedKeys(config.getRankedKeys());
+            redisManager.setHistoryRetention(config.getHistoryMaxEntries(), config.getHistoryMaxAgeDays() * 86_400_000L);
+            metadataManager.configureCounters("proxy", config.getCounterShards());
             redisManager.connect(redisUrl);
+            openJournal();
+            startRankedIndex();
+            startHistoryArchive();
             
-            // Subscribe to network channel
-            redisManager.subscribe("autonexus:network", this::processIncomingMessage);
+            // Only messages addressed to the proxy or to every node arrive here
+            subscribeNetworkChannels();
+            // Balance changes written by the economy scripts keep cached online players current. Every proxy
+            // needs all of them, so each one reads the stream through its own consumer group.
+            redisManager.consumeEconomyStream("proxy:" + instanceId(), this::processEconomyUpdate);
             
             // Wipe potential ghost players on fresh startup
             redisManager.clearOnlinePlayers();
@@ -146,6 +187,21 @@ public class NexusProxy implements NexusAPI, INexusAPI {
             server.getScheduler().buildTask(this, () -> {
                 redisManager.touchOnlinePlayersTtl(ttlSec);
             }).repeat(java.time.Duration.ofSeconds(5)).schedule();
+            // Binary packet frames are only sent once the proxy and every server heartbeat advertise them
+            redisManager.setBinaryPackets(config.isBinaryPackets());
+            redisManager.configureBatching(config.getBatchWindowMicros(), config.getBatchMaxPackets(), config.getBatchMaxBytes());
+            server.getScheduler().buildTask(this, () -> {
+                redisManager.syncClock();
+                redisManager.refreshWireProtocol(ttlSec);
+            }).repeat(java.time.Duration.ofSeconds(Math.max(1, hbSec))).schedule();
+            server.getScheduler().buildTask(this, () -> {
+                lytblu7.autonexus.common.PacketBatcher batcher = redisManager.getPacketBatcher();
+                if (isDebug() && batcher != null) {
+                    logger.info("[DEBUG] Packet batch sizes: " + batcher.describeHistogram());
+                }
+            }).repeat(java.time.Duration.ofMinutes(1)).schedule();
+
+            startLeaderboards();
             
             logger.info("[AutoNexus] Primary Data Layer: REDIS (Connected, namespace=" + config.getNamespace() + ")");
         } catch (Exception e) {
@@ -184,14 +240,120 @@ public class NexusProxy implements NexusAPI, INexusAPI {
         return redisManager.savePlayer(player);
     }
 
+    /**
+     * @return An ID of this proxy installation, created on first start and kept in the data directory
+     */
+    private String instanceId() {
+        Path file = config.getDataDirectory().resolve("instance-id");
+        try {
+            if (java.nio.file.Files.exists(file)) {
+                String id = java.nio.file.Files.readString(file).trim();
+                if (!id.isEmpty()) {
+                    return id;
+                }
+            }
+            String id = UUID.randomUUID().toString();
+            java.nio.file.Files.createDirectories(file.getParent());
+            java.nio.file.Files.writeString(file, id);
+            return id;
+        } catch (java.io.IOException e) {
+            logger.warning("[AutoNexus] Could not keep the proxy instance id, using a temporary one: " + e.getMessage());
+            return UUID.randomUUID().toString();
+        }
+    }
+
+    private void openJournal() {
+        if (!config.isJournalEnabled()) {
+            return;
+        }
+        TransactionJournal opened = new TransactionJournal(config.getDataDirectory().resolve("journal"), config.getJournalMaxSegments(), logger);
+        try {
+            opened.open();
+        } catch (java.io.IOException e) {
+            logger.warning("[AutoNexus] Transaction journal disabled: " + e.getMessage());
+            return;
+        }
+        journal = opened;
+        com.velocitypowered.api.command.CommandManager commandManager = server.getCommandManager();
+        commandManager.register(commandManager.metaBuilder("nexusjournal").plugin(this).build(),
+                new lytblu7.autonexus.proxy.command.NexusJournalCommand(this, opened));
+    }
+
+    private void startLeaderboards() {
+        long intervalMillis = config.getLeaderboardInterval() * 1000L;
+        lytblu7.autonexus.common.leaderboard.LeaderboardService service = new lytblu7.autonexus.common.leaderboard.LeaderboardService(
+                "proxy-" + UUID.randomUUID(), config.getLeaderboardDepth(), intervalMillis, redisManager, logger);
+        leaderboards = service;
+        if (service.isEnabled()) {
+            server.getScheduler().buildTask(this, service::refresh).repeat(java.time.Duration.ofMillis(intervalMillis)).schedule();
+        }
+    }
+
+    private void startRankedIndex() {
+        lytblu7.autonexus.proxy.leaderboard.RankedMetadataIndex index = new lytblu7.autonexus.proxy.leaderboard.RankedMetadataIndex(redisManager, logger);
+        rankedIndex = index;
+        redisManager.publishRankedKeys(config.getRankedKeys());
+        index.load().exceptionally(ex -> {
+            logger.warning("[AutoNexus] Failed to load ranked metadata boards: " + ex.getMessage());
+            return null;
+        });
+        long seconds = Math.max(1, config.getLeaderboardInterval());
+        server.getScheduler().buildTask(this, index::persist).repeat(java.time.Duration.ofSeconds(seconds)).schedule();
+    }
+
+    private void startHistoryArchive() {
+        if (!config.isArchiveEnabled()) {
+            return;
+        }
+        lytblu7.autonexus.proxy.archive.HistoryArchive opened = new lytblu7.autonexus.proxy.archive.HistoryArchive(
+                config.getDataDirectory().resolve("archive"), config.getArchiveKeepDays() * 86_400_000L, logger);
+        try {
+            opened.open();
+        } catch (java.io.IOException e) {
+            logger.warning("[AutoNexus] History archive disabled: " + e.getMessage());
+            return;
+        }
+        archiveReader = java.util.concurrent.Executors.newFixedThreadPool(2, r -> {
+            Thread thread = new Thread(r, "AutoNexus-ArchiveReader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        archive = opened;
+        // Until the advertisement lapses, no node trims history the archiver has not drained
+        int hbSec = config.getHeartbeatInterval();
+        server.getScheduler().buildTask(this, () -> redisManager.advertiseHistoryArchive(Math.max(15, hbSec * 3)))
+                .repeat(java.time.Duration.ofSeconds(Math.max(1, hbSec))).schedule();
+        lytblu7.autonexus.proxy.archive.HistoryArchiver archiver = new lytblu7.autonexus.proxy.archive.HistoryArchiver(
+                redisManager, opened, Math.max(1, config.getArchiveAfterDays()) * 86_400_000L, logger);
+        long minutes = Math.max(1, config.getArchiveIntervalMinutes());
+        server.getScheduler().buildTask(this, archiver).delay(java.time.Duration.ofMinutes(1)).repeat(java.time.Duration.ofMinutes(minutes)).schedule();
+    }
+
     @Subscribe
     public void onProxyShutdown(ProxyShutdownEvent event) {
+        TransactionJournal j = journal;
+        if (j != null) {
+            j.close(5, java.util.concurrent.TimeUnit.SECONDS);
+        }
+        lytblu7.autonexus.proxy.leaderboard.RankedMetadataIndex index = rankedIndex;
+        if (index != null) {
+            try {
+                index.persist().get(5, java.util.concurrent.TimeUnit.SECONDS);
+            } catch (Exception e) {
+                logger.warning("[AutoNexus] Failed to persist ranked metadata boards on shutdown: " + e.getMessage());
+            }
+        }
+        java.util.concurrent.ExecutorService reader = archiveReader;
+        if (reader != null) {
+            reader.shutdownNow();
+        }
         redisManager.shutdown();
         logger.info("AutoNexus: Redis connection closed.");
     }
 
     @Subscribe
     public void onLogin(PostLoginEvent event) {
+        // The full load of this player; later reads are served from playerCache until its entry expires
         redisManager.loadPlayer(event.getPlayer().getUniqueId()).thenAccept(player -> {
             if (player == null) {
                 player = new NexusPlayer(event.getPlayer().getUniqueId(), event.getPlayer().getUsername(), "proxy");
@@ -199,14 +361,24 @@ public class NexusProxy implements NexusAPI, INexusAPI {
                 player.setLastSeenName(event.getPlayer().getUsername());
                 player.setCurrentServer("proxy");
             }
-            redisManager.savePlayer(player);
+            NexusPlayer loaded = player;
+            redisManager.savePlayer(loaded).thenRun(() -> {
+                if (server.getPlayer(loaded.getUuid()).isPresent()) {
+                    playerCache.put(loaded);
+                }
+            });
             server.getEventManager().fireAndForget(new DataUpdateEvent(player));
+            if (server.getPlayer(event.getPlayer().getUniqueId()).isPresent()) {
+                onlineNames.add(event.getPlayer().getUsername());
+            }
             redisManager.addOnlinePlayer(event.getPlayer().getUsername());
         });
     }
 
     @Subscribe
     public void onDisconnect(DisconnectEvent event) {
+        playerCache.remove(event.getPlayer().getUniqueId());
+        onlineNames.remove(event.getPlayer().getUsername());
         redisManager.setPlayerOffline(event.getPlayer().getUniqueId());
         redisManager.removeOnlinePlayer(event.getPlayer().getUsername());
     }
@@ -223,15 +395,9 @@ public class NexusProxy implements NexusAPI, INexusAPI {
     }
 
     private void sendPacketToTarget(String targetName, NexusPacket packet) {
-        // Prepare JSON Envelope for Redis Pub/Sub
-        JsonObject envelope = new JsonObject();
-        envelope.addProperty("target", targetName);
-        envelope.add("packet", gson.toJsonTree(packet));
-        
-        String message = gson.toJson(envelope);
-        
-        // Publish to Redis
-        redisManager.publish("autonexus:network", message).thenAccept(receivers -> {
+        // Publish on the target's own channel so only the addressed nodes receive and parse it
+        String channel = lytblu7.autonexus.common.redis.NexusKeyFactory.of(config.getNamespace()).channelFor(targetName, packet.getTargetGroup());
+        redisManager.publishPacket(channel, targetName, packet).thenAccept(receivers -> {
             logger.info("[TRACE] Redis Pub/Sub: Sent packet '" + packet.getType() + "' to " + targetName + " (Receivers: " + receivers + ")");
             if ("DISPATCH_COMMAND".equals(packet.getType())) {
                 logger.info("[AutoNexus] [REDIS] Published Dispatch command to Redis channel.");
@@ -239,6 +405,21 @@ public class NexusProxy implements NexusAPI, INexusAPI {
         });
     }
 
+    private synchronized void subscribeNetworkChannels() {
+        for (String channel : networkChannels) {
+            redisManager.unsubscribe(channel);
+        }
+        networkChannels.clear();
+        lytblu7.autonexus.common.redis.NexusKeyFactory keys = lytblu7.autonexus.common.redis.NexusKeyFactory.of(config.getNamespace());
+        networkChannels.add(keys.proxyChannel());
+        networkChannels.add(keys.allChannel());
+        networkChannels.add(lytblu7.autonexus.common.redis.NexusKeyFactory.LEGACY_NETWORK_CHANNEL);
+        for (String channel : networkChannels) {
+            redisManager.subscribe(channel, this::processIncomingFrame);
+        }
+        logger.info("[AutoNexus] Listening on " + networkChannels);
+    }
+
     // Deprecated method kept for compatibility if needed, but redirected to new logic
     // private void sendPacketToServer(RegisteredServer server, NexusPacket packet) {
     //    sendPacketToTarget(server.getServerInfo().getName(), packet);
@@ -246,7 +427,16 @@ public class NexusProxy implements NexusAPI, INexusAPI {
 
     @Override
     public CompletableFuture<NexusPlayer> getPlayer(UUID uuid) {
-        return redisManager.loadPlayer(uuid);
+        NexusPlayer cached = playerCache.getFresh(uuid);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return redisManager.loadPlayer(uuid).thenApply(loaded -> {
+            // Renews an expired entry of a connected player; players not cached stay uncached
+            playerCache.refresh(loaded);
+            NexusPlayer current = playerCache.get(uuid);
+            return current != null ? current : loaded;
+        });
     }
 
     @Override
@@ -261,7 +451,7 @@ public class NexusProxy implements NexusAPI, INexusAPI {
 
     @Override
     public CompletableFuture<Double> transferMetadata(UUID from, UUID to, String field, double amount, String reason) {
-        return redisManager.transferMetadataAtomic(from, to, field, amount).thenApply(result -> {
+        return redisManager.transferMetadataAtomic(from, to, field, amount, getServerGroup(), getServerGroup(), reason, UUID.randomUUID().toString()).thenApply(result -> {
             if (result == null) return Double.NaN;
             if ("INSUFFICIENT_FUNDS".equalsIgnoreCase(result)) {
                 return Double.NaN;
@@ -281,30 +471,97 @@ public class NexusProxy implements NexusAPI, INexusAPI {
     
     @Override
     public CompletableFuture<java.util.List<LeaderboardEntry>> getTop(String group, int offset, int limit) {
-        return redisManager.getBaltop(group, offset, limit).thenApply(list -> {
-            java.util.List<LeaderboardEntry> out = new java.util.ArrayList<>();
-            for (java.util.Map<String, Object> row : list) {
-                String name = String.valueOf(row.getOrDefault("name", ""));
-                Object amountObj = row.get("amount");
-                double score;
-                if (amountObj instanceof Number) {
-                    score = ((Number) amountObj).doubleValue();
-                } else {
-                    try {
-                        score = Double.parseDouble(String.valueOf(amountObj));
-                    } catch (Exception e) {
-                        score = 0.0;
-                    }
-                }
-                out.add(new LeaderboardEntry(name, score));
-            }
-            return out;
-        });
+        lytblu7.autonexus.common.leaderboard.LeaderboardService service = leaderboards;
+        if (service != null) {
+            return service.getTop(group, offset, limit);
+        }
+        return redisManager.getBaltop(group, offset, limit);
     }
     
+    @Override
+    public CompletableFuture<java.util.List<LeaderboardEntry>> getTop(String group, lytblu7.autonexus.common.model.LeaderboardWindow window, int offset, int limit) {
+        if (window == null || window == lytblu7.autonexus.common.model.LeaderboardWindow.ALL_TIME) {
+            return getTop(group, offset, limit);
+        }
+        return redisManager.getWindowTop(group, window, offset, limit);
+    }
+
+    @Override
+    public CompletableFuture<lytblu7.autonexus.common.model.LeaderboardRank> getRank(UUID uuid, String group) {
+        return getAround(uuid, group, 0);
+    }
+
+    @Override
+    public CompletableFuture<lytblu7.autonexus.common.model.LeaderboardRank> getAround(UUID uuid, String group, int radius) {
+        lytblu7.autonexus.common.leaderboard.LeaderboardService service = leaderboards;
+        if (service != null) {
+            return service.getAround(uuid, group, radius);
+        }
+        return redisManager.getRankAround(uuid, group, Math.max(0, radius));
+    }
+
+    @Override
+    public CompletableFuture<java.util.List<LeaderboardEntry>> getMetadataTop(String field, int offset, int limit) {
+        lytblu7.autonexus.proxy.leaderboard.RankedMetadataIndex index = rankedIndex;
+        if (index != null) {
+            return index.getTop(field, offset, limit);
+        }
+        return redisManager.getMetadataTop(field, offset, limit);
+    }
+
+    @Override
+    public CompletableFuture<lytblu7.autonexus.common.model.LeaderboardRank> getMetadataAround(UUID uuid, String field, int radius) {
+        lytblu7.autonexus.proxy.leaderboard.RankedMetadataIndex index = rankedIndex;
+        if (index == null) {
+            return CompletableFuture.completedFuture(lytblu7.autonexus.common.model.LeaderboardRank.unranked(uuid, field));
+        }
+        return index.getAround(uuid, field, radius);
+    }
+
+    @Override
+    public CompletableFuture<lytblu7.autonexus.common.model.HistoryPage> getHistory(UUID uuid, String fromCursor, int limit, lytblu7.autonexus.common.model.HistoryFilter filter) {
+        lytblu7.autonexus.proxy.archive.HistoryArchive a = archive;
+        java.util.concurrent.ExecutorService reader = archiveReader;
+        CompletableFuture<lytblu7.autonexus.common.model.HistoryPage> live = redisManager.getHistory(uuid, fromCursor, limit, filter);
+        if (a == null || reader == null) {
+            return live;
+        }
+        int count = Math.max(1, limit);
+        // Once the stream runs out, the page continues from the local archive below the last entry seen
+        return live.thenApplyAsync(page -> {
+            if (page.hasMore() || page.getEntries().size() >= count) {
+                return page;
+            }
+            java.util.List<lytblu7.autonexus.common.model.HistoryEntry> entries = new java.util.ArrayList<>(page.getEntries());
+            String before = entries.isEmpty() ? (fromCursor != null && !fromCursor.isEmpty() ? fromCursor : null) : entries.get(entries.size() - 1).getId();
+            java.util.List<lytblu7.autonexus.common.model.HistoryEntry> older = a.query(uuid, before, count - entries.size(), filter);
+            entries.addAll(older);
+            String next = entries.size() >= count ? entries.get(entries.size() - 1).getId() : null;
+            return new lytblu7.autonexus.common.model.HistoryPage(entries, next);
+        }, reader);
+    }
+
+    @Override
+    public CompletableFuture<lytblu7.autonexus.common.model.EconomyStats> getEconomyStats(UUID uuid, String field, long firstDay, long lastDay) {
+        return redisManager.getEconomyStats(uuid, field, firstDay, lastDay);
+    }
+
     @Override
     public CompletableFuture<java.util.List<String>> getGlobalHistory(UUID uuid, int limit) {
-        return redisManager.getHistory(uuid, limit);
+        if (archive == null) {
+            return redisManager.getHistory(uuid, limit);
+        }
+        int count = limit <= 0 ? 10 : limit;
+        return getHistory(uuid, null, count, lytblu7.autonexus.common.model.HistoryFilter.ALL).thenCompose(page -> {
+            if (page.getEntries().isEmpty()) {
+                return redisManager.getHistory(uuid, count);
+            }
+            java.util.List<String> out = new java.util.ArrayList<>(page.getEntries().size());
+            for (lytblu7.autonexus.common.model.HistoryEntry entry : page.getEntries()) {
+                out.add(entry.getJson());
+            }
+            return CompletableFuture.completedFuture(out);
+        });
     }
 
     @Override
@@ -334,6 +591,10 @@ public class NexusProxy implements NexusAPI, INexusAPI {
 
     @Override
     public java.util.concurrent.CompletableFuture<NexusProfile> getPlayerProfile(UUID uuid) {
+        NexusProfile cached = playerCache.getProfile(uuid);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
         return redisManager.getPlayerProfile(uuid);
     }
 
@@ -430,7 +691,8 @@ public class NexusProxy implements NexusAPI, INexusAPI {
         java.util.Map<String, String> updates = new java.util.HashMap<>();
         updates.put(key, value);
         
-        redisManager.updatePlayerMetadata(uuid, updates).thenRun(() -> {
+        redisManager.updatePlayerMetadata(uuid, updates).thenAccept(version -> {
+             playerCache.applyMetadata(uuid, key, value, version != null ? version : 0L);
              // Sync metadata update to ALL servers
              NexusPacket packet = new NexusPacket("METADATA_SYNC", uuid.toString() + ":" + key + ":" + value);
              sendPacket("*", packet);
@@ -442,30 +704,188 @@ public class NexusProxy implements NexusAPI, INexusAPI {
         return server.getServer(serverName).map(s -> !s.getPlayersConnected().isEmpty()).orElse(false);
     }
 
+    @Subscribe
+    public void onServerPreConnect(ServerPreConnectEvent event) {
+        if (event.getResult() == null || !event.getResult().isAllowed()) {
+            return;
+        }
+        java.util.Optional<RegisteredServer> target = event.getResult().getServer();
+        if (target.isEmpty()) {
+            return;
+        }
+        String targetName = target.get().getServerInfo().getName();
+        UUID uuid = event.getPlayer().getUniqueId();
+        // Load once here and hand the versioned snapshot to the destination, so it can skip its own fetch on join
+        redisManager.loadPlayer(uuid).thenAccept(player -> {
+            if (player == null) {
+                return;
+            }
+            playerCache.refresh(player);
+            sendPacket(targetName, new NexusPacket("PLAYER_SNAPSHOT", gson.toJson(player)));
+            if (isDebug()) {
+                logger.info("[DEBUG] Sent PLAYER_SNAPSHOT v" + player.getVersion() + " of " + uuid + " to " + targetName);
+            }
+        }).exceptionally(ex -> {
+            logger.warning("[AutoNexus] Failed to prefetch player " + uuid + " for " + targetName + ": " + ex.getMessage());
+            return null;
+        });
+    }
+
     @Subscribe
     public void onServerConnected(ServerConnectedEvent event) {
         String serverName = event.getServer().getServerInfo().getName();
         
         // Use ATOMIC update to only change location/name without touching metadata
-        redisManager.updatePlayerLocation(event.getPlayer().getUniqueId(), event.getPlayer().getUsername(), serverName)
-            .thenRun(() -> {
-                // Optional: Broadcast SYNC_PLAYER if needed, but since we didn't change metadata, 
-                // and Spigot loads from Redis on Join, maybe we don't need to spam SYNC_PLAYER unless necessary.
-                // But let's keep it to announce "I am here".
-                // However, constructing the player object for the packet requires loading it.
-                // If we want to be lightweight, we can just send the UUID so servers can reload if they want.
-                // But existing code sent the whole object.
-                // Let's load and send to maintain compatibility, but strictly for notification.
-                
-                redisManager.loadPlayer(event.getPlayer().getUniqueId()).thenAccept(player -> {
-                     if (player != null) {
-                         NexusPacket packet = new NexusPacket("SYNC_PLAYER", gson.toJson(player));
-                         sendPacket("ALL", packet);
-                     }
-                });
+        UUID uuid = event.getPlayer().getUniqueId();
+        String name = event.getPlayer().getUsername();
+        lytblu7.autonexus.proxy.leaderboard.RankedMetadataIndex index = rankedIndex;
+        if (index != null) {
+            index.rememberName(uuid, name);
+        }
+        redisManager.updatePlayerLocation(uuid, name, serverName)
+            .thenAccept(version -> {
+                playerCache.updateLocation(uuid, name, serverName, version != null ? version : 0L);
+                // Announce (uuid, version) plus the new location; servers one version behind apply it in place
+                NexusPacket packet = new NexusPacket("SYNC_PLAYER", new PlayerInvalidation(uuid, version != null ? version : 0L, serverName, name).toJson());
+                sendPacket("ALL", packet);
             });
     }
 
+    // Failures other than a malformed message propagate, so the entry stays pending and is retried
+    private void processEconomyUpdate(String streamId, String message) {
+        JsonObject update;
+        try {
+            update = gson.fromJson(message, JsonObject.class);
+        } catch (Exception e) {
+            logger.warning("[AutoNexus] Malformed economy update " + streamId + ": " + message);
+            return;
+        }
+        if (update == null) {
+            return;
+        }
+        String serverSource = update.has("serverSource") ? update.get("serverSource").getAsString() : "";
+        // Batched writes publish one message with an entry per change, in write order
+        java.util.List<JsonObject> updates = new java.util.ArrayList<>();
+        if (update.has("batch") && update.get("batch").isJsonArray()) {
+            for (com.google.gson.JsonElement entry : update.getAsJsonArray("batch")) {
+                if (entry.isJsonObject()) {
+                    updates.add(entry.getAsJsonObject());
+                }
+            }
+        } else {
+            updates.add(update);
+        }
+        // A retried or redelivered entry may already be in the journal. All entries of a message are built
+        // before any is recorded, so a message is journaled whole or not at all.
+        TransactionJournal j = journal;
+        if (j != null && !j.isRecorded(streamId)) {
+            java.util.List<JournalEntry> entries = new java.util.ArrayList<>();
+            for (JsonObject u : updates) {
+                JournalEntry entry = journalEntry(streamId, u, serverSource);
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+            for (JournalEntry entry : entries) {
+                j.record(streamId, entry);
+            }
+        }
+        for (JsonObject u : updates) {
+            rankUpdate(u);
+            applyEconomyUpdate(u);
+        }
+    }
+
+    private JournalEntry journalEntry(String streamId, JsonObject update, String serverSource) {
+        if (!update.has("playerUuid")) {
+            return null;
+        }
+        // Ranked metadata keys share the stream; the journal only records balance changes
+        if (update.has("field") && !redisManager.getEconomySettings().isBalanceField(update.get("field").getAsString())) {
+            return null;
+        }
+        // Entry IDs start with the Redis time of the write, which also orders entries of different writers
+        int dash = streamId.indexOf('-');
+        return new JournalEntry(
+                Long.parseLong(dash > 0 ? streamId.substring(0, dash) : streamId),
+                UUID.fromString(update.get("playerUuid").getAsString()),
+                update.has("field") ? update.get("field").getAsString() : "",
+                update.has("amount") ? update.get("amount").getAsDouble() : 0.0,
+                update.has("newBalance") ? update.get("newBalance").getAsDouble() : 0.0,
+                update.has("transactionType") ? update.get("transactionType").getAsString() : "",
+                serverSource);
+    }
+
+    private void rankUpdate(JsonObject update) {
+        lytblu7.autonexus.proxy.leaderboard.RankedMetadataIndex index = rankedIndex;
+        if (index == null || !update.has("playerUuid") || !update.has("field")) {
+            return;
+        }
+        com.google.gson.JsonElement value = update.get("newBalance");
+        com.google.gson.JsonElement name = update.get("name");
+        index.apply(UUID.fromString(update.get("playerUuid").getAsString()), update.get("field").getAsString(),
+                value != null && !value.isJsonNull() ? value.getAsString() : null,
+                name != null && !name.isJsonNull() ? name.getAsString() : null);
+    }
+
+    private void applyEconomyUpdate(JsonObject update) {
+        if (!update.has("playerUuid")) {
+            return;
+        }
+        UUID uuid = UUID.fromString(update.get("playerUuid").getAsString());
+        NexusPlayer cached = playerCache.get(uuid);
+        if (cached == null) {
+            return;
+        }
+        long version = update.has("version") ? update.get("version").getAsLong() : 0L;
+        String field = update.has("field") ? update.get("field").getAsString() : null;
+        if (field != null && update.has("minor") && update.has("newBalance")) {
+            // Fixed-mode balances live outside the versioned record; updates arrive in write order
+            playerCache.applyMetadata(uuid, field, update.get("newBalance").getAsString(), 0L);
+        } else if (field != null && version == cached.getVersion() + 1 && update.has("newBalance")) {
+            // Exactly the next write: apply in place instead of reloading the record
+            playerCache.applyMetadata(uuid, field, update.get("newBalance").getAsString(), version);
+        } else if (version <= 0 || version > cached.getVersion()) {
+            refreshCachedPlayer(uuid);
+        }
+    }
+
+    private void refreshCachedPlayer(UUID uuid) {
+        redisManager.loadPlayer(uuid).thenAccept(playerCache::refresh);
+    }
+
+    private void processIncomingFrame(byte[] data) {
+        if (!lytblu7.autonexus.common.PacketIO.isBinary(data)) {
+            processIncomingMessage(new String(data, java.nio.charset.StandardCharsets.UTF_8));
+            return;
+        }
+        if (lytblu7.autonexus.common.PacketIO.isBatch(data)) {
+            java.util.List<byte[]> frames = lytblu7.autonexus.common.PacketIO.unpackBatch(data);
+            if (frames == null) {
+                logger.warning("[PROXY-ERROR] Dropped unreadable packet batch (" + data.length + " bytes)");
+                return;
+            }
+            for (byte[] frame : frames) {
+                processIncomingFrame(frame);
+            }
+            return;
+        }
+        lytblu7.autonexus.common.PacketIO.Frame frame = lytblu7.autonexus.common.PacketIO.decodeFrame(data);
+        if (frame == null) {
+            logger.warning("[PROXY-ERROR] Dropped unreadable binary packet (" + data.length + " bytes)");
+            return;
+        }
+        if (isDebug()) {
+            logger.info("[PROXY-IN] Binary packet '" + frame.getPacket().getType() + "' for " + frame.getTarget()
+                    + " (" + (System.currentTimeMillis() - frame.getTimestamp()) + " ms since sent)");
+        }
+        try {
+            processPacket(frame.getTarget(), frame.getPacket());
+        } catch (Exception e) {
+            logger.warning("Failed to process Redis message: " + e.getMessage());
+        }
+    }
+
     private void processIncomingMessage(String message) {
         if (isDebug()) {
             logger.info("[PROXY-IN] Raw Redis message: " + message);
@@ -568,17 +988,20 @@ public class NexusProxy implements NexusAPI, INexusAPI {
             }
         
             String target = envelope.has("target") ? envelope.get("target").getAsString() : "ALL";
-            if ("ALL".equalsIgnoreCase(target) || "PROXY".equalsIgnoreCase(target)) {
-                if (envelope.has("packet")) {
-                    NexusPacket packet = gson.fromJson(envelope.get("packet"), NexusPacket.class);
-                    handlePacket(packet, "UNKNOWN");
-                }
+            if (envelope.has("packet")) {
+                processPacket(target, gson.fromJson(envelope.get("packet"), NexusPacket.class));
             }
         } catch (Exception e) {
             logger.warning("Failed to process Redis message: " + e.getMessage());
         }
     }
 
+    private void processPacket(String target, NexusPacket packet) {
+        if (packet != null && ("ALL".equalsIgnoreCase(target) || "PROXY".equalsIgnoreCase(target))) {
+            handlePacket(packet, "UNKNOWN");
+        }
+    }
+
     private void handlePacket(NexusPacket packet, String serverId) {
         if ("PING".equals(packet.getType())) {
             logger.info("[AutoNexus] PING received from " + serverId);
@@ -586,6 +1009,15 @@ public class NexusProxy implements NexusAPI, INexusAPI {
             String command = packet.getPayload();
             server.getCommandManager().executeImmediatelyAsync(server.getConsoleCommandSource(), command);
             logger.info("[AutoNexus] Remote command executed: " + command);
+        } else if ("SYNC_PLAYER".equals(packet.getType())) {
+            PlayerInvalidation invalidation = PlayerInvalidation.parse(packet.getPayload());
+            if (invalidation == null) {
+                return;
+            }
+            NexusPlayer cached = playerCache.get(invalidation.getUuid());
+            if (cached != null && invalidation.isNewerThan(cached.getVersion())) {
+                refreshCachedPlayer(invalidation.getUuid());
+            }
         } else if ("METADATA_UPDATE".equals(packet.getType())) {
             // Payload: UUID:KEY:VALUE
             String[] parts = packet.getPayload().split(":", 3);
@@ -0,0 +1,348 @@
+package lytblu7.autonexus.proxy.archive;
+
+import lytblu7.autonexus.common.model.HistoryEntry;
+import lytblu7.autonexus.common.model.HistoryFilter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local archive of player history entries drained from Redis.
+ * <p>
+ * Every drain writes one segment: a data file holding one gzip block per player (that player's entries,
+ * oldest first) and a sidecar index sorted by player. The index is memory-mapped on first use, so a lookup
+ * is a binary search per segment plus one block read and inflate. Segments are immutable once written; the
+ * index is written last, and a data file without an index is a torn write and is deleted on open.
+ */
+public class HistoryArchive {
+    private static final int MAGIC = 0x414E4831; // "ANH1"
+    private static final int INDEX_HEADER_BYTES = 4 + 8 + 8 + 4;
+    // msb, lsb, minTs, maxTs, offset, length, count
+    private static final int INDEX_ENTRY_BYTES = 8 + 8 + 8 + 8 + 8 + 4 + 4;
+    private static final Comparator<HistoryEntry> NEWEST_FIRST = (a, b) -> compareIds(b.getId(), a.getId());
+
+    private final Path directory;
+    private final long keepMillis;
+    private final Logger logger;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param keepMillis Age after which whole segments are deleted; 0 keeps them forever
+     */
+    public HistoryArchive(Path directory, long keepMillis, Logger logger) {
+        this.directory = directory;
+        this.keepMillis = Math.max(0L, keepMillis);
+        this.logger = logger;
+    }
+
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Long> ids = new ArrayList<>();
+        try (java.util.stream.Stream<Path> files = Files.list(directory)) {
+            files.forEach(p -> {
+                String name = p.getFileName().toString();
+                if (name.startsWith("archive-") && name.endsWith(".dat")) {
+                    try {
+                        ids.add(Long.parseLong(name.substring(8, name.length() - 4)));
+                    } catch (NumberFormatException ignored) {
+                    }
+                }
+            });
+        }
+        ids.sort(Comparator.naturalOrder());
+        for (long id : ids) {
+            Segment segment = new Segment(id);
+            if (Files.exists(indexPath(id)) && segment.loadIndexHeader()) {
+                segments.add(segment);
+            } else {
+                logger.warning("[AutoNexus] Deleting incomplete history archive segment " + id + ".");
+                Files.deleteIfExists(indexPath(id));
+                Files.deleteIfExists(dataPath(id));
+            }
+        }
+        enforceRetention();
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Writes one segment holding the given entries. Returns once the segment is durable on disk.
+     * @param entries Entries per player, oldest first
+     */
+    public synchronized void write(Map<UUID, List<HistoryEntry>> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        long id = segments.isEmpty() ? 1L : segments.get(segments.size() - 1).id + 1;
+        // Sorted by (msb, lsb) so the index can be binary searched
+        TreeMap<UUID, List<HistoryEntry>> sorted = new TreeMap<>(Comparator
+                .comparingLong(UUID::getMostSignificantBits)
+                .thenComparingLong(UUID::getLeastSignificantBits));
+        sorted.putAll(entries);
+        ByteBuffer index = ByteBuffer.allocate(INDEX_HEADER_BYTES + sorted.size() * INDEX_ENTRY_BYTES);
+        index.position(INDEX_HEADER_BYTES);
+        long minTs = Long.MAX_VALUE;
+        long maxTs = Long.MIN_VALUE;
+        int players = 0;
+        try (FileChannel ch = FileChannel.open(dataPath(id), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long offset = 0L;
+            for (Map.Entry<UUID, List<HistoryEntry>> e : sorted.entrySet()) {
+                List<HistoryEntry> list = e.getValue();
+                if (list.isEmpty()) {
+                    continue;
+                }
+                byte[] block = compress(list);
+                ByteBuffer out = ByteBuffer.wrap(block);
+                while (out.hasRemaining()) {
+                    ch.write(out);
+                }
+                long first = list.get(0).getTimestamp();
+                long last = list.get(list.size() - 1).getTimestamp();
+                index.putLong(e.getKey().getMostSignificantBits())
+                        .putLong(e.getKey().getLeastSignificantBits())
+                        .putLong(first)
+                        .putLong(last)
+                        .putLong(offset)
+                        .putInt(block.length)
+                        .putInt(list.size());
+                offset += block.length;
+                minTs = Math.min(minTs, first);
+                maxTs = Math.max(maxTs, last);
+                players++;
+            }
+            ch.force(true);
+        }
+        index.putInt(0, MAGIC).putLong(4, minTs).putLong(12, maxTs).putInt(20, players);
+        index.limit(INDEX_HEADER_BYTES + players * INDEX_ENTRY_BYTES).position(0);
+        Path tmp = directory.resolve(indexPath(id).getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (index.hasRemaining()) {
+                ch.write(index);
+            }
+            ch.force(true);
+        }
+        Files.move(tmp, indexPath(id), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Segment segment = new Segment(id);
+        segment.minTs = minTs;
+        segment.maxTs = maxTs;
+        segment.count = players;
+        segments.add(segment);
+        enforceRetention();
+    }
+
+    /**
+     * @param beforeId Exclusive upper bound (a history cursor), or null to start at the filter's upper bound
+     * @return Up to {@code limit} archived entries of the player, newest first
+     */
+    public List<HistoryEntry> query(UUID player, String beforeId, int limit, HistoryFilter filter) {
+        HistoryFilter f = filter != null ? filter : HistoryFilter.ALL;
+        long to = f.getTo() > 0 ? f.getTo() : Long.MAX_VALUE;
+        List<HistoryEntry> out = new ArrayList<>();
+        // An interrupted archive run can leave the same entry in two segments
+        Set<String> seen = new HashSet<>();
+        long oldest = Long.MAX_VALUE;
+        for (int s = segments.size() - 1; s >= 0; s--) {
+            Segment segment = segments.get(s);
+            if (out.size() >= limit && segment.maxTs < oldest) {
+                break;
+            }
+            if (segment.maxTs < f.getFrom() || segment.minTs > to) {
+                continue;
+            }
+            try {
+                for (HistoryEntry entry : segment.read(player)) {
+                    long ts = entry.getTimestamp();
+                    if (!f.matches(entry.getType(), ts) || (beforeId != null && compareIds(entry.getId(), beforeId) >= 0)) {
+                        continue;
+                    }
+                    if (!seen.add(entry.getId())) {
+                        continue;
+                    }
+                    out.add(entry);
+                    oldest = Math.min(oldest, ts);
+                }
+            } catch (IOException e) {
+                logger.warning("[AutoNexus] Could not read history archive segment " + segment.id + ": " + e.getMessage());
+            }
+        }
+        out.sort(NEWEST_FIRST);
+        return out.size() > limit ? new ArrayList<>(out.subList(0, limit)) : out;
+    }
+
+    private void enforceRetention() {
+        if (keepMillis <= 0) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - keepMillis;
+        while (!segments.isEmpty() && segments.get(0).maxTs < cutoff) {
+            Segment oldest = segments.remove(0);
+            try {
+                Files.deleteIfExists(indexPath(oldest.id));
+                Files.deleteIfExists(dataPath(oldest.id));
+            } catch (IOException e) {
+                logger.warning("[AutoNexus] Could not delete history archive segment " + oldest.id + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static byte[] compress(List<HistoryEntry> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeInt(entries.size());
+            for (HistoryEntry entry : entries) {
+                byte[] json = orEmpty(entry.getJson()).getBytes(StandardCharsets.UTF_8);
+                out.writeUTF(entry.getId());
+                out.writeLong(entry.getTimestamp());
+                out.writeUTF(orEmpty(entry.getType()));
+                out.writeDouble(entry.getAmount());
+                out.writeUTF(orEmpty(entry.getOtherPlayer()));
+                out.writeUTF(orEmpty(entry.getReason()));
+                out.writeInt(json.length);
+                out.write(json);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<HistoryEntry> decompress(byte[] block) throws IOException {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(block)))) {
+            int n = in.readInt();
+            List<HistoryEntry> out = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                String id = in.readUTF();
+                long ts = in.readLong();
+                String type = in.readUTF();
+                double amount = in.readDouble();
+                String other = in.readUTF();
+                String reason = in.readUTF();
+                byte[] json = new byte[in.readInt()];
+                in.readFully(json);
+                out.add(new HistoryEntry(id, ts, type, amount, other, reason, new String(json, StandardCharsets.UTF_8)));
+            }
+            return out;
+        }
+    }
+
+    private static String orEmpty(String s) {
+        return s != null ? s : "";
+    }
+
+    /**
+     * Orders stream IDs ("millis-sequence") numerically.
+     */
+    static int compareIds(String a, String b) {
+        int da = a.indexOf('-');
+        int db = b.indexOf('-');
+        long ma = Long.parseLong(da > 0 ? a.substring(0, da) : a);
+        long mb = Long.parseLong(db > 0 ? b.substring(0, db) : b);
+        if (ma != mb) {
+            return Long.compare(ma, mb);
+        }
+        long sa = da > 0 ? Long.parseLong(a.substring(da + 1)) : 0L;
+        long sb = db > 0 ? Long.parseLong(b.substring(db + 1)) : 0L;
+        return Long.compare(sa, sb);
+    }
+
+    private Path dataPath(long id) {
+        return directory.resolve(String.format("archive-%010d.dat", id));
+    }
+
+    private Path indexPath(long id) {
+        return directory.resolve(String.format("archive-%010d.idx", id));
+    }
+
+    private final class Segment {
+        private final long id;
+        private long minTs;
+        private long maxTs;
+        private int count;
+        private ByteBuffer index; // mapped on first query
+
+        private Segment(long id) {
+            this.id = id;
+        }
+
+        private boolean loadIndexHeader() throws IOException {
+            try (FileChannel ch = FileChannel.open(indexPath(id), StandardOpenOption.READ)) {
+                ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER_BYTES);
+                if (ch.read(header, 0) < INDEX_HEADER_BYTES || header.getInt(0) != MAGIC) {
+                    return false;
+                }
+                minTs = header.getLong(4);
+                maxTs = header.getLong(12);
+                count = header.getInt(20);
+                return ch.size() == INDEX_HEADER_BYTES + (long) count * INDEX_ENTRY_BYTES;
+            }
+        }
+
+        private synchronized ByteBuffer index() throws IOException {
+            if (index == null) {
+                try (FileChannel ch = FileChannel.open(indexPath(id), StandardOpenOption.READ)) {
+                    index = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+                }
+            }
+            return index;
+        }
+
+        /**
+         * @return The player's entries in this segment, oldest first
+         */
+        private List<HistoryEntry> read(UUID player) throws IOException {
+            ByteBuffer idx = index();
+            long msb = player.getMostSignificantBits();
+            long lsb = player.getLeastSignificantBits();
+            int lo = 0;
+            int hi = count - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int base = INDEX_HEADER_BYTES + mid * INDEX_ENTRY_BYTES;
+                int c = Long.compare(idx.getLong(base), msb);
+                if (c == 0) {
+                    c = Long.compare(idx.getLong(base + 8), lsb);
+                }
+                if (c < 0) {
+                    lo = mid + 1;
+                } else if (c > 0) {
+                    hi = mid - 1;
+                } else {
+                    byte[] block = new byte[idx.getInt(base + 40)];
+                    try (FileChannel ch = FileChannel.open(dataPath(id), StandardOpenOption.READ)) {
+                        ByteBuffer in = ByteBuffer.wrap(block);
+                        long pos = idx.getLong(base + 32);
+                        while (in.hasRemaining()) {
+                            if (ch.read(in, pos + in.position()) < 0) {
+                                throw new IOException("Truncated archive block");
+                            }
+                        }
+                    }
+                    return decompress(block);
+                }
+            }
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package lytblu7.autonexus.proxy.archive;
+
+import lytblu7.autonexus.common.model.HistoryEntry;
+import lytblu7.autonexus.proxy.storage.RedisManager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * Moves history entries older than the configured age from the Redis streams into the {@link HistoryArchive}.
+ * <p>
+ * While the archive runs, history writes do not trim the streams; the archiver applies the history retention
+ * instead, archiving the entries beyond {@code history-max-entries} and those older than {@code history-max-age-days}
+ * before removing them. Streams may therefore exceed the retention until the next run.
+ * <p>
+ * Entries are removed from Redis only after the segment holding them is on disk. A run that dies in between
+ * archives the same entries again next time; {@link HistoryArchive#query} drops the duplicates.
+ */
+public class HistoryArchiver implements Runnable {
+    private static final int PAGE = 1000;
+    private static final int FLUSH_ENTRIES = 50_000;
+
+    private final RedisManager redis;
+    private final HistoryArchive archive;
+    private final long afterMillis;
+    private final Logger logger;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public HistoryArchiver(RedisManager redis, HistoryArchive archive, long afterMillis, Logger logger) {
+        this.redis = redis;
+        this.archive = archive;
+        this.afterMillis = afterMillis;
+        this.logger = logger;
+    }
+
+    @Override
+    public void run() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long maxAge = redis.getHistoryMaxAgeMillis();
+            long cutoff = System.currentTimeMillis() - (maxAge > 0 ? Math.min(afterMillis, maxAge) : afterMillis);
+            int maxEntries = redis.getHistoryMaxEntries();
+            Map<UUID, List<HistoryEntry>> batch = new HashMap<>();
+            int[] pending = {0};
+            long[] archived = {0L};
+            redis.forEachHistoryStream(uuid -> {
+                // The oldest entries beyond the entry limit go first, whatever their age
+                long excess = maxEntries > 0 ? redis.historyLength(uuid) - maxEntries : 0L;
+                String after = null;
+                while (true) {
+                    int count = excess > 0 ? (int) Math.min(PAGE, excess) : PAGE;
+                    List<HistoryEntry> page = redis.readHistoryBefore(uuid, after, excess > 0 ? Long.MAX_VALUE : cutoff, count);
+                    if (page.isEmpty()) {
+                        break;
+                    }
+                    excess -= page.size();
+                    batch.computeIfAbsent(uuid, k -> new ArrayList<>()).addAll(page);
+                    pending[0] += page.size();
+                    after = page.get(page.size() - 1).getId();
+                    if (pending[0] >= FLUSH_ENTRIES) {
+                        archived[0] += flush(batch);
+                        pending[0] = 0;
+                    }
+                    if (page.size() < count) {
+                        break;
+                    }
+                }
+            });
+            archived[0] += flush(batch);
+            if (archived[0] > 0) {
+                logger.info("[AutoNexus] Archived " + archived[0] + " history entries.");
+            }
+        } catch (Exception e) {
+            logger.warning("[AutoNexus] History archive run failed: " + e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private long flush(Map<UUID, List<HistoryEntry>> batch) {
+        if (batch.isEmpty()) {
+            return 0L;
+        }
+        try {
+            archive.write(batch);
+        } catch (IOException e) {
+            batch.clear();
+            throw new java.io.UncheckedIOException(e);
+        }
+        long removed = 0L;
+        for (Map.Entry<UUID, List<HistoryEntry>> e : batch.entrySet()) {
+            List<String> ids = new ArrayList<>(e.getValue().size());
+            for (HistoryEntry entry : e.getValue()) {
+                ids.add(entry.getId());
+            }
+            removed += redis.deleteHistory(e.getKey(), ids);
+        }
+        batch.clear();
+        return removed;
+    }
+}
@@ -0,0 +1,133 @@
+package lytblu7.autonexus.proxy.cache;
+
+import lytblu7.autonexus.common.model.NexusPlayer;
+import lytblu7.autonexus.common.model.NexusProfile;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory view of the players connected to this proxy.
+ * Entries are created on login, kept current by the proxy's own location writes and metadata
+ * events, and dropped on disconnect. Replacements never move an entry to an older version.
+ * <p>
+ * Writes that reach the proxy through neither path would leave an entry stale for the whole session, so an
+ * entry is only served by {@link #getFresh} for {@code maxAgeMillis} after it was last loaded from Redis.
+ */
+public class ProxyPlayerCache {
+    private final Map<UUID, NexusPlayer> players = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> loadedAt = new ConcurrentHashMap<>();
+    private final long maxAgeMillis;
+
+    /**
+     * @param maxAgeMillis How long a loaded record is served before it is read from Redis again
+     */
+    public ProxyPlayerCache(long maxAgeMillis) {
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    public NexusPlayer get(UUID uuid) {
+        return uuid != null ? players.get(uuid) : null;
+    }
+
+    /**
+     * @return The cached record, or null if there is none or it was loaded longer than the maximum age ago
+     */
+    public NexusPlayer getFresh(UUID uuid) {
+        Long at = uuid != null ? loadedAt.get(uuid) : null;
+        if (at == null || System.currentTimeMillis() - at > maxAgeMillis) {
+            return null;
+        }
+        return players.get(uuid);
+    }
+
+    public NexusProfile getProfile(UUID uuid) {
+        NexusPlayer player = get(uuid);
+        if (player == null) {
+            return null;
+        }
+        return new NexusProfile(uuid, player.getLastSeenName(), player.getCurrentServer());
+    }
+
+    public boolean contains(UUID uuid) {
+        return uuid != null && players.containsKey(uuid);
+    }
+
+    /**
+     * Stores a freshly loaded record, unless a newer one is already cached.
+     */
+    public void put(NexusPlayer player) {
+        if (player == null || player.getUuid() == null) {
+            return;
+        }
+        players.merge(player.getUuid(), player, (current, fresh) -> fresh.getVersion() >= current.getVersion() ? fresh : current);
+        loadedAt.put(player.getUuid(), System.currentTimeMillis());
+    }
+
+    /**
+     * Replaces an entry with a refetched record, only while the player is still connected.
+     */
+    public void refresh(NexusPlayer fresh) {
+        if (fresh == null || fresh.getUuid() == null) {
+            return;
+        }
+        if (players.computeIfPresent(fresh.getUuid(), (k, current) -> fresh.getVersion() >= current.getVersion() ? fresh : current) != null) {
+            loadedAt.put(fresh.getUuid(), System.currentTimeMillis());
+        }
+    }
+
+    public NexusPlayer remove(UUID uuid) {
+        if (uuid == null) {
+            return null;
+        }
+        loadedAt.remove(uuid);
+        return players.remove(uuid);
+    }
+
+    /**
+     * Applies a location write performed by this proxy.
+     * @param version The record version returned by the write, or 0 if unknown
+     */
+    public void updateLocation(UUID uuid, String name, String server, long version) {
+        NexusPlayer player = get(uuid);
+        if (player == null) {
+            return;
+        }
+        if (name != null) {
+            player.setLastSeenName(name);
+        }
+        player.setCurrentServer(server);
+        if (version > player.getVersion()) {
+            player.setVersion(version);
+        }
+    }
+
+    /**
+     * Applies a single metadata change observed on this proxy.
+     * @param version The record version after the change, or 0 if the writer did not report it
+     */
+    public void applyMetadata(UUID uuid, String key, String value, long version) {
+        NexusPlayer player = get(uuid);
+        if (player == null || key == null) {
+            return;
+        }
+        if (value == null) {
+            player.removeMetadata(key);
+        } else {
+            player.setMetadata(key, value);
+        }
+        if (version > player.getVersion()) {
+            player.setVersion(version);
+        }
+    }
+
+    public int size() {
+        return players.size();
+    }
+
+    public void clear() {
+        players.clear();
+        loadedAt.clear();
+    }
+}
@@ -0,0 +1,95 @@
+package lytblu7.autonexus.proxy.command;
+
+import com.velocitypowered.api.command.CommandSource;
+import com.velocitypowered.api.command.SimpleCommand;
+import lytblu7.autonexus.common.INexusAPI;
+import lytblu7.autonexus.proxy.journal.JournalEntry;
+import lytblu7.autonexus.proxy.journal.TransactionJournal;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * /nexusjournal &lt;player|uuid&gt; [hours] [limit] — lists a player's journaled economy changes, newest first.
+ */
+public class NexusJournalCommand implements SimpleCommand {
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 500;
+
+    private final INexusAPI api;
+    private final TransactionJournal journal;
+
+    public NexusJournalCommand(INexusAPI api, TransactionJournal journal) {
+        this.api = api;
+        this.journal = journal;
+    }
+
+    @Override
+    public void execute(Invocation invocation) {
+        CommandSource source = invocation.source();
+        String[] args = invocation.arguments();
+        if (args.length < 1) {
+            source.sendMessage(Component.text("Usage: /nexusjournal <player|uuid> [hours] [limit]", NamedTextColor.RED));
+            return;
+        }
+        long hours;
+        int limit;
+        try {
+            hours = args.length > 1 ? Long.parseLong(args[1]) : 24L;
+            limit = args.length > 2 ? Math.min(MAX_LIMIT, Integer.parseInt(args[2])) : DEFAULT_LIMIT;
+        } catch (NumberFormatException e) {
+            source.sendMessage(Component.text("Hours and limit must be numbers.", NamedTextColor.RED));
+            return;
+        }
+        long to = System.currentTimeMillis();
+        long from = hours > 0 ? to - hours * 3_600_000L : 0L;
+        resolve(args[0])
+                .thenApply(uuid -> uuid != null ? journal.query(uuid, from, to, Math.max(1, limit)) : null)
+                .whenComplete((entries, error) -> {
+                    if (error != null) {
+                        source.sendMessage(Component.text("Journal query failed: " + error.getMessage(), NamedTextColor.RED));
+                    } else if (entries == null) {
+                        source.sendMessage(Component.text("Unknown player: " + args[0], NamedTextColor.RED));
+                    } else {
+                        send(source, args[0], entries);
+                    }
+                });
+    }
+
+    private CompletableFuture<UUID> resolve(String arg) {
+        try {
+            return CompletableFuture.completedFuture(UUID.fromString(arg));
+        } catch (IllegalArgumentException e) {
+            return api.getUuid(arg);
+        }
+    }
+
+    private void send(CommandSource source, String player, List<JournalEntry> entries) {
+        if (entries.isEmpty()) {
+            source.sendMessage(Component.text("No journal entries for " + player + " in that period.", NamedTextColor.YELLOW));
+            return;
+        }
+        source.sendMessage(Component.text("Journal for " + player + " (" + entries.size() + ", newest first):", NamedTextColor.GOLD));
+        for (JournalEntry e : entries) {
+            String line = TIME.format(Instant.ofEpochMilli(e.getTimestamp()))
+                    + " " + e.getTransactionType()
+                    + " " + e.getField()
+                    + " " + (e.getAmount() >= 0 ? "+" : "") + e.getAmount()
+                    + " -> " + e.getNewBalance()
+                    + (e.getServerSource().isEmpty() ? "" : " @" + e.getServerSource());
+            source.sendMessage(Component.text(line, NamedTextColor.GRAY));
+        }
+    }
+
+    @Override
+    public boolean hasPermission(Invocation invocation) {
+        return invocation.source().hasPermission("autonexus.admin");
+    }
+}
@@ -38,6 +38,29 @@ public class ProxyConfig {
                                 + "  namespace: \"global\"\n"
                                 + "  heartbeat-interval: 5\n"
                                 + "  cleanup-threshold: 15\n"
+                                + "  protocol: \"auto\"\n"
+                                + "  batch:\n"
+                                + "    window-ms: 2\n"
+                                + "    max-packets: 64\n"
+                                + "    max-bytes: 32768\n"
+                                + "economy:\n"
+                                + "  mode: \"legacy\"\n"
+                                + "  scale: 2\n"
+                                + "  counter-shards: 8\n"
+                                + "  history-max-entries: 1000\n"
+                                + "  history-max-age-days: 0\n"
+                                + "leaderboard:\n"
+                                + "  snapshot-interval: 5\n"
+                                + "  snapshot-depth: 100\n"
+                                + "  ranked-keys: []\n"
+                                + "journal:\n"
+                                + "  enabled: true\n"
+                                + "  max-segments: 64\n"
+                                + "archive:\n"
+                                + "  enabled: false\n"
+                                + "  after-days: 30\n"
+                                + "  interval-minutes: 60\n"
+                                + "  keep-days: 0\n"
                                 + "messages:\n"
                                 + "  prefix: \"§8[§6AutoNexus§8] \"\n"
                                 + "  reload-success: \"§aNetwork configuration has been reloaded successfully.\"\n"
@@ -84,6 +107,107 @@ public class ProxyConfig {
         return getInt(net, "heartbeat-interval", 5);
     }
 
+    /**
+     * @return false if network.protocol is "json", which keeps this node on the JSON envelope
+     */
+    public boolean isBinaryPackets() {
+        Map<String, Object> net = getMap(root, "network");
+        return !"json".equalsIgnoreCase(getString(net, "protocol", "auto"));
+    }
+
+    /**
+     * @return How long an outbound packet may wait for others to the same channel, in microseconds; 0 disables batching
+     */
+    public long getBatchWindowMicros() {
+        Map<String, Object> batch = getMap(getMap(root, "network"), "batch");
+        return Math.max(0L, Math.round(getDouble(batch, "window-ms", 2.0) * 1000.0));
+    }
+
+    public int getBatchMaxPackets() {
+        Map<String, Object> batch = getMap(getMap(root, "network"), "batch");
+        return getInt(batch, "max-packets", 64);
+    }
+
+    public int getBatchMaxBytes() {
+        Map<String, Object> batch = getMap(getMap(root, "network"), "batch");
+        return getInt(batch, "max-bytes", 32768);
+    }
+
+    public lytblu7.autonexus.common.meta.EconomySettings getEconomySettings() {
+        Map<String, Object> economy = getMap(root, "economy");
+        return lytblu7.autonexus.common.meta.EconomySettings.of(getString(economy, "mode", "legacy"), getInt(economy, "scale", 2));
+    }
+
+    public int getCounterShards() {
+        Map<String, Object> economy = getMap(root, "economy");
+        return getInt(economy, "counter-shards", 8);
+    }
+
+    public int getHistoryMaxEntries() {
+        Map<String, Object> economy = getMap(root, "economy");
+        return getInt(economy, "history-max-entries", 1000);
+    }
+
+    public int getHistoryMaxAgeDays() {
+        Map<String, Object> economy = getMap(root, "economy");
+        return getInt(economy, "history-max-age-days", 0);
+    }
+
+    public int getLeaderboardInterval() {
+        Map<String, Object> leaderboard = getMap(root, "leaderboard");
+        return getInt(leaderboard, "snapshot-interval", 5);
+    }
+
+    public int getLeaderboardDepth() {
+        Map<String, Object> leaderboard = getMap(root, "leaderboard");
+        return getInt(leaderboard, "snapshot-depth", 100);
+    }
+
+    public lytblu7.autonexus.common.meta.RankedKeys getRankedKeys() {
+        Map<String, Object> leaderboard = getMap(root, "leaderboard");
+        Object v = leaderboard.get("ranked-keys");
+        if (!(v instanceof java.util.List)) {
+            return lytblu7.autonexus.common.meta.RankedKeys.NONE;
+        }
+        java.util.List<String> keys = new java.util.ArrayList<>();
+        for (Object key : (java.util.List<?>) v) {
+            if (key != null) {
+                keys.add(String.valueOf(key));
+            }
+        }
+        return new lytblu7.autonexus.common.meta.RankedKeys(keys);
+    }
+
+    public boolean isJournalEnabled() {
+        Map<String, Object> journal = getMap(root, "journal");
+        return getBoolean(journal, "enabled", true);
+    }
+
+    public int getJournalMaxSegments() {
+        Map<String, Object> journal = getMap(root, "journal");
+        return getInt(journal, "max-segments", 64);
+    }
+
+    public boolean isArchiveEnabled() {
+        Map<String, Object> archive = getMap(root, "archive");
+        return getBoolean(archive, "enabled", false);
+    }
+
+    public int getArchiveAfterDays() {
+        Map<String, Object> archive = getMap(root, "archive");
+        return getInt(archive, "after-days", 30);
+    }
+
+    public int getArchiveIntervalMinutes() {
+        Map<String, Object> archive = getMap(root, "archive");
+        return getInt(archive, "interval-minutes", 60);
+    }
+
+    public int getArchiveKeepDays() {
+        Map<String, Object> archive = getMap(root, "archive");
+        return getInt(archive, "keep-days", 0);
+    }
+
     public boolean isDebug() {
         Map<String, Object> settings = getMap(root, "settings");
         return getBoolean(settings, "debug", false);
@@ -131,6 +255,16 @@ public class ProxyConfig {
         return def;
     }
 
+    private double getDouble(Map<String, Object> base, String key, double def) {
+        if (base == null) return def;
+        Object v = base.get(key);
+        if (v instanceof Number) return ((Number) v).doubleValue();
+        if (v instanceof String) {
+            try { return Double.parseDouble((String) v); } catch (Exception ignored) {}
+        }
+        return def;
+    }
+
     private int getInt(Map<String, Object> base, String key, int def) {
         if (base == null) return def;
         Object v = base.get(key);
@@ -0,0 +1,54 @@
+package lytblu7.autonexus.proxy.journal;
+
+import java.util.UUID;
+
+/**
+ * One economy change as recorded in the transaction journal.
+ */
+public final class JournalEntry {
+    private final long timestamp;
+    private final UUID player;
+    private final String field;
+    private final double amount;
+    private final double newBalance;
+    private final String transactionType;
+    private final String serverSource;
+
+    public JournalEntry(long timestamp, UUID player, String field, double amount, double newBalance, String transactionType, String serverSource) {
+        this.timestamp = timestamp;
+        this.player = player;
+        this.field = field != null ? field : "";
+        this.amount = amount;
+        this.newBalance = newBalance;
+        this.transactionType = transactionType != null ? transactionType : "";
+        this.serverSource = serverSource != null ? serverSource : "";
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public UUID getPlayer() {
+        return player;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public double getNewBalance() {
+        return newBalance;
+    }
+
+    public String getTransactionType() {
+        return transactionType;
+    }
+
+    public String getServerSource() {
+        return serverSource;
+    }
+}
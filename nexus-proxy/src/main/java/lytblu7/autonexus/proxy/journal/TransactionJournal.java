@@ -0,0 +1,526 @@
+package lytblu7.autonexus.proxy.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Local, append-only record of every economy change the proxy receives, kept for audits.
+ * <p>
+ * Entries are written to fixed-size segment files through a memory mapping. A full segment is sealed by
+ * writing a sidecar index sorted by player and time, so a player query reads only the matching entries of
+ * the segments that overlap the requested time range. The newest segment is indexed in memory and is
+ * re-scanned after a restart; a torn last record fails its checksum and is ignored.
+ * <p>
+ * {@link #record} only enqueues. A single background thread writes entries in batches.
+ * <p>
+ * Entries come from the economy stream, which redelivers an entry after a restart or a failed handler. The
+ * highest stream ID recorded so far is kept in {@code stream-position}, updated whenever the segment is forced to
+ * disk, and {@link #isRecorded} tells the caller to skip entries at or below it.
+ */
+public class TransactionJournal {
+    private static final int SEGMENT_BYTES = 16 * 1024 * 1024;
+    private static final int MAGIC = 0x414E4A31; // "ANJ1"
+    private static final int HEADER_BYTES = 16;
+    // len, timestamp, uuid, amount, balance, three string lengths, crc
+    private static final int FIXED_RECORD_BYTES = 4 + 8 + 16 + 8 + 8 + 6 + 4;
+    private static final int MAX_STRING_CHARS = 128;
+    private static final int INDEX_HEADER_BYTES = 4 + 8 + 8 + 4;
+    private static final int INDEX_ENTRY_BYTES = 8 + 8 + 8 + 4;
+    private static final int MAX_BATCH = 1024;
+    private static final long FORCE_INTERVAL_MS = 1000L;
+    private static final String POSITION = "stream-position";
+
+    private final Path directory;
+    private final int maxSegments;
+    private final Logger logger;
+    private final BlockingQueue<Queued> queue = new ArrayBlockingQueue<>(65536);
+    private final AtomicLong dropped = new AtomicLong();
+    private final List<Segment> sealed = new CopyOnWriteArrayList<>();
+    private final Object activeLock = new Object();
+    private Segment active; // guarded by activeLock
+    private MappedByteBuffer activeBuffer; // guarded by activeLock
+    private Map<UUID, List<IndexEntry>> activeIndex = new HashMap<>(); // guarded by activeLock
+    private volatile boolean running;
+    private Thread writer;
+    // Highest stream ID handed to record(); only touched by the stream consumer
+    private volatile String recorded;
+    // Highest stream ID written, and the one last saved to the position file; writer thread only
+    private String written;
+    private String saved;
+
+    public TransactionJournal(Path directory, int maxSegments, Logger logger) {
+        this.directory = directory;
+        this.maxSegments = Math.max(2, maxSegments);
+        this.logger = logger;
+    }
+
+    /**
+     * Loads existing segments, seals any that were left unsealed, and starts the writer thread.
+     */
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Long> ids = new ArrayList<>();
+        try (java.util.stream.Stream<Path> files = Files.list(directory)) {
+            files.forEach(p -> {
+                String name = p.getFileName().toString();
+                if (name.startsWith("segment-") && name.endsWith(".log")) {
+                    try {
+                        ids.add(Long.parseLong(name.substring(8, name.length() - 4)));
+                    } catch (NumberFormatException ignored) {
+                    }
+                }
+            });
+        }
+        ids.sort(Comparator.naturalOrder());
+        synchronized (activeLock) {
+            for (int i = 0; i < ids.size(); i++) {
+                Segment segment = new Segment(ids.get(i));
+                if (Files.exists(indexPath(segment.id)) && segment.loadIndexHeader()) {
+                    sealed.add(segment);
+                } else if (i == ids.size() - 1) {
+                    openActive(segment);
+                } else {
+                    // Left unsealed by a crash during a roll
+                    openActive(segment);
+                    sealActive();
+                    active = null;
+                }
+            }
+            if (active == null) {
+                openActive(new Segment(ids.isEmpty() ? 1L : ids.get(ids.size() - 1) + 1));
+            }
+            enforceRetention();
+        }
+        Path position = directory.resolve(POSITION);
+        if (Files.exists(position)) {
+            String id = new String(Files.readAllBytes(position), StandardCharsets.UTF_8).trim();
+            if (!id.isEmpty()) {
+                recorded = id;
+                written = id;
+                saved = id;
+            }
+        }
+        running = true;
+        writer = new Thread(this::runWriter, "AutoNexus-Journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * @return true if the entries of this stream ID were already recorded, now or before a restart
+     */
+    public boolean isRecorded(String streamId) {
+        String last = recorded;
+        return streamId != null && last != null && compareIds(streamId, last) <= 0;
+    }
+
+    /**
+     * Queues an entry for writing. Never blocks; if the queue is full the entry is dropped and counted.
+     * @param streamId ID of the economy stream entry the change came from; several entries may share it
+     */
+    public void record(String streamId, JournalEntry entry) {
+        if (!running || entry == null || entry.getPlayer() == null) {
+            return;
+        }
+        if (streamId != null && !isRecorded(streamId)) {
+            recorded = streamId;
+        }
+        if (!queue.offer(new Queued(streamId, entry)) && dropped.incrementAndGet() % 1000 == 1) {
+            logger.warning("[AutoNexus] Transaction journal queue is full; " + dropped.get() + " entries dropped so far.");
+        }
+    }
+
+    /**
+     * @return Entries of the player between the two timestamps (inclusive), newest first, at most {@code limit}
+     */
+    public List<JournalEntry> query(UUID player, long fromMillis, long toMillis, int limit) {
+        List<JournalEntry> out = new ArrayList<>();
+        ByteBuffer view;
+        List<IndexEntry> hits = new ArrayList<>();
+        synchronized (activeLock) {
+            view = activeBuffer.duplicate();
+            for (IndexEntry e : activeIndex.getOrDefault(player, List.of())) {
+                if (e.timestamp >= fromMillis && e.timestamp <= toMillis) {
+                    hits.add(e);
+                }
+            }
+        }
+        for (int i = hits.size() - 1; i >= 0 && out.size() < limit; i--) {
+            out.add(readEntry(view, hits.get(i).offset));
+        }
+        for (int s = sealed.size() - 1; s >= 0 && out.size() < limit; s--) {
+            Segment segment = sealed.get(s);
+            if (segment.maxTs < fromMillis || segment.minTs > toMillis) {
+                continue;
+            }
+            try {
+                segment.collect(player, fromMillis, toMillis, limit - out.size(), out);
+            } catch (IOException e) {
+                logger.warning("[AutoNexus] Could not read journal segment " + segment.id + ": " + e.getMessage());
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Writes the queued entries and stops the writer, waiting at most the given time.
+     */
+    public void close(long timeout, TimeUnit unit) {
+        running = false;
+        Thread t = writer;
+        if (t == null) {
+            return;
+        }
+        try {
+            t.join(unit.toMillis(timeout));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runWriter() {
+        List<Queued> batch = new ArrayList<>(MAX_BATCH);
+        long lastForce = System.currentTimeMillis();
+        while (running || !queue.isEmpty()) {
+            try {
+                Queued first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                    for (Queued queued : batch) {
+                        write(queued.entry);
+                        if (queued.streamId != null && (written == null || compareIds(queued.streamId, written) > 0)) {
+                            written = queued.streamId;
+                        }
+                    }
+                    batch.clear();
+                }
+                long now = System.currentTimeMillis();
+                if (now - lastForce >= FORCE_INTERVAL_MS) {
+                    activeBuffer.force();
+                    savePosition();
+                    lastForce = now;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                logger.warning("[AutoNexus] Transaction journal write failed: " + e.getMessage());
+                batch.clear();
+            }
+        }
+        activeBuffer.force();
+        try {
+            savePosition();
+        } catch (IOException e) {
+            logger.warning("[AutoNexus] Could not save the journal stream position: " + e.getMessage());
+        }
+    }
+
+    // Writer thread only; called once the entries up to `written` are forced to disk
+    private void savePosition() throws IOException {
+        if (written == null || written.equals(saved)) {
+            return;
+        }
+        Path tmp = directory.resolve(POSITION + ".tmp");
+        Files.write(tmp, written.getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, directory.resolve(POSITION), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        saved = written;
+    }
+
+    /**
+     * Orders stream IDs ("millis-sequence") numerically.
+     */
+    static int compareIds(String a, String b) {
+        int da = a.indexOf('-');
+        int db = b.indexOf('-');
+        int c = Long.compare(Long.parseLong(da > 0 ? a.substring(0, da) : a), Long.parseLong(db > 0 ? b.substring(0, db) : b));
+        if (c != 0) {
+            return c;
+        }
+        return Long.compare(da > 0 ? Long.parseLong(a.substring(da + 1)) : 0L, db > 0 ? Long.parseLong(b.substring(db + 1)) : 0L);
+    }
+
+    // Writer thread only
+    private void write(JournalEntry entry) throws IOException {
+        byte[] field = utf8(entry.getField());
+        byte[] type = utf8(entry.getTransactionType());
+        byte[] source = utf8(entry.getServerSource());
+        int len = FIXED_RECORD_BYTES + field.length + type.length + source.length;
+        if (activeBuffer.position() + len + 4 > SEGMENT_BYTES) {
+            synchronized (activeLock) {
+                sealActive();
+                openActive(new Segment(active.id + 1));
+                enforceRetention();
+            }
+        }
+        MappedByteBuffer b = activeBuffer;
+        int start = b.position();
+        b.putInt(len)
+                .putLong(entry.getTimestamp())
+                .putLong(entry.getPlayer().getMostSignificantBits())
+                .putLong(entry.getPlayer().getLeastSignificantBits())
+                .putDouble(entry.getAmount())
+                .putDouble(entry.getNewBalance());
+        putString(b, field);
+        putString(b, type);
+        putString(b, source);
+        b.putInt(checksum(b, start, len));
+        synchronized (activeLock) {
+            activeIndex.computeIfAbsent(entry.getPlayer(), k -> new ArrayList<>())
+                    .add(new IndexEntry(entry.getPlayer(), entry.getTimestamp(), start));
+            active.include(entry.getTimestamp());
+        }
+    }
+
+    // Caller holds activeLock
+    private void openActive(Segment segment) throws IOException {
+        Path path = logPath(segment.id);
+        boolean exists = Files.exists(path);
+        MappedByteBuffer buffer;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = ch.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_BYTES);
+        }
+        Map<UUID, List<IndexEntry>> index = new HashMap<>();
+        if (exists && buffer.getInt(0) == MAGIC) {
+            buffer.position(scan(buffer, segment, index));
+        } else {
+            buffer.putInt(MAGIC).putInt(1).putLong(System.currentTimeMillis());
+        }
+        active = segment;
+        activeBuffer = buffer;
+        activeIndex = index;
+    }
+
+    // Caller holds activeLock
+    private void sealActive() throws IOException {
+        activeBuffer.force();
+        List<IndexEntry> entries = new ArrayList<>();
+        for (List<IndexEntry> list : activeIndex.values()) {
+            entries.addAll(list);
+        }
+        entries.sort(IndexEntry.ORDER);
+        ByteBuffer out = ByteBuffer.allocate(INDEX_HEADER_BYTES + entries.size() * INDEX_ENTRY_BYTES);
+        out.putInt(MAGIC).putLong(active.minTs).putLong(active.maxTs).putInt(entries.size());
+        for (IndexEntry e : entries) {
+            out.putLong(e.msb).putLong(e.lsb).putLong(e.timestamp).putInt(e.offset);
+        }
+        out.flip();
+        Path tmp = directory.resolve(indexPath(active.id).getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (out.hasRemaining()) {
+                ch.write(out);
+            }
+            ch.force(true);
+        }
+        Files.move(tmp, indexPath(active.id), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        active.count = entries.size();
+        sealed.add(active);
+    }
+
+    // Caller holds activeLock
+    private void enforceRetention() {
+        while (sealed.size() + 1 > maxSegments) {
+            Segment oldest = sealed.remove(0);
+            try {
+                Files.deleteIfExists(indexPath(oldest.id));
+                Files.deleteIfExists(logPath(oldest.id));
+            } catch (IOException e) {
+                logger.warning("[AutoNexus] Could not delete journal segment " + oldest.id + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Indexes the valid records of a segment.
+     * @return The offset after the last valid record
+     */
+    private static int scan(ByteBuffer buffer, Segment segment, Map<UUID, List<IndexEntry>> index) {
+        int pos = HEADER_BYTES;
+        while (pos + FIXED_RECORD_BYTES <= buffer.limit()) {
+            int len = buffer.getInt(pos);
+            if (len < FIXED_RECORD_BYTES || pos + len > buffer.limit() || buffer.getInt(pos + len - 4) != checksum(buffer, pos, len)) {
+                break;
+            }
+            long ts = buffer.getLong(pos + 4);
+            UUID player = new UUID(buffer.getLong(pos + 12), buffer.getLong(pos + 20));
+            index.computeIfAbsent(player, k -> new ArrayList<>()).add(new IndexEntry(player, ts, pos));
+            segment.include(ts);
+            pos += len;
+        }
+        return pos;
+    }
+
+    private static JournalEntry readEntry(ByteBuffer buffer, int offset) {
+        long ts = buffer.getLong(offset + 4);
+        UUID player = new UUID(buffer.getLong(offset + 12), buffer.getLong(offset + 20));
+        double amount = buffer.getDouble(offset + 28);
+        double balance = buffer.getDouble(offset + 36);
+        int p = offset + 44;
+        String field = getString(buffer, p);
+        p += 2 + buffer.getShort(p);
+        String type = getString(buffer, p);
+        p += 2 + buffer.getShort(p);
+        String source = getString(buffer, p);
+        return new JournalEntry(ts, player, field, amount, balance, type, source);
+    }
+
+    private static int checksum(ByteBuffer buffer, int start, int len) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().limit(start + len - 4).position(start + 4));
+        return (int) crc.getValue();
+    }
+
+    private static byte[] utf8(String s) {
+        String value = s.length() > MAX_STRING_CHARS ? s.substring(0, MAX_STRING_CHARS) : s;
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putString(ByteBuffer b, byte[] bytes) {
+        b.putShort((short) bytes.length);
+        b.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer, int pos) {
+        byte[] bytes = new byte[buffer.getShort(pos)];
+        buffer.get(pos + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Path logPath(long id) {
+        return directory.resolve(String.format("segment-%010d.log", id));
+    }
+
+    private Path indexPath(long id) {
+        return directory.resolve(String.format("segment-%010d.idx", id));
+    }
+
+    private final class Segment {
+        private final long id;
+        private volatile long minTs = Long.MAX_VALUE;
+        private volatile long maxTs = Long.MIN_VALUE;
+        private int count;
+        private ByteBuffer log; // sealed only, mapped on first query
+        private ByteBuffer index;
+
+        private Segment(long id) {
+            this.id = id;
+        }
+
+        private void include(long ts) {
+            if (ts < minTs) minTs = ts;
+            if (ts > maxTs) maxTs = ts;
+        }
+
+        private boolean loadIndexHeader() throws IOException {
+            try (FileChannel ch = FileChannel.open(indexPath(id), StandardOpenOption.READ)) {
+                ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER_BYTES);
+                if (ch.read(header, 0) < INDEX_HEADER_BYTES || header.getInt(0) != MAGIC) {
+                    return false;
+                }
+                minTs = header.getLong(4);
+                maxTs = header.getLong(12);
+                count = header.getInt(20);
+                return ch.size() == INDEX_HEADER_BYTES + (long) count * INDEX_ENTRY_BYTES;
+            }
+        }
+
+        private synchronized void map() throws IOException {
+            if (log != null) {
+                return;
+            }
+            try (FileChannel ch = FileChannel.open(indexPath(id), StandardOpenOption.READ)) {
+                index = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            }
+            try (FileChannel ch = FileChannel.open(logPath(id), StandardOpenOption.READ)) {
+                log = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            }
+        }
+
+        /**
+         * Adds the player's entries in the time range to {@code out}, newest first.
+         */
+        private void collect(UUID player, long fromMillis, long toMillis, int limit, List<JournalEntry> out) throws IOException {
+            map();
+            long msb = player.getMostSignificantBits();
+            long lsb = player.getLeastSignificantBits();
+            // Binary search for the first entry >= (player, fromMillis)
+            int lo = 0;
+            int hi = count;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (compareAt(mid, msb, lsb, fromMillis) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            int end = lo;
+            while (end < count && compareAt(end, msb, lsb, toMillis) <= 0) {
+                end++;
+            }
+            for (int i = end - 1; i >= lo && limit > 0; i--, limit--) {
+                out.add(readEntry(log, index.getInt(INDEX_HEADER_BYTES + i * INDEX_ENTRY_BYTES + 24)));
+            }
+        }
+
+        private int compareAt(int i, long msb, long lsb, long ts) {
+            int base = INDEX_HEADER_BYTES + i * INDEX_ENTRY_BYTES;
+            int c = Long.compare(index.getLong(base), msb);
+            if (c != 0) return c;
+            c = Long.compare(index.getLong(base + 8), lsb);
+            if (c != 0) return c;
+            return Long.compare(index.getLong(base + 16), ts);
+        }
+    }
+
+    private static final class Queued {
+        private final String streamId;
+        private final JournalEntry entry;
+
+        private Queued(String streamId, JournalEntry entry) {
+            this.streamId = streamId;
+            this.entry = entry;
+        }
+    }
+
+    private static final class IndexEntry {
+        private static final Comparator<IndexEntry> ORDER = Comparator
+                .comparingLong((IndexEntry e) -> e.msb)
+                .thenComparingLong(e -> e.lsb)
+                .thenComparingLong(e -> e.timestamp)
+                .thenComparingInt(e -> e.offset);
+
+        private final long msb;
+        private final long lsb;
+        private final long timestamp;
+        private final int offset;
+
+        private IndexEntry(UUID player, long timestamp, int offset) {
+            this.msb = player.getMostSignificantBits();
+            this.lsb = player.getLeastSignificantBits();
+            this.timestamp = timestamp;
+            this.offset = offset;
+        }
+    }
+}
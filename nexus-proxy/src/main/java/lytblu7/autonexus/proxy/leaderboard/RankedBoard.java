@@ -0,0 +1,201 @@
+package lytblu7.autonexus.proxy.leaderboard;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * In-memory ranking of one metadata field: an indexed skip list ordered by score (highest first,
+ * ties by UUID) where every forward link also stores how many rows it skips. Updates, rank lookups
+ * and positional reads are O(log n). All methods are synchronized; one board is a single lock.
+ */
+final class RankedBoard {
+    private static final int MAX_LEVEL = 32;
+    private static final double P = 0.25;
+
+    /**
+     * One row of a board read.
+     */
+    static final class Row {
+        final UUID player;
+        final double score;
+
+        Row(UUID player, double score) {
+            this.player = player;
+            this.score = score;
+        }
+    }
+
+    private static final class Node {
+        private final UUID player;
+        private final double score;
+        private final Node[] next;
+        private final long[] span;
+
+        private Node(int level, UUID player, double score) {
+            this.player = player;
+            this.score = score;
+            this.next = new Node[level];
+            this.span = new long[level];
+        }
+    }
+
+    private final Node head = new Node(MAX_LEVEL, null, 0.0);
+    private final Map<UUID, Node> nodes = new HashMap<>();
+    private int level = 1;
+
+    synchronized int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Sets a player's score, moving the row if it changed.
+     */
+    synchronized void put(UUID player, double score) {
+        Node existing = nodes.get(player);
+        if (existing != null) {
+            if (Double.compare(existing.score, score) == 0) {
+                return;
+            }
+            nodes.remove(player);
+            unlink(existing);
+        }
+        nodes.put(player, insert(player, score));
+    }
+
+    synchronized boolean remove(UUID player) {
+        Node existing = nodes.remove(player);
+        if (existing == null) {
+            return false;
+        }
+        unlink(existing);
+        return true;
+    }
+
+    /**
+     * @return The player's score, or NaN if the player is not on the board
+     */
+    synchronized double score(UUID player) {
+        Node node = nodes.get(player);
+        return node != null ? node.score : Double.NaN;
+    }
+
+    /**
+     * @return The 1-based rank, or 0 if the player is not on the board
+     */
+    synchronized long rank(UUID player) {
+        Node target = nodes.get(player);
+        if (target == null) {
+            return 0L;
+        }
+        long rank = 0L;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && (x.next[i] == target || before(x.next[i], target.score, target.player))) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+            if (x == target) {
+                return rank;
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * @return Up to {@code limit} rows starting at the 0-based position {@code offset}
+     */
+    synchronized List<Row> range(long offset, int limit) {
+        List<Row> out = new ArrayList<>(Math.max(0, Math.min(limit, nodes.size())));
+        if (offset < 0 || limit <= 0 || offset >= nodes.size()) {
+            return out;
+        }
+        long target = offset + 1;
+        long traversed = 0L;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= target) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+        }
+        while (x != null && out.size() < limit) {
+            out.add(new Row(x.player, x.score));
+            x = x.next[0];
+        }
+        return out;
+    }
+
+    private static boolean before(Node node, double score, UUID player) {
+        int c = Double.compare(node.score, score);
+        return c > 0 || (c == 0 && node.player.compareTo(player) < 0);
+    }
+
+    private Node insert(UUID player, double score) {
+        Node[] update = new Node[MAX_LEVEL];
+        long[] rank = new long[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0L : rank[i + 1];
+            while (x.next[i] != null && before(x.next[i], score, player)) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        int lvl = randomLevel();
+        if (lvl > level) {
+            for (int i = level; i < lvl; i++) {
+                rank[i] = 0L;
+                update[i] = head;
+                head.span[i] = nodes.size();
+            }
+            level = lvl;
+        }
+        Node node = new Node(lvl, player, score);
+        for (int i = 0; i < lvl; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = rank[0] - rank[i] + 1;
+        }
+        for (int i = lvl; i < level; i++) {
+            update[i].span[i]++;
+        }
+        return node;
+    }
+
+    private void unlink(Node target) {
+        Node[] update = new Node[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && before(x.next[i], target.score, target.player)) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == target) {
+                update[i].span[i] += target.span[i] - 1;
+                update[i].next[i] = target.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+    }
+
+    private static int randomLevel() {
+        int lvl = 1;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (lvl < MAX_LEVEL && random.nextDouble() < P) {
+            lvl++;
+        }
+        return lvl;
+    }
+}
@@ -0,0 +1,234 @@
+package lytblu7.autonexus.proxy.leaderboard;
+
+import lytblu7.autonexus.common.model.LeaderboardEntry;
+import lytblu7.autonexus.common.model.LeaderboardRank;
+import lytblu7.autonexus.proxy.storage.RedisManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Network-wide leaderboards for the ranked metadata keys, held in memory on the proxy.
+ * <p>
+ * Every write to a ranked key reaches the economy stream as an update; {@link #apply} moves the
+ * player's row in that field's board. Changed rows are written to one sorted set per field on
+ * {@link #persist()}, which is what the index is rebuilt from at startup and what servers read.
+ * <p>
+ * Player names are held next to the boards and refreshed by the same updates, so queries are answered
+ * without a name lookup in Redis.
+ */
+public final class RankedMetadataIndex {
+    private static final int MAX_RADIUS = 50;
+    private static final int NAME_CHUNK = 1000;
+
+    private final RedisManager redis;
+    private final Logger logger;
+    private final Map<String, RankedBoard> boards = new ConcurrentHashMap<>();
+    // Players whose row changed since the last persist, per field; only mutated inside compute()
+    private final Map<String, Set<UUID>> dirty = new ConcurrentHashMap<>();
+    private final Map<UUID, String> names = new ConcurrentHashMap<>();
+
+    public RankedMetadataIndex(RedisManager redis, Logger logger) {
+        this.redis = redis;
+        this.logger = logger;
+    }
+
+    /**
+     * Rebuilds the boards from their persisted sorted sets and resolves the names of their players.
+     * Rows already updated from the stream are kept.
+     */
+    public CompletableFuture<Void> load() {
+        return redis.loadRankedBoards().thenCompose(loaded -> {
+            int rows = 0;
+            Set<UUID> players = new HashSet<>();
+            for (Map.Entry<String, Map<UUID, Double>> e : loaded.entrySet()) {
+                RankedBoard board = board(e.getKey());
+                for (Map.Entry<UUID, Double> row : e.getValue().entrySet()) {
+                    players.add(row.getKey());
+                    if (Double.isNaN(board.score(row.getKey()))) {
+                        board.put(row.getKey(), row.getValue());
+                        rows++;
+                    }
+                }
+            }
+            logger.info("[AutoNexus] Loaded " + rows + " ranked metadata rows across " + loaded.size() + " boards.");
+            return resolveNames(new ArrayList<>(players));
+        });
+    }
+
+    /**
+     * Records a player's current name, e.g. when they join.
+     */
+    public void rememberName(UUID player, String name) {
+        if (player != null && name != null && !name.isEmpty()) {
+            names.put(player, name);
+        }
+    }
+
+    /**
+     * Applies one metadata write. Non-numeric or cleared values take the player off the board.
+     * @param name The player's name as carried by the update, null if it had none
+     */
+    public void apply(UUID player, String field, String value, String name) {
+        if (player == null || field == null || redis.getEconomySettings().isBalanceField(field)
+                || !redis.getRankedKeys().isRankedField(field)) {
+            return;
+        }
+        rememberName(player, name);
+        String key = field.toLowerCase();
+        RankedBoard board = board(key);
+        double score = parse(value);
+        if (Double.isNaN(score)) {
+            if (!board.remove(player)) {
+                return;
+            }
+        } else {
+            board.put(player, score);
+        }
+        dirty.compute(key, (k, players) -> {
+            Set<UUID> out = players != null ? players : new HashSet<>();
+            out.add(player);
+            return out;
+        });
+    }
+
+    /**
+     * Writes every row changed since the last call. Rows of a failed write are retried next time.
+     */
+    public CompletableFuture<Void> persist() {
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (String field : new ArrayList<>(dirty.keySet())) {
+            Set<UUID> players = dirty.remove(field);
+            if (players == null || players.isEmpty()) {
+                continue;
+            }
+            RankedBoard board = board(field);
+            Map<UUID, Double> scores = new HashMap<>();
+            List<UUID> removed = new ArrayList<>();
+            for (UUID player : players) {
+                double score = board.score(player);
+                if (Double.isNaN(score)) {
+                    removed.add(player);
+                } else {
+                    scores.put(player, score);
+                }
+            }
+            pending.add(redis.persistRankedBoard(field, scores, removed).exceptionally(ex -> {
+                dirty.compute(field, (k, current) -> {
+                    Set<UUID> out = current != null ? current : new HashSet<>();
+                    out.addAll(players);
+                    return out;
+                });
+                logger.warning("[AutoNexus] Failed to persist ranked board '" + field + "': " + ex.getMessage());
+                return null;
+            }));
+        }
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]));
+    }
+
+    public CompletableFuture<List<LeaderboardEntry>> getTop(String field, int offset, int limit) {
+        RankedBoard board = boards.get(field.toLowerCase());
+        if (board == null) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        return toEntries(board.range(Math.max(0, offset), Math.max(0, limit)));
+    }
+
+    /**
+     * @param radius Rows above and below the player to include, at most 50
+     */
+    public CompletableFuture<LeaderboardRank> getAround(UUID player, String field, int radius) {
+        RankedBoard board = boards.get(field.toLowerCase());
+        if (board == null) {
+            return CompletableFuture.completedFuture(LeaderboardRank.unranked(player, field));
+        }
+        int r = Math.max(0, Math.min(MAX_RADIUS, radius));
+        long rank;
+        long first;
+        double score;
+        List<RankedBoard.Row> rows;
+        // One lock for the whole read so rank, score and neighbours come from the same state
+        synchronized (board) {
+            rank = board.rank(player);
+            if (rank == 0L) {
+                return CompletableFuture.completedFuture(LeaderboardRank.unranked(player, field));
+            }
+            score = board.score(player);
+            first = Math.max(1L, rank - r);
+            rows = board.range(first - 1, (int) (rank - first) + r + 1);
+        }
+        return toEntries(rows).thenApply(around -> new LeaderboardRank(player, field, rank, score, first, around));
+    }
+
+    /**
+     * @return Rows held for a field, 0 if it has no board
+     */
+    public int size(String field) {
+        RankedBoard board = boards.get(field.toLowerCase());
+        return board != null ? board.size() : 0;
+    }
+
+    private RankedBoard board(String field) {
+        return boards.computeIfAbsent(field.toLowerCase(), k -> new RankedBoard());
+    }
+
+    private CompletableFuture<List<LeaderboardEntry>> toEntries(List<RankedBoard.Row> rows) {
+        List<UUID> missing = new ArrayList<>();
+        for (RankedBoard.Row row : rows) {
+            if (!names.containsKey(row.player)) {
+                missing.add(row.player);
+            }
+        }
+        // Only players ranked before the index saw any update with their name need a lookup
+        CompletableFuture<Void> resolved = missing.isEmpty() ? CompletableFuture.completedFuture(null)
+                : resolveNames(missing);
+        return resolved.thenApply(v -> {
+            List<LeaderboardEntry> entries = new ArrayList<>(rows.size());
+            for (RankedBoard.Row row : rows) {
+                entries.add(new LeaderboardEntry(row.player, names.getOrDefault(row.player, row.player.toString()), row.score));
+            }
+            return entries;
+        });
+    }
+
+    private CompletableFuture<Void> resolveNames(List<UUID> players) {
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+        for (int from = 0; from < players.size(); from += NAME_CHUNK) {
+            List<UUID> chunk = players.subList(from, Math.min(players.size(), from + NAME_CHUNK));
+            pending.add(redis.getPlayerNames(chunk).thenAccept(resolved -> {
+                for (int i = 0; i < chunk.size(); i++) {
+                    // A name from a newer update wins over the stored one
+                    String name = resolved.get(i);
+                    if (name != null && !name.isEmpty()) {
+                        names.putIfAbsent(chunk.get(i), name);
+                    }
+                }
+            }).exceptionally(ex -> {
+                logger.warning("[AutoNexus] Failed to resolve ranked player names: " + ex.getMessage());
+                return null;
+            }));
+        }
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private static double parse(String value) {
+        if (value == null || value.isEmpty()) {
+            return Double.NaN;
+        }
+        try {
+            double d = Double.parseDouble(value);
+            return Double.isInfinite(d) ? Double.NaN : d;
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
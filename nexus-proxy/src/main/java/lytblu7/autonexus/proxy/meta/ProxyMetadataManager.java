@@ -2,7 +2,10 @@ package lytblu7.autonexus.proxy.meta;
 
 import lytblu7.autonexus.common.event.NexusEventBus;
 import lytblu7.autonexus.common.event.NexusMetadataUpdateEvent;
+import lytblu7.autonexus.common.meta.EconomySettings;
+import lytblu7.autonexus.common.meta.MetadataDelta;
 import lytblu7.autonexus.common.meta.MetadataManager;
+import lytblu7.autonexus.common.meta.ShardedCounter;
 import lytblu7.autonexus.proxy.storage.RedisManager;
 
 import java.util.HashMap;
@@ -19,6 +22,9 @@ public class ProxyMetadataManager implements MetadataManager {
     private final Supplier<String> groupSupplier;
     private final NexusEventBus eventBus;
     private final Logger logger;
+    private final Map<String, ShardedCounter> counters = new java.util.concurrent.ConcurrentHashMap<>();
+    private volatile String counterNode = "";
+    private volatile int counterShards = 8;
 
     public ProxyMetadataManager(RedisManager redisManager, Supplier<String> groupSupplier, NexusEventBus eventBus, Logger logger) {
         this.redisManager = redisManager;
@@ -84,6 +90,11 @@ public class ProxyMetadataManager implements MetadataManager {
     public CompletableFuture<Double> modifyMetadata(UUID player, String key, double delta, String group, String reason) {
         String resolvedGroup = resolveGroup(group);
         String resolvedKey = resolveKey(key, resolvedGroup);
+        EconomySettings economy = redisManager.getEconomySettings();
+        if (economy.isFixed() && economy.isBalanceField(resolvedKey)) {
+            return modifyBalance(player, key, economy.toMinor(delta), group, reason)
+                    .thenApply(minor -> minor == INSUFFICIENT_FUNDS ? Double.NaN : economy.fromMinor(minor));
+        }
         String txType;
         if (delta > 0) {
             txType = "CREDIT";
@@ -95,7 +106,8 @@ public class ProxyMetadataManager implements MetadataManager {
         String serverSource = resolvedGroup;
         String otherPlayer = "";
         String resolvedReason = (reason != null && !reason.isEmpty()) ? reason : txType;
-        return withRetry(() -> redisManager.incrementMetadataAtomic(player, resolvedKey, delta, resolvedGroup, serverSource, txType, otherPlayer, resolvedReason), 3).thenApply(result -> {
+        String txId = UUID.randomUUID().toString();
+        return withRetry(() -> redisManager.incrementMetadataAtomic(player, resolvedKey, delta, resolvedGroup, serverSource, txType, otherPlayer, resolvedReason, txId), 3).thenApply(result -> {
             if ("INSUFFICIENT_FUNDS".equalsIgnoreCase(result)) {
                 return Double.NaN;
             }
@@ -123,6 +135,15 @@ public class ProxyMetadataManager implements MetadataManager {
     public CompletableFuture<Void> setMetadata(UUID player, String key, Object value, String group) {
         String resolvedGroup = resolveGroup(group);
         String resolvedKey = resolveKey(key, resolvedGroup);
+        EconomySettings economy = redisManager.getEconomySettings();
+        if (economy.isFixed() && economy.isBalanceField(resolvedKey) && value != null) {
+            long minor = economy.parseMinor(String.valueOf(value), false);
+            return withRetry(() -> redisManager.setBalance(player, resolvedKey, minor), 3).thenApply(v -> {
+                NexusMetadataUpdateEvent event = new NexusMetadataUpdateEvent(player, key, resolvedKey, resolvedGroup, null, economy.format(minor));
+                eventBus.postMetadataUpdate(event);
+                return null;
+            });
+        }
         Map<String, String> updates = new HashMap<>();
         updates.put(resolvedKey, value != null ? String.valueOf(value) : null);
         return withRetry(() -> redisManager.updatePlayerMetadata(player, updates), 3).thenApply(v -> {
@@ -132,6 +153,107 @@ public class ProxyMetadataManager implements MetadataManager {
         });
     }
 
+    @Override
+    public EconomySettings getEconomySettings() {
+        return redisManager.getEconomySettings();
+    }
+
+    @Override
+    public CompletableFuture<Long> modifyBalance(UUID player, String key, long deltaMinor, String group, String reason) {
+        EconomySettings economy = redisManager.getEconomySettings();
+        String resolvedGroup = resolveGroup(group);
+        String resolvedKey = resolveKey(key, resolvedGroup);
+        if (!economy.isFixed() || !economy.isBalanceField(resolvedKey)) {
+            return MetadataManager.super.modifyBalance(player, key, deltaMinor, group, reason);
+        }
+        String txType;
+        if (deltaMinor > 0) {
+            txType = "CREDIT";
+        } else if (deltaMinor < 0) {
+            txType = "DEBIT";
+        } else {
+            txType = "ADJUST";
+        }
+        String resolvedReason = (reason != null && !reason.isEmpty()) ? reason : txType;
+        String txId = UUID.randomUUID().toString();
+        return withRetry(() -> redisManager.incrementBalance(player, resolvedKey, deltaMinor, resolvedGroup, resolvedGroup, txType, "", resolvedReason, txId), 3).thenApply(result -> {
+            if ("INSUFFICIENT_FUNDS".equalsIgnoreCase(result)) {
+                return INSUFFICIENT_FUNDS;
+            }
+            long newValue;
+            try {
+                newValue = Long.parseLong(result);
+            } catch (NumberFormatException e) {
+                logger.warning("[AutoNexus] Failed to parse balance for " + resolvedKey + ": " + result);
+                return INSUFFICIENT_FUNDS;
+            }
+            NexusMetadataUpdateEvent event = new NexusMetadataUpdateEvent(player, key, resolvedKey, resolvedGroup, economy.format(newValue - deltaMinor), economy.format(newValue));
+            eventBus.postMetadataUpdate(event);
+            return newValue;
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<Double>> applyBatch(List<MetadataDelta> deltas) {
+        return applyBatch(deltas, UUID.randomUUID().toString());
+    }
+
+    @Override
+    public CompletableFuture<List<Double>> applyBatch(List<MetadataDelta> deltas, String txId) {
+        if (deltas == null || deltas.isEmpty()) {
+            return CompletableFuture.completedFuture(java.util.Collections.emptyList());
+        }
+        List<MetadataDelta> resolved = new java.util.ArrayList<>(deltas.size());
+        for (MetadataDelta d : deltas) {
+            String resolvedGroup = resolveGroup(d.getGroup());
+            resolved.add(new MetadataDelta(d.getPlayer(), resolveKey(d.getKey(), resolvedGroup), d.getDelta(), resolvedGroup, d.getReason()));
+        }
+        String serverSource = resolveGroup(null);
+        return withRetry(() -> redisManager.incrementMetadataBatch(resolved, serverSource, txId), 3).thenApply(results -> {
+            List<Double> out = new java.util.ArrayList<>(results.size());
+            for (int i = 0; i < resolved.size(); i++) {
+                String result = i < results.size() ? results.get(i) : null;
+                double newValue;
+                try {
+                    newValue = result == null || "INSUFFICIENT_FUNDS".equalsIgnoreCase(result) ? Double.NaN : Double.parseDouble(result);
+                } catch (NumberFormatException e) {
+                    newValue = Double.NaN;
+                }
+                out.add(newValue);
+                if (!Double.isNaN(newValue)) {
+                    MetadataDelta d = resolved.get(i);
+                    NexusMetadataUpdateEvent event = new NexusMetadataUpdateEvent(d.getPlayer(), deltas.get(i).getKey(), d.getKey(), d.getGroup(), String.valueOf(newValue - d.getDelta()), String.valueOf(newValue));
+                    eventBus.postMetadataUpdate(event);
+                }
+            }
+            return out;
+        });
+    }
+
+    /**
+     * @param nodeId Identifies this node; picks the shard its counter writes go to
+     */
+    public void configureCounters(String nodeId, int shards) {
+        this.counterNode = nodeId != null ? nodeId : "";
+        this.counterShards = shards;
+    }
+
+    @Override
+    public ShardedCounter getCounter(String name) {
+        return getCounter(name, counterShards);
+    }
+
+    @Override
+    public ShardedCounter getCounter(String name, int shards) {
+        return counters.computeIfAbsent(name + "#" + shards,
+                k -> new ShardedCounter(name, shards, counterNode, redisManager.getEconomySettings(), redisManager));
+    }
+
+    @Override
+    public CompletableFuture<Long> getBalance(UUID player, String key, String group) {
+        return redisManager.getBalance(player, resolveKey(key, resolveGroup(group)));
+    }
+
     @Override
     public CompletableFuture<List<String>> getGlobalHistory(UUID player) {
         return redisManager.getHistory(player, 10);
@@ -8,6 +8,8 @@ import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
 import io.lettuce.core.pubsub.RedisPubSubListener;
 import io.lettuce.core.api.async.RedisAsyncCommands;
 import lytblu7.autonexus.common.api.NexusMessageListener;
+import lytblu7.autonexus.common.meta.EconomySettings;
+import lytblu7.autonexus.common.model.LeaderboardEntry;
 import lytblu7.autonexus.common.model.ServerInfo;
 import lytblu7.autonexus.common.model.NexusPlayer;
 import lytblu7.autonexus.common.model.NexusProfile;
@@ -24,10 +26,14 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Logger;
 
-public class RedisManager implements lytblu7.autonexus.common.INexusRedis {
+public class RedisManager implements lytblu7.autonexus.common.INexusRedis, lytblu7.autonexus.common.meta.ShardedCounter.Store, lytblu7.autonexus.common.leaderboard.LeaderboardService.Store, lytblu7.autonexus.common.cache.PlayerNameResolver.Store {
     private RedisClient client;
     private StatefulRedisConnection<String, String> connection;
-    private StatefulRedisPubSubConnection<String, String> pubSubConnection;
+    // Pub/Sub carries both JSON envelopes and binary packet frames, so message values are raw bytes
+    private StatefulRedisPubSubConnection<String, byte[]> pubSubConnection;
+    private StatefulRedisConnection<String, byte[]> binaryConnection;
+    private static final io.lettuce.core.codec.RedisCodec<String, byte[]> PACKET_CODEC =
+            io.lettuce.core.codec.RedisCodec.of(io.lettuce.core.codec.StringCodec.UTF8, io.lettuce.core.codec.ByteArrayCodec.INSTANCE);
     private RedisAsyncCommands<String, String> async;
     private final Gson gson = new Gson();
     
@@ -35,7 +41,37 @@ public class RedisManager implements lytblu7.autonexus.common.INexusRedis {
     private final Logger logger = Logger.getLogger("RedisManager");
     private String namespace = "global";
     private boolean debug = false;
+    private volatile EconomySettings economy = EconomySettings.LEGACY;
+    private volatile lytblu7.autonexus.common.meta.RankedKeys rankedKeys = lytblu7.autonexus.common.meta.RankedKeys.NONE;
+    // "maxEntries:maxAgeMillis" passed to every script that writes history; 0 disables a limit
+    private volatile String historyRetention = "1000:0";
+    private volatile int historyMaxEntries = 1000;
+    private volatile long historyMaxAgeMillis = 0L;
+    // While a proxy archives history, scripts must not trim entries the archiver has not drained yet
+    private volatile boolean historyArchived;
+    // Stream entries a single history page may scan while skipping filtered types
+    private static final int HISTORY_SCAN_BUDGET = 2000;
+    // How long a failed economy update stays pending before it is reclaimed and retried, and how often it is tried
+    private static final long STREAM_RETRY_IDLE_MILLIS = 30_000L;
+    private static final int STREAM_MAX_ATTEMPTS = 5;
+    // Entries per batch script call; keeps a single EVAL from blocking Redis for long
+    private static final int BATCH_CHUNK = 250;
+    // How long the union of a weekly or monthly window's day buckets is reused before it is rebuilt
+    private static final long WINDOW_CACHE_MILLIS = 30_000L;
     private final ConcurrentHashMap<String, List<NexusMessageListener>> messageListeners = new ConcurrentHashMap<>();
+    // Handler per subscribed Pub/Sub channel; a single listener on the connection dispatches by channel
+    private final ConcurrentHashMap<String, java.util.function.Consumer<byte[]>> channelHandlers = new ConcurrentHashMap<>();
+    private boolean pubSubListening;
+    private volatile boolean binaryPackets = true;
+    // Negotiated packet frame version, 0 while some node only reads JSON
+    private volatile int wireProtocol;
+    // Null while batching is disabled
+    private volatile lytblu7.autonexus.common.PacketBatcher batcher;
+    private String batchSettings = "";
+    private volatile io.lettuce.core.api.StatefulRedisConnection<String, String> streamConnection;
+    private volatile boolean streamRunning;
+    private final lytblu7.autonexus.common.cache.PlayerNameResolver names =
+            new lytblu7.autonexus.common.cache.PlayerNameResolver(this, 10, java.util.concurrent.TimeUnit.MINUTES, 50_000);
     
     private void debugLog(String msg) {
         if (debug) logger.info("[DEBUG] " + msg);
@@ -84,7 +120,7 @@ public class RedisManager implements lytblu7.autonexus.common.INexusRedis {
         if (!isConnected) {
             return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
         }
-        return async.publish("autonexus:network", json).toCompletableFuture();
+        return async.publish(NexusKeyFactory.of(namespace).allChannel(), json).toCompletableFuture();
     }
 
     public void dispatchPluginMessage(String channel, String payload) {
@@ -134,7 +170,8 @@ public class RedisManager implements lytblu7.autonexus.common.INexusRedis {
             client = RedisClient.create(uri);
             client.setOptions(io.lettuce.core.ClientOptions.builder().autoReconnect(true).build());
             connection = client.connect();
-            pubSubConnection = client.connectPubSub();
+            pubSubConnection = client.connectPubSub(PACKET_CODEC);
+            binaryConnection = client.connect(PACKET_CODEC);
             async = connection.async();
             isConnected = true;
             debugLog("Connected to Redis (namespace=" + namespace + ")");
@@ -145,46 +182,186 @@ public class RedisManager implements lytblu7.autonexus.common.INexusRedis {
         }
     }
 
+    /**
+     * Delivers every economy update to {@code handler} on a background thread, through a consumer group
+     * owned by this node. The group remembers the last delivered entry, so updates written while this
+     * node was disconnected are delivered once it reconnects. Entries are acknowledged after the handler ran.
+     * @param handler Called with the entry ID, whose first part is the Redis time of the write, and the update
+     */
+    public void consumeEconomyStream(String consumerGroup, java.util.function.BiConsumer<String, String> handler) {
+        if (client == null || streamRunning) {
+            return;
+        }
+        streamConnection = client.connect();
+        streamRunning = true;
+        Thread thread = new Thread(() -> runEconomyStream(consumerGroup, handler), "AutoNexus-EconomyStream");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void runEconomyStream(String group, java.util.function.BiConsumer<String, String> handler) {
+        NexusKeyFactory keys = NexusKeyFactory.of(namespace);
+        String stream = keys.economyStream();
+        io.lettuce.core.Consumer<String> consumer = io.lettuce.core.Consumer.from(group, group);
+        boolean groupReady = false;
+        // Entries delivered before a disconnect but never acknowledged are read first (from "0"), then new ones
+        boolean drainPending = true;
+        String pendingCursor = "0";
+        // Failed deliveries per entry; entries stay pending until they succeed or run out of attempts
+        Map<String, Integer> failures = new HashMap<>();
+        long nextReclaim = System.currentTimeMillis() + STREAM_RETRY_IDLE_MILLIS;
+        while (streamRunning) {
+            try {
+                io.lettuce.core.api.sync.RedisCommands<String, String> sync = streamConnection.sync();
+                if (!groupReady) {
+                    try {
+                        sync.xgroupCreate(io.lettuce.core.XReadArgs.StreamOffset.from(stream, "$"), group, io.lettuce.core.XGroupCreateArgs.Builder.mkstream());
+                    } catch (Exception e) {
+                        if (e.getMessage() == null || !e.getMessage().contains("BUSYGROUP")) {
+                            throw e;
+                        }
+                    }
+                    groupReady = true;
+                }
+                if (System.currentTimeMillis() >= nextReclaim) {
+                    // Retry entries whose handler failed once they have been pending for a while
+                    io.lettuce.core.models.stream.ClaimedMessages<String, String> claimed = sync.xautoclaim(stream,
+                            io.lettuce.core.XAutoClaimArgs.Builder.<String>xautoclaim(consumer, java.time.Duration.ofMillis(STREAM_RETRY_IDLE_MILLIS), "0-0").count(100));
+                    if (claimed != null) {
+                        for (io.lettuce.core.StreamMessage<String, String> message : claimed.getMessages()) {
+                            deliverEconomyUpdate(sync, stream, group, message, handler, failures);
+                        }
+                    }
+                    nextReclaim = System.currentTimeMillis() + STREAM_RETRY_IDLE_MILLIS;
+                }
+                io.lettuce.core.XReadArgs.StreamOffset<String> offset = drainPending
+                        ? io.lettuce.core.XReadArgs.StreamOffset.from(stream, pendingCursor)
+                        : io.lettuce.core.XReadArgs.StreamOffset.lastConsumed(stream);
+                List<io.lettuce.core.StreamMessage<String, String>> messages =
+                        sync.xreadgroup(consumer, io.lettuce.core.XReadArgs.Builder.block(2000).count(100), streamOffsets(offset));
+                if (messages == null || messages.isEmpty()) {
+                    drainPending = false;
+                    continue;
+                }
+                for (io.lettuce.core.StreamMessage<String, String> message : messages) {
+                    deliverEconomyUpdate(sync, stream, group, message, handler, failures);
+                }
+                if (drainPending) {
+                    // Move past what was just read, so entries that failed again are left to the reclaim above
+                    pendingCursor = messages.get(messages.size() - 1).getId();
+                }
+            } catch (Exception e) {
+                if (!streamRunning) {
+                    break;
+                }
+                logger.warning("[AutoNexus] Economy stream read failed, retrying: " + e.getMessage());
+                groupReady = false;
+                drainPending = true;
+                pendingCursor = "0";
+                try {
+                    Thread.sleep(1000L);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the handler on one entry and acknowledges it if it succeeded. A failed entry stays pending and is
+     * reclaimed later; after {@link #STREAM_MAX_ATTEMPTS} failures it is acknowledged and logged as dropped.
+     */
+    private void deliverEconomyUpdate(io.lettuce.core.api.sync.RedisCommands<String, String> sync, String stream, String group,
+                                      io.lettuce.core.StreamMessage<String, String> message, java.util.function.BiConsumer<String, String> handler,
+                                      Map<String, Integer> failures) {
+        String data = message.getBody() != null ? message.getBody().get("data") : null;
+        try {
+            if (data != null) {
+                handler.accept(message.getId(), data);
+            }
+        } catch (Exception e) {
+            int attempts = failures.merge(message.getId(), 1, Integer::sum);
+            if (attempts < STREAM_MAX_ATTEMPTS) {
+                logger.warning("[AutoNexus] Failed to handle economy update " + message.getId() + " (attempt " + attempts + "), will retry: " + e.getMessage());
+                return;
+            }
+            logger.severe("[AutoNexus] Dropping economy update " + message.getId() + " after " + attempts + " failed attempts: " + e.getMessage());
+        }
+        failures.remove(message.getId());
+        sync.xack(stream, group, message.getId());
+    }
+
+    // xreadgroup takes its offsets as generic varargs; building the array here keeps the call sites free of unchecked warnings
+    @SuppressWarnings("unchecked")
+    private static io.lettuce.core.XReadArgs.StreamOffset<String>[] streamOffsets(io.lettuce.core.XReadArgs.StreamOffset<String> offset) {
+        return (io.lettuce.core.XReadArgs.StreamOffset<String>[]) new io.lettuce.core.XReadArgs.StreamOffset<?>[] { offset };
+    }
+
     public void shutdown() {
+        streamRunning = false;
+        if (batcher != null) {
+            batcher.close();
+        }
         if (isConnected) {
+            if (streamConnection != null) streamConnection.close();
             if (connection != null) connection.close();
             if (pubSubConnection != null) pubSubConnection.close();
+            if (binaryConnection != null) binaryConnection.close();
             if (client != null) client.shutdown();
         }
     }
 
     private String onlinePlayersKey() {
-        return "autonexus:" + namespace + ":online_players";
+        return NexusKeyFactory.of(namespace).onlinePlayers();
+    }
+
+    /**
+     * Applies a change to the online player set and publishes it to backends as a sequenced delta.
+     * @return The sequence number of the set after the change
+     */
+    private CompletableFuture<Long> applyOnlineDelta(String op, String name) {
+        NexusKeyFactory keys = NexusKeyFactory.of(namespace);
+        return async.<Long>eval(
+                RedisScripts.ONLINE_SET_DELTA,
+                io.lettuce.core.ScriptOutputType.INTEGER,
+                new String[]{keys.onlinePlayers(), keys.onlinePlayersSeq()},
+                op,
+                name != null ? name : "",
+                keys.allChannel(),
+                namespace
+        ).toCompletableFuture();
     }
 
     public java.util.concurrent.CompletableFuture<Void> clearOnlinePlayers() {
         if (!isConnected) {
             return java.util.concurrent.CompletableFuture.completedFuture(null);
         }
-        return async.del(onlinePlayersKey()).toCompletableFuture().thenApply(v -> null);
+        return applyOnlineDelta("0", "").thenApply(v -> null);
     }
 
     public java.util.concurrent.CompletableFuture<Void> touchOnlinePlayersTtl(int seconds) {
         if (!isConnected || seconds <= 0) {
             return java.util.concurrent.CompletableFuture.completedFuture(null);
         }
-        return async.expire(onlinePlayersKey(), seconds).toCompletableFuture().thenApply(v -> null);
+        NexusKeyFactory keys = NexusKeyFactory.of(namespace);
+        // Both keys expire together, so a dead proxy shows up on backends as a sequence reset
+        async.expire(keys.onlinePlayersSeq(), seconds);
+        return async.expire(keys.onlinePlayers(), seconds).toCompletableFuture().thenApply(v -> null);
     }
 
     public java.util.concurrent.CompletableFuture<Void> addOnlinePlayer(String name) {
         if (!isConnected || name == null || name.isBlank()) {
             return java.util.concurrent.CompletableFuture.completedFuture(null);
         }
-        String key = onlinePlayersKey();
-        return async.sadd(key, name).toCompletableFuture().thenApply(v -> null);
+        return applyOnlineDelta("+", name).thenApply(v -> null);
     }
 
     public java.util.concurrent.CompletableFuture<Void> removeOnlinePlayer(String name) {
         if (!isConnected || name == null || name.isBlank()) {
             return java.util.concurrent.CompletableFuture.completedFuture(null);
         }
-        String key = onlinePlayersKey();
-        return async.srem(key, name).toCompletableFuture().thenApply(v -> null);
+        return applyOnlineDelta("-", name).thenApply(v -> null);
     }
 
     public java.util.List<String> getOnlinePlayerNames() {
@@ -207,31 +384,207 @@ public class RedisManager implements lytblu7.autonexus.common.INexusRedis {
         this.debug = debug;
     }
 
-    public void subscribe(String channel, java.util.function.Consumer<String> messageHandler) {
+    public void setEconomySettings(EconomySettings economy) {
+        this.economy = economy != null ? economy : EconomySettings.LEGACY;
+    }
+
+    public EconomySettings getEconomySettings() {
+        return economy;
+    }
+
+    public void setHistoryRetention(int maxEntries, long maxAgeMillis) {
+        this.historyMaxEntries = Math.max(0, maxEntries);
+        this.historyMaxAgeMillis = Math.max(0L, maxAgeMillis);
+        this.historyRetention = historyMaxEntries + ":" + historyMaxAgeMillis;
+    }
+
+    public int getHistoryMaxEntries() {
+        return historyMaxEntries;
+    }
+
+    public long getHistoryMaxAgeMillis() {
+        return historyMaxAgeMillis;
+    }
+
+    // Retention argument of the history writing scripts
+    private String historyRetention() {
+        return historyArchived ? "0:0" : historyRetention;
+    }
+
+    public void setRankedKeys(lytblu7.autonexus.common.meta.RankedKeys rankedKeys) {
+        this.rankedKeys = rankedKeys != null ? rankedKeys : lytblu7.autonexus.common.meta.RankedKeys.NONE;
+    }
+
+    public lytblu7.autonexus.common.meta.RankedKeys getRankedKeys() {
+        return rankedKeys;
+    }
+
+    /**
+     * Ranked metadata keys get a stream update on every write; balances already have their own.
+     */
+    private boolean isRankedField(String field) {
+        return !economy.isBalanceField(field) && rankedKeys.isRankedField(field);
+    }
+
+    public synchronized void subscribe(String channel, java.util.function.Consumer<byte[]> messageHandler) {
         if (!isConnected || pubSubConnection == null) {
             throw new IllegalStateException("Redis PubSub is not connected");
         }
-        
-        pubSubConnection.addListener(new RedisPubSubListener<String, String>() {
-            @Override
-            public void message(String ch, String message) {
-                if (channel.equals(ch)) {
-                    logger.info("[PROXY-IN] Raw Redis message received on channel " + ch + ": " + message);
-                    debugLog("Pub/Sub message on " + ch);
-                    messageHandler.accept(message);
+        if (!pubSubListening) {
+            pubSubListening = true;
+            pubSubConnection.addListener(new RedisPubSubListener<String, byte[]>() {
+                @Override
+                public void message(String ch, byte[] message) {
+                    java.util.function.Consumer<byte[]> handler = channelHandlers.get(ch);
+                    if (handler != null) {
+                        debugLog("Pub/Sub message on " + ch);
+                        handler.accept(message);
+                    }
                 }
-            }
-            @Override public void message(String pattern, String channel, String message) {}
-            @Override public void subscribed(String channel, long count) {}
-            @Override public void psubscribed(String pattern, long count) {}
-            @Override public void unsubscribed(String channel, long count) {}
-            @Override public void punsubscribed(String pattern, long count) {}
-        });
-        
+                @Override public void message(String pattern, String channel, byte[] message) {}
+                @Override public void subscribed(String channel, long count) {}
+                @Override public void psubscribed(String pattern, long count) {}
+                @Override public void unsubscribed(String channel, long count) {}
+                @Override public void punsubscribed(String pattern, long count) {}
+            });
+        }
+        channelHandlers.put(channel, messageHandler);
         pubSubConnection.async().subscribe(channel);
     }
 
-    public CompletableFuture<Void> updatePlayerLocation(UUID uuid, String name, String server) {
+    public synchronized void unsubscribe(String channel) {
+        if (channelHandlers.remove(channel) != null && pubSubConnection != null) {
+            pubSubConnection.async().unsubscribe(channel);
+        }
+    }
+
+    /**
+     * Publishes a packet for {@code target} on {@code channel}: as a binary frame once every node reads one,
+     * as the JSON envelope otherwise.
+     */
+    public CompletableFuture<Long> publishPacket(String channel, String target, lytblu7.autonexus.common.NexusPacket packet) {
+        if (!isConnected) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        if (binaryPackets && wireProtocol > 0) {
+            byte[] frame = lytblu7.autonexus.common.PacketIO.encode(target, packet);
+            lytblu7.autonexus.common.PacketBatcher b = batcher;
+            if (b != null && wireProtocol >= lytblu7.autonexus.common.PacketIO.BATCH_VERSION) {
+                return b.submit(channel, frame);
+            }
+            return binaryConnection.async().publish(channel, frame).toCompletableFuture();
+        }
+        JsonObject envelope = new JsonObject();
+        envelope.addProperty("target", target);
+        envelope.add("packet", gson.toJsonTree(packet));
+        return async.publish(channel, gson.toJson(envelope)).toCompletableFuture();
+    }
+
+    /**
+     * @param binaryPackets false to always send the JSON envelope, whatever the other nodes read
+     */
+    public void setBinaryPackets(boolean binaryPackets) {
+        this.binaryPackets = binaryPackets;
+    }
+
+    public int getWireProtocol() {
+        return binaryPackets ? wireProtocol : 0;
+    }
+
+    /**
+     * Coalesces binary packets for the same channel published within {@code windowMicros} into one batch frame.
+     * A window of 0 or a batch size of 1 turns batching off.
+     */
+    public synchronized void configureBatching(long windowMicros, int maxPackets, int maxBytes) {
+        String settings = windowMicros + ":" + maxPackets + ":" + maxBytes;
+        if (settings.equals(batchSettings)) {
+            return;
+        }
+        batchSettings = settings;
+        lytblu7.autonexus.common.PacketBatcher old = batcher;
+        batcher = windowMicros > 0 && maxPackets > 1
+                ? new lytblu7.autonexus.common.PacketBatcher((channel, frame) -> binaryConnection.async().publish(channel, frame).toCompletableFuture(),
+                        windowMicros, maxPackets, maxBytes)
+                : null;
+        if (old != null) {
+            old.close();
+        }
+    }
+
+    /**
+     * @return The batcher for outbound packets, or null while batching is disabled
+     */
+    public lytblu7.autonexus.common.PacketBatcher getPacketBatcher() {
+        return batcher;
+    }
+
+    /**
+     * Advertises the frame version this proxy reads and renegotiates the one to send with
+     * from the server heartbeats. Blocking; run it off the event threads.
+     */
+    public void refreshWireProtocol(int ttlSeconds) {
+        if (!isConnected) {
+            return;
+        }
+        String key = NexusKeyFactory.of(namespace).proxyProtocol();
+        try {
+            connection.sync().setex(key, ttlSeconds, String.valueOf(lytblu7.autonexus.common.PacketIO.PROTOCOL_VERSION));
+            int negotiated = lytblu7.autonexus.common.PacketIO.negotiate(connection.sync().get(key), getServers());
+            if (negotiated != wireProtocol) {
+                logger.info("[AutoNexus] Packet protocol: " + (negotiated > 0 ? "binary v" + negotiated : "JSON") + " (every node reads it)");
+                wireProtocol = negotiated;
+            }
+        } catch (Exception e) {
+            debugLog("Protocol negotiation failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Measures the offset of the local clock to the Redis server's, which day buckets are keyed by.
+     * Blocking; run it off the event threads.
+     */
+    public void syncClock() {
+        if (!isConnected) {
+            return;
+        }
+        try {
+            long sentAt = System.currentTimeMillis();
+            List<String> time = connection.sync().time();
+            lytblu7.autonexus.common.NetworkClock.sync(sentAt, System.currentTimeMillis(), Long.parseLong(time.get(0)), Long.parseLong(time.get(1)));
+        } catch (Exception e) {
+            debugLog("Clock sync failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Advertises that this proxy archives history, so no node trims entries the archiver has not drained yet.
+     * Blocking; run it off the event threads.
+     */
+    public void advertiseHistoryArchive(int ttlSeconds) {
+        historyArchived = true;
+        if (!isConnected) {
+            return;
+        }
+        try {
+            connection.sync().setex(NexusKeyFactory.of(namespace).historyArchiver(), ttlSeconds, "1");
+        } catch (Exception e) {
+            debugLog("History archive advertisement failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return Entries in a player's history stream. Blocking; for background jobs only.
+     */
+    public long historyLength(UUID uuid) {
+        Long length = connection.sync().xlen(NexusKeyFactory.of(namespace).historyStream(uuid));
+        return length != null ? length : 0L;
+    }
+
+    /**
+     * Atomically updates location and name of a player record.
+     * @return The record version after the write
+     */
+    public CompletableFuture<Long> updatePlayerLocation(UUID uuid, String name, String server) {
         if (!isConnected) {
             return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
         }
@@ -246,22 +599,24 @@ public class RedisManager implements lytblu7.autonexus.common.INexusRedis {
         async.set(nameKey, uuid.toString());
         async.set(indexKey, uuid.toString());
 
-        return async.eval(script, io.lettuce.core.ScriptOutputType.INTEGER, new String[]{key}, server, name, uuid.toString())
-            .toCompletableFuture()
-            .thenApply(v -> null);
+        names.remember(uuid, name);
+        return async.<Long>eval(script, io.lettuce.core.ScriptOutputType.INTEGER, new String[]{key, keys.playerNames()}, server, name != null ? name : "", uuid.toString())
+            .toCompletableFuture();
     }
 
     public CompletableFuture<Void> savePlayer(NexusPlayer player) {
         // Proxy should NEVER overwrite the full object to avoid data loss (metadata/economy).
         // This method is now a safe wrapper around updatePlayerLocation.
-        return updatePlayerLocation(player.getUuid(), player.getLastSeenName(), player.getCurrentServer());
+        return updatePlayerLocation(player.getUuid(), player.getLastSeenName(), player.getCurrentServer())
+            .thenAccept(player::setVersion);
     }
     
     /**
      * Updates specific metadata fields for a player (e.g., balance) safely using Lua.
      * This merges the provided metadata into the existing metadata map in Redis.
+     * @return The record version after the write, or 0 if the player has no record
      */
-    public CompletableFuture<Void> updatePlayerMetadata(UUID uuid, Map<String, String> metadataUpdates) {
+    public CompletableFuture<Long> updatePlayerMetadata(UUID uuid, Map<String, String> metadataUpdates) {
         if (!isConnected) {
             return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
         }
@@ -271,10 +626,16 @@ public class RedisManager implements lytblu7.autonexus.common.INexusRedis {
         String jsonUpdates = gson.toJson(metadataUpdates);
         
         String script = RedisScripts.UPDATE_PLAYER_METADATA;
+        List<String> ranked = new ArrayList<>();
+        for (String field : metadataUpdates.keySet()) {
+            if (isRankedField(field)) {
+                ranked.add(field);
+            }
+        }
+        String[] scriptKeys = ranked.isEmpty() ? new String[]{key} : new String[]{key, keys.economyStream()};
             
-        return async.eval(script, io.lettuce.core.ScriptOutputType.INTEGER, new String[]{key}, jsonUpdates)
-            .toCompletableFuture()
-            .thenApply(v -> null);
+        return async.<Long>eval(script, io.lettuce.core.ScriptOutputType.INTEGER, scriptKeys, jsonUpdates, ranked.isEmpty() ? "" : gson.toJson(ranked), uuid.toString())
+            .toCompletableFuture();
     }
 
     public CompletableFuture<NexusPlayer> loadPlayer(UUID uuid) {
@@ -285,11 +646,50 @@ public class RedisManager implements lytblu7.autonexus.common.INexusRedis {
         NexusKeyFactory keys = NexusKeyFactory.of(namespace);
         String key = keys.player(uuid);
         debugLog("GET " + key);
-        return async.get(key).toCompletableFuture().thenApply(json -> {
-            if (json == null) return null;
-            return gson.fromJson(json, NexusPlayer.class);
+        CompletableFuture<NexusPlayer> load = async.get(key).toCompletableFuture().thenApply(json -> parsePlayer(uuid, json));
+        if (!economy.isFixed()) {
+            return load;
+        }
+        // Balances live in their own hash in fixed mode; expose them as decimal metadata like legacy records
+        EconomySettings settings = economy;
+        CompletableFuture<Map<String, String>> balances = async.hgetall(keys.balances(uuid)).toCompletableFuture();
+        return load.thenCombine(balances, (player, minor) -> {
+            if (player != null && minor != null) {
+                for (Map.Entry<String, String> e : minor.entrySet()) {
+                    try {
+                        player.setMetadata(e.getKey(), settings.format(Long.parseLong(e.getValue())));
+                    } catch (NumberFormatException ignored) {
+                    }
+                }
+            }
+            return player;
         });
     }
+
+    // Built by hand rather than via Gson so the metadata map stays a ConcurrentHashMap without null values
+    private NexusPlayer parsePlayer(UUID uuid, String json) {
+        if (json == null) return null;
+        try {
+            JsonObject root = gson.fromJson(json, JsonObject.class);
+            String name = root.has("lastSeenName") && !root.get("lastSeenName").isJsonNull() ? root.get("lastSeenName").getAsString() : null;
+            String currentServer = root.has("currentServer") && !root.get("currentServer").isJsonNull() ? root.get("currentServer").getAsString() : null;
+            NexusPlayer player = new NexusPlayer(uuid, name, currentServer);
+            if (root.has("version") && root.get("version").isJsonPrimitive()) {
+                player.setVersion(root.get("version").getAsLong());
+            }
+            if (root.has("metadata") && root.get("metadata").isJsonObject()) {
+                for (Map.Entry<String, com.google.gson.JsonElement> entry : root.getAsJsonObject("metadata").entrySet()) {
+                    if (entry.getValue() != null && !entry.getValue().isJsonNull()) {
+                        player.setMetadata(entry.getKey(), entry.getValue().getAsString());
+                    }
+                }
+            }
+            return player;
+        } catch (Exception e) {
+            debugLog("Failed to parse player " + uuid + ": " + e.getMessage());
+            return null;
+        }
+    }
     
     public CompletableFuture<UUID> getUuidByName(String name) {
         if (!isConnected) {
@@ -308,25 +708,14 @@ public class RedisManager implements lytblu7.autonexus.common.INexusRedis {
         });
     }
 
-    public CompletableFuture<Void> setPlayerOffline(UUID uuid) {
+    public CompletableFuture<Long> setPlayerOffline(UUID uuid) {
         if (!isConnected) {
             return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
         }
         NexusKeyFactory keys = NexusKeyFactory.of(namespace);
         String key = keys.player(uuid);
-        return async.get(key).toCompletableFuture().thenCompose(json -> {
-            if (json == null) {
-                return CompletableFuture.completedFuture(null);
-            }
-            try {
-                JsonObject root = gson.fromJson(json, JsonObject.class);
-                root.addProperty("currentServer", "offline");
-                String updated = gson.toJson(root);
-                return async.set(key, updated).toCompletableFuture().thenApply(v -> null);
-            } catch (Exception e) {
-                return CompletableFuture.completedFuture(null);
-            }
-        });
+        return async.<Long>eval(RedisScripts.SET_PLAYER_OFFLINE, io.lettuce.core.ScriptOutputType.INTEGER, new String[]{key})
+            .toCompletableFuture();
     }
     
     public CompletableFuture<NexusProfile> getPlayerProfile(UUID uuid) {
@@ -376,27 +765,28 @@ public class RedisManager implements lytblu7.autonexus.common.INexusRedis {
     }
     
     public CompletableFuture<String> incrementMetadataAtomic(UUID uuid, String field, double delta) {
-        return incrementMetadataAtomic(uuid, field, delta, null, "proxy", "generic", "", "SYSTEM");
+        return incrementMetadataAtomic(uuid, field, delta, null, "proxy", "generic", "", "SYSTEM", java.util.UUID.randomUUID().toString());
     }
 
-    public CompletableFuture<String> incrementMetadataAtomic(UUID uuid, String field, double delta, String group, String serverSource, String transactionType, String otherPlayerUuid, String reason) {
+    public CompletableFuture<String> incrementMetadataAtomic(UUID uuid, String field, double delta, String group, String serverSource, String transactionType, String otherPlayerUuid, String reason, String txId) {
         if (!isConnected) {
             return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
         }
         NexusKeyFactory keys = NexusKeyFactory.of(namespace);
         String playerKey = keys.player(uuid);
-        String historyKey = keys.history(uuid);
+        String historyKey = keys.historyStream(uuid);
         String baltopKey = keys.economyBaltop(group);
         boolean isBalanceField = field != null && field.toLowerCase().startsWith("balance");
         String script = RedisScripts.INCREMENT_METADATA_ATOMIC;
-        String isBalance = isBalanceField ? "1" : "0";
+        String isBalance = isBalanceField ? "1" : (isRankedField(field) ? "R" : "0");
         String playerUuid = uuid.toString();
         String timestamp = String.valueOf(System.currentTimeMillis());
         String resolvedReason = (reason != null && !reason.isEmpty()) ? reason : "SYSTEM";
+        long today = lytblu7.autonexus.common.model.LeaderboardWindow.today();
         return async.eval(
                 script,
                 io.lettuce.core.ScriptOutputType.VALUE,
-                new String[]{playerKey, historyKey, baltopKey},
+                new String[]{playerKey, historyKey, baltopKey, keys.transaction(txId), keys.economyEarned(group, today), keys.playerStats(uuid, today), keys.economyStream()},
                 field,
                 String.valueOf(delta),
                 isBalance,
@@ -405,20 +795,255 @@ public class RedisManager implements lytblu7.autonexus.common.INexusRedis {
                 otherPlayerUuid != null ? otherPlayerUuid : "",
                 playerUuid,
                 timestamp,
-                resolvedReason
+                resolvedReason,
+                historyRetention()
         ).toCompletableFuture().thenApply(Object::toString);
     }
     
-    public CompletableFuture<String> transferMetadataAtomic(UUID from, UUID to, String field, double amount) {
+    /**
+     * Fixed-mode increment of a balance field.
+     * @return The new balance in minor units as a string, or "INSUFFICIENT_FUNDS"
+     */
+    public CompletableFuture<String> incrementBalance(UUID uuid, String field, long deltaMinor, String group, String serverSource, String transactionType, String otherPlayerUuid, String reason, String txId) {
+        if (!isConnected) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        NexusKeyFactory keys = NexusKeyFactory.of(namespace);
+        String resolvedReason = (reason != null && !reason.isEmpty()) ? reason : "SYSTEM";
+        long today = lytblu7.autonexus.common.model.LeaderboardWindow.today();
+        return async.eval(
+                RedisScripts.INCREMENT_BALANCE_FIXED,
+                io.lettuce.core.ScriptOutputType.VALUE,
+                new String[]{keys.player(uuid), keys.historyStream(uuid), keys.economyBaltop(group), keys.balances(uuid), keys.transaction(txId), keys.economyEarned(group, today), keys.playerStats(uuid, today), keys.economyStream()},
+                field,
+                String.valueOf(deltaMinor),
+                serverSource != null ? serverSource : "",
+                transactionType != null ? transactionType : "",
+                otherPlayerUuid != null ? otherPlayerUuid : "",
+                uuid.toString(),
+                String.valueOf(System.currentTimeMillis()),
+                resolvedReason,
+                String.valueOf(economy.getScale()),
+                historyRetention()
+        ).toCompletableFuture().thenApply(Object::toString);
+    }
+
+    /**
+     * Applies increments whose keys and groups are already resolved, in chunks of BATCH_CHUNK entries per script call.
+     * The chunks are pipelined on the command connection, so Redis runs them back to back and in order; each chunk
+     * has its own transaction key, so retrying the batch with the same txId skips the chunks that already ran.
+     * Each chunk also emits its own update message; there is no summary message for the whole batch.
+     * @return One result per entry: the new value as a decimal string, "INSUFFICIENT_FUNDS", or "0" for unknown players
+     */
+    public CompletableFuture<List<String>> incrementMetadataBatch(List<lytblu7.autonexus.common.meta.MetadataDelta> deltas, String serverSource, String txId) {
+        if (!isConnected) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        List<CompletableFuture<List<String>>> parts = new java.util.ArrayList<>();
+        for (int from = 0; from < deltas.size(); from += BATCH_CHUNK) {
+            List<lytblu7.autonexus.common.meta.MetadataDelta> chunk = deltas.subList(from, Math.min(deltas.size(), from + BATCH_CHUNK));
+            String chunkTxId = txId != null ? txId + ":" + (from / BATCH_CHUNK) : null;
+            parts.add(runMetadataBatch(chunk, serverSource, chunkTxId));
+        }
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            List<String> results = new java.util.ArrayList<>(deltas.size());
+            for (CompletableFuture<List<String>> part : parts) {
+                results.addAll(part.join());
+            }
+            return results;
+        });
+    }
+
+    private CompletableFuture<List<String>> runMetadataBatch(List<lytblu7.autonexus.common.meta.MetadataDelta> chunk, String serverSource, String txId) {
+        NexusKeyFactory keys = NexusKeyFactory.of(namespace);
+        EconomySettings settings = economy;
+        String[] scriptKeys = new String[chunk.size() * 6 + 2];
+        long today = lytblu7.autonexus.common.model.LeaderboardWindow.today();
+        String[] args = new String[4 + chunk.size() * 6 + 1];
+        boolean[] fixed = new boolean[chunk.size()];
+        args[0] = String.valueOf(chunk.size());
+        args[1] = String.valueOf(settings.getScale());
+        args[2] = serverSource != null ? serverSource : "";
+        args[3] = String.valueOf(System.currentTimeMillis());
+        for (int i = 0; i < chunk.size(); i++) {
+            lytblu7.autonexus.common.meta.MetadataDelta d = chunk.get(i);
+            boolean balance = settings.isBalanceField(d.getKey());
+            fixed[i] = balance && settings.isFixed();
+            scriptKeys[i * 6] = keys.player(d.getPlayer());
+            scriptKeys[i * 6 + 1] = keys.historyStream(d.getPlayer());
+            scriptKeys[i * 6 + 2] = keys.economyBaltop(d.getGroup());
+            scriptKeys[i * 6 + 3] = keys.balances(d.getPlayer());
+            scriptKeys[i * 6 + 4] = keys.economyEarned(d.getGroup(), today);
+            scriptKeys[i * 6 + 5] = keys.playerStats(d.getPlayer(), today);
+            int a = 4 + i * 6;
+            args[a] = d.getKey();
+            args[a + 1] = fixed[i] ? String.valueOf(settings.toMinor(d.getDelta())) : String.valueOf(d.getDelta());
+            args[a + 2] = fixed[i] ? "F" : (balance ? "B" : (isRankedField(d.getKey()) ? "R" : "L"));
+            args[a + 3] = d.getTransactionType();
+            args[a + 4] = d.getReason() != null && !d.getReason().isEmpty() ? d.getReason() : "SYSTEM";
+            args[a + 5] = d.getPlayer().toString();
+        }
+        args[args.length - 1] = historyRetention();
+        scriptKeys[chunk.size() * 6] = keys.transaction(txId);
+        scriptKeys[chunk.size() * 6 + 1] = keys.economyStream();
+        return async
+                .<List<Object>>eval(RedisScripts.INCREMENT_METADATA_BATCH, io.lettuce.core.ScriptOutputType.MULTI, scriptKeys, args)
+                .toCompletableFuture()
+                .thenApply(raw -> {
+                    List<String> out = new java.util.ArrayList<>(chunk.size());
+                    for (int i = 0; i < chunk.size(); i++) {
+                        String value = raw != null && i < raw.size() ? String.valueOf(raw.get(i)) : "0";
+                        if (fixed[i] && !"INSUFFICIENT_FUNDS".equals(value)) {
+                            value = settings.format(Long.parseLong(value));
+                        }
+                        out.add(value);
+                    }
+                    return out;
+                });
+    }
+
+    @Override
+    public CompletableFuture<String> addToShard(String name, int shard, long deltaMinor, String txId) {
+        if (!isConnected) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        NexusKeyFactory keys = NexusKeyFactory.of(namespace);
+        String[] scriptKeys = { keys.counterShard(name, shard), keys.counterTransaction(name, shard, txId) };
+        return async
+                .eval(RedisScripts.SHARDED_COUNTER_ADD, io.lettuce.core.ScriptOutputType.VALUE, scriptKeys, String.valueOf(deltaMinor))
+                .toCompletableFuture()
+                .thenApply(Object::toString);
+    }
+
+    @Override
+    public CompletableFuture<String> borrowFromShards(String name, int shards, int shard, long deltaMinor, String txId) {
+        if (!isConnected) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        NexusKeyFactory keys = NexusKeyFactory.of(namespace);
+        String[] scriptKeys = new String[shards + 1];
+        for (int i = 0; i < shards; i++) {
+            scriptKeys[i] = keys.counterShard(name, i);
+        }
+        scriptKeys[shards] = keys.counterTransaction(name, shard, txId);
+        return async
+                .eval(RedisScripts.SHARDED_COUNTER_BORROW, io.lettuce.core.ScriptOutputType.VALUE, scriptKeys, String.valueOf(shard + 1), String.valueOf(deltaMinor))
+                .toCompletableFuture()
+                .thenApply(Object::toString);
+    }
+
+    @Override
+    public CompletableFuture<Long> sumCounter(String name, int shards) {
+        if (!isConnected) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        NexusKeyFactory keys = NexusKeyFactory.of(namespace);
+        String[] shardKeys = new String[shards];
+        for (int i = 0; i < shards; i++) {
+            shardKeys[i] = keys.counterShard(name, i);
+        }
+        return async.mget(shardKeys).toCompletableFuture().thenApply(values -> {
+            long total = 0L;
+            for (io.lettuce.core.KeyValue<String, String> kv : values) {
+                if (kv.hasValue()) {
+                    total += Long.parseLong(kv.getValue());
+                }
+            }
+            return total;
+        });
+    }
+
+    /**
+     * Fixed-mode transfer of a balance field.
+     * @return The sender's new balance in minor units as a string, or "INSUFFICIENT_FUNDS"
+     */
+    public CompletableFuture<String> transferBalance(UUID from, UUID to, String field, long amountMinor, String group, String serverSource, String reason, String txId) {
+        if (!isConnected) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        NexusKeyFactory keys = NexusKeyFactory.of(namespace);
+        long today = lytblu7.autonexus.common.model.LeaderboardWindow.today();
+        return async.eval(
+                RedisScripts.TRANSFER_BALANCE_FIXED,
+                io.lettuce.core.ScriptOutputType.VALUE,
+                new String[]{keys.player(from), keys.player(to), keys.balances(from), keys.balances(to),
+                        keys.historyStream(from), keys.historyStream(to), keys.economyBaltop(group), keys.transaction(txId), keys.playerStats(from, today), keys.playerStats(to, today), keys.economyStream()},
+                field,
+                String.valueOf(amountMinor),
+                String.valueOf(economy.getScale()),
+                serverSource != null ? serverSource : "",
+                from.toString(),
+                to.toString(),
+                String.valueOf(System.currentTimeMillis()),
+                reason != null ? reason : "",
+                historyRetention()
+        ).toCompletableFuture().thenApply(Object::toString);
+    }
+
+    /**
+     * @return The balance in minor units; reads the legacy record value if the hash has no entry yet
+     */
+    public CompletableFuture<Long> getBalance(UUID uuid, String field) {
+        if (!isConnected) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        EconomySettings settings = economy;
+        NexusKeyFactory keys = NexusKeyFactory.of(namespace);
+        CompletableFuture<String> minor = settings.isFixed()
+                ? async.hget(keys.balances(uuid), field).toCompletableFuture()
+                : CompletableFuture.completedFuture(null);
+        return minor.thenCompose(value -> {
+            if (value != null) {
+                return CompletableFuture.completedFuture(settings.parseMinor(value, true));
+            }
+            return async.get(keys.player(uuid)).toCompletableFuture().thenApply(json -> {
+                NexusPlayer player = parsePlayer(uuid, json);
+                Object legacy = player != null ? player.getMetadata(field) : null;
+                return legacy != null ? settings.parseMinor(String.valueOf(legacy), false) : 0L;
+            });
+        });
+    }
+
+    public CompletableFuture<Void> setBalance(UUID uuid, String field, long minor) {
         if (!isConnected) {
             return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
         }
+        String key = NexusKeyFactory.of(namespace).balances(uuid);
+        return async.hset(key, field, String.valueOf(minor)).toCompletableFuture().thenApply(v -> null);
+    }
+
+    public CompletableFuture<String> transferMetadataAtomic(UUID from, UUID to, String field, double amount, String group, String serverSource, String reason, String txId) {
+        if (!isConnected) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        EconomySettings settings = economy;
+        if (settings.isFixed() && settings.isBalanceField(field)) {
+            return transferBalance(from, to, field, settings.toMinor(amount), group, serverSource, reason, txId).thenApply(result -> {
+                if ("INSUFFICIENT_FUNDS".equalsIgnoreCase(result)) {
+                    return result;
+                }
+                return settings.format(Long.parseLong(result));
+            });
+        }
         NexusKeyFactory keys = NexusKeyFactory.of(namespace);
         String fromKey = keys.player(from);
         String toKey = keys.player(to);
         String script = RedisScripts.TRANSFER_METADATA_ATOMIC;
-        return async.eval(script, io.lettuce.core.ScriptOutputType.VALUE, new String[]{fromKey, toKey}, field, String.valueOf(amount))
-                .toCompletableFuture()
+        long today = lytblu7.autonexus.common.model.LeaderboardWindow.today();
+        return async.eval(
+                script,
+                io.lettuce.core.ScriptOutputType.VALUE,
+                new String[]{fromKey, toKey, keys.historyStream(from), keys.historyStream(to), keys.economyBaltop(group), keys.transaction(txId), keys.playerStats(from, today), keys.playerStats(to, today), keys.economyStream()},
+                field,
+                String.valueOf(amount),
+                settings.isBalanceField(field) ? "1" : "0",
+                serverSource != null ? serverSource : "",
+                from.toString(),
+                to.toString(),
+                String.valueOf(System.currentTimeMillis()),
+                reason != null ? reason : "",
+                historyRetention()
+        ).toCompletableFuture()
                 .thenApply(Object::toString);
     }
     
@@ -427,21 +1052,119 @@ public class RedisManager implements lytblu7.autonexus.common.INexusRedis {
             return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
         }
         NexusKeyFactory keys = NexusKeyFactory.of(namespace);
-        String key = keys.economyBaltop(group);
-        String member = playerName + "|" + uuid.toString();
-        return async.zadd(key, balance, member).toCompletableFuture().thenApply(v -> null);
+        names.remember(uuid, playerName);
+        return async.eval(RedisScripts.BALTOP_SET, io.lettuce.core.ScriptOutputType.INTEGER,
+                new String[]{keys.economyBaltop(group), keys.playerNames()}, uuid.toString(), String.valueOf(balance), playerName != null ? playerName : "")
+                .toCompletableFuture()
+                .thenApply(v -> null);
     }
     
+    /**
+     * @return The newest {@code limit} history entries as JSON; players without a history stream yet get their legacy list
+     */
     public CompletableFuture<List<String>> getHistory(UUID uuid, int limit) {
         if (!isConnected) {
             return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
         }
-        String key = NexusKeyFactory.of(namespace).history(uuid);
         int count = limit <= 0 ? 10 : limit;
-        return async.lrange(key, 0, count - 1).toCompletableFuture();
+        return getHistory(uuid, null, count, lytblu7.autonexus.common.model.HistoryFilter.ALL).thenCompose(page -> {
+            if (!page.getEntries().isEmpty()) {
+                List<String> out = new ArrayList<>(page.getEntries().size());
+                for (lytblu7.autonexus.common.model.HistoryEntry entry : page.getEntries()) {
+                    out.add(entry.getJson());
+                }
+                return CompletableFuture.completedFuture(out);
+            }
+            return async.lrange(NexusKeyFactory.of(namespace).history(uuid), 0, count - 1).toCompletableFuture();
+        });
+    }
+
+    /**
+     * Reads one page of a player's history, newest first.
+     * @param fromCursor The cursor of the previous page, or null for the newest entries
+     */
+    public CompletableFuture<lytblu7.autonexus.common.model.HistoryPage> getHistory(UUID uuid, String fromCursor, int limit, lytblu7.autonexus.common.model.HistoryFilter filter) {
+        if (!isConnected) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        lytblu7.autonexus.common.model.HistoryFilter f = filter != null ? filter : lytblu7.autonexus.common.model.HistoryFilter.ALL;
+        String end = fromCursor != null && !fromCursor.isEmpty() ? "(" + fromCursor : (f.getTo() > 0 ? String.valueOf(f.getTo()) : "+");
+        String start = f.getFrom() > 0 ? String.valueOf(f.getFrom()) : "-";
+        return async.<List<Object>>eval(RedisScripts.HISTORY_PAGE, io.lettuce.core.ScriptOutputType.MULTI,
+                new String[]{NexusKeyFactory.of(namespace).historyStream(uuid)},
+                end, start, String.valueOf(Math.max(1, limit)), String.join(",", f.getTypes()), String.valueOf(HISTORY_SCAN_BUDGET))
+                .toCompletableFuture()
+                .thenApply(this::toHistoryPage);
+    }
+
+    /**
+     * Calls {@code action} with every player that has a history stream. Blocking; for background jobs only.
+     */
+    public void forEachHistoryStream(java.util.function.Consumer<UUID> action) {
+        if (!isConnected) {
+            throw new IllegalStateException("Redis is not connected");
+        }
+        String prefix = NexusKeyFactory.of(namespace).historyStreamPrefix();
+        io.lettuce.core.api.sync.RedisCommands<String, String> sync = connection.sync();
+        io.lettuce.core.ScanArgs args = io.lettuce.core.ScanArgs.Builder.matches(prefix + "*").limit(500);
+        io.lettuce.core.ScanCursor cursor = io.lettuce.core.ScanCursor.INITIAL;
+        do {
+            io.lettuce.core.KeyScanCursor<String> page = sync.scan(cursor, args);
+            for (String key : page.getKeys()) {
+                UUID uuid = parseUuid(key.substring(prefix.length()));
+                if (uuid != null) {
+                    action.accept(uuid);
+                }
+            }
+            cursor = page;
+        } while (!cursor.isFinished());
+    }
+
+    /**
+     * Reads up to {@code count} of a player's history entries written before {@code cutoffMillis}, oldest first.
+     * Blocking; for background jobs only.
+     * @param afterId Exclusive start, or null to start at the oldest entry
+     */
+    public List<lytblu7.autonexus.common.model.HistoryEntry> readHistoryBefore(UUID uuid, String afterId, long cutoffMillis, int count) {
+        List<Object> raw = connection.sync().eval(RedisScripts.HISTORY_DRAIN, io.lettuce.core.ScriptOutputType.MULTI,
+                new String[]{NexusKeyFactory.of(namespace).historyStream(uuid)},
+                afterId != null ? "(" + afterId : "-", String.valueOf(cutoffMillis), String.valueOf(count));
+        return toHistoryPage(raw).getEntries();
+    }
+
+    /**
+     * Removes archived entries from a player's history stream. Blocking; for background jobs only.
+     */
+    public long deleteHistory(UUID uuid, List<String> ids) {
+        if (ids.isEmpty()) {
+            return 0L;
+        }
+        Long removed = connection.sync().xdel(NexusKeyFactory.of(namespace).historyStream(uuid), ids.toArray(new String[0]));
+        return removed != null ? removed : 0L;
+    }
+
+    private lytblu7.autonexus.common.model.HistoryPage toHistoryPage(List<Object> raw) {
+        List<lytblu7.autonexus.common.model.HistoryEntry> entries = new ArrayList<>();
+        for (int i = 1; i + 1 < raw.size(); i += 2) {
+            String id = String.valueOf(raw.get(i));
+            String json = String.valueOf(raw.get(i + 1));
+            JsonObject tx = gson.fromJson(json, JsonObject.class);
+            int dash = id.indexOf('-');
+            entries.add(new lytblu7.autonexus.common.model.HistoryEntry(
+                    id,
+                    Long.parseLong(dash > 0 ? id.substring(0, dash) : id),
+                    tx.has("type") ? tx.get("type").getAsString() : "",
+                    tx.has("amount") ? tx.get("amount").getAsDouble() : 0.0,
+                    tx.has("otherPlayer") ? tx.get("otherPlayer").getAsString() : "",
+                    tx.has("reason") ? tx.get("reason").getAsString() : "",
+                    json));
+        }
+        String cursor = raw.isEmpty() ? "" : String.valueOf(raw.get(0));
+        return new lytblu7.autonexus.common.model.HistoryPage(entries, cursor.isEmpty() ? null : cursor);
     }
     
-    public CompletableFuture<List<Map<String, Object>>> getBaltop(String group, int offset, int limit) {
+    @Override
+    public CompletableFuture<List<LeaderboardEntry>> getBaltop(String group, int offset, int limit) {
         if (!isConnected) {
             return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
         }
@@ -449,24 +1172,316 @@ public class RedisManager implements lytblu7.autonexus.common.INexusRedis {
         String key = keys.economyBaltop(group);
         long start = Math.max(0, offset);
         long end = start + Math.max(0, limit) - 1;
-        return async.zrevrangeWithScores(key, start, end).toCompletableFuture().thenApply(list -> {
-            List<Map<String, Object>> out = new ArrayList<>();
+        return async.zrevrangeWithScores(key, start, end).toCompletableFuture().thenCompose(list -> {
+            List<String> members = new ArrayList<>(list.size());
+            List<Double> scores = new ArrayList<>(list.size());
             for (io.lettuce.core.ScoredValue<String> sv : list) {
-                String member = sv.getValue();
-                double score = sv.getScore();
-                String name = member;
-                int idx = member.lastIndexOf('|');
-                if (idx > 0) {
-                    name = member.substring(0, idx);
+                members.add(sv.getValue());
+                scores.add(sv.getScore());
+            }
+            return toEntries(members, scores);
+        });
+    }
+
+    /**
+     * Reads a page of an earnings window; multi-day windows are served from a union of their day buckets that is cached for a short while.
+     */
+    public CompletableFuture<List<LeaderboardEntry>> getWindowTop(String group, lytblu7.autonexus.common.model.LeaderboardWindow window, int offset, int limit) {
+        if (window == null || window == lytblu7.autonexus.common.model.LeaderboardWindow.ALL_TIME) {
+            return getBaltop(group, offset, limit);
+        }
+        if (!isConnected) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        NexusKeyFactory keys = NexusKeyFactory.of(namespace);
+        long today = lytblu7.autonexus.common.model.LeaderboardWindow.today();
+        long start = Math.max(0, offset);
+        long end = start + Math.max(0, limit) - 1;
+        if (window == lytblu7.autonexus.common.model.LeaderboardWindow.DAILY) {
+            return async.zrevrangeWithScores(keys.economyEarned(group, today), start, end).toCompletableFuture().thenCompose(list -> {
+                List<String> members = new ArrayList<>(list.size());
+                List<Double> scores = new ArrayList<>(list.size());
+                for (io.lettuce.core.ScoredValue<String> sv : list) {
+                    members.add(sv.getValue());
+                    scores.add(sv.getScore());
                 }
-                Map<String, Object> row = new HashMap<>();
-                row.put("name", name);
-                row.put("amount", score);
-                out.add(row);
+                return toEntries(members, scores);
+            });
+        }
+        long first = window.firstDay(today);
+        String[] scriptKeys = new String[(int) (today - first) + 2];
+        scriptKeys[0] = keys.economyEarnedWindow(group, window.name(), today);
+        for (long day = first; day <= today; day++) {
+            scriptKeys[(int) (day - first) + 1] = keys.economyEarned(group, day);
+        }
+        return async.<List<Object>>eval(RedisScripts.EARNINGS_WINDOW_TOP, io.lettuce.core.ScriptOutputType.MULTI, scriptKeys,
+                String.valueOf(WINDOW_CACHE_MILLIS), String.valueOf(start), String.valueOf(end))
+                .toCompletableFuture()
+                .thenCompose(raw -> {
+                    List<String> members = new ArrayList<>();
+                    List<Double> scores = new ArrayList<>();
+                    for (int i = 0; i + 1 < raw.size(); i += 2) {
+                        members.add(String.valueOf(raw.get(i)));
+                        scores.add(Double.parseDouble(String.valueOf(raw.get(i + 1))));
+                    }
+                    return toEntries(members, scores);
+                });
+    }
+
+    /**
+     * Sums a player's daily totals of one balance field with one HMGET per day. Days past the retention and days
+     * after today are skipped; a range with no day left yields zero totals.
+     * @param lastDay Last day of the range (inclusive), as days since the epoch
+     */
+    public CompletableFuture<lytblu7.autonexus.common.model.EconomyStats> getEconomyStats(UUID uuid, String field, long firstDay, long lastDay) {
+        if (!isConnected) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        NexusKeyFactory keys = NexusKeyFactory.of(namespace);
+        long today = lytblu7.autonexus.common.model.LeaderboardWindow.today();
+        long from = Math.max(firstDay, today - RedisScripts.PLAYER_STATS_TTL_SECONDS / 86400 + 1);
+        long to = Math.min(lastDay, today);
+        if (from > to) {
+            return CompletableFuture.completedFuture(new lytblu7.autonexus.common.model.EconomyStats(uuid, field, firstDay, lastDay, 0.0, 0.0));
+        }
+        List<CompletableFuture<List<io.lettuce.core.KeyValue<String, String>>>> days = new ArrayList<>();
+        for (long day = from; day <= to; day++) {
+            days.add(async.hmget(keys.playerStats(uuid, day), field + ":earned", field + ":spent").toCompletableFuture());
+        }
+        return CompletableFuture.allOf(days.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            double earned = 0.0;
+            double spent = 0.0;
+            for (CompletableFuture<List<io.lettuce.core.KeyValue<String, String>>> day : days) {
+                List<io.lettuce.core.KeyValue<String, String>> values = day.join();
+                earned += parseStat(values.get(0));
+                spent += parseStat(values.get(1));
+            }
+            return new lytblu7.autonexus.common.model.EconomyStats(uuid, field, from, to, earned, spent);
+        });
+    }
+
+    private static double parseStat(io.lettuce.core.KeyValue<String, String> value) {
+        try {
+            return value.hasValue() ? Double.parseDouble(value.getValue()) : 0.0;
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+    }
+
+    /**
+     * Builds leaderboard rows from sorted set members, resolving the names of bare UUID members in one lookup.
+     * Legacy "name|uuid" members carry their own name.
+     */
+    private CompletableFuture<List<LeaderboardEntry>> toEntries(List<String> members, List<Double> scores) {
+        List<UUID> uuids = new ArrayList<>(members.size());
+        List<UUID> lookup = new ArrayList<>();
+        for (String member : members) {
+            int idx = member.lastIndexOf('|');
+            UUID uuid = parseUuid(idx >= 0 ? member.substring(idx + 1) : member);
+            uuids.add(uuid);
+            if (idx < 0 && uuid != null) {
+                lookup.add(uuid);
+            }
+        }
+        return names.resolve(lookup).thenApply(resolved -> {
+            List<LeaderboardEntry> out = new ArrayList<>(members.size());
+            for (int i = 0; i < members.size(); i++) {
+                String member = members.get(i);
+                int idx = member.lastIndexOf('|');
+                String name = idx > 0 ? member.substring(0, idx) : resolved.getOrDefault(uuids.get(i), member);
+                out.add(new LeaderboardEntry(uuids.get(i), name, scores.get(i)));
+            }
+            return out;
+        });
+    }
+
+    private static UUID parseUuid(String value) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public CompletableFuture<List<String>> getPlayerNames(List<UUID> uuids) {
+        if (!isConnected) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        String[] fields = new String[uuids.size()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = uuids.get(i).toString();
+        }
+        return async.hmget(NexusKeyFactory.of(namespace).playerNames(), fields).toCompletableFuture().thenApply(values -> {
+            List<String> out = new ArrayList<>(values.size());
+            for (io.lettuce.core.KeyValue<String, String> kv : values) {
+                out.add(kv.hasValue() ? kv.getValue() : null);
             }
             return out;
         });
     }
+
+    @Override
+    public CompletableFuture<lytblu7.autonexus.common.model.LeaderboardRank> getRankAround(UUID player, String group, int radius) {
+        if (!isConnected) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        NexusKeyFactory keys = NexusKeyFactory.of(namespace);
+        return async.<List<Object>>eval(RedisScripts.LEADERBOARD_RANK_AROUND, io.lettuce.core.ScriptOutputType.MULTI,
+                new String[]{keys.economyBaltop(group), keys.player(player)}, player.toString(), String.valueOf(radius))
+                .toCompletableFuture()
+                .thenCompose(raw -> {
+                    long rank0 = raw.isEmpty() ? -1L : Long.parseLong(String.valueOf(raw.get(0)));
+                    if (rank0 < 0) {
+                        return CompletableFuture.completedFuture(lytblu7.autonexus.common.model.LeaderboardRank.unranked(player, group));
+                    }
+                    double score = Double.parseDouble(String.valueOf(raw.get(1)));
+                    long first = raw.size() > 2 ? Long.parseLong(String.valueOf(raw.get(2))) : rank0;
+                    List<String> members = new ArrayList<>();
+                    List<Double> scores = new ArrayList<>();
+                    for (int i = 3; i + 1 < raw.size(); i += 2) {
+                        members.add(String.valueOf(raw.get(i)));
+                        scores.add(Double.parseDouble(String.valueOf(raw.get(i + 1))));
+                    }
+                    return toEntries(members, scores).thenApply(around ->
+                            new lytblu7.autonexus.common.model.LeaderboardRank(player, group, rank0 + 1, score, first + 1, around));
+                });
+    }
+
+    /**
+     * Replaces the network-wide registry of ranked metadata keys so servers write stream updates for them.
+     */
+    public CompletableFuture<Void> publishRankedKeys(lytblu7.autonexus.common.meta.RankedKeys ranked) {
+        if (!isConnected) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        String key = NexusKeyFactory.of(namespace).rankedKeys();
+        if (ranked.isEmpty()) {
+            return async.del(key).toCompletableFuture().thenApply(v -> null);
+        }
+        return async.del(key).toCompletableFuture()
+                .thenCompose(v -> async.sadd(key, ranked.getKeys().toArray(new String[0])).toCompletableFuture())
+                .thenApply(v -> null);
+    }
+
+    /**
+     * Loads every persisted ranked board as field -> (player -> score).
+     */
+    public CompletableFuture<Map<String, Map<UUID, Double>>> loadRankedBoards() {
+        if (!isConnected) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        NexusKeyFactory keys = NexusKeyFactory.of(namespace);
+        return async.smembers(keys.rankedBoards()).toCompletableFuture().thenCompose(fields -> {
+            Map<String, Map<UUID, Double>> boards = new ConcurrentHashMap<>();
+            List<CompletableFuture<Void>> pending = new ArrayList<>();
+            for (String field : fields) {
+                pending.add(async.zrangeWithScores(keys.rankedMetadata(field), 0, -1).toCompletableFuture().thenAccept(rows -> {
+                    Map<UUID, Double> board = new HashMap<>();
+                    for (io.lettuce.core.ScoredValue<String> sv : rows) {
+                        UUID uuid = parseUuid(sv.getValue());
+                        if (uuid != null) {
+                            board.put(uuid, sv.getScore());
+                        }
+                    }
+                    boards.put(field, board);
+                }));
+            }
+            return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).thenApply(v -> boards);
+        });
+    }
+
+    /**
+     * Writes the changed rows of one ranked board; servers read these sorted sets for their own lookups.
+     */
+    public CompletableFuture<Void> persistRankedBoard(String field, Map<UUID, Double> scores, java.util.Collection<UUID> removed) {
+        if (!isConnected) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        NexusKeyFactory keys = NexusKeyFactory.of(namespace);
+        String key = keys.rankedMetadata(field);
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+        pending.add(async.sadd(keys.rankedBoards(), field.toLowerCase()).toCompletableFuture());
+        if (!scores.isEmpty()) {
+            Object[] scoresAndMembers = new Object[scores.size() * 2];
+            int i = 0;
+            for (Map.Entry<UUID, Double> e : scores.entrySet()) {
+                scoresAndMembers[i++] = e.getValue();
+                scoresAndMembers[i++] = e.getKey().toString();
+            }
+            pending.add(async.zadd(key, scoresAndMembers).toCompletableFuture());
+        }
+        if (!removed.isEmpty()) {
+            String[] members = new String[removed.size()];
+            int i = 0;
+            for (UUID uuid : removed) {
+                members[i++] = uuid.toString();
+            }
+            pending.add(async.zrem(key, members).toCompletableFuture());
+        }
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]));
+    }
+
+    public CompletableFuture<List<LeaderboardEntry>> getMetadataTop(String field, int offset, int limit) {
+        if (!isConnected) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        long start = Math.max(0, offset);
+        long end = start + Math.max(0, limit) - 1;
+        return async.zrevrangeWithScores(NexusKeyFactory.of(namespace).rankedMetadata(field), start, end).toCompletableFuture().thenCompose(list -> {
+            List<String> members = new ArrayList<>(list.size());
+            List<Double> scores = new ArrayList<>(list.size());
+            for (io.lettuce.core.ScoredValue<String> sv : list) {
+                members.add(sv.getValue());
+                scores.add(sv.getScore());
+            }
+            return toEntries(members, scores);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> acquireLeaderboardLock(String nodeId, long ttlMillis) {
+        if (!isConnected) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        String key = NexusKeyFactory.of(namespace).leaderboardLock();
+        return async.eval(RedisScripts.LEADER_LOCK, io.lettuce.core.ScriptOutputType.INTEGER, new String[]{key}, nodeId, String.valueOf(ttlMillis))
+                .toCompletableFuture()
+                .thenApply(result -> ((Number) result).longValue() == 1L);
+    }
+
+    @Override
+    public CompletableFuture<java.util.Set<String>> getLeaderboardGroups() {
+        if (!isConnected) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        return async.smembers(NexusKeyFactory.of(namespace).leaderboardGroups()).toCompletableFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> addLeaderboardGroup(String group) {
+        if (!isConnected) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        return async.sadd(NexusKeyFactory.of(namespace).leaderboardGroups(), group).toCompletableFuture().thenApply(v -> null);
+    }
+
+    @Override
+    public CompletableFuture<Void> storeLeaderboardSnapshot(String group, String payload, long ttlMillis) {
+        if (!isConnected) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        String key = NexusKeyFactory.of(namespace).leaderboardSnapshot(group);
+        return async.psetex(key, ttlMillis, payload).toCompletableFuture().thenApply(v -> null);
+    }
+
+    @Override
+    public CompletableFuture<String> loadLeaderboardSnapshot(String group) {
+        if (!isConnected) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        return async.get(NexusKeyFactory.of(namespace).leaderboardSnapshot(group)).toCompletableFuture();
+    }
     
     
     @Override
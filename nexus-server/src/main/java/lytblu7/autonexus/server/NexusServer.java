@@ -16,6 +16,9 @@ import org.bukkit.plugin.ServicePriority;
 import lytblu7.autonexus.server.storage.ServerRedisManager;
 import lytblu7.autonexus.common.redis.NexusKeyFactory;
 import lytblu7.autonexus.server.util.RedisReconnectManager;
+import lytblu7.autonexus.server.cache.OfflinePlayerCache;
+import lytblu7.autonexus.common.event.DefaultNexusEventBus;
+import lytblu7.autonexus.common.event.NexusEventBus;
 
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -26,6 +29,15 @@ public class NexusServer extends JavaPlugin implements NexusAPI, INexusAPI {
     private final com.google.gson.Gson gson = new com.google.gson.Gson();
     // Local cache for player session data
     private final java.util.Map<UUID, NexusPlayer> playerCache = new java.util.concurrent.ConcurrentHashMap<>();
+    // TTL near cache for API reads of players that are not online here
+    private OfflinePlayerCache offlineCache;
+    private final NexusEventBus eventBus = new DefaultNexusEventBus();
+    // Snapshots pushed by the proxy before a player connects, consumed on join
+    private final lytblu7.autonexus.common.cache.ExpiringCache<UUID, NexusPlayer> pendingSnapshots =
+            new lytblu7.autonexus.common.cache.ExpiringCache<>(15, java.util.concurrent.TimeUnit.SECONDS, 1000);
+    // Highest record version announced by SYNC_PLAYER, used to reject snapshots that are already outdated
+    private final lytblu7.autonexus.common.cache.ExpiringCache<UUID, Long> announcedVersions =
+            new lytblu7.autonexus.common.cache.ExpiringCache<>(30, java.util.concurrent.TimeUnit.SECONDS, 5000);
     
     private String resolvedServerName;
     private String redisNamespace = "global";
@@ -33,7 +45,11 @@ public class NexusServer extends JavaPlugin implements NexusAPI, INexusAPI {
     private String serverGroup;
     private RedisReconnectManager reconnectManager;
     private lytblu7.autonexus.common.meta.MetadataManager metadataManager;
-    private final java.util.Set<String> globalPlayersCache = java.util.Collections.newSetFromMap(new java.util.concurrent.ConcurrentHashMap<>());
+    private lytblu7.autonexus.server.meta.WriteBehindAccumulator writeBehind;
+    private volatile lytblu7.autonexus.common.leaderboard.LeaderboardService leaderboards;
+    private final lytblu7.autonexus.server.cache.GlobalPlayerSet globalPlayers = new lytblu7.autonexus.server.cache.GlobalPlayerSet();
+    private final java.util.concurrent.atomic.AtomicBoolean globalResyncInFlight = new java.util.concurrent.atomic.AtomicBoolean(false);
+    private volatile boolean globalSeqBehind = false;
 
     @Override
     public void onEnable() {
@@ -59,10 +75,16 @@ public class NexusServer extends JavaPlugin implements NexusAPI, INexusAPI {
         
         // Redis
         redisManager = new ServerRedisManager(this, resolvedServerName, serverGroup, redisNamespace, debugLogging);
+        redisManager.setEconomySettings(lytblu7.autonexus.common.meta.EconomySettings.of(
+                getConfig().getString("economy.mode", "legacy"), getConfig().getInt("economy.scale", 2)));
+        redisManager.setHistoryRetention(getConfig().getInt("economy.history-max-entries", 1000),
+                getConfig().getLong("economy.history-max-age-days", 0L) * 86_400_000L);
+        applyPacketSettings();
         reconnectManager = new RedisReconnectManager(this);
         try {
             redisManager.connect(redisUrl);
             getLogger().info("[AutoNexus] Redis connected (server-side): " + redisManager.isConnected());
+            redisManager.consumeEconomyStream(resolvedServerName, this::processEconomyUpdate);
         } catch (Exception e) {
             getLogger().severe("[AutoNexus] Connection failed. Connection lost, attempting reconnect...");
             final String url = redisUrl;
@@ -72,6 +94,7 @@ public class NexusServer extends JavaPlugin implements NexusAPI, INexusAPI {
                         redisManager.connect(url);
                         if (redisManager.isReady()) {
                             reconnectManager.stop();
+                            redisManager.consumeEconomyStream(resolvedServerName, this::processEconomyUpdate);
                             getLogger().info("[AutoNexus] Reconnected to Redis successfully.");
                         }
                     }
@@ -79,7 +102,25 @@ public class NexusServer extends JavaPlugin implements NexusAPI, INexusAPI {
             }, 200L, 600L);
         }
         fetchGlobalSettings();
-        metadataManager = new lytblu7.autonexus.server.meta.ServerMetadataManager(redisManager, this::getServerGroup, getLogger());
+        int offlineTtl = getConfig().getInt("cache.offline-ttl", 30);
+        int offlineMax = getConfig().getInt("cache.offline-max-size", 2000);
+        offlineCache = new OfflinePlayerCache(this::loadPlayerFromRedis, offlineTtl, offlineMax);
+        lytblu7.autonexus.server.meta.ServerMetadataManager serverMetadata = new lytblu7.autonexus.server.meta.ServerMetadataManager(redisManager, this::getServerGroup, eventBus, getLogger());
+        metadataManager = serverMetadata;
+        serverMetadata.configureCounters(resolvedServerName, getConfig().getInt("economy.counter-shards", 8));
+        writeBehind = new lytblu7.autonexus.server.meta.WriteBehindAccumulator(getDataFolder().toPath().resolve("data"), serverMetadata::writeBatch, getLogger());
+        for (String key : getConfig().getStringList("write-behind.keys")) {
+            writeBehind.setEnabled(key, true);
+        }
+        try {
+            writeBehind.open();
+            serverMetadata.enableWriteBehind(writeBehind, playerCache::get);
+        } catch (java.io.IOException e) {
+            getLogger().warning("[AutoNexus] Write-behind log unavailable, increments are written directly: " + e.getMessage());
+            writeBehind = null;
+        }
+        // Local metadata writes make any near-cached copy stale
+        eventBus.registerMetadataListener(event -> invalidateOfflinePlayer(event.getPlayerId()));
         
         // Register Event Listeners
         getServer().getPluginManager().registerEvents(new ServerListener(this), this);
@@ -105,22 +146,45 @@ public class NexusServer extends JavaPlugin implements NexusAPI, INexusAPI {
                     tps = tpsArr[0];
                 }
             } catch (Throwable ignored) {}
-            ServerInfo info = new ServerInfo(resolvedServerName, online, max, tps);
+            ServerInfo info = new ServerInfo(resolvedServerName, online, max, tps, lytblu7.autonexus.common.PacketIO.PROTOCOL_VERSION);
             if (redisManager != null) {
                 redisManager.setServerHeartbeat(info);
+                redisManager.refreshWireProtocol();
+                redisManager.refreshHistoryArchive();
+                redisManager.syncClock();
             }
         }, 0L, periodTicks);
 
-        // Async refresh of global player cache (every ~4s)
+        // The global player list follows the proxy's deltas; this only checks the sequence number (every ~4s)
+        resyncGlobalPlayers();
+        getServer().getScheduler().runTaskTimerAsynchronously(this, this::checkGlobalPlayersSeq, 80L, 80L);
+
+        if (writeBehind != null) {
+            long flushTicks = Math.max(1L, getConfig().getLong("write-behind.flush-interval-ms", 1000L) / 50L);
+            lytblu7.autonexus.server.meta.WriteBehindAccumulator accumulator = writeBehind;
+            getServer().getScheduler().runTaskTimerAsynchronously(this, accumulator::flush, flushTicks, flushTicks);
+        }
+
+        long leaderboardMillis = getConfig().getLong("leaderboard.snapshot-interval", 5L) * 1000L;
+        leaderboards = new lytblu7.autonexus.common.leaderboard.LeaderboardService(resolvedServerName,
+                getConfig().getInt("leaderboard.snapshot-depth", 100), leaderboardMillis, redisManager, getLogger());
+        if (leaderboards.isEnabled()) {
+            long leaderboardTicks = Math.max(1L, leaderboardMillis / 50L);
+            lytblu7.autonexus.common.leaderboard.LeaderboardService service = leaderboards;
+            getServer().getScheduler().runTaskTimerAsynchronously(this, service::refresh, 20L, leaderboardTicks);
+        }
+
+        // Ranked metadata keys are configured on the proxy; writes to them must reach the economy stream
+        getServer().getScheduler().runTaskTimerAsynchronously(this, () -> redisManager.loadRankedKeys().exceptionally(ex -> {
+            getLogger().warning("[AutoNexus] Failed to load ranked metadata keys: " + ex.getMessage());
+            return null;
+        }), 0L, 1200L);
+
         getServer().getScheduler().runTaskTimerAsynchronously(this, () -> {
-            if (redisManager instanceof lytblu7.autonexus.server.storage.ServerRedisManager) {
-                java.util.List<String> names = ((lytblu7.autonexus.server.storage.ServerRedisManager) redisManager).getOnlinePlayerNames();
-                globalPlayersCache.clear();
-                if (names != null) {
-                    globalPlayersCache.addAll(names);
-                }
+            if (offlineCache != null) {
+                offlineCache.evictExpired();
             }
-        }, 0L, 80L);
+        }, 1200L, 1200L);
     }
 
     public boolean isDebug() {
@@ -133,7 +197,82 @@ public class NexusServer extends JavaPlugin implements NexusAPI, INexusAPI {
     }
     
     public java.util.List<String> getGlobalPlayersCacheSnapshot() {
-        return new java.util.ArrayList<>(globalPlayersCache);
+        return globalPlayers.snapshot();
+    }
+
+    @Override
+    public lytblu7.autonexus.common.api.NameCompletionService getNameCompletion() {
+        return globalPlayers.completions();
+    }
+
+    /**
+     * Applies a join/leave delta published by the proxy. Called from the Pub/Sub thread.
+     */
+    public void applyOnlineDelta(long seq, String op, String name) {
+        if (!globalPlayers.applyDelta(seq, op, name)) {
+            if (debugLogging) {
+                getLogger().info("[DEBUG] Online player delta " + seq + " arrived out of order (local seq " + globalPlayers.getSeq() + "), resyncing.");
+            }
+            resyncGlobalPlayers();
+        }
+    }
+
+    private void checkGlobalPlayersSeq() {
+        if (!(redisManager instanceof lytblu7.autonexus.server.storage.ServerRedisManager)) {
+            return;
+        }
+        if (!globalPlayers.isSynced()) {
+            resyncGlobalPlayers();
+            return;
+        }
+        long remote = ((lytblu7.autonexus.server.storage.ServerRedisManager) redisManager).getOnlinePlayersSeq();
+        if (remote < 0) {
+            return;
+        }
+        long local = globalPlayers.getSeq();
+        if (remote < local) {
+            // The sequence was reset (keys expired or were flushed)
+            globalSeqBehind = false;
+            resyncGlobalPlayers();
+        } else if (remote > local) {
+            // A delta may simply be in flight; only resync if we are still behind on the next check
+            if (globalSeqBehind) {
+                globalSeqBehind = false;
+                resyncGlobalPlayers();
+            } else {
+                globalSeqBehind = true;
+            }
+        } else {
+            globalSeqBehind = false;
+        }
+    }
+
+    private void resyncGlobalPlayers() {
+        if (!(redisManager instanceof lytblu7.autonexus.server.storage.ServerRedisManager)) {
+            return;
+        }
+        if (!globalResyncInFlight.compareAndSet(false, true)) {
+            return;
+        }
+        globalPlayers.beginResync();
+        ((lytblu7.autonexus.server.storage.ServerRedisManager) redisManager).loadOnlinePlayersSnapshot().whenComplete((snapshot, error) -> {
+            globalResyncInFlight.set(false);
+            if (error != null || snapshot == null || snapshot.isEmpty()) {
+                if (debugLogging) {
+                    getLogger().warning("[AutoNexus] Failed to load the global player list: " + (error != null ? error.getMessage() : "empty reply"));
+                }
+                return;
+            }
+            long seq;
+            try {
+                seq = Long.parseLong(snapshot.get(0));
+            } catch (NumberFormatException e) {
+                seq = 0L;
+            }
+            if (!globalPlayers.completeResync(seq, snapshot.subList(1, snapshot.size()))) {
+                resyncGlobalPlayers();
+            }
+        });
     }
     
     @Override
@@ -141,6 +280,11 @@ public class NexusServer extends JavaPlugin implements NexusAPI, INexusAPI {
         return serverGroup;
     }
 
+    @Override
+    public NexusEventBus getEventBus() {
+        return eventBus;
+    }
+
     @Override
     public lytblu7.autonexus.common.meta.MetadataManager getMetadataManager() {
         if (metadataManager == null) {
@@ -154,17 +298,33 @@ public class NexusServer extends JavaPlugin implements NexusAPI, INexusAPI {
         if (reconnectManager != null) {
             reconnectManager.stop();
         }
+        if (writeBehind != null) {
+            writeBehind.close(5, java.util.concurrent.TimeUnit.SECONDS);
+        }
         if (redisManager != null) {
             redisManager.shutdown();
         }
     }
 
+    public String getRedisNamespace() {
+        return redisNamespace;
+    }
+
     public void reloadSettings() {
         reloadConfig();
         this.debugLogging = getConfig().getBoolean("debug", false);
+        if (redisManager != null) {
+            applyPacketSettings();
+        }
         getLogger().info("[AutoNexus] Reloaded config. Debug=" + debugLogging);
     }
 
+    private void applyPacketSettings() {
+        redisManager.setBinaryPackets(!"json".equalsIgnoreCase(getConfig().getString("network.protocol", "auto")));
+        redisManager.configureBatching(Math.max(0L, Math.round(getConfig().getDouble("network.batch.window-ms", 2.0) * 1000.0)),
+                getConfig().getInt("network.batch.max-packets", 64), getConfig().getInt("network.batch.max-bytes", 32768));
+    }
+
     @Override
     public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
         return false;
@@ -175,47 +335,176 @@ public class NexusServer extends JavaPlugin implements NexusAPI, INexusAPI {
         // Use Redis Pub/Sub for packet sending
         if (redisManager == null) return;
         
-        ServerRedisManager.NetworkEnvelope envelope = new ServerRedisManager.NetworkEnvelope(targetServer, packet);
-        String json = gson.toJson(envelope);
-        
-        redisManager.publish("autonexus:network", json);
+        redisManager.publishPacket(NexusKeyFactory.of(redisNamespace).channelFor(targetServer, packet.getTargetGroup()), targetServer, packet);
     }
 
     @Override
     public CompletableFuture<NexusPlayer> getPlayer(UUID uuid) {
         // 1. Check local cache first (Primary Source of Truth for online players)
-        if (playerCache.containsKey(uuid)) {
-            return CompletableFuture.completedFuture(playerCache.get(uuid));
-        }
-
-        // 2. Fallback to Redis
-        return redisManager.loadPlayerData(uuid).thenApply(data -> {
-            if (data == null || data.isEmpty()) return null;
-            String name = (String) data.getOrDefault("name", "Unknown");
-            // Server might not know current server of offline player if not synced, 
-            // but for now we return what we have.
-            String currentServer = (String) data.getOrDefault("server", "unknown");
-            
-            NexusPlayer player = new NexusPlayer(uuid, name, currentServer);
-            // Populate metadata
-            for (java.util.Map.Entry<String, Object> entry : data.entrySet()) {
-                if (!entry.getKey().equals("name") && !entry.getKey().equals("server")) {
-                     // NexusPlayer metadata is Map<String, String>
-                     player.setMetadata(entry.getKey(), String.valueOf(entry.getValue()));
-                }
-            }
-            return player;
-        });
+        NexusPlayer online = playerCache.get(uuid);
+        if (online != null) {
+            return CompletableFuture.completedFuture(online);
+        }
+
+        // 2. Offline near cache, falling back to Redis
+        if (offlineCache == null) {
+            return loadPlayerFromRedis(uuid);
+        }
+        return offlineCache.get(uuid);
+    }
+
+    private CompletableFuture<NexusPlayer> loadPlayerFromRedis(UUID uuid) {
+        return redisManager.loadPlayer(uuid);
     }
     
     public void cachePlayer(NexusPlayer player) {
+        invalidateOfflinePlayer(player.getUuid());
         playerCache.put(player.getUuid(), player);
     }
+
+    /**
+     * Applies a balance change from the economy stream to cached copies of the player.
+     * Called from the stream thread.
+     */
+    private void processEconomyUpdate(String message) {
+        com.google.gson.JsonObject update;
+        try {
+            update = gson.fromJson(message, com.google.gson.JsonObject.class);
+        } catch (Exception e) {
+            getLogger().warning("[AutoNexus] Malformed economy update: " + message);
+            return;
+        }
+        if (update == null) return;
+        if (update.has("batch") && update.get("batch").isJsonArray()) {
+            for (com.google.gson.JsonElement entry : update.getAsJsonArray("batch")) {
+                if (entry.isJsonObject()) {
+                    applyEconomyUpdate(entry.getAsJsonObject());
+                }
+            }
+            return;
+        }
+        applyEconomyUpdate(update);
+    }
+
+    private void applyEconomyUpdate(com.google.gson.JsonObject update) {
+        if (!update.has("playerUuid") || !update.has("field") || !update.has("newBalance")) {
+            return;
+        }
+        UUID uuid = UUID.fromString(update.get("playerUuid").getAsString());
+        String field = update.get("field").getAsString();
+        String value = update.get("newBalance").getAsString();
+        long version = update.has("version") ? update.get("version").getAsLong() : 0L;
+        NexusPlayer online = playerCache.get(uuid);
+        if (online == null) {
+            invalidateOfflinePlayer(uuid);
+            return;
+        }
+        if (update.has("minor")) {
+            // Fixed-mode balances live outside the versioned record; updates arrive in write order
+            online.setMetadata(field, value);
+        } else if (version == online.getVersion() + 1) {
+            online.setMetadata(field, value);
+            online.setVersion(version);
+        } else if (version > online.getVersion()) {
+            redisManager.loadPlayer(uuid).thenAccept(fresh -> {
+                if (fresh == null) return;
+                playerCache.computeIfPresent(uuid, (k, current) -> fresh.getVersion() >= current.getVersion() ? fresh : current);
+            });
+        }
+    }
+
+    /**
+     * Applies a SYNC_PLAYER invalidation. Cached copies at or above the announced version are kept;
+     * older offline copies are dropped and older online copies are refetched in the background.
+     */
+    public void applyInvalidation(lytblu7.autonexus.common.model.PlayerInvalidation invalidation) {
+        UUID uuid = invalidation.getUuid();
+        if (invalidation.getVersion() > 0) {
+            Long announced = announcedVersions.get(uuid);
+            if (announced == null || announced < invalidation.getVersion()) {
+                announcedVersions.put(uuid, invalidation.getVersion());
+            }
+        }
+        NexusPlayer snapshot = pendingSnapshots.get(uuid);
+        if (snapshot != null && !applyInPlace(snapshot, invalidation) && invalidation.isNewerThan(snapshot.getVersion())) {
+            pendingSnapshots.invalidate(uuid);
+        }
+        NexusPlayer online = playerCache.get(uuid);
+        if (online == null) {
+            NexusPlayer offline = offlineCache != null ? offlineCache.peek(uuid) : null;
+            if (offline != null && (applyInPlace(offline, invalidation) || !invalidation.isNewerThan(offline.getVersion()))) {
+                return;
+            }
+            invalidateOfflinePlayer(uuid);
+            return;
+        }
+        if (applyInPlace(online, invalidation) || !invalidation.isNewerThan(online.getVersion())) {
+            if (debugLogging) {
+                getLogger().info("[DEBUG] SYNC_PLAYER for " + uuid + " skipped (cached v" + online.getVersion() + ", announced v" + invalidation.getVersion() + ")");
+            }
+            return;
+        }
+        redisManager.loadPlayer(uuid).thenAccept(fresh -> {
+            if (fresh == null) return;
+            // Keep the entry only while the player is still online here, and never go backwards
+            playerCache.computeIfPresent(uuid, (k, current) -> fresh.getVersion() >= current.getVersion() ? fresh : current);
+        });
+    }
     
     public NexusPlayer removeCachedPlayer(UUID uuid) {
+        invalidateOfflinePlayer(uuid);
         return playerCache.remove(uuid);
     }
 
+    public void invalidateOfflinePlayer(UUID uuid) {
+        if (offlineCache != null) {
+            offlineCache.invalidate(uuid);
+        }
+    }
+
+    private boolean applyInPlace(NexusPlayer player, lytblu7.autonexus.common.model.PlayerInvalidation invalidation) {
+        if (!invalidation.isNextLocationOf(player.getVersion())) {
+            return false;
+        }
+        player.setCurrentServer(invalidation.getServer());
+        if (invalidation.getName() != null) {
+            player.setLastSeenName(invalidation.getName());
+        }
+        player.setVersion(invalidation.getVersion());
+        return true;
+    }
+
+    /**
+     * Stores a PLAYER_SNAPSHOT from the proxy unless a newer version has already been announced.
+     */
+    public void acceptSnapshot(NexusPlayer snapshot) {
+        if (snapshot == null) return;
+        if (isOutdated(snapshot)) {
+            if (debugLogging) {
+                getLogger().info("[DEBUG] Dropped outdated PLAYER_SNAPSHOT v" + snapshot.getVersion() + " of " + snapshot.getUuid());
+            }
+            return;
+        }
+        pendingSnapshots.put(snapshot.getUuid(), snapshot);
+    }
+
+    /**
+     * Removes and returns the prefetched snapshot of a joining player.
+     * @return The snapshot, or null if none arrived or it no longer matches the latest announced version
+     */
+    public NexusPlayer takeSnapshot(UUID uuid) {
+        NexusPlayer snapshot = pendingSnapshots.invalidate(uuid);
+        if (snapshot == null || isOutdated(snapshot)) {
+            return null;
+        }
+        return snapshot;
+    }
+
+    private boolean isOutdated(NexusPlayer snapshot) {
+        Long announced = announcedVersions.get(snapshot.getUuid());
+        return announced != null && announced > snapshot.getVersion();
+    }
+
     @Override
     public CompletableFuture<UUID> getUuid(String name) {
         return redisManager.getUuidByName(name);
@@ -228,7 +517,7 @@ public class NexusServer extends JavaPlugin implements NexusAPI, INexusAPI {
 
     @Override
     public CompletableFuture<Double> transferMetadata(UUID from, UUID to, String field, double amount, String reason) {
-        return redisManager.transferMetadataAtomic(from, to, field, amount).thenApply(result -> {
+        return redisManager.transferMetadataAtomic(from, to, field, amount, getServerGroup(), getServerGroup(), reason, UUID.randomUUID().toString()).thenApply(result -> {
             if (result == null) return Double.NaN;
             if ("INSUFFICIENT_FUNDS".equalsIgnoreCase(result)) {
                 return Double.NaN;
@@ -252,25 +541,71 @@ public class NexusServer extends JavaPlugin implements NexusAPI, INexusAPI {
         if (redisManager == null) {
             return CompletableFuture.completedFuture(java.util.Collections.emptyList());
         }
-        return redisManager.getBaltop(group, offset, limit).thenApply(list -> {
-            java.util.List<LeaderboardEntry> out = new java.util.ArrayList<>();
-            for (java.util.Map<String, Object> row : list) {
-                String name = String.valueOf(row.getOrDefault("name", ""));
-                Object amountObj = row.get("amount");
-                double score;
-                if (amountObj instanceof Number) {
-                    score = ((Number) amountObj).doubleValue();
-                } else {
-                    try {
-                        score = Double.parseDouble(String.valueOf(amountObj));
-                    } catch (Exception e) {
-                        score = 0.0;
-                    }
-                }
-                out.add(new LeaderboardEntry(name, score));
-            }
-            return out;
-        });
+        lytblu7.autonexus.common.leaderboard.LeaderboardService service = leaderboards;
+        if (service != null) {
+            return service.getTop(group, offset, limit);
+        }
+        return redisManager.getBaltop(group, offset, limit);
+    }
+
+    @Override
+    public CompletableFuture<java.util.List<LeaderboardEntry>> getTop(String group, lytblu7.autonexus.common.model.LeaderboardWindow window, int offset, int limit) {
+        if (window == null || window == lytblu7.autonexus.common.model.LeaderboardWindow.ALL_TIME) {
+            return getTop(group, offset, limit);
+        }
+        if (redisManager == null) {
+            return CompletableFuture.completedFuture(java.util.Collections.emptyList());
+        }
+        return redisManager.getWindowTop(group, window, offset, limit);
+    }
+
+    @Override
+    public CompletableFuture<lytblu7.autonexus.common.model.LeaderboardRank> getRank(UUID uuid, String group) {
+        return getAround(uuid, group, 0);
+    }
+
+    @Override
+    public CompletableFuture<lytblu7.autonexus.common.model.LeaderboardRank> getAround(UUID uuid, String group, int radius) {
+        if (redisManager == null) {
+            return CompletableFuture.completedFuture(lytblu7.autonexus.common.model.LeaderboardRank.unranked(uuid, group));
+        }
+        lytblu7.autonexus.common.leaderboard.LeaderboardService service = leaderboards;
+        if (service != null) {
+            return service.getAround(uuid, group, radius);
+        }
+        return redisManager.getRankAround(uuid, group, Math.max(0, radius));
+    }
+
+    @Override
+    public CompletableFuture<java.util.List<LeaderboardEntry>> getMetadataTop(String field, int offset, int limit) {
+        if (redisManager == null) {
+            return CompletableFuture.completedFuture(java.util.Collections.emptyList());
+        }
+        return redisManager.getMetadataTop(field, offset, limit);
+    }
+
+    @Override
+    public CompletableFuture<lytblu7.autonexus.common.model.LeaderboardRank> getMetadataAround(UUID uuid, String field, int radius) {
+        if (redisManager == null) {
+            return CompletableFuture.completedFuture(lytblu7.autonexus.common.model.LeaderboardRank.unranked(uuid, field));
+        }
+        return redisManager.getMetadataRankAround(uuid, field, Math.max(0, Math.min(50, radius)));
+    }
+
+    @Override
+    public CompletableFuture<lytblu7.autonexus.common.model.HistoryPage> getHistory(UUID uuid, String fromCursor, int limit, lytblu7.autonexus.common.model.HistoryFilter filter) {
+        if (redisManager == null) {
+            return CompletableFuture.completedFuture(new lytblu7.autonexus.common.model.HistoryPage(java.util.Collections.emptyList(), null));
+        }
+        return redisManager.getHistory(uuid, fromCursor, limit, filter);
+    }
+
+    @Override
+    public CompletableFuture<lytblu7.autonexus.common.model.EconomyStats> getEconomyStats(UUID uuid, String field, long firstDay, long lastDay) {
+        if (redisManager == null) {
+            return CompletableFuture.completedFuture(new lytblu7.autonexus.common.model.EconomyStats(uuid, field, firstDay, lastDay, 0.0, 0.0));
+        }
+        return redisManager.getEconomyStats(uuid, field, firstDay, lastDay);
     }
 
     @Override
@@ -347,13 +682,18 @@ public class NexusServer extends JavaPlugin implements NexusAPI, INexusAPI {
     public CompletableFuture<Void> savePlayer(NexusPlayer player) {
         if (redisManager == null) return CompletableFuture.completedFuture(null);
         
-        String key = NexusKeyFactory.of(redisNamespace).player(player.getUuid());
-        String json = gson.toJson(player);
-        
-        return redisManager.set(key, json).thenRun(() -> {
-            // Notify network of update
-            // Payload format: UUID (simple invalidation/reload request)
-            NexusPacket packet = new NexusPacket("SYNC_PLAYER", player.getUuid().toString());
+        return redisManager.savePlayerVersioned(player).thenAccept(result -> {
+            long version = result != null ? Math.abs(result) : 0L;
+            if (result != null && result < 0) {
+                // Our copy was stale; leave its version alone so the broadcast below makes us refetch too
+                if (debugLogging) {
+                    getLogger().info("[DEBUG] Redis record of " + player.getUuid() + " was newer than the saved copy; kept the stored record.");
+                }
+            } else {
+                player.setVersion(version);
+            }
+            // Notify network of update: (uuid, version) only, receivers refetch if older
+            NexusPacket packet = new NexusPacket("SYNC_PLAYER", new lytblu7.autonexus.common.model.PlayerInvalidation(player.getUuid(), version).toJson());
             sendPacket("ALL", packet);
         });
     }
@@ -383,12 +723,8 @@ public class NexusServer extends JavaPlugin implements NexusAPI, INexusAPI {
         // Server-side implementation: Send update request to Proxy
         // We broadcast this so Proxy (and potentially other servers) can pick it up
         NexusPacket packet = new NexusPacket("METADATA_UPDATE", uuid.toString() + ":" + key + ":" + value);
-        // We target "proxy" specifically if we wanted, but since we use PubSub, 
-        // "ALL" or specific name works. Proxy usually listens to all or specific channel.
-        // But our protocol says Proxy listens to "autonexus:network" and might filter.
-        // For now, let's target "ALL" to be safe or "proxy" if we had a standard name.
-        // Let's use "ALL" as safe default for metadata updates.
-        sendPacket("ALL", packet);
+        // Only the proxy applies METADATA_UPDATE; it syncs the result to every server with METADATA_SYNC
+        sendPacket("PROXY", packet);
     }
 
     @Override
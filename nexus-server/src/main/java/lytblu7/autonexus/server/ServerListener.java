@@ -1,6 +1,7 @@
 package lytblu7.autonexus.server;
 
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
@@ -16,7 +17,8 @@ public class ServerListener implements Listener {
         this.plugin = plugin;
     }
 
-    @EventHandler
+    // LOWEST so the cache is warm before other plugins' join handlers call getPlayer
+    @EventHandler(priority = EventPriority.LOWEST)
     public void onPlayerJoin(PlayerJoinEvent event) {
         UUID uuid = event.getPlayer().getUniqueId();
         String playerName = event.getPlayer().getName();
@@ -26,7 +28,19 @@ public class ServerListener implements Listener {
             ((ServerRedisManager) plugin.getRedisManager()).saveNameMapping(playerName, uuid);
         }
         
-        // 2. Async load from Redis
+        // 2. Use the snapshot the proxy pushed at pre-connect, if it is still the latest version
+        lytblu7.autonexus.common.model.NexusPlayer snapshot = plugin.takeSnapshot(uuid);
+        if (snapshot != null) {
+            snapshot.setCurrentServer(plugin.getResolvedServerName());
+            snapshot.setLastSeenName(playerName);
+            plugin.cachePlayer(snapshot);
+            if (plugin.isDebug()) {
+                plugin.getLogger().info("[DEBUG] Join: using prefetched snapshot v" + snapshot.getVersion() + " for " + playerName);
+            }
+            return;
+        }
+
+        // 3. Fallback: async load from Redis
         // MANDATORY: Remove from local cache to force a fresh fetch from Redis!
         // This ensures we get the LATEST balance/metadata even if the player was previously cached.
         plugin.removeCachedPlayer(uuid);
@@ -89,16 +103,27 @@ public class ServerListener implements Listener {
         // Retrieve and remove from cache
         lytblu7.autonexus.common.model.NexusPlayer cached = plugin.removeCachedPlayer(uuid);
         
+        // Flush the buffered write-behind increments now rather than on the next timer (every player's, this one's
+        // among them) and only then save the record, so the save does not race the increments it does not include.
+        // The player is marked offline last, so the save cannot undo it.
+        java.util.concurrent.CompletableFuture<Void> saved = plugin.getMetadataManager().flushWriteBehind();
         if (cached != null) {
             plugin.getLogger().info("[AutoNexus] Saving data for " + event.getPlayer().getName() + " on Quit.");
-            plugin.savePlayer(cached);
+            saved = saved.thenCompose(v -> plugin.savePlayer(cached));
         }
         
-        if (plugin.isDebug() && plugin.getRedisManager() instanceof ServerRedisManager) {
-            plugin.getLogger().info("[DEBUG] Marking " + event.getPlayer().getName() + " as offline in Redis.");
-        }
         if (plugin.getRedisManager() instanceof ServerRedisManager) {
-            ((ServerRedisManager) plugin.getRedisManager()).setPlayerOffline(uuid);
+            ServerRedisManager redis = (ServerRedisManager) plugin.getRedisManager();
+            String name = event.getPlayer().getName();
+            saved.whenComplete((v, ex) -> {
+                if (ex != null) {
+                    plugin.getLogger().warning("[AutoNexus] Failed to save data for " + name + " on Quit: " + ex.getMessage());
+                }
+                if (plugin.isDebug()) {
+                    plugin.getLogger().info("[DEBUG] Marking " + name + " as offline in Redis.");
+                }
+                redis.setPlayerOffline(uuid);
+            });
         }
     }
 
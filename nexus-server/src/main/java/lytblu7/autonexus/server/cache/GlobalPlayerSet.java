@@ -0,0 +1,122 @@
+package lytblu7.autonexus.server.cache;
+
+import lytblu7.autonexus.common.api.NameCompletionService;
+import lytblu7.autonexus.common.cache.NamePrefixIndex;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Local replica of the network-wide online player set.
+ * The proxy publishes every change with a sequence number; deltas are applied in order and
+ * a missing sequence number marks the replica as out of sync until the next full snapshot.
+ * Readers always see a complete set: a resync swaps in only the differences.
+ */
+public class GlobalPlayerSet {
+    private final NamePrefixIndex names = new NamePrefixIndex();
+    // Deltas received while a snapshot is being loaded, keyed by sequence number
+    private final TreeMap<Long, Delta> buffered = new TreeMap<>();
+    private long seq = -1L;
+    private boolean synced = false;
+
+    /**
+     * @return false if the delta revealed a gap and a resync is needed
+     */
+    public synchronized boolean applyDelta(long deltaSeq, String op, String name) {
+        if (!synced) {
+            buffered.put(deltaSeq, new Delta(op, name));
+            return true;
+        }
+        if (deltaSeq <= seq) {
+            return true;
+        }
+        if (deltaSeq != seq + 1) {
+            synced = false;
+            buffered.clear();
+            buffered.put(deltaSeq, new Delta(op, name));
+            return false;
+        }
+        apply(op, name);
+        seq = deltaSeq;
+        return true;
+    }
+
+    /**
+     * Marks the replica as out of sync; deltas are buffered until {@link #completeResync} is called.
+     */
+    public synchronized void beginResync() {
+        if (synced) {
+            synced = false;
+            buffered.clear();
+        }
+    }
+
+    /**
+     * Replaces the content with a snapshot taken at {@code snapshotSeq} and replays buffered deltas after it.
+     * @return false if the buffered deltas are not contiguous and another resync is needed
+     */
+    public synchronized boolean completeResync(long snapshotSeq, Collection<String> members) {
+        names.replaceAll(members);
+        seq = snapshotSeq;
+        synced = true;
+        for (java.util.Map.Entry<Long, Delta> e : buffered.tailMap(snapshotSeq, false).entrySet()) {
+            if (e.getKey() != seq + 1) {
+                synced = false;
+                break;
+            }
+            apply(e.getValue().op, e.getValue().name);
+            seq = e.getKey();
+        }
+        if (synced) {
+            buffered.clear();
+        } else {
+            buffered.headMap(seq, true).clear();
+        }
+        return synced;
+    }
+
+    public synchronized long getSeq() {
+        return seq;
+    }
+
+    public synchronized boolean isSynced() {
+        return synced;
+    }
+
+    public boolean contains(String name) {
+        return name != null && names.contains(name);
+    }
+
+    public List<String> snapshot() {
+        return names.values();
+    }
+
+    public NameCompletionService completions() {
+        return names;
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    private void apply(String op, String name) {
+        if ("+".equals(op)) {
+            names.add(name);
+        } else if ("-".equals(op)) {
+            names.remove(name);
+        } else if ("0".equals(op)) {
+            names.clear();
+        }
+    }
+
+    private static final class Delta {
+        private final String op;
+        private final String name;
+
+        private Delta(String op, String name) {
+            this.op = op;
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package lytblu7.autonexus.server.cache;
+
+import lytblu7.autonexus.common.cache.ExpiringCache;
+import lytblu7.autonexus.common.model.NexusPlayer;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Near cache for API lookups of players that are not online on this server.
+ * Concurrent lookups of the same player share one Redis load, and an invalidation
+ * that races an in-flight load prevents the (possibly stale) result from being cached.
+ */
+public class OfflinePlayerCache {
+    private final ExpiringCache<UUID, NexusPlayer> cache;
+    private final Map<UUID, CompletableFuture<NexusPlayer>> inFlight = new ConcurrentHashMap<>();
+    private final Function<UUID, CompletableFuture<NexusPlayer>> loader;
+
+    public OfflinePlayerCache(Function<UUID, CompletableFuture<NexusPlayer>> loader, int ttlSeconds, int maxSize) {
+        this.loader = loader;
+        this.cache = new ExpiringCache<>(ttlSeconds, TimeUnit.SECONDS, maxSize);
+    }
+
+    public CompletableFuture<NexusPlayer> get(UUID uuid) {
+        NexusPlayer cached = cache.get(uuid);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<NexusPlayer> pending = inFlight.get(uuid);
+        if (pending != null) {
+            return pending;
+        }
+        CompletableFuture<NexusPlayer> created = new CompletableFuture<>();
+        pending = inFlight.putIfAbsent(uuid, created);
+        if (pending != null) {
+            return pending;
+        }
+        CompletableFuture<NexusPlayer> load;
+        try {
+            load = loader.apply(uuid);
+        } catch (Exception e) {
+            inFlight.remove(uuid, created);
+            created.completeExceptionally(e);
+            return created;
+        }
+        load.whenComplete((player, error) -> {
+            // If the entry was invalidated while loading, hand the result to the caller but do not keep it
+            if (inFlight.remove(uuid, created) && error == null && player != null) {
+                cache.put(uuid, player);
+            }
+            if (error != null) {
+                created.completeExceptionally(error);
+            } else {
+                created.complete(player);
+            }
+        });
+        return created;
+    }
+
+    public NexusPlayer peek(UUID uuid) {
+        return cache.get(uuid);
+    }
+
+    public void invalidate(UUID uuid) {
+        if (uuid == null) return;
+        inFlight.remove(uuid);
+        cache.invalidate(uuid);
+    }
+
+    public void invalidateAll() {
+        inFlight.clear();
+        cache.invalidateAll();
+    }
+
+    public void evictExpired() {
+        cache.evict();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+}
@@ -20,6 +20,8 @@ import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 public class NexusCommand implements CommandExecutor, TabCompleter {
+    private static final int MAX_NAME_SUGGESTIONS = 50;
+
     private final NexusServer plugin;
     private final INexusAPI api;
     private final java.util.Map<java.util.UUID, Long> joinCooldowns = new java.util.concurrent.ConcurrentHashMap<>();
@@ -85,6 +87,14 @@ public class NexusCommand implements CommandExecutor, TabCompleter {
             handleReload(sender);
             return true;
         }
+        if (sub.equals("economy")) {
+            handleEconomy(sender, args);
+            return true;
+        }
+        if (sub.equals("network")) {
+            handleNetwork(sender);
+            return true;
+        }
         if (sub.equals("help")) {
             sendHelp(sender);
             return true;
@@ -112,6 +122,8 @@ public class NexusCommand implements CommandExecutor, TabCompleter {
         }
         if (admin) {
             sender.sendMessage("§7/nexus reload");
+            sender.sendMessage("§7/nexus economy <migrate|compact>");
+            sender.sendMessage("§7/nexus network");
         }
         sender.sendMessage("§7/nexus help");
     }
@@ -185,7 +197,7 @@ public class NexusCommand implements CommandExecutor, TabCompleter {
         String senderId = plugin.getResolvedServerName();
         String safeMessage = message.replace("\"", "\\\"");
         String json = "{\"action\":\"BROADCAST\",\"message\":\"" + safeMessage + "\",\"senderId\":\"" + senderId + "\"}";
-        api.getRedisManager().publish("autonexus:network", json).thenRun(() ->
+        api.getRedisManager().publish(lytblu7.autonexus.common.redis.NexusKeyFactory.of(plugin.getRedisNamespace()).allChannel(), json).thenRun(() ->
                 Bukkit.getScheduler().runTask(plugin, () -> {
                     String prefix = plugin.getConfig().getString("messages.broadcast-prefix", "§8[§4ANNOUNCEMENT§8] §f");
                     Bukkit.getOnlinePlayers().forEach(p -> p.sendMessage(prefix + message));
@@ -262,13 +274,80 @@ public class NexusCommand implements CommandExecutor, TabCompleter {
     private void handleReload(CommandSender sender) {
         plugin.reloadSettings();
         String json = "{\"action\":\"RELOAD_NETWORK\"}";
-        api.getRedisManager().publish("autonexus:network", json).thenRun(() ->
+        api.getRedisManager().publish(lytblu7.autonexus.common.redis.NexusKeyFactory.of(plugin.getRedisNamespace()).allChannel(), json).thenRun(() ->
                 Bukkit.getScheduler().runTask(plugin, () ->
                         sender.sendMessage(prefix() + plugin.getConfig().getString("messages.reload-success", "§aNetwork configuration has been reloaded successfully."))
                 )
         );
     }
 
+    private void handleNetwork(CommandSender sender) {
+        if (!(plugin.getRedisManager() instanceof lytblu7.autonexus.server.storage.ServerRedisManager)) {
+            return;
+        }
+        lytblu7.autonexus.server.storage.ServerRedisManager redis = (lytblu7.autonexus.server.storage.ServerRedisManager) plugin.getRedisManager();
+        int protocol = redis.getWireProtocol();
+        sender.sendMessage(prefix() + "§7Packet protocol: §f" + (protocol > 0 ? "binary v" + protocol : "JSON"));
+        lytblu7.autonexus.common.PacketBatcher batcher = redis.getPacketBatcher();
+        if (batcher == null) {
+            sender.sendMessage("§7Batching: §fdisabled");
+        } else if (protocol < lytblu7.autonexus.common.PacketIO.BATCH_VERSION) {
+            sender.sendMessage("§7Batching: §fwaiting for every node to support it");
+        } else {
+            sender.sendMessage("§7Batch sizes: §f" + batcher.describeHistogram());
+        }
+    }
+
+    private void handleEconomy(CommandSender sender, String[] args) {
+        if (args.length < 2 || !(args[1].equalsIgnoreCase("migrate") || args[1].equalsIgnoreCase("compact"))) {
+            sender.sendMessage(prefix() + "§7Usage: /nexus economy <migrate|compact>");
+            return;
+        }
+        if (!(plugin.getRedisManager() instanceof lytblu7.autonexus.server.storage.ServerRedisManager)) {
+            return;
+        }
+        lytblu7.autonexus.server.storage.ServerRedisManager redis = (lytblu7.autonexus.server.storage.ServerRedisManager) plugin.getRedisManager();
+        if (args[1].equalsIgnoreCase("compact")) {
+            compactBaltops(sender, redis);
+            return;
+        }
+        if (!redis.getEconomySettings().isFixed()) {
+            sender.sendMessage(prefix() + "§cSet economy.mode to \"fixed\" before migrating balances.");
+            return;
+        }
+        sender.sendMessage(prefix() + "§7Migrating balances to fixed-point storage...");
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            String result;
+            try {
+                long moved = redis.migrateBalancesToFixed();
+                result = "§aMigrated " + moved + " balance fields.";
+                plugin.getLogger().info("[AutoNexus] Economy migration moved " + moved + " balance fields to fixed-point storage.");
+            } catch (Exception e) {
+                result = "§cMigration failed: " + e.getMessage();
+                plugin.getLogger().warning("[AutoNexus] Economy migration failed: " + e.getMessage());
+            }
+            String message = result;
+            Bukkit.getScheduler().runTask(plugin, () -> sender.sendMessage(prefix() + message));
+        });
+    }
+
+    private void compactBaltops(CommandSender sender, lytblu7.autonexus.server.storage.ServerRedisManager redis) {
+        sender.sendMessage(prefix() + "§7Rewriting leaderboard members as UUIDs...");
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            String result;
+            try {
+                long moved = redis.compactBaltops();
+                result = "§aRewrote " + moved + " leaderboard members.";
+                plugin.getLogger().info("[AutoNexus] Baltop compaction rewrote " + moved + " legacy members.");
+            } catch (Exception e) {
+                result = "§cCompaction failed: " + e.getMessage();
+                plugin.getLogger().warning("[AutoNexus] Baltop compaction failed: " + e.getMessage());
+            }
+            String message = result;
+            Bukkit.getScheduler().runTask(plugin, () -> sender.sendMessage(prefix() + message));
+        });
+    }
+
     @Override
     public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
         if (plugin.isDebug()) {
@@ -291,6 +370,8 @@ public class NexusCommand implements CommandExecutor, TabCompleter {
             }
             if (admin) {
                 base.add("reload");
+                base.add("economy");
+                base.add("network");
             }
             base.add("help");
             List<String> out = new ArrayList<>();
@@ -321,9 +402,7 @@ public class NexusCommand implements CommandExecutor, TabCompleter {
                 if (!hasAdmin(sender)) {
                     return Collections.emptyList();
                 }
-                List<String> names = plugin.getGlobalPlayersCacheSnapshot();
-                if (names == null) names = new ArrayList<>();
-                StringUtil.copyPartialMatches(token, names, suggestions);
+                suggestions = plugin.getNameCompletion().complete(token, MAX_NAME_SUGGESTIONS);
                 if (plugin.isDebug()) {
                     plugin.getLogger().info("[DEBUG] /nexus find tab suggestions: " + suggestions);
                 }
@@ -1,6 +1,12 @@
 package lytblu7.autonexus.server.meta;
 
+import lytblu7.autonexus.common.event.NexusEventBus;
+import lytblu7.autonexus.common.event.NexusMetadataUpdateEvent;
+import lytblu7.autonexus.common.meta.EconomySettings;
+import lytblu7.autonexus.common.meta.MetadataDelta;
 import lytblu7.autonexus.common.meta.MetadataManager;
+import lytblu7.autonexus.common.meta.ShardedCounter;
+import lytblu7.autonexus.common.model.NexusPlayer;
 import lytblu7.autonexus.server.storage.ServerRedisManager;
 
 import java.util.HashMap;
@@ -9,17 +15,25 @@ import java.util.UUID;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 public class ServerMetadataManager implements MetadataManager {
     private final ServerRedisManager redisManager;
     private final Supplier<String> groupSupplier;
+    private final NexusEventBus eventBus;
     private final Logger logger;
+    private final Map<String, ShardedCounter> counters = new java.util.concurrent.ConcurrentHashMap<>();
+    private volatile String counterNode = "";
+    private volatile int counterShards = 8;
+    private volatile WriteBehindAccumulator writeBehind;
+    private volatile Function<UUID, NexusPlayer> localPlayers = uuid -> null;
 
-    public ServerMetadataManager(ServerRedisManager redisManager, Supplier<String> groupSupplier, Logger logger) {
+    public ServerMetadataManager(ServerRedisManager redisManager, Supplier<String> groupSupplier, NexusEventBus eventBus, Logger logger) {
         this.redisManager = redisManager;
         this.groupSupplier = groupSupplier;
+        this.eventBus = eventBus;
         this.logger = logger;
     }
 
@@ -78,8 +92,33 @@ public class ServerMetadataManager implements MetadataManager {
     
     @Override
     public CompletableFuture<Double> modifyMetadata(UUID player, String key, double delta, String group, String reason) {
+        WriteBehindAccumulator accumulator = writeBehind;
+        if (accumulator != null && accumulator.isEnabled(key)) {
+            String resolvedGroup = resolveGroup(group);
+            if (delta < 0) {
+                // A debit must see every credit accepted before it
+                return accumulator.flush().thenCompose(v -> accumulator.flush())
+                        .thenCompose(v -> modifyMetadataDirect(player, key, delta, group, reason));
+            }
+            NexusPlayer local = localPlayers.apply(player);
+            if (local != null) {
+                double pendingSum = accumulator.add(player, key, resolvedGroup, delta, reason);
+                if (!Double.isNaN(pendingSum)) {
+                    return CompletableFuture.completedFuture(parseOrZero(local.getMetadata(resolveKey(key, resolvedGroup))) + pendingSum);
+                }
+            }
+        }
+        return modifyMetadataDirect(player, key, delta, group, reason);
+    }
+
+    private CompletableFuture<Double> modifyMetadataDirect(UUID player, String key, double delta, String group, String reason) {
         String resolvedGroup = resolveGroup(group);
         String resolvedKey = resolveKey(key, resolvedGroup);
+        EconomySettings economy = redisManager.getEconomySettings();
+        if (economy.isFixed() && economy.isBalanceField(resolvedKey)) {
+            return modifyBalance(player, key, economy.toMinor(delta), group, reason)
+                    .thenApply(minor -> minor == INSUFFICIENT_FUNDS ? Double.NaN : economy.fromMinor(minor));
+        }
         String txType;
         if (delta > 0) {
             txType = "CREDIT";
@@ -91,6 +130,7 @@ public class ServerMetadataManager implements MetadataManager {
         String serverSource = resolvedGroup;
         String otherPlayer = "";
         String resolvedReason = (reason != null && !reason.isEmpty()) ? reason : txType;
+        String txId = UUID.randomUUID().toString();
         return withRetry(
                 () -> redisManager.incrementMetadataAtomic(
                         player,
@@ -100,7 +140,8 @@ public class ServerMetadataManager implements MetadataManager {
                         serverSource,
                         txType,
                         otherPlayer,
-                        resolvedReason
+                        resolvedReason,
+                        txId
                 ),
                 3
         ).thenApply(result -> {
@@ -115,6 +156,9 @@ public class ServerMetadataManager implements MetadataManager {
                 logger.warning("[AutoNexus] Failed to parse server metadata value for " + resolvedKey + ": " + result);
                 return Double.NaN;
             }
+            double oldValue = newValue - delta;
+            NexusMetadataUpdateEvent event = new NexusMetadataUpdateEvent(player, key, resolvedKey, resolvedGroup, String.valueOf(oldValue), String.valueOf(newValue));
+            eventBus.postMetadataUpdate(event);
             return newValue;
         });
     }
@@ -129,9 +173,187 @@ public class ServerMetadataManager implements MetadataManager {
     public CompletableFuture<Void> setMetadata(UUID player, String key, Object value, String group) {
         String resolvedGroup = resolveGroup(group);
         String resolvedKey = resolveKey(key, resolvedGroup);
+        EconomySettings economy = redisManager.getEconomySettings();
+        if (economy.isFixed() && economy.isBalanceField(resolvedKey) && value != null) {
+            long minor = economy.parseMinor(String.valueOf(value), false);
+            return withRetry(() -> redisManager.setBalance(player, resolvedKey, minor), 3).thenApply(v -> {
+                NexusMetadataUpdateEvent event = new NexusMetadataUpdateEvent(player, key, resolvedKey, resolvedGroup, null, economy.format(minor));
+                eventBus.postMetadataUpdate(event);
+                return null;
+            });
+        }
         Map<String, String> updates = new HashMap<>();
         updates.put(resolvedKey, value != null ? String.valueOf(value) : null);
-        return withRetry(() -> redisManager.updatePlayerMetadata(player, updates), 3).thenApply(v -> null);
+        return withRetry(() -> redisManager.updatePlayerMetadata(player, updates), 3).thenApply(v -> {
+            NexusMetadataUpdateEvent event = new NexusMetadataUpdateEvent(player, key, resolvedKey, resolvedGroup, null, updates.get(resolvedKey));
+            eventBus.postMetadataUpdate(event);
+            return null;
+        });
+    }
+
+    /**
+     * Enables write-behind for the keys configured with {@link #setWriteBehind(String, boolean)}.
+     * @param localPlayers Lookup of players cached on this server; only their increments are accumulated
+     */
+    public void enableWriteBehind(WriteBehindAccumulator accumulator, Function<UUID, NexusPlayer> localPlayers) {
+        this.localPlayers = localPlayers;
+        this.writeBehind = accumulator;
+    }
+
+    /**
+     * Writes a flushed batch and copies the written values into the local player copies.
+     */
+    public CompletableFuture<List<Double>> writeBatch(List<MetadataDelta> deltas, String txId) {
+        return applyBatch(deltas, txId).thenApply(results -> {
+            for (int i = 0; i < deltas.size() && i < results.size(); i++) {
+                MetadataDelta d = deltas.get(i);
+                double value = results.get(i);
+                NexusPlayer local = localPlayers.apply(d.getPlayer());
+                if (local != null && !Double.isNaN(value)) {
+                    local.setMetadata(resolveKey(d.getKey(), resolveGroup(d.getGroup())), String.valueOf(value));
+                }
+            }
+            return results;
+        });
+    }
+
+    @Override
+    public void setWriteBehind(String key, boolean enabled) {
+        WriteBehindAccumulator accumulator = writeBehind;
+        if (accumulator == null) {
+            throw new IllegalStateException("Write-behind is not available on this server");
+        }
+        accumulator.setEnabled(key, enabled);
+    }
+
+    @Override
+    public CompletableFuture<Void> flushWriteBehind() {
+        WriteBehindAccumulator accumulator = writeBehind;
+        return accumulator != null ? accumulator.flushAll() : CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public double peekMetadata(UUID player, String key, String group) {
+        NexusPlayer local = localPlayers.apply(player);
+        if (local == null) {
+            return Double.NaN;
+        }
+        String resolvedGroup = resolveGroup(group);
+        double value = parseOrZero(local.getMetadata(resolveKey(key, resolvedGroup)));
+        WriteBehindAccumulator accumulator = writeBehind;
+        return accumulator != null ? value + accumulator.pending(player, key, resolvedGroup) : value;
+    }
+
+    private static double parseOrZero(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0.0;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+    }
+
+    @Override
+    public EconomySettings getEconomySettings() {
+        return redisManager.getEconomySettings();
+    }
+
+    @Override
+    public CompletableFuture<Long> modifyBalance(UUID player, String key, long deltaMinor, String group, String reason) {
+        EconomySettings economy = redisManager.getEconomySettings();
+        String resolvedGroup = resolveGroup(group);
+        String resolvedKey = resolveKey(key, resolvedGroup);
+        if (!economy.isFixed() || !economy.isBalanceField(resolvedKey)) {
+            return MetadataManager.super.modifyBalance(player, key, deltaMinor, group, reason);
+        }
+        String txType;
+        if (deltaMinor > 0) {
+            txType = "CREDIT";
+        } else if (deltaMinor < 0) {
+            txType = "DEBIT";
+        } else {
+            txType = "ADJUST";
+        }
+        String resolvedReason = (reason != null && !reason.isEmpty()) ? reason : txType;
+        String txId = UUID.randomUUID().toString();
+        return withRetry(() -> redisManager.incrementBalance(player, resolvedKey, deltaMinor, resolvedGroup, resolvedGroup, txType, "", resolvedReason, txId), 3).thenApply(result -> {
+            if ("INSUFFICIENT_FUNDS".equalsIgnoreCase(result)) {
+                return INSUFFICIENT_FUNDS;
+            }
+            long newValue;
+            try {
+                newValue = Long.parseLong(result);
+            } catch (NumberFormatException e) {
+                logger.warning("[AutoNexus] Failed to parse balance for " + resolvedKey + ": " + result);
+                return INSUFFICIENT_FUNDS;
+            }
+            NexusMetadataUpdateEvent event = new NexusMetadataUpdateEvent(player, key, resolvedKey, resolvedGroup, economy.format(newValue - deltaMinor), economy.format(newValue));
+            eventBus.postMetadataUpdate(event);
+            return newValue;
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<Double>> applyBatch(List<MetadataDelta> deltas) {
+        return applyBatch(deltas, UUID.randomUUID().toString());
+    }
+
+    @Override
+    public CompletableFuture<List<Double>> applyBatch(List<MetadataDelta> deltas, String txId) {
+        if (deltas == null || deltas.isEmpty()) {
+            return CompletableFuture.completedFuture(java.util.Collections.emptyList());
+        }
+        List<MetadataDelta> resolved = new java.util.ArrayList<>(deltas.size());
+        for (MetadataDelta d : deltas) {
+            String resolvedGroup = resolveGroup(d.getGroup());
+            resolved.add(new MetadataDelta(d.getPlayer(), resolveKey(d.getKey(), resolvedGroup), d.getDelta(), resolvedGroup, d.getReason()));
+        }
+        String serverSource = resolveGroup(null);
+        return withRetry(() -> redisManager.incrementMetadataBatch(resolved, serverSource, txId), 3).thenApply(results -> {
+            List<Double> out = new java.util.ArrayList<>(results.size());
+            for (int i = 0; i < resolved.size(); i++) {
+                String result = i < results.size() ? results.get(i) : null;
+                double newValue;
+                try {
+                    newValue = result == null || "INSUFFICIENT_FUNDS".equalsIgnoreCase(result) ? Double.NaN : Double.parseDouble(result);
+                } catch (NumberFormatException e) {
+                    newValue = Double.NaN;
+                }
+                out.add(newValue);
+                if (!Double.isNaN(newValue)) {
+                    MetadataDelta d = resolved.get(i);
+                    NexusMetadataUpdateEvent event = new NexusMetadataUpdateEvent(d.getPlayer(), deltas.get(i).getKey(), d.getKey(), d.getGroup(), String.valueOf(newValue - d.getDelta()), String.valueOf(newValue));
+                    eventBus.postMetadataUpdate(event);
+                }
+            }
+            return out;
+        });
+    }
+
+    /**
+     * @param nodeId Identifies this node; picks the shard its counter writes go to
+     */
+    public void configureCounters(String nodeId, int shards) {
+        this.counterNode = nodeId != null ? nodeId : "";
+        this.counterShards = shards;
+    }
+
+    @Override
+    public ShardedCounter getCounter(String name) {
+        return getCounter(name, counterShards);
+    }
+
+    @Override
+    public ShardedCounter getCounter(String name, int shards) {
+        return counters.computeIfAbsent(name + "#" + shards,
+                k -> new ShardedCounter(name, shards, counterNode, redisManager.getEconomySettings(), redisManager));
+    }
+
+    @Override
+    public CompletableFuture<Long> getBalance(UUID player, String key, String group) {
+        return redisManager.getBalance(player, resolveKey(key, resolveGroup(group)));
     }
 
     @Override
@@ -0,0 +1,355 @@
+package lytblu7.autonexus.server.meta;
+
+import lytblu7.autonexus.common.meta.MetadataDelta;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.logging.Logger;
+
+/**
+ * Sums increments of selected metadata keys locally and writes them to Redis as one batch per flush.
+ * Every accepted increment is appended to a write-ahead log before it is acknowledged, so pending
+ * increments survive a crash of the server process and are recovered on the next start.
+ * The log is handed to the OS on every write and forced to disk on every flush, including flushes that only
+ * wait for or resend an earlier batch. A crash of the process loses nothing; an OS crash or power loss loses at
+ * most the increments accepted since the last flush interval.
+ * <p>
+ * Each flushed batch carries a transaction ID, written as the last line of the rotated log before the
+ * batch is sent. A batch that failed, or was in flight when the process died, is resent with the same ID,
+ * so Redis applies it at most once as long as the retry lands within {@code RedisScripts.TX_DEDUPE_TTL_SECONDS}.
+ */
+public class WriteBehindAccumulator {
+    private static final String ACTIVE = "write-behind.wal";
+    private static final String FLUSHING = "write-behind.flushing.wal";
+    private static final String TX_MARKER = "#tx";
+
+    private final Path directory;
+    private final BiFunction<List<MetadataDelta>, String, CompletableFuture<List<Double>>> writer;
+    private final Logger logger;
+    private final Set<String> keys = ConcurrentHashMap.newKeySet();
+    private final Object lock = new Object();
+    private Map<PendingKey, Pending> pending = new LinkedHashMap<>(); // guarded by lock
+    // Batch rotated into the flushing log but not confirmed written, with its transaction ID
+    private Map<PendingKey, Pending> retry; // guarded by lock
+    private String retryTxId; // guarded by lock
+    private BufferedWriter wal; // guarded by lock
+    private java.nio.channels.FileChannel walChannel; // guarded by lock; closed with wal
+    private CompletableFuture<Void> inFlight; // guarded by lock
+
+    public WriteBehindAccumulator(Path directory, BiFunction<List<MetadataDelta>, String, CompletableFuture<List<Double>>> writer, Logger logger) {
+        this.directory = directory;
+        this.writer = writer;
+        this.logger = logger;
+    }
+
+    public void setEnabled(String key, boolean enabled) {
+        if (key == null) return;
+        if (enabled) {
+            keys.add(key);
+        } else {
+            keys.remove(key);
+        }
+    }
+
+    public boolean isEnabled(String key) {
+        return key != null && keys.contains(key);
+    }
+
+    /**
+     * Loads increments left in the log by a previous run and opens a fresh log containing them.
+     * A batch that was already handed to Redis is kept apart and resent with its original transaction ID.
+     */
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        synchronized (lock) {
+            Map<PendingKey, Pending> flushing = new LinkedHashMap<>();
+            String txId = readLog(directory.resolve(FLUSHING), flushing);
+            if (txId != null) {
+                retry = flushing;
+                retryTxId = txId;
+            } else {
+                pending = flushing;
+            }
+            readLog(directory.resolve(ACTIVE), pending);
+            Path tmp = directory.resolve(ACTIVE + ".tmp");
+            try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                for (Map.Entry<PendingKey, Pending> e : pending.entrySet()) {
+                    writeLine(out, e.getKey(), e.getValue().sum, e.getValue().reason);
+                }
+            }
+            Files.move(tmp, directory.resolve(ACTIVE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (retry == null) {
+                Files.deleteIfExists(directory.resolve(FLUSHING));
+            }
+            wal = openLog();
+            int recovered = pending.size() + (retry != null ? retry.size() : 0);
+            if (recovered > 0) {
+                logger.info("[AutoNexus] Recovered " + recovered + " pending write-behind increments.");
+            }
+        }
+    }
+
+    /**
+     * Records an increment.
+     * @return The total not yet written for this player and key, including this increment, or NaN if it was not accepted
+     */
+    public double add(UUID player, String key, String group, double delta, String reason) {
+        PendingKey pk = new PendingKey(player, key, group);
+        synchronized (lock) {
+            if (wal == null) {
+                return Double.NaN;
+            }
+            try {
+                writeLine(wal, pk, delta, reason);
+                wal.flush();
+            } catch (IOException e) {
+                logger.warning("[AutoNexus] Write-behind log write failed, writing directly: " + e.getMessage());
+                return Double.NaN;
+            }
+            Pending p = pending.computeIfAbsent(pk, k -> new Pending());
+            p.sum += delta;
+            p.reason = reason;
+            return unwritten(pk);
+        }
+    }
+
+    /**
+     * @return The total not yet written for this player and key
+     */
+    public double pending(UUID player, String key, String group) {
+        synchronized (lock) {
+            return unwritten(new PendingKey(player, key, group));
+        }
+    }
+
+    /**
+     * Writes all pending increments as one batch. Never completes exceptionally; on failure the
+     * batch is kept and resent with the same transaction ID by the next flush.
+     * While a failed batch is outstanding, a flush resends only that batch.
+     */
+    public CompletableFuture<Void> flush() {
+        Map<PendingKey, Pending> snapshot;
+        String txId;
+        CompletableFuture<Void> done;
+        synchronized (lock) {
+            syncLog();
+            if (inFlight != null) {
+                return inFlight;
+            }
+            if (retry != null) {
+                snapshot = retry;
+                txId = retryTxId;
+            } else {
+                if (pending.isEmpty() || wal == null) {
+                    return CompletableFuture.completedFuture(null);
+                }
+                txId = UUID.randomUUID().toString();
+                try {
+                    // Seal the log with the batch's transaction ID, then rotate it so increments
+                    // arriving during the write land in a new file
+                    wal.write(TX_MARKER + "\t" + txId + "\n");
+                    wal.close();
+                    Files.move(directory.resolve(ACTIVE), directory.resolve(FLUSHING), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    forceToDisk(directory.resolve(FLUSHING));
+                    wal = openLog();
+                } catch (IOException e) {
+                    logger.warning("[AutoNexus] Write-behind log rotation failed: " + e.getMessage());
+                    try {
+                        wal = openLog();
+                    } catch (IOException reopen) {
+                        wal = null;
+                    }
+                    return CompletableFuture.completedFuture(null);
+                }
+                snapshot = pending;
+                pending = new LinkedHashMap<>();
+                retry = snapshot;
+                retryTxId = txId;
+            }
+            done = new CompletableFuture<>();
+            inFlight = done;
+        }
+
+        List<MetadataDelta> batch = new ArrayList<>(snapshot.size());
+        for (Map.Entry<PendingKey, Pending> e : snapshot.entrySet()) {
+            PendingKey k = e.getKey();
+            batch.add(new MetadataDelta(k.player, k.key, e.getValue().sum, k.group, e.getValue().reason));
+        }
+        CompletableFuture<List<Double>> write;
+        try {
+            write = writer.apply(batch, txId);
+        } catch (Exception e) {
+            write = CompletableFuture.failedFuture(e);
+        }
+        write.whenComplete((results, error) -> {
+            synchronized (lock) {
+                if (error != null) {
+                    logger.warning("[AutoNexus] Write-behind flush of " + batch.size() + " entries failed, will retry: " + error.getMessage());
+                } else {
+                    retry = null;
+                    retryTxId = null;
+                    try {
+                        Files.deleteIfExists(directory.resolve(FLUSHING));
+                    } catch (IOException e) {
+                        logger.warning("[AutoNexus] Could not delete flushed write-behind log: " + e.getMessage());
+                    }
+                }
+                inFlight = null;
+            }
+            done.complete(null);
+        });
+        return done;
+    }
+
+    /**
+     * Like {@link #flush()}, but also writes the increments accepted while an earlier batch was in flight or
+     * waiting to be resent: the first flush may only finish that batch.
+     */
+    public CompletableFuture<Void> flushAll() {
+        return flush().thenCompose(v -> flush());
+    }
+
+    /**
+     * Flushes and waits up to the given time, then closes the log. Used on shutdown.
+     */
+    public void close(long timeout, TimeUnit unit) {
+        try {
+            flushAll().get(timeout, unit);
+        } catch (Exception e) {
+            logger.warning("[AutoNexus] Write-behind flush on shutdown did not finish; pending increments stay in the log.");
+        }
+        synchronized (lock) {
+            if (wal != null) {
+                try {
+                    wal.close();
+                } catch (IOException ignored) {
+                }
+                wal = null;
+            }
+        }
+    }
+
+    // Caller holds lock
+    private double unwritten(PendingKey pk) {
+        Pending p = pending.get(pk);
+        Pending r = retry != null ? retry.get(pk) : null;
+        return (p != null ? p.sum : 0.0) + (r != null ? r.sum : 0.0);
+    }
+
+    private BufferedWriter openLog() throws IOException {
+        walChannel = java.nio.channels.FileChannel.open(directory.resolve(ACTIVE), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return new BufferedWriter(java.nio.channels.Channels.newWriter(walChannel, StandardCharsets.UTF_8));
+    }
+
+    // Caller holds lock
+    private void syncLog() {
+        if (wal == null) {
+            return;
+        }
+        try {
+            wal.flush();
+            walChannel.force(false);
+        } catch (IOException e) {
+            logger.warning("[AutoNexus] Write-behind log sync failed: " + e.getMessage());
+        }
+    }
+
+    private void forceToDisk(Path file) throws IOException {
+        try (java.nio.channels.FileChannel ch = java.nio.channels.FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.force(true);
+        }
+    }
+
+    /**
+     * Adds the entries of a log to {@code into}.
+     * @return The transaction ID the log was sealed with, or null if it was never handed to Redis
+     */
+    private String readLog(Path file, Map<PendingKey, Pending> into) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        String txId = null;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String[] parts = line.split("\t", -1);
+            if (parts.length == 2 && TX_MARKER.equals(parts[0]) && !parts[1].isEmpty()) {
+                txId = parts[1];
+                continue;
+            }
+            if (parts.length < 5) {
+                continue; // Torn last line
+            }
+            try {
+                PendingKey pk = new PendingKey(UUID.fromString(parts[0]), parts[1], parts[2]);
+                Pending p = into.computeIfAbsent(pk, k -> new Pending());
+                p.sum += Double.parseDouble(parts[3]);
+                p.reason = parts[4].isEmpty() ? null : parts[4];
+            } catch (IllegalArgumentException e) {
+                logger.warning("[AutoNexus] Skipping malformed write-behind log line: " + line);
+            }
+        }
+        return txId;
+    }
+
+    private static void writeLine(BufferedWriter out, PendingKey k, double delta, String reason) throws IOException {
+        out.write(k.player.toString());
+        out.write('\t');
+        out.write(clean(k.key));
+        out.write('\t');
+        out.write(clean(k.group));
+        out.write('\t');
+        out.write(Double.toString(delta));
+        out.write('\t');
+        out.write(clean(reason));
+        out.write('\n');
+    }
+
+    private static String clean(String s) {
+        return s == null ? "" : s.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private static final class PendingKey {
+        private final UUID player;
+        private final String key;
+        private final String group;
+
+        private PendingKey(UUID player, String key, String group) {
+            this.player = player;
+            this.key = key;
+            this.group = group;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PendingKey)) return false;
+            PendingKey other = (PendingKey) o;
+            return player.equals(other.player) && Objects.equals(key, other.key) && Objects.equals(group, other.group);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(player, key, group);
+        }
+    }
+
+    private static final class Pending {
+        private double sum;
+        private String reason;
+    }
+}
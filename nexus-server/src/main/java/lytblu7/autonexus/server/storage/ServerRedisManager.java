@@ -7,11 +7,14 @@ import io.lettuce.core.pubsub.RedisPubSubAdapter;
 import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
 import lytblu7.autonexus.common.NexusPacket;
 import lytblu7.autonexus.common.api.NexusMessageListener;
+import lytblu7.autonexus.common.meta.EconomySettings;
 import org.bukkit.Bukkit;
 import lytblu7.autonexus.server.NexusServer;
 import lytblu7.autonexus.common.redis.NexusKeyFactory;
 import lytblu7.autonexus.common.model.ServerInfo;
 import lytblu7.autonexus.common.model.NexusProfile;
+import lytblu7.autonexus.common.model.NexusPlayer;
+import lytblu7.autonexus.common.model.PlayerInvalidation;
 import lytblu7.autonexus.common.redis.RedisScripts;
 
 import java.util.Collections;
@@ -20,10 +23,20 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Logger;
 
-public class ServerRedisManager implements lytblu7.autonexus.common.INexusRedis {
+public class ServerRedisManager implements lytblu7.autonexus.common.INexusRedis, lytblu7.autonexus.common.meta.ShardedCounter.Store, lytblu7.autonexus.common.leaderboard.LeaderboardService.Store, lytblu7.autonexus.common.cache.PlayerNameResolver.Store {
     private RedisClient client;
-    private StatefulRedisPubSubConnection<String, String> pubSubConnection;
+    // Pub/Sub carries both JSON envelopes and binary packet frames, so message values are raw bytes
+    private StatefulRedisPubSubConnection<String, byte[]> pubSubConnection;
     private io.lettuce.core.api.StatefulRedisConnection<String, String> commandConnection;
+    private io.lettuce.core.api.StatefulRedisConnection<String, byte[]> binaryConnection;
+    private static final io.lettuce.core.codec.RedisCodec<String, byte[]> PACKET_CODEC =
+            io.lettuce.core.codec.RedisCodec.of(io.lettuce.core.codec.StringCodec.UTF8, io.lettuce.core.codec.ByteArrayCodec.INSTANCE);
+    private volatile boolean binaryPackets = true;
+    // Negotiated packet frame version, 0 while some node only reads JSON
+    private volatile int wireProtocol;
+    // Null while batching is disabled
+    private volatile lytblu7.autonexus.common.PacketBatcher batcher;
+    private String batchSettings = "";
     private final NexusServer plugin;
     private final Logger logger;
     private final String serverName;
@@ -31,7 +44,28 @@ public class ServerRedisManager implements lytblu7.autonexus.common.INexusRedis
     private final String namespace;
     private final Gson gson = new Gson();
     private final NexusKeyFactory keys;
+    // Pub/Sub channels this server listens on
+    private final java.util.Set<String> channels = ConcurrentHashMap.newKeySet();
+    private volatile EconomySettings economy = EconomySettings.LEGACY;
+    private volatile lytblu7.autonexus.common.meta.RankedKeys rankedKeys = lytblu7.autonexus.common.meta.RankedKeys.NONE;
+    // "maxEntries:maxAgeMillis" passed to every script that writes history; 0 disables a limit
+    private volatile String historyRetention = "1000:0";
+    // While a proxy archives history, scripts must not trim entries the archiver has not drained yet
+    private volatile boolean historyArchived;
+    // Stream entries a single history page may scan while skipping filtered types
+    private static final int HISTORY_SCAN_BUDGET = 2000;
+    // How long a failed economy update stays pending before it is reclaimed and retried, and how often it is tried
+    private static final long STREAM_RETRY_IDLE_MILLIS = 30_000L;
+    private static final int STREAM_MAX_ATTEMPTS = 5;
+    // Entries per batch script call; keeps a single EVAL from blocking Redis for long
+    private static final int BATCH_CHUNK = 250;
+    // How long the union of a weekly or monthly window's day buckets is reused before it is rebuilt
+    private static final long WINDOW_CACHE_MILLIS = 30_000L;
     private final ConcurrentHashMap<String, List<NexusMessageListener>> messageListeners = new ConcurrentHashMap<>();
+    private volatile io.lettuce.core.api.StatefulRedisConnection<String, String> streamConnection;
+    private volatile boolean streamRunning;
+    private final lytblu7.autonexus.common.cache.PlayerNameResolver names =
+            new lytblu7.autonexus.common.cache.PlayerNameResolver(this, 10, java.util.concurrent.TimeUnit.MINUTES, 50_000);
 
     @Override
     public java.util.concurrent.CompletableFuture<String> get(String key) {
@@ -55,6 +89,45 @@ public class ServerRedisManager implements lytblu7.autonexus.common.INexusRedis
         this.keys = NexusKeyFactory.of(this.namespace);
     }
 
+    public void setEconomySettings(EconomySettings economy) {
+        this.economy = economy != null ? economy : EconomySettings.LEGACY;
+    }
+
+    public EconomySettings getEconomySettings() {
+        return economy;
+    }
+
+    public void setHistoryRetention(int maxEntries, long maxAgeMillis) {
+        this.historyRetention = Math.max(0, maxEntries) + ":" + Math.max(0L, maxAgeMillis);
+    }
+
+    // Retention argument of the history writing scripts
+    private String historyRetention() {
+        return historyArchived ? "0:0" : historyRetention;
+    }
+
+    public lytblu7.autonexus.common.meta.RankedKeys getRankedKeys() {
+        return rankedKeys;
+    }
+
+    /**
+     * Re-reads the ranked metadata keys published by the proxy.
+     */
+    public java.util.concurrent.CompletableFuture<Void> loadRankedKeys() {
+        if (commandConnection == null) {
+            return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        return commandConnection.async().smembers(keys.rankedKeys()).toCompletableFuture()
+                .thenAccept(members -> rankedKeys = new lytblu7.autonexus.common.meta.RankedKeys(members));
+    }
+
+    /**
+     * Ranked metadata keys get a stream update on every write; balances already have their own.
+     */
+    private boolean isRankedField(String field) {
+        return !economy.isBalanceField(field) && rankedKeys.isRankedField(field);
+    }
+
     public void connect(String uri) {
         try {
             client = RedisClient.create(uri);
@@ -62,25 +135,149 @@ public class ServerRedisManager implements lytblu7.autonexus.common.INexusRedis
             
             // Command Connection
             commandConnection = client.connect();
+            binaryConnection = client.connect(PACKET_CODEC);
             
             // PubSub Connection
-            pubSubConnection = client.connectPubSub();
-            pubSubConnection.addListener(new RedisPubSubAdapter<String, String>() {
+            pubSubConnection = client.connectPubSub(PACKET_CODEC);
+            pubSubConnection.addListener(new RedisPubSubAdapter<String, byte[]>() {
                 @Override
-                public void message(String channel, String message) {
-                    if (!channel.equals("autonexus:network")) return;
-                    processMessage(message);
+                public void message(String channel, byte[] message) {
+                    if (!channels.contains(channel)) return;
+                    processFrame(message);
                 }
             });
-            pubSubConnection.async().subscribe("autonexus:network");
-            logger.info("[AutoNexus] Redis Pub/Sub connected! Listening on 'autonexus:network' (namespace=" + namespace + ")");
+            // Only this server's own, group and network-wide channels; packets for other servers never arrive here
+            channels.add(keys.nodeChannel(serverName));
+            channels.add(keys.groupChannel(serverGroup));
+            channels.add(keys.allChannel());
+            channels.add(NexusKeyFactory.LEGACY_NETWORK_CHANNEL);
+            pubSubConnection.async().subscribe(channels.toArray(new String[0]));
+            logger.info("[AutoNexus] Redis Pub/Sub connected! Listening on " + channels + " (namespace=" + namespace + ")");
         } catch (Exception e) {
             logger.severe("[AutoNexus] Redis Pub/Sub failed: " + e.getMessage());
         }
     }
     
+    /**
+     * Delivers every economy update to {@code handler} on a background thread, through a consumer group
+     * owned by this node. The group remembers the last delivered entry, so updates written while this
+     * node was disconnected are delivered once it reconnects. Entries are acknowledged after the handler ran.
+     */
+    public void consumeEconomyStream(String consumerGroup, java.util.function.Consumer<String> handler) {
+        if (client == null || streamRunning) {
+            return;
+        }
+        streamConnection = client.connect();
+        streamRunning = true;
+        Thread thread = new Thread(() -> runEconomyStream(consumerGroup, handler), "AutoNexus-EconomyStream");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void runEconomyStream(String group, java.util.function.Consumer<String> handler) {
+        String stream = keys.economyStream();
+        io.lettuce.core.Consumer<String> consumer = io.lettuce.core.Consumer.from(group, group);
+        boolean groupReady = false;
+        // Entries delivered before a disconnect but never acknowledged are read first (from "0"), then new ones
+        boolean drainPending = true;
+        String pendingCursor = "0";
+        // Failed deliveries per entry; entries stay pending until they succeed or run out of attempts
+        java.util.Map<String, Integer> failures = new java.util.HashMap<>();
+        long nextReclaim = System.currentTimeMillis() + STREAM_RETRY_IDLE_MILLIS;
+        while (streamRunning) {
+            try {
+                io.lettuce.core.api.sync.RedisCommands<String, String> sync = streamConnection.sync();
+                if (!groupReady) {
+                    try {
+                        sync.xgroupCreate(io.lettuce.core.XReadArgs.StreamOffset.from(stream, "$"), group, io.lettuce.core.XGroupCreateArgs.Builder.mkstream());
+                    } catch (Exception e) {
+                        if (e.getMessage() == null || !e.getMessage().contains("BUSYGROUP")) {
+                            throw e;
+                        }
+                    }
+                    groupReady = true;
+                }
+                if (System.currentTimeMillis() >= nextReclaim) {
+                    // Retry entries whose handler failed once they have been pending for a while
+                    io.lettuce.core.models.stream.ClaimedMessages<String, String> claimed = sync.xautoclaim(stream,
+                            io.lettuce.core.XAutoClaimArgs.Builder.<String>xautoclaim(consumer, java.time.Duration.ofMillis(STREAM_RETRY_IDLE_MILLIS), "0-0").count(100));
+                    if (claimed != null) {
+                        for (io.lettuce.core.StreamMessage<String, String> message : claimed.getMessages()) {
+                            deliverEconomyUpdate(sync, stream, group, message, handler, failures);
+                        }
+                    }
+                    nextReclaim = System.currentTimeMillis() + STREAM_RETRY_IDLE_MILLIS;
+                }
+                io.lettuce.core.XReadArgs.StreamOffset<String> offset = drainPending
+                        ? io.lettuce.core.XReadArgs.StreamOffset.from(stream, pendingCursor)
+                        : io.lettuce.core.XReadArgs.StreamOffset.lastConsumed(stream);
+                List<io.lettuce.core.StreamMessage<String, String>> messages =
+                        sync.xreadgroup(consumer, io.lettuce.core.XReadArgs.Builder.block(2000).count(100), streamOffsets(offset));
+                if (messages == null || messages.isEmpty()) {
+                    drainPending = false;
+                    continue;
+                }
+                for (io.lettuce.core.StreamMessage<String, String> message : messages) {
+                    deliverEconomyUpdate(sync, stream, group, message, handler, failures);
+                }
+                if (drainPending) {
+                    // Move past what was just read, so entries that failed again are left to the reclaim above
+                    pendingCursor = messages.get(messages.size() - 1).getId();
+                }
+            } catch (Exception e) {
+                if (!streamRunning) {
+                    break;
+                }
+                logger.warning("[AutoNexus] Economy stream read failed, retrying: " + e.getMessage());
+                groupReady = false;
+                drainPending = true;
+                pendingCursor = "0";
+                try {
+                    Thread.sleep(1000L);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the handler on one entry and acknowledges it if it succeeded. A failed entry stays pending and is
+     * reclaimed later; after {@link #STREAM_MAX_ATTEMPTS} failures it is acknowledged and logged as dropped.
+     */
+    private void deliverEconomyUpdate(io.lettuce.core.api.sync.RedisCommands<String, String> sync, String stream, String group,
+                                      io.lettuce.core.StreamMessage<String, String> message, java.util.function.Consumer<String> handler,
+                                      java.util.Map<String, Integer> failures) {
+        String data = message.getBody() != null ? message.getBody().get("data") : null;
+        try {
+            if (data != null) {
+                handler.accept(data);
+            }
+        } catch (Exception e) {
+            int attempts = failures.merge(message.getId(), 1, Integer::sum);
+            if (attempts < STREAM_MAX_ATTEMPTS) {
+                logger.warning("[AutoNexus] Failed to handle economy update " + message.getId() + " (attempt " + attempts + "), will retry: " + e.getMessage());
+                return;
+            }
+            logger.severe("[AutoNexus] Dropping economy update " + message.getId() + " after " + attempts + " failed attempts: " + e.getMessage());
+        }
+        failures.remove(message.getId());
+        sync.xack(stream, group, message.getId());
+    }
+
+    // xreadgroup takes its offsets as generic varargs; building the array here keeps the call sites free of unchecked warnings
+    @SuppressWarnings("unchecked")
+    private static io.lettuce.core.XReadArgs.StreamOffset<String>[] streamOffsets(io.lettuce.core.XReadArgs.StreamOffset<String> offset) {
+        return (io.lettuce.core.XReadArgs.StreamOffset<String>[]) new io.lettuce.core.XReadArgs.StreamOffset<?>[] { offset };
+    }
+
     public void shutdown() {
+        streamRunning = false;
+        if (batcher != null) batcher.close();
+        if (streamConnection != null) streamConnection.close();
         if (pubSubConnection != null) pubSubConnection.close();
+        if (binaryConnection != null) binaryConnection.close();
         if (commandConnection != null) commandConnection.close();
         if (client != null) client.shutdown();
     }
@@ -102,7 +299,7 @@ public class ServerRedisManager implements lytblu7.autonexus.common.INexusRedis
         obj.addProperty("server", serverName);
         String json = gson.toJson(obj);
         try {
-            publish("autonexus:network", json).exceptionally(e -> {
+            publish(keys.proxyChannel(), json).exceptionally(e -> {
                 plugin.getLogger().severe("[SPIGOT-ERROR] Failed to publish TELEPORT: " + e.getMessage());
                 return 0L;
             });
@@ -111,24 +308,14 @@ public class ServerRedisManager implements lytblu7.autonexus.common.INexusRedis
         }
     }
 
-    public java.util.concurrent.CompletableFuture<Void> setPlayerOffline(java.util.UUID uuid) {
+    public java.util.concurrent.CompletableFuture<Long> setPlayerOffline(java.util.UUID uuid) {
         if (commandConnection == null) {
             return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
         }
         String key = keys.player(uuid);
-        return commandConnection.async().get(key).toCompletableFuture().thenCompose(json -> {
-            if (json == null) {
-                return java.util.concurrent.CompletableFuture.completedFuture(null);
-            }
-            try {
-                com.google.gson.JsonObject root = gson.fromJson(json, com.google.gson.JsonObject.class);
-                root.addProperty("currentServer", "offline");
-                String updated = gson.toJson(root);
-                return commandConnection.async().set(key, updated).toCompletableFuture().thenApply(v -> null);
-            } catch (Exception e) {
-                return java.util.concurrent.CompletableFuture.completedFuture(null);
-            }
-        });
+        return commandConnection.async()
+                .<Long>eval(RedisScripts.SET_PLAYER_OFFLINE, io.lettuce.core.ScriptOutputType.INTEGER, new String[]{key})
+                .toCompletableFuture();
     }
 
     public java.util.concurrent.CompletableFuture<NexusProfile> getPlayerProfile(java.util.UUID uuid) {
@@ -149,32 +336,46 @@ public class ServerRedisManager implements lytblu7.autonexus.common.INexusRedis
         });
     }
 
-    private String onlinePlayersKey() {
-        return "autonexus:" + namespace + ":online_players";
+    /**
+     * Loads the online player set and its sequence number in one atomic read.
+     * @return The list of names, preceded by the sequence number as its first element
+     */
+    public java.util.concurrent.CompletableFuture<List<String>> loadOnlinePlayersSnapshot() {
+        if (commandConnection == null) {
+            return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        return commandConnection.async()
+                .<List<Object>>eval(RedisScripts.ONLINE_SET_SNAPSHOT, io.lettuce.core.ScriptOutputType.MULTI,
+                        new String[]{keys.onlinePlayers(), keys.onlinePlayersSeq()})
+                .toCompletableFuture()
+                .thenApply(raw -> {
+                    List<String> result = new java.util.ArrayList<>(raw != null ? raw.size() : 1);
+                    if (raw == null || raw.isEmpty()) {
+                        result.add("0");
+                        return result;
+                    }
+                    for (Object o : raw) {
+                        result.add(String.valueOf(o));
+                    }
+                    return result;
+                });
     }
 
-    public java.util.List<String> getOnlinePlayerNames() {
+    /**
+     * @return The current sequence number of the online player set, 0 if it does not exist, or -1 on error
+     */
+    public long getOnlinePlayersSeq() {
         if (commandConnection == null) {
-            return java.util.Collections.emptyList();
+            return -1L;
         }
         try {
-            String key = onlinePlayersKey();
-            java.util.Set<String> raw = commandConnection.sync().smembers(key);
-            if (raw == null || raw.isEmpty()) {
-                return java.util.Collections.emptyList();
-            }
-            return new java.util.ArrayList<>(raw);
+            String raw = commandConnection.sync().get(keys.onlinePlayersSeq());
+            return raw != null ? Long.parseLong(raw) : 0L;
         } catch (Exception e) {
             if (plugin.isDebug()) {
-                plugin.getLogger().warning("[AutoNexus] Redis error while fetching global players, falling back to local list.");
+                plugin.getLogger().warning("[AutoNexus] Redis error while reading the online player sequence: " + e.getMessage());
             }
-            java.util.List<String> fallback = new java.util.ArrayList<>();
-            for (org.bukkit.entity.Player p : org.bukkit.Bukkit.getOnlinePlayers()) {
-                if (p.getName() != null) {
-                    fallback.add(p.getName());
-                }
-            }
-            return fallback;
+            return -1L;
         }
     }
 
@@ -240,6 +441,117 @@ public class ServerRedisManager implements lytblu7.autonexus.common.INexusRedis
         return out;
     }
 
+    /**
+     * Publishes a packet for {@code target} on {@code channel}: as a binary frame once every node reads one,
+     * as the JSON envelope otherwise.
+     */
+    public java.util.concurrent.CompletableFuture<Long> publishPacket(String channel, String target, NexusPacket packet) {
+        if (binaryConnection != null && binaryPackets && wireProtocol > 0) {
+            byte[] frame = lytblu7.autonexus.common.PacketIO.encode(target, packet);
+            lytblu7.autonexus.common.PacketBatcher b = batcher;
+            if (b != null && wireProtocol >= lytblu7.autonexus.common.PacketIO.BATCH_VERSION) {
+                return b.submit(channel, frame);
+            }
+            return binaryConnection.async().publish(channel, frame).toCompletableFuture();
+        }
+        return publish(channel, gson.toJson(new NetworkEnvelope(target, packet)));
+    }
+
+    /**
+     * @param binaryPackets false to always send the JSON envelope, whatever the other nodes read
+     */
+    public void setBinaryPackets(boolean binaryPackets) {
+        this.binaryPackets = binaryPackets;
+    }
+
+    public int getWireProtocol() {
+        return binaryPackets ? wireProtocol : 0;
+    }
+
+    /**
+     * Coalesces binary packets for the same channel published within {@code windowMicros} into one batch frame.
+     * A window of 0 or a batch size of 1 turns batching off.
+     */
+    public synchronized void configureBatching(long windowMicros, int maxPackets, int maxBytes) {
+        String settings = windowMicros + ":" + maxPackets + ":" + maxBytes;
+        if (settings.equals(batchSettings)) {
+            return;
+        }
+        batchSettings = settings;
+        lytblu7.autonexus.common.PacketBatcher old = batcher;
+        batcher = windowMicros > 0 && maxPackets > 1
+                ? new lytblu7.autonexus.common.PacketBatcher((channel, frame) -> binaryConnection.async().publish(channel, frame).toCompletableFuture(),
+                        windowMicros, maxPackets, maxBytes)
+                : null;
+        if (old != null) {
+            old.close();
+        }
+    }
+
+    /**
+     * @return The batcher for outbound packets, or null while batching is disabled
+     */
+    public lytblu7.autonexus.common.PacketBatcher getPacketBatcher() {
+        return batcher;
+    }
+
+    /**
+     * Renegotiates the frame version to send with from the proxy's advertisement and the server heartbeats.
+     * Blocking; run it off the main thread.
+     */
+    /**
+     * Measures the offset of the local clock to the Redis server's, which day buckets are keyed by.
+     * Blocking; run it off the main thread.
+     */
+    public void syncClock() {
+        if (commandConnection == null) {
+            return;
+        }
+        try {
+            long sentAt = System.currentTimeMillis();
+            java.util.List<String> time = commandConnection.sync().time();
+            lytblu7.autonexus.common.NetworkClock.sync(sentAt, System.currentTimeMillis(), Long.parseLong(time.get(0)), Long.parseLong(time.get(1)));
+        } catch (Exception e) {
+            if (plugin.isDebug()) {
+                logger.warning("[AutoNexus] Clock sync failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Checks whether a proxy archives history; while one does, history writes leave trimming to its archiver.
+     * Blocking; run it off the main thread.
+     */
+    public void refreshHistoryArchive() {
+        if (commandConnection == null) {
+            return;
+        }
+        try {
+            historyArchived = commandConnection.sync().exists(keys.historyArchiver()) > 0;
+        } catch (Exception e) {
+            if (plugin.isDebug()) {
+                logger.warning("[AutoNexus] History archive check failed: " + e.getMessage());
+            }
+        }
+    }
+
+    public void refreshWireProtocol() {
+        if (commandConnection == null) {
+            return;
+        }
+        try {
+            int negotiated = lytblu7.autonexus.common.PacketIO.negotiate(commandConnection.sync().get(keys.proxyProtocol()), getServers());
+            if (negotiated != wireProtocol) {
+                logger.info("[AutoNexus] Packet protocol: " + (negotiated > 0 ? "binary v" + negotiated : "JSON") + " (every node reads it)");
+                wireProtocol = negotiated;
+            }
+        } catch (Exception e) {
+            if (plugin.isDebug()) {
+                logger.warning("[AutoNexus] Protocol negotiation failed: " + e.getMessage());
+            }
+        }
+    }
+
     public java.util.concurrent.CompletableFuture<Void> setServerHeartbeat(ServerInfo info) {
         if (commandConnection == null || info == null) {
             return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
@@ -271,7 +583,7 @@ public class ServerRedisManager implements lytblu7.autonexus.common.INexusRedis
         obj.addProperty("subchannel", channel);
         obj.addProperty("payload", message);
         String json = gson.toJson(obj);
-        return publish("autonexus:network", json);
+        return publish(keys.allChannel(), json);
     }
 
     public java.util.concurrent.CompletableFuture<java.util.Map<String, Object>> loadPlayerData(java.util.UUID uuid) {
@@ -311,6 +623,91 @@ public class ServerRedisManager implements lytblu7.autonexus.common.INexusRedis
         });
     }
 
+    /**
+     * Loads the full player record, including its version.
+     * @return The player, or null if there is no record
+     */
+    public java.util.concurrent.CompletableFuture<NexusPlayer> loadPlayer(java.util.UUID uuid) {
+        if (commandConnection == null) return java.util.concurrent.CompletableFuture.completedFuture(null);
+        String key = keys.player(uuid);
+        java.util.concurrent.CompletableFuture<NexusPlayer> load = commandConnection.async().get(key).toCompletableFuture().thenApply(json -> parsePlayer(uuid, json));
+        if (!economy.isFixed()) {
+            return load;
+        }
+        // Balances live in their own hash in fixed mode; expose them as decimal metadata like legacy records
+        EconomySettings settings = economy;
+        java.util.concurrent.CompletableFuture<java.util.Map<String, String>> balances = commandConnection.async().hgetall(keys.balances(uuid)).toCompletableFuture();
+        return load.thenCombine(balances, (player, minor) -> {
+            if (player != null && minor != null) {
+                for (java.util.Map.Entry<String, String> e : minor.entrySet()) {
+                    try {
+                        player.setMetadata(e.getKey(), settings.format(Long.parseLong(e.getValue())));
+                    } catch (NumberFormatException ignored) {
+                    }
+                }
+            }
+            return player;
+        });
+    }
+
+    /**
+     * Parses a PLAYER_SNAPSHOT payload (a serialized NexusPlayer) sent by the proxy.
+     * @return The player, or null if the payload is not a valid player record
+     */
+    public NexusPlayer parseSnapshot(String json) {
+        try {
+            JsonObject root = gson.fromJson(json, JsonObject.class);
+            if (root == null || !root.has("uuid")) return null;
+            return parsePlayer(java.util.UUID.fromString(root.get("uuid").getAsString()), json);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private NexusPlayer parsePlayer(java.util.UUID uuid, String json) {
+        if (json == null) return null;
+        try {
+            JsonObject root = gson.fromJson(json, JsonObject.class);
+            String name = root.has("lastSeenName") && !root.get("lastSeenName").isJsonNull() ? root.get("lastSeenName").getAsString() : "Unknown";
+            String currentServer = root.has("currentServer") && !root.get("currentServer").isJsonNull() ? root.get("currentServer").getAsString() : "unknown";
+            NexusPlayer player = new NexusPlayer(uuid, name, currentServer);
+            if (root.has("version") && root.get("version").isJsonPrimitive()) {
+                player.setVersion(root.get("version").getAsLong());
+            }
+            if (root.has("metadata") && root.get("metadata").isJsonObject()) {
+                for (java.util.Map.Entry<String, com.google.gson.JsonElement> entry : root.getAsJsonObject("metadata").entrySet()) {
+                    if (entry.getValue() != null && !entry.getValue().isJsonNull()) {
+                        player.setMetadata(entry.getKey(), entry.getValue().getAsString());
+                    }
+                }
+            }
+            return player;
+        } catch (Exception e) {
+            if (plugin.isDebug()) plugin.getLogger().warning("[DEBUG] Failed to parse player JSON: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Saves a full player record without rolling back newer data written by another node.
+     * @return The record version after the write (negative if only location fields were applied)
+     */
+    public java.util.concurrent.CompletableFuture<Long> savePlayerVersioned(NexusPlayer player) {
+        if (commandConnection == null) {
+            return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        String key = keys.player(player.getUuid());
+        JsonObject record = gson.toJsonTree(player).getAsJsonObject();
+        EconomySettings settings = economy;
+        if (settings.isFixed() && record.has("metadata") && record.get("metadata").isJsonObject()) {
+            // The balance hash is authoritative; do not leave copies of it in the record
+            record.getAsJsonObject("metadata").keySet().removeIf(settings::isBalanceField);
+        }
+        return commandConnection.async()
+                .<Long>eval(RedisScripts.SAVE_PLAYER_VERSIONED, io.lettuce.core.ScriptOutputType.INTEGER, new String[]{key}, gson.toJson(record))
+                .toCompletableFuture();
+    }
+
     public void savePlayerData(java.util.UUID uuid, java.util.Map<String, String> data) {
         if (commandConnection == null) return;
         String key = keys.player(uuid);
@@ -350,37 +747,65 @@ public class ServerRedisManager implements lytblu7.autonexus.common.INexusRedis
         return commandConnection != null;
     }
 
-    public java.util.concurrent.CompletableFuture<Void> updatePlayerMetadata(java.util.UUID uuid, java.util.Map<String, String> metadataUpdates) {
+    public java.util.concurrent.CompletableFuture<Long> updatePlayerMetadata(java.util.UUID uuid, java.util.Map<String, String> metadataUpdates) {
         if (commandConnection == null) {
             return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
         }
         String key = keys.player(uuid);
         String jsonUpdates = gson.toJson(metadataUpdates);
         String script = RedisScripts.UPDATE_PLAYER_METADATA;
+        java.util.List<String> ranked = new java.util.ArrayList<>();
+        for (String field : metadataUpdates.keySet()) {
+            if (isRankedField(field)) {
+                ranked.add(field);
+            }
+        }
+        String[] scriptKeys = ranked.isEmpty() ? new String[]{key} : new String[]{key, keys.economyStream()};
         return commandConnection.async()
-                .eval(script, io.lettuce.core.ScriptOutputType.INTEGER, new String[]{key}, jsonUpdates)
+                .<Long>eval(script, io.lettuce.core.ScriptOutputType.INTEGER, scriptKeys, jsonUpdates, ranked.isEmpty() ? "" : gson.toJson(ranked), uuid.toString())
                 .toCompletableFuture()
-                .thenApply(v -> null);
+                .thenApply(version -> {
+                    if (version != null && version > 0) {
+                        announceMetadataWrite(uuid, version);
+                    }
+                    return version;
+                });
     }
 
-    public java.util.concurrent.CompletableFuture<String> incrementMetadataAtomic(java.util.UUID uuid, String field, double delta, String group, String serverSource, String transactionType, String otherPlayerUuid, String reason) {
+    /**
+     * Tells the proxy and the other servers that a player record changed outside the economy stream, so cached
+     * copies older than {@code version} are refetched.
+     * @param version The record version after the write, or 0 if the write did not report it
+     */
+    private void announceMetadataWrite(java.util.UUID uuid, long version) {
+        NexusPacket packet = new NexusPacket("SYNC_PLAYER", new PlayerInvalidation(uuid, version).toJson());
+        publishPacket(keys.channelFor("ALL", null), "ALL", packet).exceptionally(ex -> {
+            if (plugin.isDebug()) {
+                logger.warning("[AutoNexus] Failed to announce metadata write for " + uuid + ": " + ex.getMessage());
+            }
+            return null;
+        });
+    }
+
+    public java.util.concurrent.CompletableFuture<String> incrementMetadataAtomic(java.util.UUID uuid, String field, double delta, String group, String serverSource, String transactionType, String otherPlayerUuid, String reason, String txId) {
         if (commandConnection == null) {
             return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
         }
         String playerKey = keys.player(uuid);
-        String historyKey = keys.history(uuid);
+        String historyKey = keys.historyStream(uuid);
         String baltopKey = keys.economyBaltop(group);
         boolean isBalanceField = field != null && field.toLowerCase().startsWith("balance");
         String script = RedisScripts.INCREMENT_METADATA_ATOMIC;
-        String isBalance = isBalanceField ? "1" : "0";
+        String isBalance = isBalanceField ? "1" : (isRankedField(field) ? "R" : "0");
         String playerUuid = uuid.toString();
         String timestamp = String.valueOf(System.currentTimeMillis());
         String resolvedReason = (reason != null && !reason.isEmpty()) ? reason : "SYSTEM";
+        long today = lytblu7.autonexus.common.model.LeaderboardWindow.today();
         return commandConnection.async()
                 .eval(
                         script,
                         io.lettuce.core.ScriptOutputType.VALUE,
-                        new String[]{playerKey, historyKey, baltopKey},
+                        new String[]{playerKey, historyKey, baltopKey, keys.transaction(txId), keys.economyEarned(group, today), keys.playerStats(uuid, today), keys.economyStream()},
                         field,
                         String.valueOf(delta),
                         isBalance,
@@ -389,26 +814,300 @@ public class ServerRedisManager implements lytblu7.autonexus.common.INexusRedis
                         otherPlayerUuid != null ? otherPlayerUuid : "",
                         playerUuid,
                         timestamp,
-                        resolvedReason
+                        resolvedReason,
+                        historyRetention()
+                )
+                .toCompletableFuture()
+                .thenApply(result -> {
+                    // Balance and ranked changes reach the proxy through the economy stream; plain metadata does not
+                    if ("0".equals(isBalance) && !"INSUFFICIENT_FUNDS".equals(String.valueOf(result))) {
+                        announceMetadataWrite(uuid, 0L);
+                    }
+                    return result.toString();
+                });
+    }
+
+    /**
+     * Fixed-mode increment of a balance field.
+     * @return The new balance in minor units as a string, or "INSUFFICIENT_FUNDS"
+     */
+    public java.util.concurrent.CompletableFuture<String> incrementBalance(java.util.UUID uuid, String field, long deltaMinor, String group, String serverSource, String transactionType, String otherPlayerUuid, String reason, String txId) {
+        if (commandConnection == null) {
+            return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        String resolvedReason = (reason != null && !reason.isEmpty()) ? reason : "SYSTEM";
+        long today = lytblu7.autonexus.common.model.LeaderboardWindow.today();
+        return commandConnection.async()
+                .eval(
+                        RedisScripts.INCREMENT_BALANCE_FIXED,
+                        io.lettuce.core.ScriptOutputType.VALUE,
+                        new String[]{keys.player(uuid), keys.historyStream(uuid), keys.economyBaltop(group), keys.balances(uuid), keys.transaction(txId), keys.economyEarned(group, today), keys.playerStats(uuid, today), keys.economyStream()},
+                        field,
+                        String.valueOf(deltaMinor),
+                        serverSource != null ? serverSource : "",
+                        transactionType != null ? transactionType : "",
+                        otherPlayerUuid != null ? otherPlayerUuid : "",
+                        uuid.toString(),
+                        String.valueOf(System.currentTimeMillis()),
+                        resolvedReason,
+                        String.valueOf(economy.getScale()),
+                        historyRetention()
                 )
                 .toCompletableFuture()
                 .thenApply(Object::toString);
     }
 
-    public java.util.concurrent.CompletableFuture<String> transferMetadataAtomic(java.util.UUID from, java.util.UUID to, String field, double amount) {
+    /**
+     * Applies increments whose keys and groups are already resolved, in chunks of BATCH_CHUNK entries per script call.
+     * The chunks are pipelined on the command connection, so Redis runs them back to back and in order; each chunk
+     * has its own transaction key, so retrying the batch with the same txId skips the chunks that already ran.
+     * Each chunk also emits its own update message; there is no summary message for the whole batch.
+     * @return One result per entry: the new value as a decimal string, "INSUFFICIENT_FUNDS", or "0" for unknown players
+     */
+    public java.util.concurrent.CompletableFuture<List<String>> incrementMetadataBatch(List<lytblu7.autonexus.common.meta.MetadataDelta> deltas, String serverSource, String txId) {
         if (commandConnection == null) {
             return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
         }
+        List<java.util.concurrent.CompletableFuture<List<String>>> parts = new java.util.ArrayList<>();
+        for (int from = 0; from < deltas.size(); from += BATCH_CHUNK) {
+            List<lytblu7.autonexus.common.meta.MetadataDelta> chunk = deltas.subList(from, Math.min(deltas.size(), from + BATCH_CHUNK));
+            String chunkTxId = txId != null ? txId + ":" + (from / BATCH_CHUNK) : null;
+            parts.add(runMetadataBatch(chunk, serverSource, chunkTxId));
+        }
+        return java.util.concurrent.CompletableFuture.allOf(parts.toArray(new java.util.concurrent.CompletableFuture<?>[0])).thenApply(v -> {
+            List<String> results = new java.util.ArrayList<>(deltas.size());
+            for (java.util.concurrent.CompletableFuture<List<String>> part : parts) {
+                results.addAll(part.join());
+            }
+            return results;
+        });
+    }
+
+    private java.util.concurrent.CompletableFuture<List<String>> runMetadataBatch(List<lytblu7.autonexus.common.meta.MetadataDelta> chunk, String serverSource, String txId) {
+        EconomySettings settings = economy;
+        String[] scriptKeys = new String[chunk.size() * 6 + 2];
+        long today = lytblu7.autonexus.common.model.LeaderboardWindow.today();
+        String[] args = new String[4 + chunk.size() * 6 + 1];
+        boolean[] fixed = new boolean[chunk.size()];
+        args[0] = String.valueOf(chunk.size());
+        args[1] = String.valueOf(settings.getScale());
+        args[2] = serverSource != null ? serverSource : "";
+        args[3] = String.valueOf(System.currentTimeMillis());
+        for (int i = 0; i < chunk.size(); i++) {
+            lytblu7.autonexus.common.meta.MetadataDelta d = chunk.get(i);
+            boolean balance = settings.isBalanceField(d.getKey());
+            fixed[i] = balance && settings.isFixed();
+            scriptKeys[i * 6] = keys.player(d.getPlayer());
+            scriptKeys[i * 6 + 1] = keys.historyStream(d.getPlayer());
+            scriptKeys[i * 6 + 2] = keys.economyBaltop(d.getGroup());
+            scriptKeys[i * 6 + 3] = keys.balances(d.getPlayer());
+            scriptKeys[i * 6 + 4] = keys.economyEarned(d.getGroup(), today);
+            scriptKeys[i * 6 + 5] = keys.playerStats(d.getPlayer(), today);
+            int a = 4 + i * 6;
+            args[a] = d.getKey();
+            args[a + 1] = fixed[i] ? String.valueOf(settings.toMinor(d.getDelta())) : String.valueOf(d.getDelta());
+            args[a + 2] = fixed[i] ? "F" : (balance ? "B" : (isRankedField(d.getKey()) ? "R" : "L"));
+            args[a + 3] = d.getTransactionType();
+            args[a + 4] = d.getReason() != null && !d.getReason().isEmpty() ? d.getReason() : "SYSTEM";
+            args[a + 5] = d.getPlayer().toString();
+        }
+        args[args.length - 1] = historyRetention();
+        scriptKeys[chunk.size() * 6] = keys.transaction(txId);
+        scriptKeys[chunk.size() * 6 + 1] = keys.economyStream();
+        return commandConnection.async()
+                .<List<Object>>eval(RedisScripts.INCREMENT_METADATA_BATCH, io.lettuce.core.ScriptOutputType.MULTI, scriptKeys, args)
+                .toCompletableFuture()
+                .thenApply(raw -> {
+                    List<String> out = new java.util.ArrayList<>(chunk.size());
+                    java.util.Set<java.util.UUID> plain = new java.util.HashSet<>();
+                    for (int i = 0; i < chunk.size(); i++) {
+                        String value = raw != null && i < raw.size() ? String.valueOf(raw.get(i)) : "0";
+                        if (fixed[i] && !"INSUFFICIENT_FUNDS".equals(value)) {
+                            value = settings.format(Long.parseLong(value));
+                        }
+                        if ("L".equals(args[4 + i * 6 + 2]) && !"INSUFFICIENT_FUNDS".equals(value)) {
+                            plain.add(chunk.get(i).getPlayer());
+                        }
+                        out.add(value);
+                    }
+                    for (java.util.UUID uuid : plain) {
+                        announceMetadataWrite(uuid, 0L);
+                    }
+                    return out;
+                });
+    }
+
+    @Override
+    public java.util.concurrent.CompletableFuture<String> addToShard(String name, int shard, long deltaMinor, String txId) {
+        if (commandConnection == null) {
+            return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        String[] scriptKeys = { keys.counterShard(name, shard), keys.counterTransaction(name, shard, txId) };
+        return commandConnection.async()
+                .eval(RedisScripts.SHARDED_COUNTER_ADD, io.lettuce.core.ScriptOutputType.VALUE, scriptKeys, String.valueOf(deltaMinor))
+                .toCompletableFuture()
+                .thenApply(Object::toString);
+    }
+
+    @Override
+    public java.util.concurrent.CompletableFuture<String> borrowFromShards(String name, int shards, int shard, long deltaMinor, String txId) {
+        if (commandConnection == null) {
+            return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        String[] scriptKeys = new String[shards + 1];
+        for (int i = 0; i < shards; i++) {
+            scriptKeys[i] = keys.counterShard(name, i);
+        }
+        scriptKeys[shards] = keys.counterTransaction(name, shard, txId);
+        return commandConnection.async()
+                .eval(RedisScripts.SHARDED_COUNTER_BORROW, io.lettuce.core.ScriptOutputType.VALUE, scriptKeys, String.valueOf(shard + 1), String.valueOf(deltaMinor))
+                .toCompletableFuture()
+                .thenApply(Object::toString);
+    }
+
+    @Override
+    public java.util.concurrent.CompletableFuture<Long> sumCounter(String name, int shards) {
+        if (commandConnection == null) {
+            return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        String[] shardKeys = new String[shards];
+        for (int i = 0; i < shards; i++) {
+            shardKeys[i] = keys.counterShard(name, i);
+        }
+        return commandConnection.async().mget(shardKeys).toCompletableFuture().thenApply(values -> {
+            long total = 0L;
+            for (io.lettuce.core.KeyValue<String, String> kv : values) {
+                if (kv.hasValue()) {
+                    total += Long.parseLong(kv.getValue());
+                }
+            }
+            return total;
+        });
+    }
+
+    /**
+     * Fixed-mode transfer of a balance field.
+     * @return The sender's new balance in minor units as a string, or "INSUFFICIENT_FUNDS"
+     */
+    public java.util.concurrent.CompletableFuture<String> transferBalance(java.util.UUID from, java.util.UUID to, String field, long amountMinor, String group, String serverSource, String reason, String txId) {
+        if (commandConnection == null) {
+            return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        long today = lytblu7.autonexus.common.model.LeaderboardWindow.today();
+        return commandConnection.async()
+                .eval(
+                        RedisScripts.TRANSFER_BALANCE_FIXED,
+                        io.lettuce.core.ScriptOutputType.VALUE,
+                        new String[]{keys.player(from), keys.player(to), keys.balances(from), keys.balances(to),
+                        keys.historyStream(from), keys.historyStream(to), keys.economyBaltop(group), keys.transaction(txId), keys.playerStats(from, today), keys.playerStats(to, today), keys.economyStream()},
+                        field,
+                        String.valueOf(amountMinor),
+                        String.valueOf(economy.getScale()),
+                        serverSource != null ? serverSource : "",
+                        from.toString(),
+                        to.toString(),
+                        String.valueOf(System.currentTimeMillis()),
+                        reason != null ? reason : "",
+                        historyRetention()
+                )
+                .toCompletableFuture()
+                .thenApply(Object::toString);
+    }
+
+    /**
+     * @return The balance in minor units; reads the legacy record value if the hash has no entry yet
+     */
+    public java.util.concurrent.CompletableFuture<Long> getBalance(java.util.UUID uuid, String field) {
+        if (commandConnection == null) {
+            return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        EconomySettings settings = economy;
+        java.util.concurrent.CompletableFuture<String> minor = settings.isFixed()
+                ? commandConnection.async().hget(keys.balances(uuid), field).toCompletableFuture()
+                : java.util.concurrent.CompletableFuture.completedFuture(null);
+        return minor.thenCompose(value -> {
+            if (value != null) {
+                return java.util.concurrent.CompletableFuture.completedFuture(settings.parseMinor(value, true));
+            }
+            return commandConnection.async().get(keys.player(uuid)).toCompletableFuture().thenApply(json -> {
+                NexusPlayer player = parsePlayer(uuid, json);
+                String legacy = player != null ? player.getMetadata(field) : null;
+                return legacy != null ? settings.parseMinor(legacy, false) : 0L;
+            });
+        });
+    }
+
+    public java.util.concurrent.CompletableFuture<Void> setBalance(java.util.UUID uuid, String field, long minor) {
+        if (commandConnection == null) {
+            return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        return commandConnection.async().hset(keys.balances(uuid), field, String.valueOf(minor)).toCompletableFuture().thenApply(v -> null);
+    }
+
+    /**
+     * Moves legacy decimal balances of every player record into the fixed-mode balance hashes.
+     * Blocking; call it off the main thread.
+     * @return The number of balance fields moved
+     */
+    public long migrateBalancesToFixed() {
+        if (commandConnection == null) {
+            throw new IllegalStateException("Redis is not connected");
+        }
+        io.lettuce.core.api.sync.RedisCommands<String, String> sync = commandConnection.sync();
+        String scale = String.valueOf(economy.getScale());
+        String prefix = keys.playerPrefix();
+        io.lettuce.core.ScanArgs args = io.lettuce.core.ScanArgs.Builder.matches(prefix + "*").limit(500);
+        io.lettuce.core.ScanCursor cursor = io.lettuce.core.ScanCursor.INITIAL;
+        long moved = 0;
+        do {
+            io.lettuce.core.KeyScanCursor<String> page = sync.scan(cursor, args);
+            for (String playerKey : page.getKeys()) {
+                java.util.UUID uuid;
+                try {
+                    uuid = java.util.UUID.fromString(playerKey.substring(prefix.length()));
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                Long count = sync.eval(RedisScripts.MIGRATE_BALANCES_FIXED, io.lettuce.core.ScriptOutputType.INTEGER,
+                        new String[]{playerKey, keys.balances(uuid)}, scale);
+                moved += count != null ? count : 0L;
+            }
+            cursor = page;
+        } while (!cursor.isFinished());
+        return moved;
+    }
+
+    public java.util.concurrent.CompletableFuture<String> transferMetadataAtomic(java.util.UUID from, java.util.UUID to, String field, double amount, String group, String serverSource, String reason, String txId) {
+        if (commandConnection == null) {
+            return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        EconomySettings settings = economy;
+        if (settings.isFixed() && settings.isBalanceField(field)) {
+            return transferBalance(from, to, field, settings.toMinor(amount), group, serverSource, reason, txId).thenApply(result -> {
+                if ("INSUFFICIENT_FUNDS".equalsIgnoreCase(result)) {
+                    return result;
+                }
+                return settings.format(Long.parseLong(result));
+            });
+        }
         String fromKey = keys.player(from);
         String toKey = keys.player(to);
         String script = RedisScripts.TRANSFER_METADATA_ATOMIC;
+        long today = lytblu7.autonexus.common.model.LeaderboardWindow.today();
         return commandConnection.async()
                 .eval(
                         script,
                         io.lettuce.core.ScriptOutputType.VALUE,
-                        new String[]{fromKey, toKey},
+                        new String[]{fromKey, toKey, keys.historyStream(from), keys.historyStream(to), keys.economyBaltop(group), keys.transaction(txId), keys.playerStats(from, today), keys.playerStats(to, today), keys.economyStream()},
                         field,
-                        String.valueOf(amount)
+                        String.valueOf(amount),
+                        settings.isBalanceField(field) ? "1" : "0",
+                        serverSource != null ? serverSource : "",
+                        from.toString(),
+                        to.toString(),
+                        String.valueOf(System.currentTimeMillis()),
+                        reason != null ? reason : "",
+                        historyRetention()
                 )
                 .toCompletableFuture()
                 .thenApply(Object::toString);
@@ -418,12 +1117,15 @@ public class ServerRedisManager implements lytblu7.autonexus.common.INexusRedis
         if (commandConnection == null) {
             return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
         }
-        String key = keys.economyBaltop(group);
-        String member = (playerName != null ? playerName : "") + "|" + uuid.toString();
-        return commandConnection.async().zadd(key, balance, member).toCompletableFuture().thenApply(v -> null);
+        names.remember(uuid, playerName);
+        return commandConnection.async().eval(RedisScripts.BALTOP_SET, io.lettuce.core.ScriptOutputType.INTEGER,
+                new String[]{keys.economyBaltop(group), keys.playerNames()}, uuid.toString(), String.valueOf(balance), playerName != null ? playerName : "")
+                .toCompletableFuture()
+                .thenApply(v -> null);
     }
     
-    public java.util.concurrent.CompletableFuture<java.util.List<java.util.Map<String, Object>>> getBaltop(String group, int offset, int limit) {
+    @Override
+    public java.util.concurrent.CompletableFuture<java.util.List<lytblu7.autonexus.common.model.LeaderboardEntry>> getBaltop(String group, int offset, int limit) {
         if (commandConnection == null) {
             return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
         }
@@ -433,49 +1135,355 @@ public class ServerRedisManager implements lytblu7.autonexus.common.INexusRedis
         return commandConnection.async()
                 .zrevrangeWithScores(key, start, end)
                 .toCompletableFuture()
-                .thenApply(list -> {
-                    java.util.List<java.util.Map<String, Object>> out = new java.util.ArrayList<>();
+                .thenCompose(list -> {
+                    java.util.List<String> members = new java.util.ArrayList<>(list.size());
+                    java.util.List<Double> scores = new java.util.ArrayList<>(list.size());
                     for (io.lettuce.core.ScoredValue<String> sv : list) {
-                        String member = sv.getValue();
-                        double score = sv.getScore();
-                        String name = member;
-                        int idx = (member != null) ? member.lastIndexOf('|') : -1;
-                        if (member != null && idx > 0) {
-                            name = member.substring(0, idx);
-                        }
-                        java.util.Map<String, Object> row = new java.util.HashMap<>();
-                        row.put("name", name);
-                        row.put("amount", score);
-                        out.add(row);
+                        members.add(sv.getValue());
+                        scores.add(sv.getScore());
                     }
-                    return out;
+                    return toEntries(members, scores);
                 });
     }
 
-    public java.util.concurrent.CompletableFuture<java.util.List<String>> getHistory(java.util.UUID uuid, int limit) {
+    /**
+     * Reads a page of an earnings window; multi-day windows are served from a union of their day buckets that is cached for a short while.
+     */
+    public java.util.concurrent.CompletableFuture<java.util.List<lytblu7.autonexus.common.model.LeaderboardEntry>> getWindowTop(String group, lytblu7.autonexus.common.model.LeaderboardWindow window, int offset, int limit) {
+        if (window == null || window == lytblu7.autonexus.common.model.LeaderboardWindow.ALL_TIME) {
+            return getBaltop(group, offset, limit);
+        }
         if (commandConnection == null) {
             return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
         }
-        String key = keys.history(uuid);
-        if (plugin.isDebug()) {
-            plugin.getLogger().info("[DEBUG] Reading history from Redis key: " + key);
-            plugin.getLogger().info("[DEBUG] [CRITICAL] Reading history from key: " + key);
+        long today = lytblu7.autonexus.common.model.LeaderboardWindow.today();
+        long start = Math.max(0, offset);
+        long end = start + Math.max(0, limit) - 1;
+        if (window == lytblu7.autonexus.common.model.LeaderboardWindow.DAILY) {
+            return commandConnection.async().zrevrangeWithScores(keys.economyEarned(group, today), start, end).toCompletableFuture().thenCompose(list -> {
+                java.util.List<String> members = new java.util.ArrayList<>(list.size());
+                java.util.List<Double> scores = new java.util.ArrayList<>(list.size());
+                for (io.lettuce.core.ScoredValue<String> sv : list) {
+                    members.add(sv.getValue());
+                    scores.add(sv.getScore());
+                }
+                return toEntries(members, scores);
+            });
         }
-        int count = limit <= 0 ? 10 : limit;
-        return commandConnection.async()
-                .lrange(key, 0, count - 1)
+        long first = window.firstDay(today);
+        String[] scriptKeys = new String[(int) (today - first) + 2];
+        scriptKeys[0] = keys.economyEarnedWindow(group, window.name(), today);
+        for (long day = first; day <= today; day++) {
+            scriptKeys[(int) (day - first) + 1] = keys.economyEarned(group, day);
+        }
+        return commandConnection.async().<java.util.List<Object>>eval(RedisScripts.EARNINGS_WINDOW_TOP, io.lettuce.core.ScriptOutputType.MULTI, scriptKeys,
+                String.valueOf(WINDOW_CACHE_MILLIS), String.valueOf(start), String.valueOf(end))
+                .toCompletableFuture()
+                .thenCompose(raw -> {
+                    java.util.List<String> members = new java.util.ArrayList<>();
+                    java.util.List<Double> scores = new java.util.ArrayList<>();
+                    for (int i = 0; i + 1 < raw.size(); i += 2) {
+                        members.add(String.valueOf(raw.get(i)));
+                        scores.add(Double.parseDouble(String.valueOf(raw.get(i + 1))));
+                    }
+                    return toEntries(members, scores);
+                });
+    }
+
+    /**
+     * Sums a player's daily totals of one balance field with one HMGET per day. Days past the retention and days
+     * after today are skipped; a range with no day left yields zero totals.
+     * @param lastDay Last day of the range (inclusive), as days since the epoch
+     */
+    public java.util.concurrent.CompletableFuture<lytblu7.autonexus.common.model.EconomyStats> getEconomyStats(java.util.UUID uuid, String field, long firstDay, long lastDay) {
+        if (commandConnection == null) {
+            return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        long today = lytblu7.autonexus.common.model.LeaderboardWindow.today();
+        long from = Math.max(firstDay, today - RedisScripts.PLAYER_STATS_TTL_SECONDS / 86400 + 1);
+        long to = Math.min(lastDay, today);
+        if (from > to) {
+            return java.util.concurrent.CompletableFuture.completedFuture(new lytblu7.autonexus.common.model.EconomyStats(uuid, field, firstDay, lastDay, 0.0, 0.0));
+        }
+        java.util.List<java.util.concurrent.CompletableFuture<java.util.List<io.lettuce.core.KeyValue<String, String>>>> days = new java.util.ArrayList<>();
+        for (long day = from; day <= to; day++) {
+            days.add(commandConnection.async().hmget(keys.playerStats(uuid, day), field + ":earned", field + ":spent").toCompletableFuture());
+        }
+        return java.util.concurrent.CompletableFuture.allOf(days.toArray(new java.util.concurrent.CompletableFuture<?>[0])).thenApply(v -> {
+            double earned = 0.0;
+            double spent = 0.0;
+            for (java.util.concurrent.CompletableFuture<java.util.List<io.lettuce.core.KeyValue<String, String>>> day : days) {
+                java.util.List<io.lettuce.core.KeyValue<String, String>> values = day.join();
+                earned += parseStat(values.get(0));
+                spent += parseStat(values.get(1));
+            }
+            return new lytblu7.autonexus.common.model.EconomyStats(uuid, field, from, to, earned, spent);
+        });
+    }
+
+    private static double parseStat(io.lettuce.core.KeyValue<String, String> value) {
+        try {
+            return value.hasValue() ? Double.parseDouble(value.getValue()) : 0.0;
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+    }
+
+    /**
+     * Builds leaderboard rows from sorted set members, resolving the names of bare UUID members in one lookup.
+     * Legacy "name|uuid" members carry their own name.
+     */
+    private java.util.concurrent.CompletableFuture<java.util.List<lytblu7.autonexus.common.model.LeaderboardEntry>> toEntries(java.util.List<String> members, java.util.List<Double> scores) {
+        java.util.List<java.util.UUID> uuids = new java.util.ArrayList<>(members.size());
+        java.util.List<java.util.UUID> lookup = new java.util.ArrayList<>();
+        for (String member : members) {
+            int idx = member.lastIndexOf('|');
+            java.util.UUID uuid = parseUuid(idx >= 0 ? member.substring(idx + 1) : member);
+            uuids.add(uuid);
+            if (idx < 0 && uuid != null) {
+                lookup.add(uuid);
+            }
+        }
+        return names.resolve(lookup).thenApply(resolved -> {
+            java.util.List<lytblu7.autonexus.common.model.LeaderboardEntry> out = new java.util.ArrayList<>(members.size());
+            for (int i = 0; i < members.size(); i++) {
+                String member = members.get(i);
+                int idx = member.lastIndexOf('|');
+                String name = idx > 0 ? member.substring(0, idx) : resolved.getOrDefault(uuids.get(i), member);
+                out.add(new lytblu7.autonexus.common.model.LeaderboardEntry(uuids.get(i), name, scores.get(i)));
+            }
+            return out;
+        });
+    }
+
+    private static java.util.UUID parseUuid(String value) {
+        try {
+            return java.util.UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public java.util.concurrent.CompletableFuture<java.util.List<String>> getPlayerNames(java.util.List<java.util.UUID> uuids) {
+        if (commandConnection == null) {
+            return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        String[] fields = new String[uuids.size()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = uuids.get(i).toString();
+        }
+        return commandConnection.async().hmget(keys.playerNames(), fields).toCompletableFuture().thenApply(values -> {
+            java.util.List<String> out = new java.util.ArrayList<>(values.size());
+            for (io.lettuce.core.KeyValue<String, String> kv : values) {
+                out.add(kv.hasValue() ? kv.getValue() : null);
+            }
+            return out;
+        });
+    }
+
+    /**
+     * Rewrites the legacy "name|uuid" members of every leaderboard as bare UUIDs and fills the name index from them.
+     * Blocking; call it off the main thread.
+     * @return The number of members rewritten
+     */
+    public long compactBaltops() {
+        if (commandConnection == null) {
+            throw new IllegalStateException("Redis is not connected");
+        }
+        io.lettuce.core.api.sync.RedisCommands<String, String> sync = commandConnection.sync();
+        io.lettuce.core.ScanArgs keyArgs = io.lettuce.core.ScanArgs.Builder.matches(keys.economyBaltopPrefix() + "*").limit(100);
+        io.lettuce.core.ScanArgs memberArgs = io.lettuce.core.ScanArgs.Builder.matches("*|*").limit(500);
+        io.lettuce.core.ScanCursor cursor = io.lettuce.core.ScanCursor.INITIAL;
+        long moved = 0;
+        do {
+            io.lettuce.core.KeyScanCursor<String> page = sync.scan(cursor, keyArgs);
+            for (String baltopKey : page.getKeys()) {
+                io.lettuce.core.ScanCursor memberCursor = io.lettuce.core.ScanCursor.INITIAL;
+                do {
+                    io.lettuce.core.ScoredValueScanCursor<String> members = sync.zscan(baltopKey, memberCursor, memberArgs);
+                    String[] legacy = new String[members.getValues().size()];
+                    for (int i = 0; i < legacy.length; i++) {
+                        legacy[i] = members.getValues().get(i).getValue();
+                    }
+                    if (legacy.length > 0) {
+                        Long count = sync.eval(RedisScripts.BALTOP_COMPACT, io.lettuce.core.ScriptOutputType.INTEGER,
+                                new String[]{baltopKey, keys.playerNames()}, legacy);
+                        moved += count != null ? count : 0L;
+                    }
+                    memberCursor = members;
+                } while (!memberCursor.isFinished());
+            }
+            cursor = page;
+        } while (!cursor.isFinished());
+        return moved;
+    }
+
+    @Override
+    public java.util.concurrent.CompletableFuture<lytblu7.autonexus.common.model.LeaderboardRank> getRankAround(java.util.UUID player, String group, int radius) {
+        if (commandConnection == null) {
+            return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        return rankAround(keys.economyBaltop(group), player, group, radius);
+    }
+
+    /**
+     * Reads a page of a ranked metadata board as persisted by the proxy.
+     */
+    public java.util.concurrent.CompletableFuture<java.util.List<lytblu7.autonexus.common.model.LeaderboardEntry>> getMetadataTop(String field, int offset, int limit) {
+        if (commandConnection == null) {
+            return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        long start = Math.max(0, offset);
+        long end = start + Math.max(0, limit) - 1;
+        return commandConnection.async().zrevrangeWithScores(keys.rankedMetadata(field), start, end).toCompletableFuture().thenCompose(list -> {
+            java.util.List<String> members = new java.util.ArrayList<>(list.size());
+            java.util.List<Double> scores = new java.util.ArrayList<>(list.size());
+            for (io.lettuce.core.ScoredValue<String> sv : list) {
+                members.add(sv.getValue());
+                scores.add(sv.getScore());
+            }
+            return toEntries(members, scores);
+        });
+    }
+
+    public java.util.concurrent.CompletableFuture<lytblu7.autonexus.common.model.LeaderboardRank> getMetadataRankAround(java.util.UUID player, String field, int radius) {
+        if (commandConnection == null) {
+            return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        return rankAround(keys.rankedMetadata(field), player, field, radius);
+    }
+
+    private java.util.concurrent.CompletableFuture<lytblu7.autonexus.common.model.LeaderboardRank> rankAround(String boardKey, java.util.UUID player, String group, int radius) {
+        return commandConnection.async().<java.util.List<Object>>eval(RedisScripts.LEADERBOARD_RANK_AROUND, io.lettuce.core.ScriptOutputType.MULTI,
+                new String[]{boardKey, keys.player(player)}, player.toString(), String.valueOf(radius))
                 .toCompletableFuture()
-                .thenApply(list -> {
-                    if (list == null) {
-                        return Collections.<String>emptyList();
+                .thenCompose(raw -> {
+                    long rank0 = raw.isEmpty() ? -1L : Long.parseLong(String.valueOf(raw.get(0)));
+                    if (rank0 < 0) {
+                        return java.util.concurrent.CompletableFuture.completedFuture(lytblu7.autonexus.common.model.LeaderboardRank.unranked(player, group));
                     }
-                    if (!list.isEmpty() && plugin.isDebug()) {
-                        plugin.getLogger().info("[DEBUG] [CRITICAL] First history entry: " + list.get(0));
+                    double score = Double.parseDouble(String.valueOf(raw.get(1)));
+                    long first = raw.size() > 2 ? Long.parseLong(String.valueOf(raw.get(2))) : rank0;
+                    java.util.List<String> members = new java.util.ArrayList<>();
+                    java.util.List<Double> scores = new java.util.ArrayList<>();
+                    for (int i = 3; i + 1 < raw.size(); i += 2) {
+                        members.add(String.valueOf(raw.get(i)));
+                        scores.add(Double.parseDouble(String.valueOf(raw.get(i + 1))));
                     }
-                    return list;
+                    return toEntries(members, scores).thenApply(around ->
+                            new lytblu7.autonexus.common.model.LeaderboardRank(player, group, rank0 + 1, score, first + 1, around));
                 });
     }
 
+    @Override
+    public java.util.concurrent.CompletableFuture<Boolean> acquireLeaderboardLock(String nodeId, long ttlMillis) {
+        if (commandConnection == null) {
+            return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        return commandConnection.async()
+                .eval(RedisScripts.LEADER_LOCK, io.lettuce.core.ScriptOutputType.INTEGER, new String[]{keys.leaderboardLock()}, nodeId, String.valueOf(ttlMillis))
+                .toCompletableFuture()
+                .thenApply(result -> ((Number) result).longValue() == 1L);
+    }
+
+    @Override
+    public java.util.concurrent.CompletableFuture<java.util.Set<String>> getLeaderboardGroups() {
+        if (commandConnection == null) {
+            return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        return commandConnection.async().smembers(keys.leaderboardGroups()).toCompletableFuture();
+    }
+
+    @Override
+    public java.util.concurrent.CompletableFuture<Void> addLeaderboardGroup(String group) {
+        if (commandConnection == null) {
+            return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        return commandConnection.async().sadd(keys.leaderboardGroups(), group).toCompletableFuture().thenApply(v -> null);
+    }
+
+    @Override
+    public java.util.concurrent.CompletableFuture<Void> storeLeaderboardSnapshot(String group, String payload, long ttlMillis) {
+        if (commandConnection == null) {
+            return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        return commandConnection.async().psetex(keys.leaderboardSnapshot(group), ttlMillis, payload).toCompletableFuture().thenApply(v -> null);
+    }
+
+    @Override
+    public java.util.concurrent.CompletableFuture<String> loadLeaderboardSnapshot(String group) {
+        if (commandConnection == null) {
+            return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        return commandConnection.async().get(keys.leaderboardSnapshot(group)).toCompletableFuture();
+    }
+
+    /**
+     * @return The newest {@code limit} history entries as JSON; players without a history stream yet get their legacy list
+     */
+    public java.util.concurrent.CompletableFuture<java.util.List<String>> getHistory(java.util.UUID uuid, int limit) {
+        if (commandConnection == null) {
+            return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        int count = limit <= 0 ? 10 : limit;
+        return getHistory(uuid, null, count, lytblu7.autonexus.common.model.HistoryFilter.ALL).thenCompose(page -> {
+            if (!page.getEntries().isEmpty()) {
+                java.util.List<String> out = new java.util.ArrayList<>(page.getEntries().size());
+                for (lytblu7.autonexus.common.model.HistoryEntry entry : page.getEntries()) {
+                    out.add(entry.getJson());
+                }
+                return java.util.concurrent.CompletableFuture.completedFuture(out);
+            }
+            String key = keys.history(uuid);
+            if (plugin.isDebug()) {
+                plugin.getLogger().info("[DEBUG] No history stream, reading legacy history key: " + key);
+            }
+            return commandConnection.async()
+                    .lrange(key, 0, count - 1)
+                    .toCompletableFuture()
+                    .thenApply(list -> list != null ? list : Collections.<String>emptyList());
+        });
+    }
+
+    /**
+     * Reads one page of a player's history, newest first.
+     * @param fromCursor The cursor of the previous page, or null for the newest entries
+     */
+    public java.util.concurrent.CompletableFuture<lytblu7.autonexus.common.model.HistoryPage> getHistory(java.util.UUID uuid, String fromCursor, int limit, lytblu7.autonexus.common.model.HistoryFilter filter) {
+        if (commandConnection == null) {
+            return java.util.concurrent.CompletableFuture.failedFuture(new IllegalStateException("Redis is not connected"));
+        }
+        lytblu7.autonexus.common.model.HistoryFilter f = filter != null ? filter : lytblu7.autonexus.common.model.HistoryFilter.ALL;
+        String end = fromCursor != null && !fromCursor.isEmpty() ? "(" + fromCursor : (f.getTo() > 0 ? String.valueOf(f.getTo()) : "+");
+        String start = f.getFrom() > 0 ? String.valueOf(f.getFrom()) : "-";
+        return commandConnection.async().<java.util.List<Object>>eval(RedisScripts.HISTORY_PAGE, io.lettuce.core.ScriptOutputType.MULTI,
+                new String[]{keys.historyStream(uuid)},
+                end, start, String.valueOf(Math.max(1, limit)), String.join(",", f.getTypes()), String.valueOf(HISTORY_SCAN_BUDGET))
+                .toCompletableFuture()
+                .thenApply(this::toHistoryPage);
+    }
+
+    private lytblu7.autonexus.common.model.HistoryPage toHistoryPage(java.util.List<Object> raw) {
+        java.util.List<lytblu7.autonexus.common.model.HistoryEntry> entries = new java.util.ArrayList<>();
+        for (int i = 1; i + 1 < raw.size(); i += 2) {
+            String id = String.valueOf(raw.get(i));
+            String json = String.valueOf(raw.get(i + 1));
+            JsonObject tx = gson.fromJson(json, JsonObject.class);
+            int dash = id.indexOf('-');
+            entries.add(new lytblu7.autonexus.common.model.HistoryEntry(
+                    id,
+                    Long.parseLong(dash > 0 ? id.substring(0, dash) : id),
+                    tx.has("type") ? tx.get("type").getAsString() : "",
+                    tx.has("amount") ? tx.get("amount").getAsDouble() : 0.0,
+                    tx.has("otherPlayer") ? tx.get("otherPlayer").getAsString() : "",
+                    tx.has("reason") ? tx.get("reason").getAsString() : "",
+                    json));
+        }
+        String cursor = raw.isEmpty() ? "" : String.valueOf(raw.get(0));
+        return new lytblu7.autonexus.common.model.HistoryPage(entries, cursor.isEmpty() ? null : cursor);
+    }
+
     public java.util.concurrent.CompletableFuture<java.util.List<String>> getGlobalHistory(java.util.UUID uuid, int limit) {
         if (plugin.isDebug()) {
             plugin.getLogger().info("[DEBUG] [CRITICAL] ServerRedisManager.getGlobalHistory called for " + uuid + " limit=" + limit);
@@ -483,6 +1491,35 @@ public class ServerRedisManager implements lytblu7.autonexus.common.INexusRedis
         return getHistory(uuid, limit);
     }
 
+    private void processFrame(byte[] data) {
+        if (!lytblu7.autonexus.common.PacketIO.isBinary(data)) {
+            processMessage(new String(data, java.nio.charset.StandardCharsets.UTF_8));
+            return;
+        }
+        if (lytblu7.autonexus.common.PacketIO.isBatch(data)) {
+            List<byte[]> frames = lytblu7.autonexus.common.PacketIO.unpackBatch(data);
+            if (frames == null) {
+                logger.warning("Dropped unreadable packet batch (" + data.length + " bytes)");
+                return;
+            }
+            // Packets are handed to the main thread one task each, in batch order
+            for (byte[] frame : frames) {
+                processFrame(frame);
+            }
+            return;
+        }
+        lytblu7.autonexus.common.PacketIO.Frame frame = lytblu7.autonexus.common.PacketIO.decodeFrame(data);
+        if (frame == null) {
+            logger.warning("Dropped unreadable binary packet (" + data.length + " bytes)");
+            return;
+        }
+        try {
+            processEnvelope(frame.getTarget(), frame.getPacket());
+        } catch (Exception e) {
+            logger.warning("Failed to process Redis message: " + e.getMessage());
+        }
+    }
+
     private void processMessage(String message) {
         try {
             JsonObject root = gson.fromJson(message, JsonObject.class);
@@ -500,6 +1537,14 @@ public class ServerRedisManager implements lytblu7.autonexus.common.INexusRedis
                         }
                     }
                     return;
+                } else if ("ONLINE_DELTA".equalsIgnoreCase(action)) {
+                    String ns = root.has("namespace") ? root.get("namespace").getAsString() : null;
+                    if (ns != null && ns.equals(namespace) && root.has("seq")) {
+                        String op = root.has("op") ? root.get("op").getAsString() : "";
+                        String name = root.has("name") ? root.get("name").getAsString() : null;
+                        plugin.applyOnlineDelta(root.get("seq").getAsLong(), op, name);
+                    }
+                    return;
                 } else if ("RELOAD_NETWORK".equalsIgnoreCase(action)) {
                     Bukkit.getScheduler().runTask(plugin, plugin::reloadSettings);
                     return;
@@ -524,46 +1569,63 @@ public class ServerRedisManager implements lytblu7.autonexus.common.INexusRedis
 
             NetworkEnvelope envelope = gson.fromJson(message, NetworkEnvelope.class);
             if (envelope == null) return;
+            processEnvelope(envelope.target, envelope.packet);
+        } catch (Exception e) {
+            logger.warning("Failed to process Redis message: " + e.getMessage());
+        }
+    }
 
-            // Check target
-            // If target is "all" or "ALL" (case insensitive), accept.
-            // If target matches our serverName, accept.
-            // If envelope has targetGroup and it matches our serverGroup, accept.
-            // Otherwise ignore.
-            boolean isGlobal = "all".equalsIgnoreCase(envelope.target);
-            boolean isMyName = serverName.equalsIgnoreCase(envelope.target);
-            String targetGroup = envelope.packet != null ? envelope.packet.getTargetGroup() : null;
-            boolean isMyGroup = targetGroup != null && targetGroup.equalsIgnoreCase(serverGroup);
+    private void processEnvelope(String target, NexusPacket packet) {
+        // Check target
+        // If target is "all" or "ALL" (case insensitive), accept.
+        // If target matches our serverName, accept.
+        // If envelope has targetGroup and it matches our serverGroup, accept.
+        // Otherwise ignore.
+        boolean isGlobal = "all".equalsIgnoreCase(target);
+        boolean isMyName = serverName.equalsIgnoreCase(target);
+        String targetGroup = packet != null ? packet.getTargetGroup() : null;
+        boolean isMyGroup = targetGroup != null && targetGroup.equalsIgnoreCase(serverGroup);
 
-            // Debug logging for filtering logic
-            if (plugin.isDebug() && targetGroup != null) {
-                boolean shouldExecute = isGlobal || isMyName || isMyGroup;
-                logger.info("[DEBUG] Received command for group '" + targetGroup + "'. My group is '" + serverGroup + "'. Executing: " + shouldExecute);
-            }
+        // Debug logging for filtering logic
+        if (plugin.isDebug() && targetGroup != null) {
+            boolean shouldExecute = isGlobal || isMyName || isMyGroup;
+            logger.info("[DEBUG] Received command for group '" + targetGroup + "'. My group is '" + serverGroup + "'. Executing: " + shouldExecute);
+        }
 
-            if (!isGlobal && !isMyName && !isMyGroup) {
-                // logger.info("[DEBUG] Packet ignored, target was " + envelope.target + " (My name: " + serverName + ", Group: " + serverGroup + ")");
-                return;
-            }
+        if (!isGlobal && !isMyName && !isMyGroup) {
+            // logger.info("[DEBUG] Packet ignored, target was " + target + " (My name: " + serverName + ", Group: " + serverGroup + ")");
+            return;
+        }
 
-            NexusPacket packet = envelope.packet;
-            if (packet == null) return;
+        if (packet == null) return;
 
-            // logger.info("[TRACE] Redis Pub/Sub: Received packet " + packet.getType());
+        if ("PLAYER_SNAPSHOT".equals(packet.getType())) {
+            // Handled right here, not on the next tick: it has to land before the player's join event
+            if (isMyName) {
+                plugin.acceptSnapshot(parseSnapshot(packet.getPayload()));
+            }
+            return;
+        }
 
-            // Run on main thread
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                // logger.info("[AutoNexus] [REDIS] Executing remote command: " + packet.getPayload());
-                handlePacket(packet);
-            });
+        // logger.info("[TRACE] Redis Pub/Sub: Received packet " + packet.getType());
 
-        } catch (Exception e) {
-            logger.warning("Failed to process Redis message: " + e.getMessage());
-        }
+        // Run on main thread
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            // logger.info("[AutoNexus] [REDIS] Executing remote command: " + packet.getPayload());
+            handlePacket(packet);
+        });
     }
     
     public void setServerGroup(String newGroup) {
+        String oldChannel = keys.groupChannel(serverGroup);
+        String newChannel = keys.groupChannel(newGroup);
         this.serverGroup = newGroup;
+        if (pubSubConnection != null && !oldChannel.equals(newChannel)) {
+            channels.add(newChannel);
+            pubSubConnection.async().subscribe(newChannel);
+            channels.remove(oldChannel);
+            pubSubConnection.async().unsubscribe(oldChannel);
+        }
     }
     
     public String getServerGroup() {
@@ -628,6 +1690,11 @@ public class ServerRedisManager implements lytblu7.autonexus.common.INexusRedis
             }
         } else if ("METADATA_SYNC".equals(type)) {
              String[] parts = payload.split(":", 3);
+             if (parts.length == 3) {
+                 try {
+                     plugin.invalidateOfflinePlayer(java.util.UUID.fromString(parts[0]));
+                 } catch (IllegalArgumentException ignored) {}
+             }
              if (parts.length == 3 && "isAdmin".equals(parts[1]) && "true".equals(parts[2])) {
                  try {
                      java.util.UUID uuid = java.util.UUID.fromString(parts[0]);
@@ -640,34 +1707,13 @@ public class ServerRedisManager implements lytblu7.autonexus.common.INexusRedis
                  } catch (Exception ignored) {}
              }
         } else if ("SYNC_PLAYER".equals(type)) {
-            // Handle Sync Request (Invalidate Cache & Reload if online)
-            try {
-                String uuidStr = payload;
-                // If payload is JSON (starts with {), extract UUID
-                if (payload.trim().startsWith("{")) {
-                     com.google.gson.JsonObject json = gson.fromJson(payload, com.google.gson.JsonObject.class);
-                     if (json.has("uuid")) {
-                         uuidStr = json.get("uuid").getAsString();
-                     }
-                }
-                
-                java.util.UUID uuid = java.util.UUID.fromString(uuidStr);
-                
-                // 1. Invalidate Local Cache
-                plugin.removeCachedPlayer(uuid);
-                
-                // 2. If player is online, trigger a reload to update metadata (e.g. balance)
-                if (Bukkit.getPlayer(uuid) != null) {
-                    plugin.getPlayer(uuid).thenAccept(player -> {
-                         // Data refreshed in cache
-                         // Optional: Notify player?
-                         // Bukkit.getPlayer(uuid).sendMessage("§7[Debug] Data synced from network.");
-                    });
-                }
-                // logger.info("[AutoNexus] Synced player data for " + uuid);
-            } catch (Exception e) {
-                logger.warning("Failed to handle SYNC_PLAYER: " + e.getMessage());
+            // Versioned invalidation: only refetch if our copy is older than the announced version
+            PlayerInvalidation invalidation = PlayerInvalidation.parse(payload);
+            if (invalidation == null) {
+                logger.warning("Failed to handle SYNC_PLAYER: invalid payload " + payload);
+                return;
             }
+            plugin.applyInvalidation(invalidation);
         }
     }
 